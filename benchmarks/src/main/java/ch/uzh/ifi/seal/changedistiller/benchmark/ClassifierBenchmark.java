@@ -0,0 +1,114 @@
+package ch.uzh.ifi.seal.changedistiller.benchmark;
+
+/*
+ * #%L
+ * ChangeDistiller
+ * %%
+ * Copyright (C) 2011 - 2013 Software Architecture and Evolution Lab, Department of Informatics, UZH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import ch.uzh.ifi.seal.changedistiller.ast.java.JavaASTHelper;
+import ch.uzh.ifi.seal.changedistiller.ast.java.JavaSourceCodeChangeClassifier;
+import ch.uzh.ifi.seal.changedistiller.distilling.SourceCodeChangeConverter;
+import ch.uzh.ifi.seal.changedistiller.model.entities.SourceCodeChange;
+import ch.uzh.ifi.seal.changedistiller.model.entities.StructureEntityVersion;
+import ch.uzh.ifi.seal.changedistiller.treedifferencing.TreeDifferencer;
+import ch.uzh.ifi.seal.changedistiller.treedifferencing.TreeEditOperation;
+
+/**
+ * Benchmarks classifying the source code changes of the methods of the corpus with the
+ * {@link JavaSourceCodeChangeClassifier}. The edit scripts are calculated once, the classifier consumes the source
+ * code changes converted from them before every invocation.
+ * 
+ * @author Beat Fluri
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ClassifierBenchmark {
+
+    /**
+     * The edit scripts of the methods in both versions of the corpus.
+     */
+    @State(Scope.Benchmark)
+    public static class EditScripts {
+
+        private List<StructureEntityVersion> fMethods = new ArrayList<StructureEntityVersion>();
+        private List<List<TreeEditOperation>> fEditScripts = new ArrayList<List<TreeEditOperation>>();
+
+        @Setup
+        public void calculate(Corpus corpus) {
+            fMethods.clear();
+            fEditScripts.clear();
+            Sources sources = new Sources();
+            sources.createFactory();
+            sources.createHelpers(corpus);
+            TreeDifferencer differencer = new TreeDifferencer();
+            for (int i = 0; i < sources.size(); i++) {
+                JavaASTHelper left = sources.getLeft(i);
+                for (MethodPair pair : MethodPair.create(left, sources.getRight(i))) {
+                    fMethods.add(left.createStructureEntityVersion(pair.getLeft()));
+                    fEditScripts.add(differencer.calculateEditScript(pair.getLeftTree(), pair.getRightTree()));
+                }
+            }
+        }
+    }
+
+    /**
+     * The unclassified source code changes, converted anew before every invocation.
+     */
+    @State(Scope.Thread)
+    public static class Changes {
+
+        private List<List<SourceCodeChange>> fChanges = new ArrayList<List<SourceCodeChange>>();
+
+        @Setup(Level.Invocation)
+        public void convert(EditScripts editScripts) {
+            fChanges.clear();
+            for (int i = 0; i < editScripts.fMethods.size(); i++) {
+                SourceCodeChangeConverter converter = new SourceCodeChangeConverter(editScripts.fMethods.get(i));
+                converter.addTreeEditOperationsAsSourceCodeChanges(editScripts.fEditScripts.get(i));
+                fChanges.add(converter.getSourceCodeChanges());
+            }
+        }
+    }
+
+    @Benchmark
+    public void classifySourceCodeChanges(Changes changes, Blackhole blackhole) {
+        JavaSourceCodeChangeClassifier classifier = new JavaSourceCodeChangeClassifier();
+        for (List<SourceCodeChange> sourceCodeChanges : changes.fChanges) {
+            blackhole.consume(classifier.classifySourceCodeChanges(sourceCodeChanges));
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package ch.uzh.ifi.seal.changedistiller.benchmark;
+
+/*
+ * #%L
+ * ChangeDistiller
+ * %%
+ * Copyright (C) 2011 - 2013 Software Architecture and Evolution Lab, Department of Informatics, UZH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import ch.uzh.ifi.seal.changedistiller.JavaChangeDistillerModule;
+import ch.uzh.ifi.seal.changedistiller.ast.FileUtils;
+import ch.uzh.ifi.seal.changedistiller.ast.java.JavaCompilationCache;
+
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+
+/**
+ * The pairs of left and right sources a benchmark distills.
+ * 
+ * <p>
+ * The corpus <code>testdata</code> consists of the <code>*Left.java</code> and <code>*Right.java</code> pairs of
+ * <code>resources/testdata/src_change</code>. The test data folder is taken from the system property
+ * {@value #TESTDATA_PROPERTY} and defaults to <code>../resources/testdata</code>, i.e., running from the benchmarks
+ * folder. The corpora <code>synthetic-N</code> consist of one {@link SyntheticSource} pair with <code>N</code>
+ * methods.
+ * 
+ * @author Beat Fluri
+ */
+@State(Scope.Benchmark)
+public class Corpus {
+
+    /**
+     * System property pointing to the test data folder.
+     */
+    public static final String TESTDATA_PROPERTY = "changedistiller.testdata";
+
+    private static final String SYNTHETIC = "synthetic-";
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    @Param({"testdata", "synthetic-100", "synthetic-1000"})
+    public String corpus;
+
+    private List<char[]> fLefts = new ArrayList<char[]>();
+    private List<char[]> fRights = new ArrayList<char[]>();
+    private List<String> fNames = new ArrayList<String>();
+
+    /**
+     * Loads the sources of the corpus.
+     * 
+     * @throws IOException
+     *             if the test data cannot be read
+     */
+    @Setup
+    public void load() throws IOException {
+        fLefts.clear();
+        fRights.clear();
+        fNames.clear();
+        if (corpus.startsWith(SYNTHETIC)) {
+            int methods = Integer.parseInt(corpus.substring(SYNTHETIC.length()));
+            char[] left = SyntheticSource.create(methods, false).toCharArray();
+            char[] right = SyntheticSource.create(methods, true).toCharArray();
+            add("Synthetic.java", left, right);
+        } else {
+            File folder = new File(System.getProperty(TESTDATA_PROPERTY, "../resources/testdata"), "src_change");
+            File[] files = folder.listFiles();
+            if (files == null) {
+                throw new IOException("Test data not found: " + folder.getAbsolutePath());
+            }
+            for (File left : files) {
+                String name = left.getName();
+                if (name.endsWith("Left.java")) {
+                    File right = new File(folder, name.replace("Left.java", "Right.java"));
+                    add(name, FileUtils.getCharacters(left, UTF_8), FileUtils.getCharacters(right, UTF_8));
+                }
+            }
+        }
+    }
+
+    private void add(String name, char[] left, char[] right) {
+        fNames.add(name);
+        fLefts.add(left);
+        fRights.add(right);
+    }
+
+    public int size() {
+        return fNames.size();
+    }
+
+    public String getName(int i) {
+        return fNames.get(i);
+    }
+
+    public char[] getLeft(int i) {
+        return fLefts.get(i);
+    }
+
+    public char[] getRight(int i) {
+        return fRights.get(i);
+    }
+
+    /**
+     * Creates an injector of the Java module. Without caching, every distillation parses its sources, as it does when
+     * every file is distilled once.
+     * 
+     * @param cached
+     *            whether parsed sources are cached
+     * @return the injector
+     */
+    public static Injector createInjector(boolean cached) {
+        return createInjector(cached, false);
+    }
+
+    /**
+     * Creates an injector of the Java module.
+     * 
+     * @param cached
+     *            whether parsed sources are cached
+     * @param diet
+     *            whether sources are diet parsed, so that only the bodies of distilled methods get parsed
+     * @return the injector
+     */
+    public static Injector createInjector(boolean cached, boolean diet) {
+        JavaChangeDistillerModule module = new JavaChangeDistillerModule();
+        module.setCompilationCacheCapacity(cached ? JavaCompilationCache.DEFAULT_CAPACITY : 0);
+        module.setDietParsing(diet);
+        return Guice.createInjector(module);
+    }
+}
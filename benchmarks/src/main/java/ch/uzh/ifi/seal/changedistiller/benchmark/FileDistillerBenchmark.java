@@ -0,0 +1,81 @@
+package ch.uzh.ifi.seal.changedistiller.benchmark;
+
+/*
+ * #%L
+ * ChangeDistiller
+ * %%
+ * Copyright (C) 2011 - 2013 Software Architecture and Evolution Lab, Department of Informatics, UZH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import ch.uzh.ifi.seal.changedistiller.distilling.FileDistiller;
+
+import com.google.inject.Injector;
+
+/**
+ * Benchmarks distilling the corpus end-to-end with the {@link FileDistiller}. Without caching, every invocation parses
+ * the sources, as it does when every file is distilled once; with caching, the sources are parsed only once. With diet
+ * parsing, only the bodies of the distilled methods are parsed.
+ * 
+ * @author Beat Fluri
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FileDistillerBenchmark {
+
+    @Param({"false", "true"})
+    public boolean cached;
+
+    @Param({"false", "true"})
+    public boolean diet;
+
+    private Injector fInjector;
+
+    @Setup
+    public void createInjector() {
+        fInjector = Corpus.createInjector(cached, diet);
+    }
+
+    @Benchmark
+    public void extractClassifiedSourceCodeChanges(Corpus corpus, Blackhole blackhole) {
+        for (int i = 0; i < corpus.size(); i++) {
+            FileDistiller distiller = fInjector.getInstance(FileDistiller.class);
+            distiller.extractClassifiedSourceCodeChanges(
+                    corpus.getLeft(i),
+                    corpus.getName(i),
+                    corpus.getRight(i),
+                    corpus.getName(i));
+            blackhole.consume(distiller.getSourceCodeChanges());
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package ch.uzh.ifi.seal.changedistiller.benchmark;
+
+/*
+ * #%L
+ * ChangeDistiller
+ * %%
+ * Copyright (C) 2011 - 2013 Software Architecture and Evolution Lab, Department of Informatics, UZH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import ch.uzh.ifi.seal.changedistiller.ast.java.JavaASTHelper;
+import ch.uzh.ifi.seal.changedistiller.ast.java.JavaMethodBodyConverter;
+import ch.uzh.ifi.seal.changedistiller.structuredifferencing.java.JavaStructureNode;
+
+/**
+ * Benchmarks building the method body trees of all methods of the corpus with the {@link JavaMethodBodyConverter}.
+ * The structure trees are built as part of the benchmark, since every invocation needs fresh AST helpers.
+ * 
+ * @author Beat Fluri
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class MethodBodyConverterBenchmark {
+
+    @Benchmark
+    public void createMethodBodyTrees(Sources sources, Blackhole blackhole) {
+        for (int i = 0; i < sources.size(); i++) {
+            createMethodBodyTrees(sources.getLeft(i), blackhole);
+            createMethodBodyTrees(sources.getRight(i), blackhole);
+        }
+    }
+
+    private static void createMethodBodyTrees(JavaASTHelper helper, Blackhole blackhole) {
+        for (JavaStructureNode method : MethodPair.collectMethods(helper.createStructureTree())) {
+            blackhole.consume(helper.createMethodBodyTree(method));
+        }
+    }
+}
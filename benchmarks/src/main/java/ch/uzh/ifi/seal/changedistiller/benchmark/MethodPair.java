@@ -0,0 +1,116 @@
+package ch.uzh.ifi.seal.changedistiller.benchmark;
+
+/*
+ * #%L
+ * ChangeDistiller
+ * %%
+ * Copyright (C) 2011 - 2013 Software Architecture and Evolution Lab, Department of Informatics, UZH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import ch.uzh.ifi.seal.changedistiller.ast.java.JavaASTHelper;
+import ch.uzh.ifi.seal.changedistiller.structuredifferencing.java.JavaStructureNode;
+import ch.uzh.ifi.seal.changedistiller.treedifferencing.Node;
+
+/**
+ * A method that exists in the left and in the right version of a source, together with its method body trees.
+ * 
+ * @author Beat Fluri
+ */
+public final class MethodPair {
+
+    private JavaStructureNode fLeft;
+    private JavaStructureNode fRight;
+    private Node fLeftTree;
+    private Node fRightTree;
+
+    private MethodPair(JavaStructureNode left, JavaStructureNode right, Node leftTree, Node rightTree) {
+        fLeft = left;
+        fRight = right;
+        fLeftTree = leftTree;
+        fRightTree = rightTree;
+    }
+
+    public JavaStructureNode getLeft() {
+        return fLeft;
+    }
+
+    public JavaStructureNode getRight() {
+        return fRight;
+    }
+
+    public Node getLeftTree() {
+        return fLeftTree;
+    }
+
+    public Node getRightTree() {
+        return fRightTree;
+    }
+
+    /**
+     * Creates the pairs of methods with the same fully qualified name in both versions of a source and builds their
+     * method body trees.
+     * 
+     * @param left
+     *            AST helper of the left version
+     * @param right
+     *            AST helper of the right version
+     * @return the method pairs in the order of the left source
+     */
+    public static List<MethodPair> create(JavaASTHelper left, JavaASTHelper right) {
+        Map<String, JavaStructureNode> rightMethods = new HashMap<String, JavaStructureNode>();
+        for (JavaStructureNode method : collectMethods(right.createStructureTree())) {
+            rightMethods.put(method.getFullyQualifiedName(), method);
+        }
+        List<MethodPair> pairs = new ArrayList<MethodPair>();
+        for (JavaStructureNode method : collectMethods(left.createStructureTree())) {
+            JavaStructureNode partner = rightMethods.get(method.getFullyQualifiedName());
+            if (partner != null) {
+                pairs.add(new MethodPair(
+                        method,
+                        partner,
+                        left.createMethodBodyTree(method),
+                        right.createMethodBodyTree(partner)));
+            }
+        }
+        return pairs;
+    }
+
+    /**
+     * Returns the methods and constructors of the structure tree in pre-order.
+     * 
+     * @param root
+     *            of the structure tree
+     * @return the methods and constructors of the structure tree
+     */
+    public static List<JavaStructureNode> collectMethods(JavaStructureNode root) {
+        List<JavaStructureNode> methods = new ArrayList<JavaStructureNode>();
+        collectMethods(root, methods);
+        return methods;
+    }
+
+    private static void collectMethods(JavaStructureNode node, List<JavaStructureNode> methods) {
+        if (node.isMethodOrConstructor()) {
+            methods.add(node);
+        }
+        for (JavaStructureNode child : node.getChildren()) {
+            collectMethods(child, methods);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package ch.uzh.ifi.seal.changedistiller.benchmark;
+
+/*
+ * #%L
+ * ChangeDistiller
+ * %%
+ * Copyright (C) 2011 - 2013 Software Architecture and Evolution Lab, Department of Informatics, UZH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jdt.internal.compiler.CompilationResult;
+import org.eclipse.jdt.internal.compiler.DefaultErrorHandlingPolicies;
+import org.eclipse.jdt.internal.compiler.batch.CompilationUnit;
+import org.eclipse.jdt.internal.compiler.classfmt.ClassFileConstants;
+import org.eclipse.jdt.internal.compiler.impl.CompilerOptions;
+import org.eclipse.jdt.internal.compiler.problem.DefaultProblemFactory;
+import org.eclipse.jdt.internal.compiler.problem.ProblemReporter;
+import org.eclipse.jdt.internal.core.util.CommentRecorderParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ch.uzh.ifi.seal.changedistiller.ast.java.JavaCompilation;
+import ch.uzh.ifi.seal.changedistiller.ast.java.JavaCompilationUtils;
+
+/**
+ * Benchmarks the fixed cost of parsing a small file, with a pooled parser of {@link JavaCompilationUtils} and with a
+ * parser created for the file, as {@link JavaCompilationUtils} did before it pooled its parsers.
+ * 
+ * @author Beat Fluri
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class ParserReuseBenchmark {
+
+    @Param({"1", "5", "20"})
+    public int methods;
+
+    private char[] fSource;
+
+    @Setup
+    public void createSource() {
+        fSource = SyntheticSource.create(methods, false).toCharArray();
+    }
+
+    @Benchmark
+    public JavaCompilation compileWithPooledParser() {
+        return JavaCompilationUtils.compile(fSource, "Synthetic.java", ClassFileConstants.JDK1_7);
+    }
+
+    @Benchmark
+    public JavaCompilation compileWithNewParser() {
+        CompilerOptions options = new CompilerOptions();
+        options.docCommentSupport = true;
+        options.complianceLevel = ClassFileConstants.JDK1_7;
+        options.sourceLevel = ClassFileConstants.JDK1_7;
+        options.targetJDK = ClassFileConstants.JDK1_7;
+        CommentRecorderParser parser =
+                new CommentRecorderParser(new ProblemReporter(
+                        DefaultErrorHandlingPolicies.proceedWithAllProblems(),
+                        options,
+                        new DefaultProblemFactory()), false);
+        CompilationUnit cu = new CompilationUnit(fSource, "Synthetic.java", null);
+        CompilationResult compilationResult = new CompilationResult(cu, 0, 0, options.maxProblemsPerUnit);
+        return new JavaCompilation(parser.parse(cu, compilationResult), parser.scanner);
+    }
+}
@@ -0,0 +1,130 @@
+package ch.uzh.ifi.seal.changedistiller.benchmark;
+
+/*
+ * #%L
+ * ChangeDistiller
+ * %%
+ * Copyright (C) 2011 - 2013 Software Architecture and Evolution Lab, Department of Informatics, UZH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jdt.internal.compiler.ast.CompilationUnitDeclaration;
+import org.eclipse.jdt.internal.compiler.ast.TypeDeclaration;
+import org.eclipse.jdt.internal.compiler.classfmt.ClassFileConstants;
+import org.eclipse.jdt.internal.compiler.lookup.CompilationUnitScope;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import ch.uzh.ifi.seal.changedistiller.ast.java.JavaCompilation;
+import ch.uzh.ifi.seal.changedistiller.ast.java.JavaCompilationUtils;
+import ch.uzh.ifi.seal.changedistiller.structuredifferencing.java.JavaStructureNode;
+import ch.uzh.ifi.seal.changedistiller.structuredifferencing.java.JavaStructureNode.Type;
+import ch.uzh.ifi.seal.changedistiller.structuredifferencing.java.JavaStructureTreeBuilder;
+
+/**
+ * Benchmarks parsing the sources with {@link JavaCompilationUtils}, completely and diet, and building their structure
+ * trees with the {@link JavaStructureTreeBuilder}. The diet parse alone skips all bodies; parsing the bodies afterwards
+ * gives the cost of a diet parse if every body is read. A distillation reads the bodies of changed methods only, so it
+ * costs between the two, see the <code>diet</code> parameter of the {@link FileDistillerBenchmark}.
+ * 
+ * @author Beat Fluri
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ParsingBenchmark {
+
+    /**
+     * The parsed sources of the corpus.
+     */
+    @State(Scope.Benchmark)
+    public static class Compilations {
+
+        private List<CompilationUnitDeclaration> fUnits = new ArrayList<CompilationUnitDeclaration>();
+
+        @Setup
+        public void parse(Corpus corpus) {
+            fUnits.clear();
+            for (int i = 0; i < corpus.size(); i++) {
+                fUnits.add(compile(corpus.getLeft(i), corpus.getName(i)).getCompilationUnit());
+                fUnits.add(compile(corpus.getRight(i), corpus.getName(i)).getCompilationUnit());
+            }
+        }
+    }
+
+    @Benchmark
+    public void compile(Corpus corpus, Blackhole blackhole) {
+        for (int i = 0; i < corpus.size(); i++) {
+            blackhole.consume(compile(corpus.getLeft(i), corpus.getName(i)));
+            blackhole.consume(compile(corpus.getRight(i), corpus.getName(i)));
+        }
+    }
+
+    @Benchmark
+    public void dietCompile(Corpus corpus, Blackhole blackhole) {
+        for (int i = 0; i < corpus.size(); i++) {
+            blackhole.consume(dietCompile(corpus.getLeft(i), corpus.getName(i)));
+            blackhole.consume(dietCompile(corpus.getRight(i), corpus.getName(i)));
+        }
+    }
+
+    @Benchmark
+    public void dietCompileWithBodies(Corpus corpus, Blackhole blackhole) {
+        for (int i = 0; i < corpus.size(); i++) {
+            blackhole.consume(parseBodies(dietCompile(corpus.getLeft(i), corpus.getName(i))));
+            blackhole.consume(parseBodies(dietCompile(corpus.getRight(i), corpus.getName(i))));
+        }
+    }
+
+    @Benchmark
+    public void buildStructureTree(Compilations compilations, Blackhole blackhole) {
+        for (CompilationUnitDeclaration cu : compilations.fUnits) {
+            JavaStructureNode root = new JavaStructureNode(Type.CU, null, null, cu);
+            cu.traverse(new JavaStructureTreeBuilder(root), (CompilationUnitScope) null);
+            blackhole.consume(root);
+        }
+    }
+
+    private static JavaCompilation compile(char[] source, String name) {
+        return JavaCompilationUtils.compile(source, name, ClassFileConstants.JDK1_7);
+    }
+
+    private static JavaCompilation dietCompile(char[] source, String name) {
+        return JavaCompilationUtils.dietCompile(source, name, ClassFileConstants.JDK1_7);
+    }
+
+    private static JavaCompilation parseBodies(JavaCompilation compilation) {
+        if (compilation.getCompilationUnit().types != null) {
+            for (TypeDeclaration type : compilation.getCompilationUnit().types) {
+                compilation.getBodyParser().parseBodies(type);
+            }
+        }
+        return compilation;
+    }
+}
@@ -0,0 +1,284 @@
+package ch.uzh.ifi.seal.changedistiller.benchmark;
+
+/*
+ * #%L
+ * ChangeDistiller
+ * %%
+ * Copyright (C) 2011 - 2013 Software Architecture and Evolution Lab, Department of Informatics, UZH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.channels.Channels;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import ch.uzh.ifi.seal.changedistiller.distilling.FileDistiller;
+import ch.uzh.ifi.seal.changedistiller.model.classifiers.ChangeType;
+import ch.uzh.ifi.seal.changedistiller.model.classifiers.SourceRange;
+import ch.uzh.ifi.seal.changedistiller.model.classifiers.java.JavaEntityType;
+import ch.uzh.ifi.seal.changedistiller.model.entities.Delete;
+import ch.uzh.ifi.seal.changedistiller.model.entities.Insert;
+import ch.uzh.ifi.seal.changedistiller.model.entities.Move;
+import ch.uzh.ifi.seal.changedistiller.model.entities.SourceCodeChange;
+import ch.uzh.ifi.seal.changedistiller.model.entities.SourceCodeChangeReader;
+import ch.uzh.ifi.seal.changedistiller.model.entities.SourceCodeChangeWriter;
+import ch.uzh.ifi.seal.changedistiller.model.entities.SourceCodeEntity;
+import ch.uzh.ifi.seal.changedistiller.model.entities.StructureEntityVersion;
+import ch.uzh.ifi.seal.changedistiller.model.entities.Update;
+
+import com.google.inject.Injector;
+
+/**
+ * Benchmarks writing and reading the changes distilled from the corpus with {@link SourceCodeChangeWriter} and
+ * {@link SourceCodeChangeReader}, and with Java serialization. Since the model entities are not {@link Serializable},
+ * Java serialization writes and reads {@link SerializedChange}s holding the same fields, converted from and to the
+ * changes as part of the measurement. Root entities are shared by reference in both, as are equal names by the
+ * dictionary of the codec; Java serialization shares only identical strings.
+ * 
+ * @author Beat Fluri
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SerializationBenchmark {
+
+    private List<SourceCodeChange> fChanges;
+    private byte[] fEncoded;
+    private byte[] fSerialized;
+
+    @Setup
+    public void distill(Corpus corpus) throws IOException {
+        Injector injector = Corpus.createInjector(false, false);
+        fChanges = new ArrayList<SourceCodeChange>();
+        for (int i = 0; i < corpus.size(); i++) {
+            FileDistiller distiller = injector.getInstance(FileDistiller.class);
+            distiller.extractClassifiedSourceCodeChanges(
+                    corpus.getLeft(i),
+                    corpus.getName(i),
+                    corpus.getRight(i),
+                    corpus.getName(i));
+            fChanges.addAll(distiller.getSourceCodeChanges());
+        }
+        fEncoded = encode();
+        fSerialized = serialize();
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        SourceCodeChangeWriter writer = new SourceCodeChangeWriter(Channels.newChannel(out));
+        for (SourceCodeChange change : fChanges) {
+            writer.write(change);
+        }
+        writer.close();
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    public void decode(Blackhole blackhole) throws IOException {
+        SourceCodeChangeReader reader =
+                new SourceCodeChangeReader(Channels.newChannel(new ByteArrayInputStream(fEncoded)));
+        for (SourceCodeChange change = reader.read(); change != null; change = reader.read()) {
+            blackhole.consume(change);
+        }
+        reader.close();
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ObjectOutputStream stream = new ObjectOutputStream(out);
+        Map<StructureEntityVersion, SerializedRootEntity> rootEntities =
+                new IdentityHashMap<StructureEntityVersion, SerializedRootEntity>();
+        for (SourceCodeChange change : fChanges) {
+            stream.writeObject(new SerializedChange(change, rootEntities));
+        }
+        stream.writeObject(null);
+        stream.close();
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    public void deserialize(Blackhole blackhole) throws IOException, ClassNotFoundException {
+        ObjectInputStream stream = new ObjectInputStream(new ByteArrayInputStream(fSerialized));
+        Map<SerializedRootEntity, StructureEntityVersion> rootEntities =
+                new IdentityHashMap<SerializedRootEntity, StructureEntityVersion>();
+        for (Object change = stream.readObject(); change != null; change = stream.readObject()) {
+            blackhole.consume(((SerializedChange) change).toChange(rootEntities));
+        }
+        stream.close();
+    }
+
+    /**
+     * A {@link SourceCodeChange} as Java serialization writes it.
+     */
+    static final class SerializedChange implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private String fKind;
+        private ChangeType fChangeType;
+        private SerializedRootEntity fRootEntity;
+        private SerializedEntity fChangedEntity;
+        private SerializedEntity fParentEntity;
+        private SerializedEntity fNewEntity;
+        private SerializedEntity fNewParentEntity;
+
+        SerializedChange(SourceCodeChange change, Map<StructureEntityVersion, SerializedRootEntity> rootEntities) {
+            fKind = change.getClass().getSimpleName();
+            fChangeType = change.getChangeType();
+            fRootEntity = rootEntities.get(change.getRootEntity());
+            if (fRootEntity == null) {
+                fRootEntity = new SerializedRootEntity(change.getRootEntity());
+                rootEntities.put(change.getRootEntity(), fRootEntity);
+            }
+            fChangedEntity = SerializedEntity.create(change.getChangedEntity(), true);
+            fParentEntity = SerializedEntity.create(change.getParentEntity(), true);
+            if (change instanceof Move) {
+                fNewEntity = SerializedEntity.create(((Move) change).getNewEntity(), true);
+                fNewParentEntity = SerializedEntity.create(((Move) change).getNewParentEntity(), true);
+            } else if (change instanceof Update) {
+                fNewEntity = SerializedEntity.create(((Update) change).getNewEntity(), true);
+            }
+        }
+
+        SourceCodeChange toChange(Map<SerializedRootEntity, StructureEntityVersion> rootEntities) {
+            StructureEntityVersion rootEntity = rootEntities.get(fRootEntity);
+            if (rootEntity == null) {
+                rootEntity = fRootEntity.toRootEntity();
+                rootEntities.put(fRootEntity, rootEntity);
+            }
+            SourceCodeEntity changedEntity = SerializedEntity.toEntity(fChangedEntity);
+            SourceCodeEntity parentEntity = SerializedEntity.toEntity(fParentEntity);
+            SourceCodeChange change;
+            if ("Insert".equals(fKind)) {
+                change = new Insert(fChangeType, rootEntity, changedEntity, parentEntity);
+            } else if ("Delete".equals(fKind)) {
+                change = new Delete(fChangeType, rootEntity, changedEntity, parentEntity);
+            } else if ("Move".equals(fKind)) {
+                change = new Move(
+                        fChangeType,
+                        rootEntity,
+                        changedEntity,
+                        SerializedEntity.toEntity(fNewEntity),
+                        parentEntity,
+                        SerializedEntity.toEntity(fNewParentEntity));
+            } else {
+                change =
+                        new Update(fChangeType, rootEntity, changedEntity, SerializedEntity.toEntity(fNewEntity),
+                                parentEntity);
+            }
+            rootEntity.addSourceCodeChange(change);
+            return change;
+        }
+    }
+
+    /**
+     * A {@link StructureEntityVersion} as Java serialization writes it.
+     */
+    static final class SerializedRootEntity implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private JavaEntityType fType;
+        private String fUniqueName;
+        private int fModifiers;
+        private String fVersion;
+
+        SerializedRootEntity(StructureEntityVersion rootEntity) {
+            fType = (JavaEntityType) rootEntity.getType();
+            fUniqueName = rootEntity.getUniqueName();
+            fModifiers = rootEntity.getModifiers();
+            fVersion = rootEntity.getVersion();
+        }
+
+        StructureEntityVersion toRootEntity() {
+            return new StructureEntityVersion(fType, fUniqueName, fModifiers, fVersion);
+        }
+    }
+
+    /**
+     * A {@link SourceCodeEntity} as Java serialization writes it.
+     */
+    static final class SerializedEntity implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private JavaEntityType fType;
+        private String fUniqueName;
+        private int fModifiers;
+        private int[] fRange;
+        private List<SerializedEntity> fAssociatedEntities = new ArrayList<SerializedEntity>();
+
+        static SerializedEntity create(SourceCodeEntity entity, boolean withAssociatedEntities) {
+            if (entity == null) {
+                return null;
+            }
+            SerializedEntity serialized = new SerializedEntity();
+            serialized.fType = (JavaEntityType) entity.getType();
+            serialized.fUniqueName = entity.getUniqueName();
+            serialized.fModifiers = entity.getModifiers();
+            SourceRange range = entity.getSourceRange();
+            if (range != null) {
+                serialized.fRange =
+                        new int[]{range.getStart(), range.getEnd(), range.getStartLine(), range.getStartColumn(),
+                                range.getEndLine(), range.getEndColumn()};
+            }
+            if (withAssociatedEntities) {
+                for (SourceCodeEntity associatedEntity : entity.getAssociatedEntities()) {
+                    serialized.fAssociatedEntities.add(create(associatedEntity, false));
+                }
+            }
+            return serialized;
+        }
+
+        static SourceCodeEntity toEntity(SerializedEntity serialized) {
+            if (serialized == null) {
+                return null;
+            }
+            int[] r = serialized.fRange;
+            SourceRange range = r == null ? null : new SourceRange(r[0], r[1], r[2], r[3], r[4], r[5]);
+            SourceCodeEntity entity =
+                    new SourceCodeEntity(serialized.fUniqueName, serialized.fType, serialized.fModifiers, range);
+            for (SerializedEntity associatedEntity : serialized.fAssociatedEntities) {
+                entity.addAssociatedEntity(toEntity(associatedEntity));
+            }
+            return entity;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package ch.uzh.ifi.seal.changedistiller.benchmark;
+
+/*
+ * #%L
+ * ChangeDistiller
+ * %%
+ * Copyright (C) 2011 - 2013 Software Architecture and Evolution Lab, Department of Informatics, UZH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import ch.uzh.ifi.seal.changedistiller.ast.ASTHelperFactory;
+import ch.uzh.ifi.seal.changedistiller.ast.java.JavaASTHelper;
+
+/**
+ * Fresh {@link JavaASTHelper}s of the left and right sources of the {@link Corpus}, created before every invocation.
+ * 
+ * <p>
+ * Building a method body tree consumes the comments of the AST helper and matching marks the nodes of the trees, so
+ * the stages after parsing need new helpers for every invocation. The helpers share a compilation cache, so creating
+ * them does not parse the sources again.
+ * 
+ * @author Beat Fluri
+ */
+@State(Scope.Thread)
+public class Sources {
+
+    private static final String JAVA_VERSION = "1.7";
+
+    private ASTHelperFactory fFactory;
+
+    private List<JavaASTHelper> fLefts = new ArrayList<JavaASTHelper>();
+    private List<JavaASTHelper> fRights = new ArrayList<JavaASTHelper>();
+
+    @Setup(Level.Trial)
+    public void createFactory() {
+        fFactory = Corpus.createInjector(true).getInstance(ASTHelperFactory.class);
+    }
+
+    @Setup(Level.Invocation)
+    public void createHelpers(Corpus corpus) {
+        fLefts.clear();
+        fRights.clear();
+        for (int i = 0; i < corpus.size(); i++) {
+            fLefts.add((JavaASTHelper) fFactory.create(corpus.getLeft(i), corpus.getName(i), JAVA_VERSION));
+            fRights.add((JavaASTHelper) fFactory.create(corpus.getRight(i), corpus.getName(i), JAVA_VERSION));
+        }
+    }
+
+    public int size() {
+        return fLefts.size();
+    }
+
+    public JavaASTHelper getLeft(int i) {
+        return fLefts.get(i);
+    }
+
+    public JavaASTHelper getRight(int i) {
+        return fRights.get(i);
+    }
+}
@@ -0,0 +1,96 @@
+package ch.uzh.ifi.seal.changedistiller.benchmark;
+
+/*
+ * #%L
+ * ChangeDistiller
+ * %%
+ * Copyright (C) 2011 - 2013 Software Architecture and Evolution Lab, Department of Informatics, UZH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jdt.internal.compiler.ast.CompilationUnitDeclaration;
+import org.eclipse.jdt.internal.compiler.classfmt.ClassFileConstants;
+import org.eclipse.jdt.internal.compiler.lookup.CompilationUnitScope;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import ch.uzh.ifi.seal.changedistiller.ast.java.JavaCompilationUtils;
+import ch.uzh.ifi.seal.changedistiller.structuredifferencing.StructureDifferencer;
+import ch.uzh.ifi.seal.changedistiller.structuredifferencing.java.JavaStructureNode;
+import ch.uzh.ifi.seal.changedistiller.structuredifferencing.java.JavaStructureNode.Type;
+import ch.uzh.ifi.seal.changedistiller.structuredifferencing.java.JavaStructureTreeBuilder;
+
+/**
+ * Benchmarks the {@link StructureDifferencer} on the structure trees of the corpus. The structure trees are built once,
+ * so the content digests of their nodes are computed in the first invocation and reused afterwards.
+ * 
+ * @author Beat Fluri
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class StructureDifferencingBenchmark {
+
+    /**
+     * The structure trees of the corpus.
+     */
+    @State(Scope.Benchmark)
+    public static class StructureTrees {
+
+        private List<JavaStructureNode> fLefts = new ArrayList<JavaStructureNode>();
+        private List<JavaStructureNode> fRights = new ArrayList<JavaStructureNode>();
+
+        @Setup
+        public void build(Corpus corpus) {
+            fLefts.clear();
+            fRights.clear();
+            for (int i = 0; i < corpus.size(); i++) {
+                fLefts.add(build(corpus.getLeft(i), corpus.getName(i)));
+                fRights.add(build(corpus.getRight(i), corpus.getName(i)));
+            }
+        }
+
+        private static JavaStructureNode build(char[] source, String name) {
+            CompilationUnitDeclaration cu =
+                    JavaCompilationUtils.compile(source, name, ClassFileConstants.JDK1_7).getCompilationUnit();
+            JavaStructureNode root = new JavaStructureNode(Type.CU, null, null, cu);
+            cu.traverse(new JavaStructureTreeBuilder(root), (CompilationUnitScope) null);
+            return root;
+        }
+    }
+
+    @Benchmark
+    public void extractDifferences(StructureTrees trees, Blackhole blackhole) {
+        for (int i = 0; i < trees.fLefts.size(); i++) {
+            StructureDifferencer differencer = new StructureDifferencer();
+            differencer.extractDifferences(trees.fLefts.get(i), trees.fRights.get(i));
+            blackhole.consume(differencer.getDifferences());
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package ch.uzh.ifi.seal.changedistiller.benchmark;
+
+/*
+ * #%L
+ * ChangeDistiller
+ * %%
+ * Copyright (C) 2011 - 2013 Software Architecture and Evolution Lab, Department of Informatics, UZH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+/**
+ * Generates large Java classes and a deterministically changed version of them, so that the benchmarks do not depend
+ * on the size of the test data.
+ * 
+ * <p>
+ * The changed version updates conditions, inserts and deletes statements, swaps statements, renames a method, deletes
+ * a method, and adds a new one, so that every stage of the pipeline has work to do.
+ * 
+ * @author Beat Fluri
+ */
+public final class SyntheticSource {
+
+    private SyntheticSource() {}
+
+    /**
+     * Returns the source of a class with the given number of methods.
+     * 
+     * @param methods
+     *            number of methods of the class
+     * @param changed
+     *            whether to return the changed version of the class
+     * @return the source of the class
+     */
+    public static String create(int methods, boolean changed) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("package synthetic;\n\n");
+        sb.append("import java.util.ArrayList;\n");
+        sb.append("import java.util.List;\n\n");
+        sb.append("/**\n * Synthetic class with ").append(methods).append(" methods.\n */\n");
+        sb.append("public class Synthetic {\n\n");
+        sb.append("    private int fCount;\n");
+        sb.append("    private List<String> fNames = new ArrayList<String>();\n");
+        if (changed) {
+            sb.append("    private boolean fDirty;\n");
+        }
+        sb.append('\n');
+        for (int i = 0; i < methods; i++) {
+            if (!changed || ((i % 13) != 12)) {
+                appendMethod(sb, i, changed);
+            }
+        }
+        if (changed) {
+            sb.append("    public void reset() {\n");
+            sb.append("        fCount = 0;\n");
+            sb.append("        fNames.clear();\n");
+            sb.append("        fDirty = false;\n");
+            sb.append("    }\n\n");
+        }
+        sb.append("}\n");
+        return sb.toString();
+    }
+
+    private static void appendMethod(StringBuilder sb, int i, boolean changed) {
+        String name = (changed && ((i % 11) == 10)) ? "renamed" + i : "method" + i;
+        String limit = (changed && ((i % 3) == 0)) ? "limit + " + (i % 5) : "limit";
+        sb.append("    /**\n     * Computes the value number ").append(i).append(".\n     */\n");
+        sb.append("    public int ").append(name).append("(int limit, String name) {\n");
+        sb.append("        int sum = ").append(i).append(";\n");
+        sb.append("        // collect the names\n");
+        sb.append("        for (int j = 0; j < ").append(limit).append("; j++) {\n");
+        sb.append("            if ((j % 2) == 0) {\n");
+        if (changed && ((i % 7) == 1)) {
+            sb.append("                fNames.add(name + j);\n");
+            sb.append("                sum += j * ").append(i).append(";\n");
+        } else {
+            sb.append("                sum += j * ").append(i).append(";\n");
+            sb.append("                fNames.add(name + j);\n");
+        }
+        sb.append("            } else {\n");
+        sb.append("                sum -= j;\n");
+        sb.append("            }\n");
+        sb.append("        }\n");
+        if (changed && ((i % 5) == 2)) {
+            sb.append("        fDirty = true;\n");
+        }
+        if (!changed || ((i % 4) != 3)) {
+            sb.append("        fCount++;\n");
+        }
+        sb.append("        try {\n");
+        sb.append("            sum += Integer.parseInt(name);\n");
+        sb.append("        } catch (NumberFormatException e) {\n");
+        sb.append("            sum = -sum;\n");
+        sb.append("        }\n");
+        sb.append("        return sum;\n");
+        sb.append("    }\n\n");
+    }
+}
@@ -0,0 +1,93 @@
+package ch.uzh.ifi.seal.changedistiller.benchmark;
+
+/*
+ * #%L
+ * ChangeDistiller
+ * %%
+ * Copyright (C) 2011 - 2013 Software Architecture and Evolution Lab, Department of Informatics, UZH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import ch.uzh.ifi.seal.changedistiller.treedifferencing.NodePair;
+import ch.uzh.ifi.seal.changedistiller.treedifferencing.TreeDifferencer;
+import ch.uzh.ifi.seal.changedistiller.treedifferencing.matching.BestLeafTreeMatcher;
+import ch.uzh.ifi.seal.changedistiller.treedifferencing.matching.MatchingFactory;
+
+/**
+ * Benchmarks matching the method body trees of the corpus with the {@link BestLeafTreeMatcher} and calculating their
+ * edit scripts with the {@link TreeDifferencer}. Both mark or change the trees, so the trees are built anew before
+ * every invocation.
+ * 
+ * @author Beat Fluri
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TreeDifferencingBenchmark {
+
+    /**
+     * The method body trees of the methods in both versions of the corpus.
+     */
+    @State(Scope.Thread)
+    public static class MethodTrees {
+
+        private List<MethodPair> fPairs = new ArrayList<MethodPair>();
+
+        @Setup(Level.Invocation)
+        public void build(Sources sources) {
+            fPairs.clear();
+            for (int i = 0; i < sources.size(); i++) {
+                fPairs.addAll(MethodPair.create(sources.getLeft(i), sources.getRight(i)));
+            }
+        }
+    }
+
+    @Benchmark
+    public void match(MethodTrees trees, Blackhole blackhole) {
+        for (MethodPair pair : trees.fPairs) {
+            Set<NodePair> matching = new HashSet<NodePair>();
+            MatchingFactory.getMatcher(matching).match(pair.getLeftTree(), pair.getRightTree());
+            blackhole.consume(matching);
+        }
+    }
+
+    @Benchmark
+    public void calculateEditScript(MethodTrees trees, Blackhole blackhole) {
+        TreeDifferencer differencer = new TreeDifferencer();
+        for (MethodPair pair : trees.fPairs) {
+            blackhole.consume(differencer.calculateEditScript(pair.getLeftTree(), pair.getRightTree()));
+        }
+    }
+}
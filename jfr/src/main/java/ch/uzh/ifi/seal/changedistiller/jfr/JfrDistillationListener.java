@@ -0,0 +1,124 @@
+package ch.uzh.ifi.seal.changedistiller.jfr;
+
+/*
+ * #%L
+ * ChangeDistiller
+ * %%
+ * Copyright (C) 2011 - 2013 Software Architecture and Evolution Lab, Department of Informatics, UZH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+import ch.uzh.ifi.seal.changedistiller.distilling.DistillationCounter;
+import ch.uzh.ifi.seal.changedistiller.distilling.DistillationListener;
+import ch.uzh.ifi.seal.changedistiller.distilling.DistillationPhase;
+
+/**
+ * Emits the phases and counters of distillations as Java Flight Recorder events, so that they show up next to the
+ * allocation and GC events of a recording.
+ * 
+ * <p>
+ * Every phase is recorded as a <code>changedistiller.Phase</code> event spanning the phase, every counter increase as
+ * a <code>changedistiller.Counter</code> event. Requires a JVM providing the <code>jdk.jfr</code> API, i.e., Java 8
+ * update 262 or later, which is why the listener lives in this module and not in the core.
+ * 
+ * @author Beat Fluri
+ */
+public class JfrDistillationListener implements DistillationListener {
+
+    // phases nest and end on the thread they started on
+    private final ThreadLocal<Deque<PhaseEvent>> fPhases = new ThreadLocal<Deque<PhaseEvent>>() {
+
+        @Override
+        protected Deque<PhaseEvent> initialValue() {
+            return new ArrayDeque<PhaseEvent>();
+        }
+    };
+
+    @Override
+    public void phaseStarted(DistillationPhase phase) {
+        PhaseEvent event = new PhaseEvent();
+        event.fPhase = phase.name();
+        event.begin();
+        fPhases.get().push(event);
+    }
+
+    @Override
+    public void phaseEnded(DistillationPhase phase, long nanos) {
+        PhaseEvent event = fPhases.get().poll();
+        if (event != null) {
+            event.end();
+            if (event.shouldCommit()) {
+                event.fNanos = nanos;
+                event.commit();
+            }
+        }
+    }
+
+    @Override
+    public void count(DistillationCounter counter, long amount) {
+        CounterEvent event = new CounterEvent();
+        if (event.shouldCommit()) {
+            event.fCounter = counter.name();
+            event.fAmount = amount;
+            event.commit();
+        }
+    }
+
+    /**
+     * A phase of a distillation.
+     */
+    @Name("changedistiller.Phase")
+    @Label("Distillation Phase")
+    @Category("ChangeDistiller")
+    @Description("A phase of distilling source code changes")
+    static class PhaseEvent extends Event {
+
+        @Name("phase")
+        @Label("Phase")
+        String fPhase;
+
+        @Name("elapsed")
+        @Label("Elapsed Time")
+        @Timespan(Timespan.NANOSECONDS)
+        long fNanos;
+    }
+
+    /**
+     * An increase of a counter of a distillation.
+     */
+    @Name("changedistiller.Counter")
+    @Label("Distillation Counter")
+    @Category("ChangeDistiller")
+    @Description("An increase of a counter while distilling source code changes")
+    static class CounterEvent extends Event {
+
+        @Name("counter")
+        @Label("Counter")
+        String fCounter;
+
+        @Name("amount")
+        @Label("Amount")
+        long fAmount;
+    }
+}
@@ -21,6 +21,10 @@ package ch.uzh.ifi.seal.changedistiller;
  */
 
 
+import java.util.EnumMap;
+import java.util.Map;
+
+import ch.uzh.ifi.seal.changedistiller.distilling.BatchFileDistiller;
 import ch.uzh.ifi.seal.changedistiller.distilling.FileDistiller;
 
 import com.google.inject.Guice;
@@ -29,10 +33,15 @@ import com.google.inject.Injector;
 /**
  * Factory for creating the {@link FileDistiller} for a particular {@link Language}.
  * 
+ * <p>
+ * The injector of a language is created once and shared by all distillers of that language.
+ * 
  * @author Beat Fluri
  */
 public final class ChangeDistiller {
 
+    private static final Map<Language, Injector> sInjectors = new EnumMap<Language, Injector>(Language.class);
+
     private ChangeDistiller() {}
 
     /**
@@ -43,12 +52,35 @@ public final class ChangeDistiller {
      * @return the file distiller for the given language
      */
     public static FileDistiller createFileDistiller(Language language) {
-        switch (language) {
-            case JAVA:
-                Injector injector = Guice.createInjector(new JavaChangeDistillerModule());
-                return injector.getInstance(FileDistiller.class);
+        Injector injector = getInjector(language);
+        return injector != null ? injector.getInstance(FileDistiller.class) : null;
+    }
+
+    /**
+     * Creates a {@link BatchFileDistiller} for the given language.
+     * 
+     * @param language
+     *            for which the batch file distiller should be created
+     * @return the batch file distiller for the given language
+     */
+    public static BatchFileDistiller createBatchFileDistiller(Language language) {
+        Injector injector = getInjector(language);
+        return injector != null ? injector.getInstance(BatchFileDistiller.class) : null;
+    }
+
+    private static synchronized Injector getInjector(Language language) {
+        Injector injector = sInjectors.get(language);
+        if (injector == null) {
+            switch (language) {
+                case JAVA:
+                    injector = Guice.createInjector(new JavaChangeDistillerModule());
+                    break;
+                default:
+                    return null;
+            }
+            sInjectors.put(language, injector);
         }
-        return null;
+        return injector;
     }
 
     public static Language[] getProvidedLanguages() {
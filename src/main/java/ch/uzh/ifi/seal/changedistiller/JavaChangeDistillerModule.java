@@ -26,24 +26,89 @@ import ch.uzh.ifi.seal.changedistiller.ast.ASTHelperFactory;
 import ch.uzh.ifi.seal.changedistiller.ast.ASTNodeTypeConverter;
 import ch.uzh.ifi.seal.changedistiller.ast.java.JavaASTHelper;
 import ch.uzh.ifi.seal.changedistiller.ast.java.JavaASTNodeTypeConverter;
+import ch.uzh.ifi.seal.changedistiller.ast.java.JavaCompilationCache;
+import ch.uzh.ifi.seal.changedistiller.ast.java.JavaDeclarationConverter;
+import ch.uzh.ifi.seal.changedistiller.ast.java.JavaMethodBodyConverter;
 import ch.uzh.ifi.seal.changedistiller.ast.java.JavaSourceCodeChangeClassifier;
+import ch.uzh.ifi.seal.changedistiller.distilling.DistillationListener;
 import ch.uzh.ifi.seal.changedistiller.distilling.DistillerFactory;
 import ch.uzh.ifi.seal.changedistiller.distilling.SourceCodeChangeClassifier;
+import ch.uzh.ifi.seal.changedistiller.treedifferencing.TreeDifferencer;
 
 import com.google.inject.AbstractModule;
+import com.google.inject.Singleton;
 import com.google.inject.assistedinject.FactoryModuleBuilder;
 
 /**
  * Injection module to configure ChangeDistiller with the Java programming language.
  * 
+ * <p>
+ * Distillations report their phases and counters to the {@link DistillationListener} given to the module, by default
+ * to {@link DistillationListener#NONE}. Parsed sources are cached across distillations only if a
+ * {@link #setCompilationCacheCapacity(long) capacity} is given, since the cache is shared by all distillations of the
+ * injector and holds on to the parsed sources. Sources are completely parsed unless
+ * {@link #setDietParsing(boolean) diet parsing} is turned on.
+ * 
  * @author Beat Fluri
  */
 public class JavaChangeDistillerModule extends AbstractModule {
 
+    private DistillationListener fListener;
+    private long fCompilationCacheCapacity;
+    private boolean fDietParsing;
+
+    /**
+     * Creates a new module without distillation listener.
+     */
+    public JavaChangeDistillerModule() {
+        this(DistillationListener.NONE);
+    }
+
+    /**
+     * Creates a new module reporting all distillations to the given listener.
+     * 
+     * @param listener
+     *            to which the distillations report, shared by all distillations of the injector
+     */
+    public JavaChangeDistillerModule(DistillationListener listener) {
+        fListener = listener;
+    }
+
+    /**
+     * Sets the capacity of the cache of parsed sources, by default <code>0</code>, i.e., sources are not cached.
+     * 
+     * @param capacity
+     *            maximal number of bytes of heap retained by the cache, e.g.,
+     *            {@link JavaCompilationCache#DEFAULT_CAPACITY}
+     */
+    public void setCompilationCacheCapacity(long capacity) {
+        fCompilationCacheCapacity = capacity;
+    }
+
+    /**
+     * Sets whether sources are diet parsed, by default <code>false</code>. A diet parse skips the bodies of methods,
+     * constructors, and initializers, which are then only parsed if the source of a body differs between the two
+     * versions. On sources with syntax errors in unchanged bodies, diet parsing may find changes that a complete
+     * parse drops.
+     * 
+     * @param dietParsing
+     *            whether sources are diet parsed
+     * @see JavaCompilationCache#JavaCompilationCache(long, boolean)
+     */
+    public void setDietParsing(boolean dietParsing) {
+        fDietParsing = dietParsing;
+    }
+
     @Override
     protected void configure() {    	
+        bind(DistillationListener.class).toInstance(fListener);
         bind(ASTNodeTypeConverter.class).to(JavaASTNodeTypeConverter.class);
-        bind(SourceCodeChangeClassifier.class).to(JavaSourceCodeChangeClassifier.class);
+        // the converters, the differencer, and the classifier hold no state of a distillation and are shared
+        bind(SourceCodeChangeClassifier.class).to(JavaSourceCodeChangeClassifier.class).in(Singleton.class);
+        bind(JavaDeclarationConverter.class).in(Singleton.class);
+        bind(JavaMethodBodyConverter.class).in(Singleton.class);
+        bind(TreeDifferencer.class).in(Singleton.class);
+        bind(JavaCompilationCache.class).toInstance(new JavaCompilationCache(fCompilationCacheCapacity, fDietParsing));
         install(new FactoryModuleBuilder().build(DistillerFactory.class));
         install(new FactoryModuleBuilder().implement(ASTHelper.class, JavaASTHelper.class)
                 .build(ASTHelperFactory.class));
@@ -47,6 +47,15 @@ public interface ASTHelper<T extends StructureNode> {
      */
     T createStructureTree();
 
+    /**
+     * Returns whether the structure trees created so far are outdated, because reading parts of the file on demand,
+     * e.g., the bodies of a diet parsed file, revealed a syntax error. A new structure tree is then created as for a
+     * file whose syntax error is found when it is parsed.
+     * 
+     * @return <code>true</code> if the structure trees created so far are outdated, <code>false</code> otherwise
+     */
+    boolean isStructureTreeOutdated();
+
     /**
      * Creates and returns the declaration {@link Node} tree for the {@link StructureNode}.
      * 
@@ -22,8 +22,10 @@ package ch.uzh.ifi.seal.changedistiller.ast;
 
 import java.io.File;
 
+import com.google.inject.assistedinject.Assisted;
+
 /**
- * Factory interface to create {@link ASTHelper} from a {@link File} and a version number.
+ * Factory interface to create {@link ASTHelper} from a {@link File} or an in-memory source and a version number.
  * 
  * @author Beat Fluri
  */
@@ -39,5 +41,19 @@ public interface ASTHelperFactory {
      * @return the AST helper acting on the file
      */
     @SuppressWarnings("rawtypes")
-    ASTHelper create(File file, String version);
+    ASTHelper create(File file, @Assisted("version") String version);
+
+    /**
+     * Creates and returns an {@link ASTHelper} acting on the given source.
+     * 
+     * @param source
+     *            the AST helper acts on
+     * @param name
+     *            of the file the source belongs to, need not exist on the file system
+     * @param version
+     *            of the language the AST helper uses to parse the source
+     * @return the AST helper acting on the source
+     */
+    @SuppressWarnings("rawtypes")
+    ASTHelper create(char[] source, @Assisted("name") String name, @Assisted("version") String version);
 }
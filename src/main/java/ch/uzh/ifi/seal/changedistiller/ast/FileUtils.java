@@ -21,11 +21,20 @@ package ch.uzh.ifi.seal.changedistiller.ast;
  */
 
 import java.io.File;
-import java.io.FileReader;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.Arrays;
 
 /**
- * Utility class to handle {@link File}s.
+ * Utility class to handle {@link File}s and their content.
  * 
  * @author Beat Fluri
  */
@@ -33,28 +42,119 @@ public final class FileUtils {
 
     private FileUtils() {}
 
+    private static final int MAPPING_THRESHOLD = 1 << 20;
+
     /**
-     * Returns the content of the {@link File} as {@link String}.
+     * Returns the content of the {@link File} as {@link String}, decoded with the default charset of the platform.
      * 
      * @param file
      *            to read the content from
      * @return the content of the file
      */
     public static String getContent(File file) {
-        char[] b = new char[1024];
-        StringBuilder sb = new StringBuilder();
-        try {
-            FileReader reader = new FileReader(file);
-            int n = reader.read(b);
-            while (n > 0) {
-                sb.append(b, 0, n);
-                n = reader.read(b);
+        return String.valueOf(getCharacters(file, Charset.defaultCharset()));
+    }
+
+    /**
+     * Returns the content of the {@link File} as {@link String}.
+     * 
+     * @param file
+     *            to read the content from
+     * @param charset
+     *            the file is encoded with
+     * @return the content of the file
+     */
+    public static String getContent(File file, Charset charset) {
+        return String.valueOf(getCharacters(file, charset));
+    }
+
+    /**
+     * Returns the content of the {@link File} as characters. The file is read in one go, or memory-mapped if it is
+     * large, and decoded once into an array of the exact length, so the array can be handed to the parser as it is.
+     * 
+     * @param file
+     *            to read the content from
+     * @param charset
+     *            the file is encoded with
+     * @return the content of the file
+     */
+    public static char[] getCharacters(File file, Charset charset) {
+        try (FileInputStream in = new FileInputStream(file); FileChannel channel = in.getChannel()) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException(file + " is too large to be read");
             }
-            reader.close();
+            ByteBuffer content;
+            if (size >= MAPPING_THRESHOLD) {
+                content = channel.map(MapMode.READ_ONLY, 0, size);
+            } else {
+                content = ByteBuffer.allocate((int) size);
+                while (content.hasRemaining() && (channel.read(content) >= 0)) {
+                    // read until the buffer is full or the end of the file is reached
+                }
+                content.flip();
+            }
+            return decode(content, charset);
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
-        return sb.toString();
+    }
+
+    /**
+     * Returns the characters of the {@link CharSequence}.
+     * 
+     * @param content
+     *            to return the characters from
+     * @return the characters of the content
+     */
+    public static char[] toCharArray(CharSequence content) {
+        if (content instanceof String) {
+            return ((String) content).toCharArray();
+        }
+        char[] chars = new char[content.length()];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = content.charAt(i);
+        }
+        return chars;
+    }
+
+    /**
+     * Decodes the remaining bytes of the {@link ByteBuffer} with the given {@link Charset}. The position of the buffer
+     * is not changed.
+     * 
+     * @param content
+     *            to decode
+     * @param charset
+     *            the content is encoded with
+     * @return the decoded characters of the content
+     */
+    public static char[] decode(ByteBuffer content, Charset charset) {
+        CharsetDecoder decoder =
+                charset.newDecoder().onMalformedInput(CodingErrorAction.REPLACE)
+                        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        ByteBuffer in = content.duplicate();
+        CharBuffer out = CharBuffer.allocate((int) (in.remaining() * (double) decoder.maxCharsPerByte()));
+        CoderResult result = decoder.decode(in, out, true);
+        while (result.isOverflow()) {
+            out = grow(out);
+            result = decoder.decode(in, out, true);
+        }
+        result = decoder.flush(out);
+        while (result.isOverflow()) {
+            out = grow(out);
+            result = decoder.flush(out);
+        }
+        if (out.position() == out.capacity()) {
+            return out.array();
+        }
+        return Arrays.copyOf(out.array(), out.position());
+    }
+
+    private static CharBuffer grow(CharBuffer buffer) {
+        CharBuffer grown = CharBuffer.allocate(2 * buffer.capacity() + 16);
+        buffer.flip();
+        grown.put(buffer);
+        return grown;
     }
 
 }
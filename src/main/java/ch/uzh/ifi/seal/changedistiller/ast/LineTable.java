@@ -0,0 +1,129 @@
+package ch.uzh.ifi.seal.changedistiller.ast;
+
+/*
+ * #%L
+ * ChangeDistiller
+ * %%
+ * Copyright (C) 2011 - 2013 Software Architecture and Evolution Lab, Department of Informatics, UZH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import java.util.Arrays;
+
+import ch.uzh.ifi.seal.changedistiller.model.classifiers.SourceRange;
+
+/**
+ * Start positions of the lines of a source.
+ * 
+ * <p>
+ * A line ends with <code>\n</code>, <code>\r\n</code>, or <code>\r</code>, independent of the line separator of the
+ * platform. The table is computed once per source; line and column of a position are then found with a binary search.
+ * Lines and columns are counted from <code>1</code>.
+ * 
+ * @author Beat Fluri
+ */
+public final class LineTable {
+
+    private final int[] fLineStarts;
+
+    /**
+     * Creates the line table of the given source.
+     * 
+     * @param source
+     *            to compute the line starts of
+     */
+    public LineTable(char[] source) {
+        int[] lineStarts = new int[16];
+        int lines = 1;
+        for (int i = 0; i < source.length; i++) {
+            char c = source[i];
+            if ((c == '\n') || ((c == '\r') && ((i + 1 == source.length) || (source[i + 1] != '\n')))) {
+                if (lines == lineStarts.length) {
+                    lineStarts = Arrays.copyOf(lineStarts, lines * 2);
+                }
+                lineStarts[lines++] = i + 1;
+            }
+        }
+        fLineStarts = Arrays.copyOf(lineStarts, lines);
+    }
+
+    public int getNumberOfLines() {
+        return fLineStarts.length;
+    }
+
+    /**
+     * Returns the line of the given position.
+     * 
+     * @param position
+     *            in the source
+     * @return the line of the position, <code>-1</code> if the position is negative
+     */
+    public int getLine(int position) {
+        if (position < 0) {
+            return -1;
+        }
+        int lo = 0;
+        int hi = fLineStarts.length - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (fLineStarts[mid] <= position) {
+                lo = mid;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return lo + 1;
+    }
+
+    /**
+     * Returns the column of the given position within its line.
+     * 
+     * @param position
+     *            in the source
+     * @return the column of the position, <code>-1</code> if the position is negative
+     */
+    public int getColumn(int position) {
+        if (position < 0) {
+            return -1;
+        }
+        return position - fLineStarts[getLine(position) - 1] + 1;
+    }
+
+    /**
+     * Returns the number of line breaks from the first position up to, but excluding, the second one.
+     * 
+     * @param from
+     *            first position
+     * @param to
+     *            second position, not before the first one
+     * @return the number of line breaks between the positions
+     */
+    public int getNumberOfLineBreaks(int from, int to) {
+        return getLine(to) - getLine(from);
+    }
+
+    /**
+     * Creates a {@link SourceRange} with the lines and columns of its start and end.
+     * 
+     * @param start
+     *            of the range
+     * @param end
+     *            of the range
+     * @return the source range
+     */
+    public SourceRange createSourceRange(int start, int end) {
+        return new SourceRange(start, end, getLine(start), getColumn(start), getLine(end), getColumn(end));
+    }
+
+}
@@ -22,8 +22,6 @@ package ch.uzh.ifi.seal.changedistiller.ast.java;
 
 import java.util.LinkedList;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import ch.uzh.ifi.seal.changedistiller.ast.java.Comment.CommentType;
 
@@ -36,10 +34,6 @@ import ch.uzh.ifi.seal.changedistiller.ast.java.Comment.CommentType;
 public class CommentCleaner {
 
     private static final String NON_NLS = "NON-NLS";
-    private static Pattern sSourceCodePattern = Pattern
-            .compile("(?s).*([aA-zZ0-9]*\\.)*[aA-zZ0-9]+?\\((?s).*?\\);(?s).*" + "| (?s).+=(?s).+?;(?s).*"
-                    + "| (?s).*if\\s*\\((?s).*\\)\\s*\\{*\\s*(?s).*"
-                    + "| (?s).*?try\\s*\\{(?s).*?\\}\\s*catch\\s*\\((?s).*?\\)\\s*\\{(?s).*?\\}(?s).*");
 
     private List<Comment> fComments;
     private Comment fPreviousComment;
@@ -152,14 +146,14 @@ public class CommentCleaner {
         return fSource.substring(node.sourceStart(), node.sourceEnd());
     }
 
-    // Uses regex patterns to guess whether a comment is commented source code and - if this is the case - removes it
-    // from the set of comments.
+    // Guesses whether a comment is commented source code and - if this is the case - removes it from the set of
+    // comments.
     private void removeCommentedSourceCode() {
         List<Comment> cleanComments = new LinkedList<Comment>();
         for (Comment comment : fComments) {
-            Matcher matcher = sSourceCodePattern.matcher(getCommentString(comment));
             // Javadocs often contain source code examples
-            if ((comment.getType() == CommentType.JAVA_DOC) || !matcher.matches()) {
+            if ((comment.getType() == CommentType.JAVA_DOC)
+                    || !CommentedCodeDetector.isCommentedCode(getCommentString(comment))) {
                 cleanComments.add(comment);
             }
         }
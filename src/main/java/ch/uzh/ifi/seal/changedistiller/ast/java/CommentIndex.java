@@ -0,0 +1,158 @@
+package ch.uzh.ifi.seal.changedistiller.ast.java;
+
+/*
+ * #%L
+ * ChangeDistiller
+ * %%
+ * Copyright (C) 2011 - 2013 Software Architecture and Evolution Lab, Department of Informatics, UZH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Immutable index of the cleaned comments of a compilation, sorted by their start position.
+ * 
+ * <p>
+ * The index is shared by all users of a compilation. A user that consumes comments, like the
+ * {@link JavaMethodBodyConverter}, does so through its own {@link Cursor}, which finds the next comment in a source
+ * range with a binary search and skips consumed comments in amortized constant time.
+ * 
+ * @author Beat Fluri
+ */
+public final class CommentIndex {
+
+    private static final Comparator<Comment> BY_START = new Comparator<Comment>() {
+
+        @Override
+        public int compare(Comment left, Comment right) {
+            return left.sourceStart() < right.sourceStart() ? -1 : (left.sourceStart() == right.sourceStart() ? 0 : 1);
+        }
+    };
+
+    private final Comment[] fComments;
+    private final int[] fStarts;
+
+    /**
+     * Creates a new comment index.
+     * 
+     * @param comments
+     *            to index; comments with the same start position keep their order
+     */
+    public CommentIndex(List<Comment> comments) {
+        fComments = comments.toArray(new Comment[comments.size()]);
+        Arrays.sort(fComments, BY_START);
+        fStarts = new int[fComments.length];
+        for (int i = 0; i < fComments.length; i++) {
+            fStarts[i] = fComments[i].sourceStart();
+        }
+    }
+
+    /**
+     * Returns the indexed comments in the order of their start positions.
+     * 
+     * @return the unmodifiable list of the indexed comments
+     */
+    public List<Comment> getComments() {
+        return Collections.unmodifiableList(Arrays.asList(fComments));
+    }
+
+    public int size() {
+        return fComments.length;
+    }
+
+    /**
+     * Creates a new cursor in which all comments are unconsumed.
+     * 
+     * @return the new cursor
+     */
+    public Cursor newCursor() {
+        return new Cursor();
+    }
+
+    // index of the first comment that starts after the position
+    private int indexAfter(int position) {
+        int lo = 0;
+        int hi = fStarts.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (fStarts[mid] <= position) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * Consumes the comments of a {@link CommentIndex}. A cursor must not be shared between threads.
+     */
+    public final class Cursor {
+
+        // fNext[i] == i if comment i is unconsumed, otherwise a higher index from which to continue the search
+        private int[] fNext;
+        private int fRemaining;
+
+        Cursor() {
+            fNext = new int[fComments.length + 1];
+            for (int i = 0; i < fNext.length; i++) {
+                fNext[i] = i;
+            }
+            fRemaining = fComments.length;
+        }
+
+        /**
+         * Consumes and returns the first unconsumed comment that starts strictly between the two positions.
+         * 
+         * @param after
+         *            position after which the comment starts
+         * @param before
+         *            position before which the comment starts
+         * @return the consumed comment, <code>null</code> if no unconsumed comment starts between the positions
+         */
+        public Comment poll(int after, int before) {
+            int i = findUnconsumed(indexAfter(after));
+            if ((i < fComments.length) && (fStarts[i] < before)) {
+                fNext[i] = i + 1;
+                fRemaining--;
+                return fComments[i];
+            }
+            return null;
+        }
+
+        public boolean isEmpty() {
+            return fRemaining == 0;
+        }
+
+        private int findUnconsumed(int index) {
+            int unconsumed = index;
+            while (fNext[unconsumed] != unconsumed) {
+                unconsumed = fNext[unconsumed];
+            }
+            // compress the path, so that consumed comments are skipped only once
+            int i = index;
+            while (fNext[i] != unconsumed) {
+                int next = fNext[i];
+                fNext[i] = unconsumed;
+                i = next;
+            }
+            return unconsumed;
+        }
+    }
+
+}
@@ -0,0 +1,64 @@
+package ch.uzh.ifi.seal.changedistiller.ast.java;
+
+/*
+ * #%L
+ * ChangeDistiller
+ * %%
+ * Copyright (C) 2011 - 2013 Software Architecture and Evolution Lab, Department of Informatics, UZH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+/**
+ * Guesses whether a comment is commented source code.
+ * 
+ * <p>
+ * A comment is taken for source code if it contains a call statement, i.e., an identifier character directly followed
+ * by <code>(</code> and a later <code>);</code>. This is what the former regular expression of the
+ * {@link CommentCleaner} accepted for comments, which always start with their delimiter, but the detector scans the
+ * comment at most twice and never backtracks.
+ * 
+ * @author Beat Fluri
+ * @see CommentCleaner
+ */
+final class CommentedCodeDetector {
+
+    private CommentedCodeDetector() {}
+
+    /**
+     * Returns whether the given comment looks like commented source code.
+     * 
+     * @param comment
+     *            the comment including its delimiters
+     * @return <code>true</code> if the comment looks like source code, <code>false</code> otherwise
+     */
+    static boolean isCommentedCode(String comment) {
+        return containsCall(comment);
+    }
+
+    // e.g. foo.bar(x);
+    private static boolean containsCall(String comment) {
+        for (int i = 1; i < comment.length(); i++) {
+            if ((comment.charAt(i) == '(') && isCallCharacter(comment.charAt(i - 1))) {
+                return comment.indexOf(");", i + 1) >= 0;
+            }
+        }
+        return false;
+    }
+
+    // the character class [aA-zZ0-9] of the former pattern, the range A-z includes the characters between Z and a
+    private static boolean isCallCharacter(char c) {
+        return ((c >= 'A') && (c <= 'z')) || ((c >= '0') && (c <= '9'));
+    }
+
+}
@@ -0,0 +1,159 @@
+package ch.uzh.ifi.seal.changedistiller.ast.java;
+
+/*
+ * #%L
+ * ChangeDistiller
+ * %%
+ * Copyright (C) 2011 - 2013 Software Architecture and Evolution Lab, Department of Informatics, UZH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+import org.eclipse.jdt.internal.compiler.ast.ASTNode;
+import org.eclipse.jdt.internal.compiler.ast.AbstractMethodDeclaration;
+import org.eclipse.jdt.internal.compiler.ast.CompilationUnitDeclaration;
+import org.eclipse.jdt.internal.compiler.ast.ConstructorDeclaration;
+import org.eclipse.jdt.internal.compiler.ast.FieldDeclaration;
+import org.eclipse.jdt.internal.compiler.ast.Initializer;
+import org.eclipse.jdt.internal.compiler.ast.TypeDeclaration;
+import org.eclipse.jdt.internal.compiler.parser.Parser;
+import org.eclipse.jdt.internal.core.util.CommentRecorderParser;
+
+import ch.uzh.ifi.seal.changedistiller.structuredifferencing.java.JavaBodyParser;
+
+/**
+ * Parses the bodies of a diet parsed compilation unit on demand.
+ * 
+ * <p>
+ * The compilation unit may be shared by several compilations, e.g., by the {@link JavaCompilationCache}. Bodies are
+ * therefore parsed under the lock of the body parser and at most once. The bodies are parsed with a parser of the
+ * {@link ParserPool}, whose scanner is not the scanner of a compilation.
+ * 
+ * <p>
+ A complete parse that runs into a syntax error in any body drops the statements of all bodies and marks the
+ * compilation unit to be ignored, so that no changes are distilled from it. Once a parsed body has a syntax error, the
+ * body parser does the same and parses no further bodies. Unlike a complete parse, it does not notice syntax errors in
+ * bodies that are never read, e.g., in methods that are equal in both versions of a distilled source. On such broken
+ * sources, a diet distillation finds changes that a complete distillation drops.
+ * 
+ * @author Beat Fluri
+ */
+final class DietBodyParser implements JavaBodyParser {
+
+    private CompilationUnitDeclaration fCompilationUnit;
+    private char[] fSource;
+    private long fVersion;
+    private Set<ASTNode> fParsedNodes = Collections.newSetFromMap(new IdentityHashMap<ASTNode, Boolean>());
+    private boolean fFailed;
+
+    /**
+     * Creates a new body parser.
+     * 
+     * @param compilationUnit
+     *            diet parsed from the source
+     * @param source
+     *            of the compilation unit
+     * @param version
+     *            of Java used in the source
+     */
+    DietBodyParser(CompilationUnitDeclaration compilationUnit, char[] source, long version) {
+        fCompilationUnit = compilationUnit;
+        fSource = source;
+        fVersion = version;
+    }
+
+    @Override
+    public synchronized void parseBodies(ASTNode node) {
+        if (fFailed) {
+            return;
+        }
+        CommentRecorderParser parser = ParserPool.acquire(fVersion);
+        parser.scanner.setSource(fSource);
+        if (node instanceof AbstractMethodDeclaration) {
+            parseBody(parser, (AbstractMethodDeclaration) node);
+        } else if (node instanceof TypeDeclaration) {
+            parseBodies(parser, (TypeDeclaration) node);
+        }
+        ParserPool.release(parser, fVersion, fCompilationUnit.compilationResult);
+        if (fCompilationUnit.compilationResult.hasSyntaxError) {
+            fFailed = true;
+            fCompilationUnit.ignoreFurtherInvestigation = true;
+            for (TypeDeclaration type : fCompilationUnit.types) {
+                dropBodies(type);
+            }
+        }
+    }
+
+    @Override
+    public synchronized boolean hasSyntaxError() {
+        return fFailed;
+    }
+
+    private void parseBodies(Parser parser, TypeDeclaration type) {
+        if (type.methods != null) {
+            for (AbstractMethodDeclaration method : type.methods) {
+                parseBody(parser, method);
+            }
+        }
+        if (type.fields != null) {
+            for (FieldDeclaration field : type.fields) {
+                // field initializations are part of the diet parse, initializer blocks are not
+                if ((field instanceof Initializer) && fParsedNodes.add(field)) {
+                    ((Initializer) field).parseStatements(parser, type, fCompilationUnit);
+                }
+            }
+        }
+        if (type.memberTypes != null) {
+            for (TypeDeclaration memberType : type.memberTypes) {
+                parseBodies(parser, memberType);
+            }
+        }
+    }
+
+    private void parseBody(Parser parser, AbstractMethodDeclaration method) {
+        if (fParsedNodes.add(method)) {
+            method.parseStatements(parser, fCompilationUnit);
+        }
+    }
+
+    // leaves the bodies as a complete parse that recovered from a syntax error does
+    private void dropBodies(TypeDeclaration type) {
+        if (type.methods != null) {
+            for (AbstractMethodDeclaration method : type.methods) {
+                method.statements = null;
+                method.explicitDeclarations = 0;
+                if (method instanceof ConstructorDeclaration) {
+                    ((ConstructorDeclaration) method).constructorCall = null;
+                }
+            }
+        }
+        if (type.fields != null) {
+            for (FieldDeclaration field : type.fields) {
+                if (field instanceof Initializer) {
+                    ((Initializer) field).block.statements = null;
+                    ((Initializer) field).block.explicitDeclarations = 0;
+                }
+            }
+        }
+        if (type.memberTypes != null) {
+            for (TypeDeclaration memberType : type.memberTypes) {
+                dropBodies(memberType);
+            }
+        }
+    }
+
+}
@@ -21,7 +21,7 @@ package ch.uzh.ifi.seal.changedistiller.ast.java;
  */
 
 import java.io.File;
-import java.util.List;
+import java.nio.charset.Charset;
 
 import org.eclipse.jdt.internal.compiler.ast.ASTNode;
 import org.eclipse.jdt.internal.compiler.ast.AbstractMethodDeclaration;
@@ -29,10 +29,12 @@ import org.eclipse.jdt.internal.compiler.ast.CompilationUnitDeclaration;
 import org.eclipse.jdt.internal.compiler.ast.FieldDeclaration;
 import org.eclipse.jdt.internal.compiler.ast.TypeDeclaration;
 import org.eclipse.jdt.internal.compiler.classfmt.ClassFileConstants;
-import org.eclipse.jdt.internal.compiler.lookup.ClassScope;
 import org.eclipse.jdt.internal.compiler.lookup.CompilationUnitScope;
 
 import ch.uzh.ifi.seal.changedistiller.ast.ASTHelper;
+import ch.uzh.ifi.seal.changedistiller.ast.FileUtils;
+import ch.uzh.ifi.seal.changedistiller.ast.LineTable;
+import ch.uzh.ifi.seal.changedistiller.ast.java.JavaCompilationCache.CachedCompilation;
 import ch.uzh.ifi.seal.changedistiller.model.classifiers.ChangeModifier;
 import ch.uzh.ifi.seal.changedistiller.model.classifiers.EntityType;
 import ch.uzh.ifi.seal.changedistiller.model.classifiers.SourceRange;
@@ -46,8 +48,8 @@ import ch.uzh.ifi.seal.changedistiller.structuredifferencing.java.JavaStructureN
 import ch.uzh.ifi.seal.changedistiller.structuredifferencing.java.JavaStructureTreeBuilder;
 import ch.uzh.ifi.seal.changedistiller.treedifferencing.Node;
 
-import com.google.inject.Inject;
 import com.google.inject.assistedinject.Assisted;
+import com.google.inject.assistedinject.AssistedInject;
 
 /**
  * Implementation of {@link ASTHelper} for the Java programming language.
@@ -61,51 +63,68 @@ public class JavaASTHelper implements ASTHelper<JavaStructureNode> {
     private JavaMethodBodyConverter fBodyConverter;
     private JavaASTNodeTypeConverter fASTHelper;
     private JavaCompilation fCompilation;
-    private List<Comment> fComments;
+    private CommentIndex.Cursor fComments;
 
-    @Inject
+    @AssistedInject
     JavaASTHelper(
             @Assisted File file,
-            @Assisted String javaVersion,
+            @Assisted("version") String javaVersion,
+            JavaCompilationCache compilationCache,
             JavaASTNodeTypeConverter astHelper,
             JavaDeclarationConverter declarationConverter,
             JavaMethodBodyConverter bodyConverter) {
-    	long versionNumber;
-    	switch (javaVersion) {
-    	case "1.1": versionNumber = ClassFileConstants.JDK1_1;break;
-    	case "1.2": versionNumber = ClassFileConstants.JDK1_2;break;
-    	case "1.3": versionNumber = ClassFileConstants.JDK1_3;break;
-    	case "1.4": versionNumber = ClassFileConstants.JDK1_4;break;
-    	case "1.5": versionNumber = ClassFileConstants.JDK1_5;break;
-    	case "1.6": versionNumber = ClassFileConstants.JDK1_6;break;
-    	case "1.7": versionNumber = ClassFileConstants.JDK1_7;break;
-    	default: versionNumber = ClassFileConstants.JDK1_6;
-    	}
-        fCompilation = JavaCompilationUtils.compile(file, versionNumber);
-        prepareComments();
-        fASTHelper = astHelper;
-        fDeclarationConverter = declarationConverter;
-        fBodyConverter = bodyConverter;
-    }
-    
-    private void prepareComments() {
-        cleanComments(collectComments());
+        this(
+                compilationCache.getCompilation(
+                        FileUtils.getCharacters(file, Charset.defaultCharset()),
+                        file.getName(),
+                        getVersionNumber(javaVersion)),
+                astHelper,
+                declarationConverter,
+                bodyConverter);
     }
 
-    private void cleanComments(List<Comment> comments) {
-        CommentCleaner visitor = new CommentCleaner(fCompilation.getSource());
-        for (Comment comment : comments) {
-            visitor.process(comment);
-        }
-        fComments = visitor.getComments();
+    @AssistedInject
+    JavaASTHelper(
+            @Assisted char[] source,
+            @Assisted("name") String name,
+            @Assisted("version") String javaVersion,
+            JavaCompilationCache compilationCache,
+            JavaASTNodeTypeConverter astHelper,
+            JavaDeclarationConverter declarationConverter,
+            JavaMethodBodyConverter bodyConverter) {
+        this(
+                compilationCache.getCompilation(source, name, getVersionNumber(javaVersion)),
+                astHelper,
+                declarationConverter,
+                bodyConverter);
     }
 
-    private List<Comment> collectComments() {
-        CommentCollector collector = new CommentCollector(fCompilation.getCompilationUnit(), fCompilation.getSource());
-        collector.collect();
-        return collector.getComments();
+    private JavaASTHelper(
+            CachedCompilation compilation,
+            JavaASTNodeTypeConverter astHelper,
+            JavaDeclarationConverter declarationConverter,
+            JavaMethodBodyConverter bodyConverter) {
+        // the comments are shared, the cursor keeps track of the comments the body converter consumed
+        fCompilation = compilation.getCompilation();
+        fComments = compilation.getCommentIndex().newCursor();
+        fASTHelper = astHelper;
+        fDeclarationConverter = declarationConverter;
+        fBodyConverter = bodyConverter;
     }
 
+    private static long getVersionNumber(String javaVersion) {
+    	switch (javaVersion) {
+    	case "1.1": return ClassFileConstants.JDK1_1;
+    	case "1.2": return ClassFileConstants.JDK1_2;
+    	case "1.3": return ClassFileConstants.JDK1_3;
+    	case "1.4": return ClassFileConstants.JDK1_4;
+    	case "1.5": return ClassFileConstants.JDK1_5;
+    	case "1.6": return ClassFileConstants.JDK1_6;
+    	case "1.7": return ClassFileConstants.JDK1_7;
+    	default: return ClassFileConstants.JDK1_6;
+    	}
+    }
+    
     @Override
     public Node createDeclarationTree(JavaStructureNode node) {
         ASTNode astNode = node.getASTNode();
@@ -114,14 +133,9 @@ public class JavaASTHelper implements ASTHelper<JavaStructureNode> {
     }
 
     private Node createDeclarationTree(ASTNode astNode, Node root) {
-        fDeclarationConverter.initialize(root, fCompilation.getScanner());
-        if (astNode instanceof TypeDeclaration) {
-            ((TypeDeclaration) astNode).traverse(fDeclarationConverter, (ClassScope) null);
-        } else if (astNode instanceof AbstractMethodDeclaration) {
-            ((AbstractMethodDeclaration) astNode).traverse(fDeclarationConverter, (ClassScope) null);
-        } else if (astNode instanceof FieldDeclaration) {
-            ((FieldDeclaration) astNode).traverse(fDeclarationConverter, null);
-        }
+        fDeclarationConverter.convert(root, astNode, fCompilation);
+        // computed while building, so that parallel differencing only reads the hashes
+        root.getSubtreeHash();
         return root;
     }
 
@@ -143,9 +157,10 @@ public class JavaASTHelper implements ASTHelper<JavaStructureNode> {
     public Node createMethodBodyTree(JavaStructureNode node) {
         ASTNode astNode = node.getASTNode();
         if (astNode instanceof AbstractMethodDeclaration) {
+            fCompilation.getBodyParser().parseBodies(astNode);
             Node root = createRootNode(node, astNode);
-            fBodyConverter.initialize(root, astNode, fComments, fCompilation.getScanner());
-            ((AbstractMethodDeclaration) astNode).traverse(fBodyConverter, (ClassScope) null);
+            fBodyConverter.convert(root, (AbstractMethodDeclaration) astNode, fComments, fCompilation);
+            root.getSubtreeHash();
             return root;
         }
         return null;
@@ -155,10 +170,15 @@ public class JavaASTHelper implements ASTHelper<JavaStructureNode> {
     public JavaStructureNode createStructureTree() {
         CompilationUnitDeclaration cu = fCompilation.getCompilationUnit();
         JavaStructureNode node = new JavaStructureNode(Type.CU, null, null, cu);
-        cu.traverse(new JavaStructureTreeBuilder(node), (CompilationUnitScope) null);
+        cu.traverse(new JavaStructureTreeBuilder(node, fCompilation.getBodyParser()), (CompilationUnitScope) null);
         return node;
     }
 
+    @Override
+    public boolean isStructureTreeOutdated() {
+        return fCompilation.getBodyParser().hasSyntaxError();
+    }
+
     @Override
     public EntityType convertType(JavaStructureNode node) {
         return fASTHelper.convertNode(node.getASTNode());
@@ -174,19 +194,20 @@ public class JavaASTHelper implements ASTHelper<JavaStructureNode> {
     }
 
     private SourceRange createSourceRange(ASTNode astNode) {
+        LineTable lines = fCompilation.getLineTable();
         if (astNode instanceof TypeDeclaration) {
             TypeDeclaration type = (TypeDeclaration) astNode;
-            return new SourceRange(type.declarationSourceStart, type.declarationSourceEnd);
+            return lines.createSourceRange(type.declarationSourceStart, type.declarationSourceEnd);
         }
         if (astNode instanceof AbstractMethodDeclaration) {
             AbstractMethodDeclaration method = (AbstractMethodDeclaration) astNode;
-            return new SourceRange(method.declarationSourceStart, method.declarationSourceEnd);
+            return lines.createSourceRange(method.declarationSourceStart, method.declarationSourceEnd);
         }
         if (astNode instanceof FieldDeclaration) {
             FieldDeclaration field = (FieldDeclaration) astNode;
-            return new SourceRange(field.declarationSourceStart, field.declarationSourceEnd);
+            return lines.createSourceRange(field.declarationSourceStart, field.declarationSourceEnd);
         }
-        return new SourceRange(astNode.sourceStart(), astNode.sourceEnd());
+        return lines.createSourceRange(astNode.sourceStart(), astNode.sourceEnd());
     }
 
     @Override
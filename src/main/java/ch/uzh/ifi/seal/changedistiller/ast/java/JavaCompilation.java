@@ -23,8 +23,12 @@ package ch.uzh.ifi.seal.changedistiller.ast.java;
 import org.eclipse.jdt.internal.compiler.ast.CompilationUnitDeclaration;
 import org.eclipse.jdt.internal.compiler.parser.Scanner;
 
+import ch.uzh.ifi.seal.changedistiller.ast.LineTable;
+import ch.uzh.ifi.seal.changedistiller.structuredifferencing.java.JavaBodyParser;
+
 /**
- * Container for {@link CompilationUnitDeclaration} and the corresponding {@link Scanner}.
+ * Container for {@link CompilationUnitDeclaration} and the corresponding {@link Scanner}, {@link LineTable}, and
+ * {@link JavaBodyParser}.
  * 
  * @author Beat Fluri
  */
@@ -32,6 +36,9 @@ public class JavaCompilation {
 
     private CompilationUnitDeclaration fCompilationUnit;
     private Scanner fScanner;
+    private String fSource;
+    private LineTable fLines;
+    private JavaBodyParser fBodyParser;
 
     /**
      * Create a new Java compilation
@@ -42,8 +49,44 @@ public class JavaCompilation {
      *            that produced the compilation
      */
     public JavaCompilation(CompilationUnitDeclaration compilationUnit, Scanner scanner) {
+        this(compilationUnit, scanner, new LineTable(scanner.source));
+    }
+
+    /**
+     * Create a new Java compilation with the already computed line table of its source.
+     * 
+     * @param compilationUnit
+     *            of the compilation
+     * @param scanner
+     *            that produced the compilation
+     * @param lines
+     *            of the source of the scanner
+     */
+    public JavaCompilation(CompilationUnitDeclaration compilationUnit, Scanner scanner, LineTable lines) {
+        this(compilationUnit, scanner, lines, JavaBodyParser.NONE);
+    }
+
+    /**
+     * Create a new Java compilation whose bodies are parsed on demand.
+     * 
+     * @param compilationUnit
+     *            of the compilation
+     * @param scanner
+     *            that produced the compilation
+     * @param lines
+     *            of the source of the scanner
+     * @param bodyParser
+     *            that parses the bodies of the compilation unit before they are read
+     */
+    public JavaCompilation(
+            CompilationUnitDeclaration compilationUnit,
+            Scanner scanner,
+            LineTable lines,
+            JavaBodyParser bodyParser) {
         fCompilationUnit = compilationUnit;
         fScanner = scanner;
+        fLines = lines;
+        fBodyParser = bodyParser;
     }
 
     public CompilationUnitDeclaration getCompilationUnit() {
@@ -51,10 +94,37 @@ public class JavaCompilation {
     }
 
     public String getSource() {
-        return String.valueOf(fScanner.source);
+        if (fSource == null) {
+            fSource = String.valueOf(fScanner.source);
+        }
+        return fSource;
+    }
+
+    /**
+     * Returns the characters of the source. The array is the one the compilation was parsed from and must not be
+     * modified.
+     * 
+     * @return the characters of the source
+     */
+    public char[] getSourceCharacters() {
+        return fScanner.source;
     }
 
     public Scanner getScanner() {
         return fScanner;
     }
+
+    public LineTable getLineTable() {
+        return fLines;
+    }
+
+    /**
+     * Returns the parser of the bodies of the compilation unit, {@link JavaBodyParser#NONE} if the compilation unit
+     * was parsed completely.
+     * 
+     * @return the parser of the bodies of the compilation unit
+     */
+    public JavaBodyParser getBodyParser() {
+        return fBodyParser;
+    }
 }
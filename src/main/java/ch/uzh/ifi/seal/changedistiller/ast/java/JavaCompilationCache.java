@@ -0,0 +1,301 @@
+package ch.uzh.ifi.seal.changedistiller.ast.java;
+
+/*
+ * #%L
+ * ChangeDistiller
+ * %%
+ * Copyright (C) 2011 - 2013 Software Architecture and Evolution Lab, Department of Informatics, UZH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.eclipse.jdt.internal.compiler.ast.CompilationUnitDeclaration;
+
+import ch.uzh.ifi.seal.changedistiller.ast.LineTable;
+import ch.uzh.ifi.seal.changedistiller.structuredifferencing.java.JavaBodyParser;
+
+/**
+ * Bounded cache of parsed Java sources, their line tables and their cleaned comments, keyed by the content and the
+ * file name of the sources.
+ * 
+ * <p>
+ * When consecutive versions of a file are distilled, the right source of one distillation is the left source of the
+ * next one. With the cache, such a source is parsed and its comments are collected and cleaned only once. The cache
+ * copies the sources it holds, so that callers may reuse their buffers. It is bounded by an estimate of the heap its
+ * entries retain, {@value #BYTES_PER_SOURCE_CHAR} bytes per source character, and evicts the least recently used
+ * sources first.
+ * 
+ * <p>
+ * Every {@link JavaCompilation} handed out by the cache has its own scanner, since the converters advance the scanner.
+ * The compilation units and the {@link CommentIndex}es are shared and only read. Diet parsed compilation units also
+ * share their {@link JavaBodyParser}, which parses every body at most once.
+ * 
+ * @author Beat Fluri
+ */
+public class JavaCompilationCache {
+
+    /**
+     * Default capacity in bytes of retained heap.
+     */
+    public static final long DEFAULT_CAPACITY = 32L * 1024 * 1024;
+
+    /**
+     * Estimate of the heap retained per source character by the compilation unit, the line table, the comment index,
+     * and the copy of the source. Measured between 4 and 10 bytes on the test data.
+     */
+    static final int BYTES_PER_SOURCE_CHAR = 10;
+
+    private long fCapacity;
+    private boolean fDietParsing;
+    private long fWeight;
+    private Map<Key, Entry> fEntries;
+
+    private long fHitCount;
+    private long fMissCount;
+    private long fEvictionCount;
+
+    /**
+     * Creates a new cache with the {@link #DEFAULT_CAPACITY}.
+     */
+    public JavaCompilationCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a new cache.
+     * 
+     * @param capacity
+     *            maximal number of bytes of heap retained by the cache, <code>0</code> disables the cache
+     */
+    public JavaCompilationCache(long capacity) {
+        this(capacity, false);
+    }
+
+    /**
+     * Creates a new cache.
+     * 
+     * @param capacity
+     *            maximal number of bytes of heap retained by the cache, <code>0</code> disables the cache
+     * @param dietParsing
+     *            whether sources are diet parsed, so that only the bodies that are read get parsed
+     * @see JavaCompilationUtils#dietCompile(char[], String, long)
+     */
+    public JavaCompilationCache(long capacity, boolean dietParsing) {
+        fCapacity = capacity;
+        fDietParsing = dietParsing;
+        fEntries = new LinkedHashMap<Key, Entry>(16, 0.75f, true);
+    }
+
+    /**
+     * Returns the compilation of the source and its cleaned comments. The source is parsed only if it is not cached.
+     * 
+     * @param source
+     *            to compile, copied if it gets cached
+     * @param fileName
+     *            under which the source is reported
+     * @param version
+     *            of Java used in the source
+     * @return the compilation of the source
+     */
+    public CachedCompilation getCompilation(char[] source, String fileName, long version) {
+        Key key = new Key(source, fileName, version);
+        Entry entry;
+        synchronized (this) {
+            entry = fEntries.get(key);
+            if (entry != null) {
+                fHitCount++;
+            } else {
+                fMissCount++;
+            }
+        }
+        if (entry != null) {
+            return new CachedCompilation(
+                    new JavaCompilation(
+                            entry.fCompilationUnit,
+                            JavaCompilationUtils.createScanner(entry.fSource, version),
+                            entry.fLines,
+                            entry.fBodyParser),
+                    entry.fComments);
+        }
+        // the caller may reuse its buffer, the cached compilation must not see it
+        char[] ownSource = fCapacity > 0 ? source.clone() : source;
+        JavaCompilation compilation;
+        if (fDietParsing) {
+            compilation = JavaCompilationUtils.dietCompile(ownSource, fileName, version);
+        } else {
+            compilation = JavaCompilationUtils.compile(ownSource, fileName, version);
+        }
+        CommentIndex comments = prepareComments(compilation);
+        put(new Key(ownSource, fileName, version), new Entry(compilation, ownSource, comments));
+        return new CachedCompilation(compilation, comments);
+    }
+
+    private synchronized void put(Key key, Entry entry) {
+        if ((fCapacity <= 0) || (entry.getWeight() > fCapacity) || fEntries.containsKey(key)) {
+            return;
+        }
+        fEntries.put(key, entry);
+        fWeight += entry.getWeight();
+        for (Iterator<Entry> it = fEntries.values().iterator(); (fWeight > fCapacity) && it.hasNext();) {
+            fWeight -= it.next().getWeight();
+            it.remove();
+            fEvictionCount++;
+        }
+    }
+
+    private static CommentIndex prepareComments(JavaCompilation compilation) {
+        CommentCollector collector = new CommentCollector(compilation.getCompilationUnit(), compilation.getSource());
+        collector.collect();
+        CommentCleaner cleaner = new CommentCleaner(compilation.getSource());
+        for (Comment comment : collector.getComments()) {
+            cleaner.process(comment);
+        }
+        return new CommentIndex(cleaner.getComments());
+    }
+
+    /**
+     * Removes all sources from the cache. The counters are kept.
+     */
+    public synchronized void clear() {
+        fEntries.clear();
+        fWeight = 0;
+    }
+
+    public long getCapacity() {
+        return fCapacity;
+    }
+
+    /**
+     * Returns the estimated number of bytes of heap retained by the cache.
+     * 
+     * @return the estimated number of bytes of heap retained by the cache
+     */
+    public synchronized long getWeight() {
+        return fWeight;
+    }
+
+    /**
+     * Returns the number of sources held by the cache.
+     * 
+     * @return the number of sources held by the cache
+     */
+    public synchronized int size() {
+        return fEntries.size();
+    }
+
+    public synchronized long getHitCount() {
+        return fHitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return fMissCount;
+    }
+
+    public synchronized long getEvictionCount() {
+        return fEvictionCount;
+    }
+
+    /**
+     * Compilation and cleaned comments of a source handed out by the {@link JavaCompilationCache}.
+     */
+    public static final class CachedCompilation {
+
+        private JavaCompilation fCompilation;
+        private CommentIndex fComments;
+
+        CachedCompilation(JavaCompilation compilation, CommentIndex comments) {
+            fCompilation = compilation;
+            fComments = comments;
+        }
+
+        public JavaCompilation getCompilation() {
+            return fCompilation;
+        }
+
+        /**
+         * Returns the index of the cleaned comments of the compilation. The index is shared by all compilations of the
+         * same source.
+         * 
+         * @return the index of the cleaned comments of the compilation
+         */
+        public CommentIndex getCommentIndex() {
+            return fComments;
+        }
+
+    }
+
+    private static final class Entry {
+
+        private final CompilationUnitDeclaration fCompilationUnit;
+        private final char[] fSource;
+        private final LineTable fLines;
+        private final JavaBodyParser fBodyParser;
+        private final CommentIndex fComments;
+
+        Entry(JavaCompilation compilation, char[] source, CommentIndex comments) {
+            fCompilationUnit = compilation.getCompilationUnit();
+            fSource = source;
+            fLines = compilation.getLineTable();
+            fBodyParser = compilation.getBodyParser();
+            fComments = comments;
+        }
+
+        long getWeight() {
+            return (long) fSource.length * BYTES_PER_SOURCE_CHAR;
+        }
+
+    }
+
+    private static final class Key {
+
+        private final char[] fSource;
+        private final String fFileName;
+        private final long fVersion;
+        private final int fHash;
+
+        Key(char[] source, String fileName, long version) {
+            fSource = source;
+            fFileName = fileName;
+            fVersion = version;
+            int hash = (31 * Arrays.hashCode(source)) + (fileName != null ? fileName.hashCode() : 0);
+            fHash = (31 * hash) + (int) (version ^ (version >>> 32));
+        }
+
+        @Override
+        public int hashCode() {
+            return fHash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return (fHash == other.fHash) && (fVersion == other.fVersion)
+                    && ((fFileName != null) ? fFileName.equals(other.fFileName) : (other.fFileName == null))
+                    && Arrays.equals(fSource, other.fSource);
+        }
+
+    }
+
+}
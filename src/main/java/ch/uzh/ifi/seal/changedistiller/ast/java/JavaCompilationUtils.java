@@ -21,20 +21,24 @@ package ch.uzh.ifi.seal.changedistiller.ast.java;
  */
 
 import java.io.File;
+import java.nio.charset.Charset;
 
 import org.eclipse.jdt.internal.compiler.CompilationResult;
 import org.eclipse.jdt.internal.compiler.DefaultErrorHandlingPolicies;
+import org.eclipse.jdt.internal.compiler.ast.CompilationUnitDeclaration;
 import org.eclipse.jdt.internal.compiler.batch.CompilationUnit;
 import org.eclipse.jdt.internal.compiler.classfmt.ClassFileConstants;
 import org.eclipse.jdt.internal.compiler.env.ICompilationUnit;
 import org.eclipse.jdt.internal.compiler.impl.CompilerOptions;
-import org.eclipse.jdt.internal.compiler.parser.Parser;
+import org.eclipse.jdt.internal.compiler.parser.Scanner;
 import org.eclipse.jdt.internal.compiler.problem.DefaultProblemFactory;
 import org.eclipse.jdt.internal.compiler.problem.ProblemReporter;
+import org.eclipse.jdt.internal.compiler.problem.ProblemSeverities;
 import org.eclipse.jdt.internal.core.util.CommentRecorderParser;
 
 import ch.uzh.ifi.seal.changedistiller.ast.FileUtils;
 import ch.uzh.ifi.seal.changedistiller.ast.InvalidSyntaxException;
+import ch.uzh.ifi.seal.changedistiller.ast.LineTable;
 
 /**
  * Utility class for Java compilation.
@@ -57,11 +61,12 @@ public final class JavaCompilationUtils {
      * @throws InvalidSyntaxException if the file has syntax errors.
      */
     public static JavaCompilation compile(String source, String fileName) {
-        CompilerOptions options = getDefaultCompilerOptions();
-        Parser parser = createCommentRecorderParser(options);
-        ICompilationUnit cu = createCompilationUnit(source, fileName);
-        CompilationResult compilationResult = createDefaultCompilationResult(cu, options);
-        JavaCompilation javaCompilation = new JavaCompilation(parser.parse(cu, compilationResult), parser.scanner);
+        char[] characters = source.toCharArray();
+        CompilerOptions options = getDefaultCompilerOptions(ClassFileConstants.JDK1_6);
+        CompilationResult compilationResult =
+                createDefaultCompilationResult(createCompilationUnit(characters, fileName), options);
+        JavaCompilation javaCompilation =
+                new JavaCompilation(parse(compilationResult, options, false), createScanner(characters, options));
         
         if (compilationResult.hasSyntaxError) {
         	throw new InvalidSyntaxException(new String(compilationResult.getFileName()), compilationResult.toString());
@@ -81,19 +86,136 @@ public final class JavaCompilationUtils {
      * @throws InvalidSyntaxException if the file has syntax errors.
      */
     public static JavaCompilation compile(File file, long version) {
+        return compile(file, Charset.defaultCharset(), version);
+    }
+
+    /**
+     * Returns the compiled file as a {@link JavaCompilation}. The file is decoded once and the parser works on the
+     * decoded characters, which are shared with {@link JavaCompilation#getSourceCharacters()}.
+     * 
+     * @param file
+     *            to compile
+     * @param charset
+     *            the file is encoded with
+     * @param version
+     *            of Java used in the file
+     * @return the compilation of the file
+     */
+    public static JavaCompilation compile(File file, Charset charset, long version) {
+        return compile(FileUtils.getCharacters(file, charset), file.getName(), version);
+    }
+
+    /**
+     * Returns the compiled source as a {@link JavaCompilation}.
+     * 
+     * @param source
+     *            to compile
+     * @param fileName
+     *            under which the source is reported, need not exist on the file system
+     * @param version
+     *            of Java used in the source
+     * @return the compilation of the source
+     */
+    public static JavaCompilation compile(char[] source, String fileName, long version) {
         CompilerOptions options = getDefaultCompilerOptions(version);
-        Parser parser = createCommentRecorderParser(options);
-        ICompilationUnit cu = createCompilationUnit(FileUtils.getContent(file), file.getName());
-        CompilationResult compilationResult = createDefaultCompilationResult(cu, options);
-        return new JavaCompilation(parser.parse(cu, compilationResult), parser.scanner);
+        CompilationResult compilationResult =
+                createDefaultCompilationResult(createCompilationUnit(source, fileName), options);
+        return new JavaCompilation(parse(compilationResult, options, false), createScanner(source, options));
+    }
+
+    /**
+     * Returns the diet compiled source as a {@link JavaCompilation}. A diet parse skips the bodies of methods,
+     * constructors, and initializers, which are parsed on demand by the {@link JavaCompilation#getBodyParser() body
+     * parser} of the compilation. Comments are recorded for the whole source, including the bodies. If the diet parse
+     * reports a syntax error, the source is completely parsed instead, so that the compilation unit recovers from the
+     * error as that of {@link #compile(char[], String, long)} does.
+     * 
+     * @param source
+     *            to compile
+     * @param fileName
+     *            under which the source is reported, need not exist on the file system
+     * @param version
+     *            of Java used in the source
+     * @return the diet compilation of the source
+     */
+    public static JavaCompilation dietCompile(char[] source, String fileName, long version) {
+        CompilerOptions options = getDefaultCompilerOptions(version);
+        CompilationResult compilationResult =
+                createDefaultCompilationResult(createCompilationUnit(source, fileName), options);
+        CompilationUnitDeclaration compilationUnit = parse(compilationResult, options, true);
+        if (compilationResult.hasSyntaxError) {
+            return compile(source, fileName, version);
+        }
+        return new JavaCompilation(
+                compilationUnit,
+                createScanner(source, options),
+                new LineTable(source),
+                new DietBodyParser(compilationUnit, source, version));
+    }
+
+    private static CompilationUnitDeclaration parse(
+            CompilationResult compilationResult,
+            CompilerOptions options,
+            boolean diet) {
+        long version = options.sourceLevel;
+        CommentRecorderParser parser = ParserPool.acquire(version);
+        CompilationUnitDeclaration compilationUnit;
+        if (diet) {
+            compilationUnit = parser.dietParse(compilationResult.compilationUnit, compilationResult);
+        } else {
+            compilationUnit = parser.parse(compilationResult.compilationUnit, compilationResult);
+        }
+        ParserPool.release(parser, version, compilationResult);
+        return compilationUnit;
+    }
+
+    /**
+     * Creates a parser like the one of a {@link JavaCompilation}. Compilations get their parsers from the
+     * {@link ParserPool}.
+     * 
+     * @param version
+     *            of Java used in the source
+     * @return the parser
+     */
+    static CommentRecorderParser createParser(long version) {
+        return createCommentRecorderParser(getDefaultCompilerOptions(version));
+    }
+
+    /**
+     * Creates a scanner on the source like the one of a {@link JavaCompilation} of that source, e.g., to reuse the
+     * compilation unit of a compilation with an own scanner.
+     * 
+     * @param source
+     *            to scan
+     * @param version
+     *            of Java used in the source
+     * @return the scanner on the source
+     */
+    static Scanner createScanner(char[] source, long version) {
+        return createScanner(source, getDefaultCompilerOptions(version));
+    }
+
+    private static Scanner createScanner(char[] source, CompilerOptions options) {
+        // configured like the scanner of a CommentRecorderParser
+        Scanner scanner =
+                new Scanner(
+                        false,
+                        false,
+                        options.getSeverity(CompilerOptions.NonExternalizedString) != ProblemSeverities.Ignore,
+                        options.sourceLevel,
+                        options.taskTags,
+                        options.taskPriorities,
+                        options.isTaskCaseSensitive);
+        scanner.setSource(source);
+        return scanner;
     }
 
     private static CompilationResult createDefaultCompilationResult(ICompilationUnit cu, CompilerOptions options) {
         return new CompilationResult(cu, 0, 0, options.maxProblemsPerUnit);
     }
 
-    private static ICompilationUnit createCompilationUnit(String source, String filename) {
-        return new CompilationUnit(source.toCharArray(), filename, null);
+    private static ICompilationUnit createCompilationUnit(char[] source, String filename) {
+        return new CompilationUnit(source, filename, null);
     }
 
     private static CompilerOptions getDefaultCompilerOptions(long version) {
@@ -105,16 +227,7 @@ public final class JavaCompilationUtils {
         return options;
     }
 
-    private static CompilerOptions getDefaultCompilerOptions() {
-        CompilerOptions options = new CompilerOptions();
-        options.docCommentSupport = true;
-        options.complianceLevel = ClassFileConstants.JDK1_6;
-        options.sourceLevel = ClassFileConstants.JDK1_6;
-        options.targetJDK = ClassFileConstants.JDK1_6;
-        return options;
-    }
-
-    private static Parser createCommentRecorderParser(CompilerOptions options) {
+    private static CommentRecorderParser createCommentRecorderParser(CompilerOptions options) {
         return new CommentRecorderParser(new ProblemReporter(
                 DefaultErrorHandlingPolicies.proceedWithAllProblems(),
                 options,
@@ -0,0 +1,387 @@
+package ch.uzh.ifi.seal.changedistiller.ast.java;
+
+/*
+ * #%L
+ * ChangeDistiller
+ * %%
+ * Copyright (C) 2011 - 2013 Software Architecture and Evolution Lab, Department of Informatics, UZH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import ch.uzh.ifi.seal.changedistiller.model.classifiers.EntityType;
+import ch.uzh.ifi.seal.changedistiller.model.entities.SourceCodeChange;
+import ch.uzh.ifi.seal.changedistiller.model.entities.SourceCodeEntity;
+import ch.uzh.ifi.seal.changedistiller.model.entities.StructureEntityVersion;
+
+/**
+ * Operations of one kind, e.g., all inserts, that the {@link JavaSourceCodeChangeClassifier} has not consumed yet.
+ * 
+ * <p>
+ * Operations are looked up by the type and name of their root, parent, and changed entity, where <code>null</code>
+ * matches any type or name. A lookup that gives the root and parent uses a hash index on the root and parent, or on the
+ * root, parent, and changed entity if that is given too. Other lookups go through all remaining operations. The
+ * indexes are built on the first lookup. Every index entry is a linked list, from which consumed operations are
+ * unlinked. Lookups and iteration return the operations in the order in which they were added.
+ * 
+ * @param <T>
+ *            kind of the operations
+ * @author Beat Fluri
+ */
+final class OperationIndex<T extends SourceCodeChange> implements Iterable<T> {
+
+    private Bucket fOperations = new Bucket();
+    private Map<T, Entry> fEntries = new IdentityHashMap<T, Entry>();
+
+    private Map<Key, Bucket> fByParent;
+    private Map<Key, Bucket> fByChangedEntity;
+
+    /**
+     * Adds the given operation. Adding an operation that is already in the index has no effect.
+     * 
+     * @param operation
+     *            to add
+     */
+    void add(T operation) {
+        if (!fEntries.containsKey(operation)) {
+            Entry entry = new Entry(operation);
+            fEntries.put(operation, entry);
+            fOperations.append(entry);
+            if (fByParent != null) {
+                index(entry);
+            }
+        }
+    }
+
+    /**
+     * Consumes the given operation, so that it is neither found nor iterated anymore.
+     * 
+     * @param operation
+     *            to consume
+     */
+    void remove(T operation) {
+        Entry entry = fEntries.remove(operation);
+        if (entry != null) {
+            entry.unlink();
+        }
+    }
+
+    /**
+     * Returns the first remaining operation that matches the pattern.
+     * 
+     * @return the first matching operation, <code>null</code> if none matches
+     */
+    T find(
+            EntityType rootType,
+            String rootName,
+            EntityType parentType,
+            String parentName,
+            EntityType changedType,
+            String changedName) {
+        Iterator<T> it = findAll(rootType, rootName, parentType, parentName, changedType, changedName).iterator();
+        return it.hasNext() ? it.next() : null;
+    }
+
+    /**
+     * Returns the remaining operations that match the pattern.
+     * 
+     * @return the matching operations
+     */
+    Iterable<T> findAll(
+            final EntityType rootType,
+            final String rootName,
+            final EntityType parentType,
+            final String parentName,
+            final EntityType changedType,
+            final String changedName) {
+        final Bucket candidates = getCandidates(rootType, rootName, parentType, parentName, changedType, changedName);
+        return new Iterable<T>() {
+
+            @Override
+            public Iterator<T> iterator() {
+                return new Matches(candidates) {
+
+                    @Override
+                    boolean matches(T operation) {
+                        return isEqual(operation.getRootEntity(), rootType, rootName)
+                                && isEqual(operation.getParentEntity(), parentType, parentName)
+                                && isEqual(operation.getChangedEntity(), changedType, changedName);
+                    }
+                };
+            }
+        };
+    }
+
+    /**
+     * Returns an iterator over the remaining operations. Consuming an operation while iterating is allowed.
+     */
+    @Override
+    public Iterator<T> iterator() {
+        return new Matches(fOperations) {
+
+            @Override
+            boolean matches(T operation) {
+                return true;
+            }
+        };
+    }
+
+    private Bucket getCandidates(
+            EntityType rootType,
+            String rootName,
+            EntityType parentType,
+            String parentName,
+            EntityType changedType,
+            String changedName) {
+        if ((rootType == null) || (rootName == null) || (parentType == null) || (parentName == null)) {
+            return fOperations;
+        }
+        if (fByParent == null) {
+            createIndexes();
+        }
+        Bucket candidates;
+        if ((changedType == null) || (changedName == null)) {
+            candidates = fByParent.get(new Key(rootType, rootName, parentType, parentName, null, null));
+        } else {
+            candidates =
+                    fByChangedEntity.get(new Key(rootType, rootName, parentType, parentName, changedType, changedName));
+        }
+        return candidates != null ? candidates : new Bucket();
+    }
+
+    private void createIndexes() {
+        fByParent = new HashMap<Key, Bucket>();
+        fByChangedEntity = new HashMap<Key, Bucket>();
+        for (Link link = fOperations.fFirst; link != null; link = link.fNext) {
+            index(link.fEntry);
+        }
+    }
+
+    private void index(Entry entry) {
+        StructureEntityVersion root = entry.fOperation.getRootEntity();
+        SourceCodeEntity parent = entry.fOperation.getParentEntity();
+        SourceCodeEntity changed = entry.fOperation.getChangedEntity();
+        getBucket(fByParent, new Key(
+                root.getType(),
+                root.getUniqueName(),
+                parent.getType(),
+                parent.getUniqueName(),
+                null,
+                null)).append(entry);
+        getBucket(fByChangedEntity, new Key(
+                root.getType(),
+                root.getUniqueName(),
+                parent.getType(),
+                parent.getUniqueName(),
+                changed.getType(),
+                changed.getUniqueName())).append(entry);
+    }
+
+    private Bucket getBucket(Map<Key, Bucket> index, Key key) {
+        Bucket bucket = index.get(key);
+        if (bucket == null) {
+            bucket = new Bucket();
+            index.put(key, bucket);
+        }
+        return bucket;
+    }
+
+    private static boolean isEqual(SourceCodeEntity entity, EntityType expectedEntityType, String expectedEntityName) {
+        return ((expectedEntityType == null) || (entity.getType() == expectedEntityType))
+                && ((expectedEntityName == null) || entity.getUniqueName().equals(expectedEntityName));
+    }
+
+    private static boolean isEqual(
+            StructureEntityVersion entity,
+            EntityType expectedEntityType,
+            String expectedEntityName) {
+        return ((expectedEntityType == null) || (entity.getType() == expectedEntityType))
+                && ((expectedEntityName == null) || entity.getUniqueName().equals(expectedEntityName));
+    }
+
+    /**
+     * An operation together with its links in the list of all operations and in the indexes.
+     */
+    private final class Entry {
+
+        private final T fOperation;
+        private final List<Link> fLinks = new ArrayList<Link>(3);
+        private boolean fRemoved;
+
+        Entry(T operation) {
+            fOperation = operation;
+        }
+
+        void unlink() {
+            fRemoved = true;
+            for (Link link : fLinks) {
+                link.fBucket.unlink(link);
+            }
+        }
+    }
+
+    /**
+     * A link of a doubly linked list. A link that is unlinked keeps its successor, so that iterators positioned on it
+     * can go on with the remaining operations.
+     */
+    private final class Link {
+
+        private final Entry fEntry;
+        private final Bucket fBucket;
+        private Link fPrevious;
+        private Link fNext;
+
+        Link(Entry entry, Bucket bucket) {
+            fEntry = entry;
+            fBucket = bucket;
+        }
+    }
+
+    /**
+     * A doubly linked list of the remaining operations in the order in which they were added.
+     */
+    private final class Bucket {
+
+        private Link fFirst;
+        private Link fLast;
+
+        void append(Entry entry) {
+            Link link = new Link(entry, this);
+            if (fLast == null) {
+                fFirst = link;
+            } else {
+                fLast.fNext = link;
+                link.fPrevious = fLast;
+            }
+            fLast = link;
+            entry.fLinks.add(link);
+        }
+
+        void unlink(Link link) {
+            if (link.fPrevious == null) {
+                fFirst = link.fNext;
+            } else {
+                link.fPrevious.fNext = link.fNext;
+            }
+            if (link.fNext == null) {
+                fLast = link.fPrevious;
+            } else {
+                link.fNext.fPrevious = link.fPrevious;
+            }
+        }
+    }
+
+    /**
+     * Iterates over the remaining operations of a bucket that match.
+     */
+    private abstract class Matches implements Iterator<T> {
+
+        private Bucket fCandidates;
+        private Link fCurrent;
+        private Link fNext;
+
+        Matches(Bucket candidates) {
+            fCandidates = candidates;
+        }
+
+        abstract boolean matches(T operation);
+
+        @Override
+        public boolean hasNext() {
+            if (fNext == null) {
+                fNext = fCurrent == null ? fCandidates.fFirst : fCurrent.fNext;
+            }
+            while ((fNext != null) && (fNext.fEntry.fRemoved || !matches(fNext.fEntry.fOperation))) {
+                fCurrent = fNext;
+                fNext = fNext.fNext;
+            }
+            return fNext != null;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            fCurrent = fNext;
+            fNext = null;
+            return fCurrent.fEntry.fOperation;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private static final class Key {
+
+        private final EntityType fRootType;
+        private final String fRootName;
+        private final EntityType fParentType;
+        private final String fParentName;
+        private final EntityType fChangedType;
+        private final String fChangedName;
+
+        Key(EntityType rootType,
+                String rootName,
+                EntityType parentType,
+                String parentName,
+                EntityType changedType,
+                String changedName) {
+            fRootType = rootType;
+            fRootName = rootName;
+            fParentType = parentType;
+            fParentName = parentName;
+            fChangedType = changedType;
+            fChangedName = changedName;
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = fRootType.hashCode();
+            hash = (31 * hash) + fRootName.hashCode();
+            hash = (31 * hash) + (fParentType != null ? fParentType.hashCode() : 0);
+            hash = (31 * hash) + (fParentName != null ? fParentName.hashCode() : 0);
+            hash = (31 * hash) + (fChangedType != null ? fChangedType.hashCode() : 0);
+            return (31 * hash) + (fChangedName != null ? fChangedName.hashCode() : 0);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return (fRootType == other.fRootType) && fRootName.equals(other.fRootName)
+                    && (fParentType == other.fParentType) && isEqual(fParentName, other.fParentName)
+                    && (fChangedType == other.fChangedType) && isEqual(fChangedName, other.fChangedName);
+        }
+
+        private static boolean isEqual(String left, String right) {
+            return left == null ? right == null : left.equals(right);
+        }
+    }
+
+}
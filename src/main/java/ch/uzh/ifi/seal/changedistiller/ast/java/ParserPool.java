@@ -0,0 +1,100 @@
+package ch.uzh.ifi.seal.changedistiller.ast.java;
+
+/*
+ * #%L
+ * ChangeDistiller
+ * %%
+ * Copyright (C) 2011 - 2013 Software Architecture and Evolution Lab, Department of Informatics, UZH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.jdt.internal.compiler.CompilationResult;
+import org.eclipse.jdt.internal.core.util.CommentRecorderParser;
+
+/**
+ * Per-thread pool of the parsers used by {@link JavaCompilationUtils}, keyed by Java source level.
+ * 
+ * <p>
+ * An ecj parser allocates its stacks and buffers when it is created, which costs about as much as parsing a small
+ * file. Parsers are therefore reused. A parser is initialized by each parse, so it only has to be released after the
+ * parse; releasing {@link CommentRecorderParser#reset() resets} it to drop its references to the parsed source and
+ * its nodes. The recovery from syntax errors changes the mode of a parser, e.g., to diet parsing, without resetting
+ * it. Parsers that reported syntax errors are therefore dropped, as are parsers that are not released because the
+ * parse failed. Since every thread has its own pool, parsers are never
+ * shared between threads, and a thread may acquire several parsers at once.
+ * 
+ * @author Beat Fluri
+ */
+final class ParserPool {
+
+    private static final ThreadLocal<Map<Long, Deque<CommentRecorderParser>>> IDLE_PARSERS =
+            new ThreadLocal<Map<Long, Deque<CommentRecorderParser>>>() {
+
+                @Override
+                protected Map<Long, Deque<CommentRecorderParser>> initialValue() {
+                    return new HashMap<Long, Deque<CommentRecorderParser>>();
+                }
+            };
+
+    private ParserPool() {}
+
+    /**
+     * Returns an idle parser of the current thread for the Java version, creating one if there is none.
+     * 
+     * @param version
+     *            of Java the parser parses
+     * @return the parser, to be {@link #release(CommentRecorderParser, long, CompilationResult) released} after use
+     */
+    static CommentRecorderParser acquire(long version) {
+        CommentRecorderParser parser = getIdleParsers(version).poll();
+        if (parser == null) {
+            parser = JavaCompilationUtils.createParser(version);
+        }
+        return parser;
+    }
+
+    /**
+     * Returns the parser to the pool of the current thread, unless it reported syntax errors.
+     * 
+     * @param parser
+     *            acquired by the current thread
+     * @param version
+     *            of Java the parser was acquired for
+     * @param compilationResult
+     *            to which the parser reported
+     */
+    static void release(CommentRecorderParser parser, long version, CompilationResult compilationResult) {
+        if (compilationResult.hasSyntaxError) {
+            return;
+        }
+        parser.reset();
+        getIdleParsers(version).push(parser);
+    }
+
+    private static Deque<CommentRecorderParser> getIdleParsers(long version) {
+        Map<Long, Deque<CommentRecorderParser>> idleParsers = IDLE_PARSERS.get();
+        Deque<CommentRecorderParser> parsers = idleParsers.get(version);
+        if (parsers == null) {
+            parsers = new ArrayDeque<CommentRecorderParser>(1);
+            idleParsers.put(version, parsers);
+        }
+        return parsers;
+    }
+
+}
@@ -0,0 +1,132 @@
+package ch.uzh.ifi.seal.changedistiller.distilling;
+
+/*
+ * #%L
+ * ChangeDistiller
+ * %%
+ * Copyright (C) 2011 - 2013 Software Architecture and Evolution Lab, Department of Informatics, UZH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Aggregates the phases and counters of all distillations in memory.
+ * 
+ * <p>
+ * For each phase, the number of times it ran, its total and its maximal time are kept. All values are updated
+ * atomically, so the listener can be shared by concurrent distillations and read while they run.
+ * 
+ * @author Beat Fluri
+ */
+public class AggregatingDistillationListener implements DistillationListener {
+
+    private static final int PHASES = DistillationPhase.values().length;
+
+    private final AtomicLongArray fPhaseCounts = new AtomicLongArray(PHASES);
+    private final AtomicLongArray fPhaseNanos = new AtomicLongArray(PHASES);
+    private final AtomicLongArray fMaxPhaseNanos = new AtomicLongArray(PHASES);
+    private final AtomicLongArray fCounters = new AtomicLongArray(DistillationCounter.values().length);
+
+    @Override
+    public void phaseStarted(DistillationPhase phase) {}
+
+    @Override
+    public void phaseEnded(DistillationPhase phase, long nanos) {
+        int i = phase.ordinal();
+        fPhaseCounts.incrementAndGet(i);
+        fPhaseNanos.addAndGet(i, nanos);
+        long max = fMaxPhaseNanos.get(i);
+        while ((nanos > max) && !fMaxPhaseNanos.compareAndSet(i, max, nanos)) {
+            max = fMaxPhaseNanos.get(i);
+        }
+    }
+
+    @Override
+    public void count(DistillationCounter counter, long amount) {
+        fCounters.addAndGet(counter.ordinal(), amount);
+    }
+
+    /**
+     * Returns how many times the phase ended.
+     * 
+     * @param phase
+     *            to get the count of
+     * @return how many times the phase ended
+     */
+    public long getPhaseCount(DistillationPhase phase) {
+        return fPhaseCounts.get(phase.ordinal());
+    }
+
+    /**
+     * Returns the total time spent in the phase.
+     * 
+     * @param phase
+     *            to get the time of
+     * @return the total time of the phase in nanoseconds
+     */
+    public long getPhaseNanos(DistillationPhase phase) {
+        return fPhaseNanos.get(phase.ordinal());
+    }
+
+    /**
+     * Returns the longest time a single run of the phase took.
+     * 
+     * @param phase
+     *            to get the time of
+     * @return the maximal time of the phase in nanoseconds
+     */
+    public long getMaxPhaseNanos(DistillationPhase phase) {
+        return fMaxPhaseNanos.get(phase.ordinal());
+    }
+
+    /**
+     * Returns the value of the counter.
+     * 
+     * @param counter
+     *            to get the value of
+     * @return the value of the counter
+     */
+    public long getCount(DistillationCounter counter) {
+        return fCounters.get(counter.ordinal());
+    }
+
+    /**
+     * Resets all phases and counters.
+     */
+    public void reset() {
+        for (int i = 0; i < PHASES; i++) {
+            fPhaseCounts.set(i, 0);
+            fPhaseNanos.set(i, 0);
+            fMaxPhaseNanos.set(i, 0);
+        }
+        for (int i = 0; i < fCounters.length(); i++) {
+            fCounters.set(i, 0);
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (DistillationPhase phase : DistillationPhase.values()) {
+            sb.append(phase).append(": ").append(getPhaseCount(phase)).append(" x, ");
+            sb.append(getPhaseNanos(phase) / 1000000).append(" ms total, ");
+            sb.append(getMaxPhaseNanos(phase) / 1000000).append(" ms max\n");
+        }
+        for (DistillationCounter counter : DistillationCounter.values()) {
+            sb.append(counter).append(": ").append(getCount(counter)).append('\n');
+        }
+        return sb.toString();
+    }
+}
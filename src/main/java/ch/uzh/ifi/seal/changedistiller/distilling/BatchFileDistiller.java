@@ -0,0 +1,155 @@
+package ch.uzh.ifi.seal.changedistiller.distilling;
+
+/*
+ * #%L
+ * ChangeDistiller
+ * %%
+ * Copyright (C) 2011 - 2013 Software Architecture and Evolution Lab, Department of Informatics, UZH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+
+/**
+ * Distills many pairs of files concurrently.
+ * 
+ * <p>
+ * Every {@link DistillationJob} runs on the given {@link Executor} with its own {@link FileDistiller}, so each file of
+ * a job is parsed once and its pair distilled once. The results are passed back as the jobs complete.
+ * 
+ * @author Beat Fluri
+ * @see FileDistiller
+ */
+public class BatchFileDistiller {
+
+    private Provider<FileDistiller> fFileDistillerProvider;
+
+    @Inject
+    BatchFileDistiller(Provider<FileDistiller> fileDistillerProvider) {
+        fFileDistillerProvider = fileDistillerProvider;
+    }
+
+    /**
+     * Distills the given jobs on the executor and passes each result to the handler as soon as the job completes.
+     * Returns once all results are handled.
+     * 
+     * @param jobs
+     *            to distill
+     * @param executor
+     *            on which the jobs are distilled
+     * @param handler
+     *            receiving the results in the order of completion
+     * @throws InterruptedException
+     *             if the calling thread is interrupted while waiting for results; the pending jobs are cancelled
+     */
+    public void distill(Collection<DistillationJob> jobs, Executor executor, DistillationResultHandler handler)
+            throws InterruptedException {
+        CompletionService<DistillationResult> completionService =
+                new ExecutorCompletionService<DistillationResult>(executor);
+        List<Future<DistillationResult>> pending = new ArrayList<Future<DistillationResult>>(jobs.size());
+        for (DistillationJob job : jobs) {
+            pending.add(completionService.submit(createTask(job)));
+        }
+        try {
+            for (int i = 0; i < pending.size(); i++) {
+                handler.handle(getResult(completionService.take()));
+            }
+        } finally {
+            for (Future<DistillationResult> future : pending) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Distills the given jobs on the executor.
+     * 
+     * @param jobs
+     *            to distill
+     * @param executor
+     *            on which the jobs are distilled
+     * @return the results in the order of the jobs
+     * @throws InterruptedException
+     *             if the calling thread is interrupted while waiting for results; the pending jobs are cancelled
+     */
+    public List<DistillationResult> distill(Collection<DistillationJob> jobs, Executor executor)
+            throws InterruptedException {
+        final Map<DistillationJob, DistillationResult> results =
+                new IdentityHashMap<DistillationJob, DistillationResult>();
+        distill(jobs, executor, new DistillationResultHandler() {
+
+            @Override
+            public void handle(DistillationResult result) {
+                results.put(result.getJob(), result);
+            }
+        });
+        List<DistillationResult> orderedResults = new ArrayList<DistillationResult>(jobs.size());
+        for (DistillationJob job : jobs) {
+            orderedResults.add(results.get(job));
+        }
+        return orderedResults;
+    }
+
+    private Callable<DistillationResult> createTask(final DistillationJob job) {
+        return new Callable<DistillationResult>() {
+
+            @Override
+            public DistillationResult call() {
+                return distill(job);
+            }
+        };
+    }
+
+    private DistillationResult distill(DistillationJob job) {
+        try {
+            FileDistiller distiller = fFileDistillerProvider.get();
+            if (job.getVersion() != null) {
+                distiller.extractClassifiedSourceCodeChanges(job.getLeft(), job.getRight(), job.getVersion());
+            } else {
+                distiller.extractClassifiedSourceCodeChanges(job.getLeft(), job.getRight());
+            }
+            return new DistillationResult(job, distiller.getSourceCodeChanges(), distiller.getClassHistory());
+        } catch (RuntimeException e) {
+            return new DistillationResult(job, e);
+        }
+    }
+
+    private DistillationResult getResult(Future<DistillationResult> future) throws InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            // distill(DistillationJob) reports runtime exceptions as failed results; errors are passed on
+            Throwable cause = e.getCause();
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+}
@@ -20,9 +20,13 @@ package ch.uzh.ifi.seal.changedistiller.distilling;
  * #L%
  */
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
 
 import ch.uzh.ifi.seal.changedistiller.ast.ASTHelper;
 import ch.uzh.ifi.seal.changedistiller.distilling.refactoring.RefactoringCandidate;
@@ -41,6 +45,18 @@ import ch.uzh.ifi.seal.changedistiller.treedifferencing.Node;
 /**
  * Extracts changes from a class {@link StructureDiffNode}.
  * 
+ * <p>
+ * In the parallel mode, enabled with {@link #setForkJoinPool(ForkJoinPool)}, the body and declaration trees of the
+ * changed members are still created one after the other, but their differences are distilled as fork/join tasks. The
+ * distilled changes are then merged in the order of the members, so the class history and the resulting changes are
+ * the same as in the sequential mode.
+ * 
+ * <p>
+ * The changes are collected for {@link #getSourceCodeChanges()} or, with
+ * {@link #setSourceCodeChangeSink(SourceCodeChangeSink)}, pushed to a sink as soon as the changes of a member are
+ * distilled. The changes are also attached to the structure entity versions of the class history, unless disabled with
+ * {@link #setRetainChanges(boolean)}.
+ * 
  * @author Beat Fluri
  * @author Giacomo Ghezzi
  */
@@ -55,9 +71,14 @@ public class ClassDistiller {
 
     private StructureEntityVersion fRootEntity;
     private SourceCodeEntity fParentEntity;
-    private List<SourceCodeChange> fChanges;
+    private SourceCodeChangeCollector fCollector;
+    private SourceCodeChangeSink fSink;
     private RefactoringCandidateContainer fRefactoringContainer;
     private String fVersion;
+    private ForkJoinPool fForkJoinPool;
+    private List<PendingChanges> fPendingChanges;
+    private DistillationListener fListener = DistillationListener.NONE;
+    private boolean fRetainChanges = true;
 
     /**
      * Creates a new class distiller.
@@ -88,7 +109,8 @@ public class ClassDistiller {
         fRightASTHelper = rightASTHelper;
         fRefactoringProcessor = refactoringProcessor;
         fDistillerFactory = distillerFactory;
-        fChanges = new LinkedList<SourceCodeChange>();
+        fCollector = new SourceCodeChangeCollector();
+        fSink = fCollector;
         fRefactoringContainer = new RefactoringCandidateContainer();
     }
     
@@ -124,11 +146,58 @@ public class ClassDistiller {
         fRightASTHelper = rightASTHelper;
         fRefactoringProcessor = refactoringProcessor;
         fDistillerFactory = distillerFactory;
-        fChanges = new LinkedList<SourceCodeChange>();
+        fCollector = new SourceCodeChangeCollector();
+        fSink = fCollector;
         fRefactoringContainer = new RefactoringCandidateContainer();
         fVersion = version;
     }
 
+    /**
+     * Enables the parallel mode in which the differences of the members are distilled on the given pool. Inner classes
+     * are distilled on the same pool.
+     * 
+     * @param forkJoinPool
+     *            on which the differences are distilled, <code>null</code> to distill sequentially
+     */
+    public void setForkJoinPool(ForkJoinPool forkJoinPool) {
+        fForkJoinPool = forkJoinPool;
+    }
+
+    /**
+     * Pushes the changes to the given sink instead of collecting them, {@link #getSourceCodeChanges()} is empty then.
+     * Inner classes push to the same sink.
+     * 
+     * @param sink
+     *            to which the changes are pushed
+     */
+    public void setSourceCodeChangeSink(SourceCodeChangeSink sink) {
+        fSink = sink;
+        fCollector = null;
+    }
+
+    /**
+     * Sets whether the changes are attached to the structure entity versions of the class history. Without, the class
+     * history only records which members changed, so that changes pushed to a {@link SourceCodeChangeSink} are not
+     * kept reachable by the class history. Inner classes use the same setting.
+     * 
+     * @param retainChanges
+     *            <code>true</code> to attach the changes (the default), <code>false</code> otherwise
+     */
+    public void setRetainChanges(boolean retainChanges) {
+        fRetainChanges = retainChanges;
+    }
+
+    /**
+     * Sets the listener to which the tree building and refactoring detection phases are reported. Inner classes report
+     * to the same listener.
+     * 
+     * @param listener
+     *            to report to
+     */
+    public void setDistillationListener(DistillationListener listener) {
+        fListener = listener;
+    }
+
     /**
      * Extract the {@link SourceCodeChange}s of the {@link StructureDiffNode} with which the class distiller was
      * initialized.
@@ -140,10 +209,12 @@ public class ClassDistiller {
         } else {
         	fRootEntity = fLeftASTHelper.createStructureEntityVersion(fClassDiffNode.getLeft());
         }
-        processDeclarationChanges(fClassDiffNode, fRootEntity);
-        fChanges.addAll(fRootEntity.getSourceCodeChanges());
+        addAll(processDeclarationChanges(fClassDiffNode, fRootEntity));
         processChildren();
         
+        fListener.count(DistillationCounter.REFACTORING_CANDIDATES, countRefactoringCandidatePairs());
+        fListener.phaseStarted(DistillationPhase.REFACTORING_DETECTION);
+        long start = System.nanoTime();
         if (fVersion != null) {
         	fRefactoringProcessor.processRefactoringCandidates(fClassHistory,
 					fLeftASTHelper, fRightASTHelper, fRefactoringContainer, fVersion);
@@ -151,8 +222,29 @@ public class ClassDistiller {
 			fRefactoringProcessor.processRefactoringCandidates(fClassHistory,
 					fLeftASTHelper, fRightASTHelper, fRefactoringContainer);
         }
-        fChanges.addAll(fRefactoringProcessor.getSourceCodeChanges());
+        fListener.phaseEnded(DistillationPhase.REFACTORING_DETECTION, System.nanoTime() - start);
+        addAll(fRefactoringProcessor.getSourceCodeChanges());
         cleanupInnerClassHistories();
+        if (!fRetainChanges) {
+            detachRefactoringChanges();
+        }
+    }
+
+    private void detachRefactoringChanges() {
+        // the refactoring processor attaches its changes to the class and to the versions of refactored members
+        for (StructureEntityVersion clazz : fClassHistory.getVersions()) {
+            clazz.getSourceCodeChanges().clear();
+        }
+        for (SourceCodeChange change : fRefactoringProcessor.getSourceCodeChanges()) {
+            change.getRootEntity().getSourceCodeChanges().clear();
+        }
+    }
+
+    private long countRefactoringCandidatePairs() {
+        RefactoringCandidateContainer container = fRefactoringContainer;
+        return ((long) container.getAddedMethods().size() * container.getDeletedMethods().size())
+                + ((long) container.getAddedFields().size() * container.getDeletedFields().size())
+                + ((long) container.getAddedInnerClasses().size() * container.getDeletedInnerClasses().size());
     }
 
     private void cleanupInnerClassHistories() {
@@ -165,9 +257,18 @@ public class ClassDistiller {
     }
 
     private void processChildren() {
+        if (fForkJoinPool != null) {
+            fPendingChanges = new ArrayList<PendingChanges>(fClassDiffNode.getChildren().size());
+        }
         for (StructureDiffNode child : fClassDiffNode.getChildren()) {
             processChildDiffNode(child);
         }
+        if (fPendingChanges != null) {
+            for (PendingChanges pendingChanges : fPendingChanges) {
+                pendingChanges.merge();
+            }
+            fPendingChanges = null;
+        }
     }
 
     private void processChildDiffNode(StructureDiffNode diffNode) {
@@ -206,12 +307,35 @@ public class ClassDistiller {
                         fRefactoringProcessor,
                         fDistillerFactory);
     	}
+        classDistiller.setForkJoinPool(fForkJoinPool);
+        classDistiller.setDistillationListener(fListener);
+        classDistiller.setRetainChanges(fRetainChanges);
+        // in the parallel mode, the changes of the inner class are merged in the order of the members
+        if (fPendingChanges == null) {
+            classDistiller.setSourceCodeChangeSink(fSink);
+        }
         classDistiller.extractChanges();
-        fChanges.addAll(classDistiller.getSourceCodeChanges());
+        if (fPendingChanges != null) {
+            fPendingChanges.add(new PendingChanges(classDistiller.getSourceCodeChanges()));
+        }
     }
 
+    /**
+     * Returns the collected changes, empty if the changes are pushed to a {@link SourceCodeChangeSink}.
+     * 
+     * @return the collected changes
+     */
     public List<SourceCodeChange> getSourceCodeChanges() {
-        return fChanges;
+        if (fCollector != null) {
+            return fCollector.getSourceCodeChanges();
+        }
+        return Collections.emptyList();
+    }
+
+    private void addAll(List<SourceCodeChange> changes) {
+        for (SourceCodeChange change : changes) {
+            fSink.add(change);
+        }
     }
 
     private void processChanges(StructureDiffNode diffNode) {
@@ -242,10 +366,25 @@ public class ClassDistiller {
         } else if (diffNode.isClassOrInterfaceDiffNode()) {
             entity = createInnerClassStructureEntity(diffNode);
         }
-        processBodyChanges(diffNode, entity);
-        processDeclarationChanges(diffNode, entity);
-        if (!entity.getSourceCodeChanges().isEmpty()) {
-            fChanges.addAll(entity.getSourceCodeChanges());
+        if (fPendingChanges != null) {
+            fPendingChanges.add(new PendingChanges(
+                    diffNode,
+                    entity,
+                    forkBodyChanges(diffNode, entity),
+                    forkDeclarationChanges(diffNode, entity)));
+        } else {
+            List<SourceCodeChange> changes = new ArrayList<SourceCodeChange>(processBodyChanges(diffNode, entity));
+            changes.addAll(processDeclarationChanges(diffNode, entity));
+            collectChanges(diffNode, entity, changes);
+        }
+    }
+
+    private void collectChanges(
+            StructureDiffNode diffNode,
+            StructureEntityVersion entity,
+            List<SourceCodeChange> changes) {
+        if (!changes.isEmpty()) {
+            addAll(changes);
         } else {
             if (diffNode.isMethodOrConstructorDiffNode()) {
                 fClassHistory.deleteMethod(entity);
@@ -279,23 +418,142 @@ public class ClassDistiller {
     	}
     }
 
-    private void processDeclarationChanges(StructureDiffNode diffNode, StructureEntityVersion rootEntity) {
-        extractChanges(
+    private List<SourceCodeChange> processDeclarationChanges(
+            StructureDiffNode diffNode,
+            StructureEntityVersion rootEntity) {
+        Node[] trees = createDeclarationTrees(diffNode);
+        return extractChanges(trees[0], trees[1], rootEntity);
+    }
+
+    private List<SourceCodeChange> processBodyChanges(StructureDiffNode diffNode, StructureEntityVersion rootEntity) {
+        Node[] trees = createMethodBodyTrees(diffNode);
+        return extractChanges(trees[0], trees[1], rootEntity);
+    }
+
+    private Node[] createDeclarationTrees(StructureDiffNode diffNode) {
+        fListener.phaseStarted(DistillationPhase.TREE_BUILDING);
+        long start = System.nanoTime();
+        Node[] trees = new Node[] {
                 fLeftASTHelper.createDeclarationTree(diffNode.getLeft()),
-                fRightASTHelper.createDeclarationTree(diffNode.getRight()),
-                rootEntity);
+                fRightASTHelper.createDeclarationTree(diffNode.getRight())};
+        fListener.phaseEnded(DistillationPhase.TREE_BUILDING, System.nanoTime() - start);
+        return trees;
     }
 
-    private void processBodyChanges(StructureDiffNode diffNode, StructureEntityVersion rootEntity) {
-        extractChanges(
+    private Node[] createMethodBodyTrees(StructureDiffNode diffNode) {
+        fListener.phaseStarted(DistillationPhase.TREE_BUILDING);
+        long start = System.nanoTime();
+        Node[] trees = new Node[] {
                 fLeftASTHelper.createMethodBodyTree(diffNode.getLeft()),
-                fRightASTHelper.createMethodBodyTree(diffNode.getRight()),
-                rootEntity);
+                fRightASTHelper.createMethodBodyTree(diffNode.getRight())};
+        fListener.phaseEnded(DistillationPhase.TREE_BUILDING, System.nanoTime() - start);
+        return trees;
     }
 
-    private void extractChanges(Node left, Node right, StructureEntityVersion rootEntity) {
+    private List<SourceCodeChange> extractChanges(Node left, Node right, StructureEntityVersion rootEntity) {
         Distiller distiller = fDistillerFactory.create(rootEntity);
-        distiller.extractClassifiedSourceCodeChanges(left, right);
+        List<SourceCodeChange> changes = distiller.distillClassifiedSourceCodeChanges(left, right);
+        if (fRetainChanges) {
+            rootEntity.addAllSourceCodeChanges(changes);
+        }
+        return changes;
+    }
+
+    private ForkJoinTask<List<SourceCodeChange>> forkDeclarationChanges(
+            StructureDiffNode diffNode,
+            StructureEntityVersion rootEntity) {
+        Node[] trees = createDeclarationTrees(diffNode);
+        return forkChanges(trees[0], trees[1], rootEntity);
+    }
+
+    private ForkJoinTask<List<SourceCodeChange>> forkBodyChanges(
+            StructureDiffNode diffNode,
+            StructureEntityVersion rootEntity) {
+        Node[] trees = createMethodBodyTrees(diffNode);
+        return forkChanges(trees[0], trees[1], rootEntity);
+    }
+
+    private ForkJoinTask<List<SourceCodeChange>> forkChanges(Node left, Node right, StructureEntityVersion rootEntity) {
+        if ((left == null) || (right == null)) {
+            return null;
+        }
+        // the node trees are created on this thread, since the AST helpers consume the comments of the members in order
+        ForkJoinTask<List<SourceCodeChange>> task =
+                new DistillerTask(fDistillerFactory.create(rootEntity), left, right);
+        if (ForkJoinTask.getPool() == fForkJoinPool) {
+            return task.fork();
+        }
+        return fForkJoinPool.submit(task);
+    }
+
+    /**
+     * Distills the changes between two node trees without attaching them to the structure entity version.
+     */
+    private static final class DistillerTask extends RecursiveTask<List<SourceCodeChange>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Distiller fDistiller;
+        private final Node fLeft;
+        private final Node fRight;
+
+        DistillerTask(Distiller distiller, Node left, Node right) {
+            fDistiller = distiller;
+            fLeft = left;
+            fRight = right;
+        }
+
+        @Override
+        protected List<SourceCodeChange> compute() {
+            return fDistiller.distillClassifiedSourceCodeChanges(fLeft, fRight);
+        }
+
+    }
+
+    /**
+     * Changes of a member in the parallel mode, merged in the order of the members.
+     */
+    private final class PendingChanges {
+
+        private StructureDiffNode fDiffNode;
+        private StructureEntityVersion fEntity;
+        private ForkJoinTask<List<SourceCodeChange>> fBodyChanges;
+        private ForkJoinTask<List<SourceCodeChange>> fDeclarationChanges;
+        private List<SourceCodeChange> fInnerClassChanges;
+
+        PendingChanges(
+                StructureDiffNode diffNode,
+                StructureEntityVersion entity,
+                ForkJoinTask<List<SourceCodeChange>> bodyChanges,
+                ForkJoinTask<List<SourceCodeChange>> declarationChanges) {
+            fDiffNode = diffNode;
+            fEntity = entity;
+            fBodyChanges = bodyChanges;
+            fDeclarationChanges = declarationChanges;
+        }
+
+        PendingChanges(List<SourceCodeChange> innerClassChanges) {
+            fInnerClassChanges = innerClassChanges;
+        }
+
+        void merge() {
+            if (fInnerClassChanges != null) {
+                addAll(fInnerClassChanges);
+                return;
+            }
+            List<SourceCodeChange> changes = new ArrayList<SourceCodeChange>();
+            if (fBodyChanges != null) {
+                changes.addAll(fBodyChanges.join());
+            }
+            if (fDeclarationChanges != null) {
+                changes.addAll(fDeclarationChanges.join());
+            }
+            if (fRetainChanges) {
+                fEntity.addAllSourceCodeChanges(changes);
+            }
+            collectChanges(fDiffNode, fEntity, changes);
+        }
+
     }
 
 }
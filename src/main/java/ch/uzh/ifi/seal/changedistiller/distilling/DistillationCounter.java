@@ -0,0 +1,96 @@
+package ch.uzh.ifi.seal.changedistiller.distilling;
+
+/*
+ * #%L
+ * ChangeDistiller
+ * %%
+ * Copyright (C) 2011 - 2013 Software Architecture and Evolution Lab, Department of Informatics, UZH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import ch.uzh.ifi.seal.changedistiller.treedifferencing.TreeEditOperation.OperationType;
+
+/**
+ * Counters of a distillation reported to a {@link DistillationListener}.
+ * 
+ * @author Beat Fluri
+ * @see DistillationListener
+ */
+public enum DistillationCounter {
+
+    /**
+     * Nodes of the left trees that are differenced.
+     */
+    LEFT_NODES,
+
+    /**
+     * Nodes of the right trees that are differenced.
+     */
+    RIGHT_NODES,
+
+    /**
+     * Pairs of leaves whose values were compared during leaf matching.
+     */
+    LEAF_PAIRS_COMPARED,
+
+    /**
+     * Calls of leaf and inner node similarity calculators during matching.
+     */
+    SIMILARITY_CALCULATIONS,
+
+    /**
+     * Insert operations of the edit scripts.
+     */
+    INSERT_OPERATIONS,
+
+    /**
+     * Delete operations of the edit scripts.
+     */
+    DELETE_OPERATIONS,
+
+    /**
+     * Move operations of the edit scripts.
+     */
+    MOVE_OPERATIONS,
+
+    /**
+     * Update operations of the edit scripts.
+     */
+    UPDATE_OPERATIONS,
+
+    /**
+     * Pairs of inserted and deleted members evaluated as refactoring candidates.
+     */
+    REFACTORING_CANDIDATES;
+
+    /**
+     * Returns the counter of edit operations of the given type.
+     * 
+     * @param type
+     *            of the edit operations
+     * @return the counter of the edit operations
+     */
+    public static DistillationCounter of(OperationType type) {
+        switch (type) {
+            case INSERT:
+                return INSERT_OPERATIONS;
+            case DELETE:
+                return DELETE_OPERATIONS;
+            case MOVE:
+                return MOVE_OPERATIONS;
+            default:
+                return UPDATE_OPERATIONS;
+        }
+    }
+}
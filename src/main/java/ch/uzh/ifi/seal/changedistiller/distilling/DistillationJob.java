@@ -0,0 +1,81 @@
+package ch.uzh.ifi.seal.changedistiller.distilling;
+
+/*
+ * #%L
+ * ChangeDistiller
+ * %%
+ * Copyright (C) 2011 - 2013 Software Architecture and Evolution Lab, Department of Informatics, UZH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.File;
+
+/**
+ * Pair of {@link File}s to distill with a {@link BatchFileDistiller}.
+ * 
+ * @author Beat Fluri
+ */
+public class DistillationJob {
+
+    private File fLeft;
+    private File fRight;
+    private String fVersion;
+
+    /**
+     * Creates a new distillation job.
+     * 
+     * @param left
+     *            file to extract changes
+     * @param right
+     *            file to extract changes
+     */
+    public DistillationJob(File left, File right) {
+        this(left, right, null);
+    }
+
+    /**
+     * Creates a new distillation job.
+     * 
+     * @param left
+     *            file to extract changes
+     * @param right
+     *            file to extract changes
+     * @param version
+     *            of the structure entities in the class history, may be <code>null</code>
+     */
+    public DistillationJob(File left, File right, String version) {
+        fLeft = left;
+        fRight = right;
+        fVersion = version;
+    }
+
+    public File getLeft() {
+        return fLeft;
+    }
+
+    public File getRight() {
+        return fRight;
+    }
+
+    public String getVersion() {
+        return fVersion;
+    }
+
+    @Override
+    public String toString() {
+        return fLeft + " -> " + fRight + (fVersion != null ? " (" + fVersion + ")" : "");
+    }
+
+}
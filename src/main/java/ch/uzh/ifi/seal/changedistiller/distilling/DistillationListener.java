@@ -0,0 +1,80 @@
+package ch.uzh.ifi.seal.changedistiller.distilling;
+
+/*
+ * #%L
+ * ChangeDistiller
+ * %%
+ * Copyright (C) 2011 - 2013 Software Architecture and Evolution Lab, Department of Informatics, UZH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+/**
+ * Observes the phases and counters of distillations, e.g., to find out why distilling a file is slow.
+ * 
+ * <p>
+ * A listener is bound in the {@link ch.uzh.ifi.seal.changedistiller.JavaChangeDistillerModule} and shared by all
+ * distillations of its injector. Distillations may run concurrently, and the members of a class may be distilled in
+ * parallel, so implementations have to be thread-safe. A phase ends on the thread it started on. Without a bound
+ * listener, {@link #NONE} is used, whose empty callbacks are inlined away. The <code>jfr</code> module provides a
+ * listener emitting Java Flight Recorder events.
+ * 
+ * @author Beat Fluri
+ * @see AggregatingDistillationListener
+ */
+public interface DistillationListener {
+
+    /**
+     * Listener ignoring all callbacks.
+     */
+    DistillationListener NONE = new DistillationListener() {
+
+        @Override
+        public void phaseStarted(DistillationPhase phase) {}
+
+        @Override
+        public void phaseEnded(DistillationPhase phase, long nanos) {}
+
+        @Override
+        public void count(DistillationCounter counter, long amount) {}
+    };
+
+    /**
+     * Called when a phase starts.
+     * 
+     * @param phase
+     *            that starts
+     */
+    void phaseStarted(DistillationPhase phase);
+
+    /**
+     * Called when a phase ends.
+     * 
+     * @param phase
+     *            that ends
+     * @param nanos
+     *            elapsed time of the phase in nanoseconds
+     */
+    void phaseEnded(DistillationPhase phase, long nanos);
+
+    /**
+     * Called when a counter increases.
+     * 
+     * @param counter
+     *            that increases
+     * @param amount
+     *            by which the counter increases
+     */
+    void count(DistillationCounter counter, long amount);
+
+}
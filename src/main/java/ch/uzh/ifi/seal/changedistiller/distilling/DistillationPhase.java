@@ -0,0 +1,78 @@
+package ch.uzh.ifi.seal.changedistiller.distilling;
+
+/*
+ * #%L
+ * ChangeDistiller
+ * %%
+ * Copyright (C) 2011 - 2013 Software Architecture and Evolution Lab, Department of Informatics, UZH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+/**
+ * Phases of a distillation reported to a {@link DistillationListener}.
+ * 
+ * <p>
+ * Phases may nest: the refactoring detection builds and differences the trees of the refactored members, so it
+ * contains tree building, subtree anchoring, matching, edit script generation, and classification phases.
+ * 
+ * @author Beat Fluri
+ * @see DistillationListener
+ */
+public enum DistillationPhase {
+
+    /**
+     * Parsing the sources into ASTs.
+     */
+    PARSING,
+
+    /**
+     * Building the structure trees and extracting their differences.
+     */
+    STRUCTURE_DIFFERENCING,
+
+    /**
+     * Building the declaration and method body trees of changed members.
+     */
+    TREE_BUILDING,
+
+    /**
+     * Anchoring the identical subtrees of two trees before they are matched.
+     */
+    SUBTREE_ANCHORING,
+
+    /**
+     * Matching the leaves of two trees.
+     */
+    LEAF_MATCHING,
+
+    /**
+     * Matching the inner nodes of two trees.
+     */
+    NODE_MATCHING,
+
+    /**
+     * Calculating the edit script between two matched trees.
+     */
+    EDIT_SCRIPT_GENERATION,
+
+    /**
+     * Converting and classifying the edit operations into source code changes.
+     */
+    CLASSIFICATION,
+
+    /**
+     * Detecting renamed and moved members among the inserted and deleted members of a class.
+     */
+    REFACTORING_DETECTION
+}
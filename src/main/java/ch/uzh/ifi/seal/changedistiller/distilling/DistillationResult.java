@@ -0,0 +1,100 @@
+package ch.uzh.ifi.seal.changedistiller.distilling;
+
+/*
+ * #%L
+ * ChangeDistiller
+ * %%
+ * Copyright (C) 2011 - 2013 Software Architecture and Evolution Lab, Department of Informatics, UZH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.List;
+
+import ch.uzh.ifi.seal.changedistiller.model.entities.ClassHistory;
+import ch.uzh.ifi.seal.changedistiller.model.entities.SourceCodeChange;
+
+/**
+ * Outcome of a {@link DistillationJob}: either the {@link SourceCodeChange}s and the {@link ClassHistory} extracted
+ * from the file pair, or the exception that stopped the extraction.
+ * 
+ * @author Beat Fluri
+ */
+public class DistillationResult {
+
+    private DistillationJob fJob;
+    private List<SourceCodeChange> fChanges;
+    private ClassHistory fClassHistory;
+    private RuntimeException fFailure;
+
+    /**
+     * Creates the result of a successful distillation.
+     * 
+     * @param job
+     *            that was distilled
+     * @param changes
+     *            extracted from the file pair
+     * @param classHistory
+     *            of the file pair, <code>null</code> if the files have no common class
+     */
+    public DistillationResult(DistillationJob job, List<SourceCodeChange> changes, ClassHistory classHistory) {
+        fJob = job;
+        fChanges = changes;
+        fClassHistory = classHistory;
+    }
+
+    /**
+     * Creates the result of a failed distillation.
+     * 
+     * @param job
+     *            that failed
+     * @param failure
+     *            that stopped the distillation
+     */
+    public DistillationResult(DistillationJob job, RuntimeException failure) {
+        fJob = job;
+        fFailure = failure;
+    }
+
+    public DistillationJob getJob() {
+        return fJob;
+    }
+
+    /**
+     * Returns the extracted changes.
+     * 
+     * @return the extracted changes, <code>null</code> if the distillation failed
+     */
+    public List<SourceCodeChange> getSourceCodeChanges() {
+        return fChanges;
+    }
+
+    public ClassHistory getClassHistory() {
+        return fClassHistory;
+    }
+
+    /**
+     * Returns the exception that stopped the distillation.
+     * 
+     * @return the exception that stopped the distillation, <code>null</code> if it succeeded
+     */
+    public RuntimeException getFailure() {
+        return fFailure;
+    }
+
+    public boolean isSuccessful() {
+        return fFailure == null;
+    }
+
+}
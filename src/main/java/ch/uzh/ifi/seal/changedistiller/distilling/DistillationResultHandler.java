@@ -0,0 +1,38 @@
+package ch.uzh.ifi.seal.changedistiller.distilling;
+
+/*
+ * #%L
+ * ChangeDistiller
+ * %%
+ * Copyright (C) 2011 - 2013 Software Architecture and Evolution Lab, Department of Informatics, UZH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+/**
+ * Receives the {@link DistillationResult}s of a {@link BatchFileDistiller} as they complete.
+ * 
+ * @author Beat Fluri
+ */
+public interface DistillationResultHandler {
+
+    /**
+     * Handles the result of a distillation job. Called on the thread that started the batch, one result at a time.
+     * 
+     * @param result
+     *            of a distillation job
+     */
+    void handle(DistillationResult result);
+
+}
@@ -20,6 +20,7 @@ package ch.uzh.ifi.seal.changedistiller.distilling;
  * #L%
  */
 
+import java.util.Collections;
 import java.util.List;
 
 
@@ -44,16 +45,19 @@ public class Distiller {
     private TreeDifferencer fTreeDifferencer;
     private SourceCodeChangeConverter fChangeConverter;
     private SourceCodeChangeClassifier fClassifier;
+    private DistillationListener fListener;
 
     @Inject
     Distiller(
             @Assisted StructureEntityVersion structureEntity,
             TreeDifferencer treeDifferencer,
-            SourceCodeChangeClassifier classifier) {
+            SourceCodeChangeClassifier classifier,
+            DistillationListener listener) {
         fStructureEntity = structureEntity;
         fChangeConverter = new SourceCodeChangeConverter(fStructureEntity);
         fTreeDifferencer = treeDifferencer;
         fClassifier = classifier;
+        fListener = listener;
     }
 
     /**
@@ -66,14 +70,32 @@ public class Distiller {
      *            of the node tree
      */
     public void extractClassifiedSourceCodeChanges(Node leftRoot, Node rightRoot) {
+        fStructureEntity.addAllSourceCodeChanges(distillClassifiedSourceCodeChanges(leftRoot, rightRoot));
+    }
+
+    /**
+     * Extracts and classifies {@link SourceCodeChange}s between the left and the right {@link Node} tree without
+     * attaching them to the {@link StructureEntityVersion}. The {@link StructureEntityVersion} is only read, so
+     * distillers of different node trees may run concurrently.
+     * 
+     * @param leftRoot
+     *            of the node tree
+     * @param rightRoot
+     *            of the node tree
+     * @return the classified source code changes, empty if one of the roots is <code>null</code>
+     */
+    public List<SourceCodeChange> distillClassifiedSourceCodeChanges(Node leftRoot, Node rightRoot) {
         if ((leftRoot != null) && (rightRoot != null)) {
-            fTreeDifferencer.calculateEditScript(leftRoot, rightRoot);
-            List<TreeEditOperation> ops = fTreeDifferencer.getEditScript();
+            List<TreeEditOperation> ops = fTreeDifferencer.calculateEditScript(leftRoot, rightRoot);
+            fListener.phaseStarted(DistillationPhase.CLASSIFICATION);
+            long start = System.nanoTime();
             fChangeConverter.addTreeEditOperationsAsSourceCodeChanges(ops);
-            List<SourceCodeChange> classifiedChanges =
+            List<SourceCodeChange> changes =
                     fClassifier.classifySourceCodeChanges(fChangeConverter.getSourceCodeChanges());
-            fStructureEntity.addAllSourceCodeChanges(classifiedChanges);
+            fListener.phaseEnded(DistillationPhase.CLASSIFICATION, System.nanoTime() - start);
+            return changes;
         }
+        return Collections.emptyList();
     }
 
 }
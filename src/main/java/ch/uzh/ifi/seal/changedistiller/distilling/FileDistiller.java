@@ -21,12 +21,15 @@ package ch.uzh.ifi.seal.changedistiller.distilling;
  */
 
 import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
 import java.util.Collections;
-import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 import ch.uzh.ifi.seal.changedistiller.ast.ASTHelper;
 import ch.uzh.ifi.seal.changedistiller.ast.ASTHelperFactory;
+import ch.uzh.ifi.seal.changedistiller.ast.FileUtils;
 import ch.uzh.ifi.seal.changedistiller.distilling.refactoring.RefactoringCandidateProcessor;
 import ch.uzh.ifi.seal.changedistiller.model.entities.ClassHistory;
 import ch.uzh.ifi.seal.changedistiller.model.entities.SourceCodeChange;
@@ -37,7 +40,7 @@ import ch.uzh.ifi.seal.changedistiller.structuredifferencing.StructureNode;
 import com.google.inject.Inject;
 
 /**
- * Distills {@link SourceCodeChange}s between two {@link File}.
+ * Distills {@link SourceCodeChange}s between two {@link File}s or in-memory sources.
  * 
  * @author Beat Fluri
  * @author Giacomo Ghezzi
@@ -49,19 +52,48 @@ public class FileDistiller {
     private RefactoringCandidateProcessor fRefactoringProcessor;
 
     private List<SourceCodeChange> fChanges;
+    private SourceCodeChangeSink fSink;
     private ASTHelper<StructureNode> fLeftASTHelper;
     private ASTHelper<StructureNode> fRightASTHelper;
     private ClassHistory fClassHistory;
     private String fVersion;
+    private ForkJoinPool fForkJoinPool;
+    private DistillationListener fListener;
 
     @Inject
     FileDistiller(
             DistillerFactory distillerFactory,
             ASTHelperFactory factory,
-            RefactoringCandidateProcessor refactoringProcessor) {
+            RefactoringCandidateProcessor refactoringProcessor,
+            DistillationListener listener) {
         fDistillerFactory = distillerFactory;
         fASTHelperFactory = factory;
         fRefactoringProcessor = refactoringProcessor;
+        fListener = listener;
+    }
+
+    /**
+     * Enables the parallel mode of the {@link ClassDistiller}s in which the differences of the members of a class are
+     * distilled on the given pool.
+     * 
+     * @param forkJoinPool
+     *            on which the differences are distilled, <code>null</code> to distill sequentially
+     * @see ClassDistiller#setForkJoinPool(ForkJoinPool)
+     */
+    public void setForkJoinPool(ForkJoinPool forkJoinPool) {
+        fForkJoinPool = forkJoinPool;
+    }
+
+    /**
+     * Pushes the changes of the following extractions to the given sink as soon as the changes of a structure entity
+     * are distilled, instead of collecting them. {@link #getSourceCodeChanges()} is empty then, and the changes are not
+     * attached to the structure entity versions of {@link #getClassHistory()}, which only records the changed members.
+     * 
+     * @param sink
+     *            to which the changes are pushed, <code>null</code> to collect the changes
+     */
+    public void setSourceCodeChangeSink(SourceCodeChangeSink sink) {
+        fSink = sink;
     }
 
     /**
@@ -91,24 +123,161 @@ public class FileDistiller {
     @SuppressWarnings("unchecked")
     public void extractClassifiedSourceCodeChanges(File left, String leftVersion, File right, String rightVersion) {
 
+        fListener.phaseStarted(DistillationPhase.PARSING);
+        long start = System.nanoTime();
     	fLeftASTHelper = fASTHelperFactory.create(left, leftVersion);
         fRightASTHelper = fASTHelperFactory.create(right, rightVersion);
+        fListener.phaseEnded(DistillationPhase.PARSING, System.nanoTime() - start);
         
         extractDifferences();
     }
 
+    /**
+     * Extracts classified {@link SourceCodeChange}s between two {@link File}s encoded with the given {@link Charset}.
+     * 
+     * @param left
+     *            file to extract changes
+     * @param right
+     *            file to extract changes
+     * @param charset
+     *            the files are encoded with
+     */
+    public void extractClassifiedSourceCodeChanges(File left, File right, Charset charset) {
+        extractClassifiedSourceCodeChanges(
+                FileUtils.getCharacters(left, charset),
+                left.getName(),
+                FileUtils.getCharacters(right, charset),
+                right.getName());
+    }
+
+    /**
+     * Extracts classified {@link SourceCodeChange}s between two in-memory sources.
+     * 
+     * @param left
+     *            source to extract changes
+     * @param leftName
+     *            file name of the left source, need not exist on the file system
+     * @param right
+     *            source to extract changes
+     * @param rightName
+     *            file name of the right source, need not exist on the file system
+     */
+    public void extractClassifiedSourceCodeChanges(char[] left, String leftName, char[] right, String rightName) {
+        extractClassifiedSourceCodeChanges(left, leftName, "default", right, rightName, "default");
+    }
+
+    /**
+     * Extracts classified {@link SourceCodeChange}s between two in-memory sources.
+     * 
+     * @param left
+     *            source to extract changes
+     * @param leftName
+     *            file name of the left source, need not exist on the file system
+     * @param leftVersion
+     *            version of the language in the left source
+     * @param right
+     *            source to extract changes
+     * @param rightName
+     *            file name of the right source, need not exist on the file system
+     * @param rightVersion
+     *            version of the language in the right source
+     */
+    @SuppressWarnings("unchecked")
+    public void extractClassifiedSourceCodeChanges(
+            char[] left,
+            String leftName,
+            String leftVersion,
+            char[] right,
+            String rightName,
+            String rightVersion) {
+        fListener.phaseStarted(DistillationPhase.PARSING);
+        long start = System.nanoTime();
+        fLeftASTHelper = fASTHelperFactory.create(left, leftName, leftVersion);
+        fRightASTHelper = fASTHelperFactory.create(right, rightName, rightVersion);
+        fListener.phaseEnded(DistillationPhase.PARSING, System.nanoTime() - start);
+
+        extractDifferences();
+    }
+
+    /**
+     * Extracts classified {@link SourceCodeChange}s between two in-memory sources.
+     * 
+     * @param left
+     *            source to extract changes
+     * @param leftName
+     *            file name of the left source, need not exist on the file system
+     * @param right
+     *            source to extract changes
+     * @param rightName
+     *            file name of the right source, need not exist on the file system
+     */
+    public void extractClassifiedSourceCodeChanges(
+            CharSequence left,
+            String leftName,
+            CharSequence right,
+            String rightName) {
+        extractClassifiedSourceCodeChanges(
+                FileUtils.toCharArray(left),
+                leftName,
+                FileUtils.toCharArray(right),
+                rightName);
+    }
+
+    /**
+     * Extracts classified {@link SourceCodeChange}s between two encoded in-memory sources, e.g., blobs read from a
+     * version control system.
+     * 
+     * @param left
+     *            encoded source to extract changes
+     * @param leftName
+     *            file name of the left source, need not exist on the file system
+     * @param right
+     *            encoded source to extract changes
+     * @param rightName
+     *            file name of the right source, need not exist on the file system
+     * @param charset
+     *            the sources are encoded with
+     */
+    public void extractClassifiedSourceCodeChanges(
+            ByteBuffer left,
+            String leftName,
+            ByteBuffer right,
+            String rightName,
+            Charset charset) {
+        extractClassifiedSourceCodeChanges(
+                FileUtils.decode(left, charset),
+                leftName,
+                FileUtils.decode(right, charset),
+                rightName);
+    }
+
 	private void extractDifferences() {
+        fListener.phaseStarted(DistillationPhase.STRUCTURE_DIFFERENCING);
+        long start = System.nanoTime();
 		StructureDifferencer structureDifferencer = new StructureDifferencer();
         structureDifferencer.extractDifferences(
                 fLeftASTHelper.createStructureTree(),
                 fRightASTHelper.createStructureTree());
         StructureDiffNode structureDiff = structureDifferencer.getDifferences();
+        if (fLeftASTHelper.isStructureTreeOutdated() || fRightASTHelper.isStructureTreeOutdated()) {
+            // a body read while differencing has a syntax error, which drops its file as when it is completely parsed
+            structureDifferencer = new StructureDifferencer();
+            structureDifferencer.extractDifferences(
+                    fLeftASTHelper.createStructureTree(),
+                    fRightASTHelper.createStructureTree());
+            structureDiff = structureDifferencer.getDifferences();
+        }
+        fListener.phaseEnded(DistillationPhase.STRUCTURE_DIFFERENCING, System.nanoTime() - start);
+        fChanges = Collections.emptyList();
         if (structureDiff != null) {
-        	fChanges = new LinkedList<SourceCodeChange>();
+            SourceCodeChangeSink sink = fSink;
+            if (sink == null) {
+                SourceCodeChangeCollector collector = new SourceCodeChangeCollector();
+                fChanges = collector.getSourceCodeChanges();
+                sink = collector;
+            }
             // first node is (usually) the compilation unit
-            processRootChildren(structureDiff);
-        } else {
-        	fChanges = Collections.emptyList();
+            processRootChildren(structureDiff, sink);
         }
 	}
 
@@ -117,7 +286,7 @@ public class FileDistiller {
     	this.extractClassifiedSourceCodeChanges(left, right);
     }
     
-    private void processRootChildren(StructureDiffNode diffNode) {
+    private void processRootChildren(StructureDiffNode diffNode, SourceCodeChangeSink sink) {
         for (StructureDiffNode child : diffNode.getChildren()) {
             if (child.isClassOrInterfaceDiffNode() && mayHaveChanges(child.getLeft(), child.getRight())) {
                 if (fClassHistory == null) {
@@ -127,12 +296,12 @@ public class FileDistiller {
                 		fClassHistory = new ClassHistory(fRightASTHelper.createStructureEntityVersion(child.getRight()));
                 	}
                 }
-                processClassDiffNode(child);
+                processClassDiffNode(child, sink);
             }
         }
     }
 
-    private void processClassDiffNode(StructureDiffNode child) {
+    private void processClassDiffNode(StructureDiffNode child, SourceCodeChangeSink sink) {
     	ClassDistiller classDistiller;
     	if (fVersion != null) {
         classDistiller =
@@ -154,14 +323,23 @@ public class FileDistiller {
                         fRefactoringProcessor,
                         fDistillerFactory);
     	}
+        classDistiller.setForkJoinPool(fForkJoinPool);
+        classDistiller.setDistillationListener(fListener);
+        classDistiller.setSourceCodeChangeSink(sink);
+        classDistiller.setRetainChanges(fSink == null);
         classDistiller.extractChanges();
-        fChanges.addAll(classDistiller.getSourceCodeChanges());
     }
 
     private boolean mayHaveChanges(StructureNode left, StructureNode right) {
         return (left != null) && (right != null);
     }
 
+    /**
+     * Returns the changes collected by the last extraction, empty if the changes are pushed to a
+     * {@link SourceCodeChangeSink}.
+     * 
+     * @return the collected changes
+     */
     public List<SourceCodeChange> getSourceCodeChanges() {
         return fChanges;
     }
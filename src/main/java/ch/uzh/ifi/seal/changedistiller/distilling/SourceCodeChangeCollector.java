@@ -0,0 +1,51 @@
+package ch.uzh.ifi.seal.changedistiller.distilling;
+
+/*
+ * #%L
+ * ChangeDistiller
+ * %%
+ * Copyright (C) 2011 - 2013 Software Architecture and Evolution Lab, Department of Informatics, UZH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import java.util.ArrayList;
+import java.util.List;
+
+import ch.uzh.ifi.seal.changedistiller.model.entities.SourceCodeChange;
+
+/**
+ * {@link SourceCodeChangeSink} collecting the changes in a list. It is the sink of the list-returning
+ * <code>getSourceCodeChanges()</code> of {@link FileDistiller} and {@link ClassDistiller}.
+ * 
+ * @author Beat Fluri
+ */
+public final class SourceCodeChangeCollector implements SourceCodeChangeSink {
+
+    private List<SourceCodeChange> fChanges = new ArrayList<SourceCodeChange>();
+
+    @Override
+    public void add(SourceCodeChange change) {
+        fChanges.add(change);
+    }
+
+    /**
+     * Returns the collected changes in the order in which they were added.
+     * 
+     * @return the collected changes
+     */
+    public List<SourceCodeChange> getSourceCodeChanges() {
+        return fChanges;
+    }
+
+}
@@ -107,8 +107,11 @@ public class SourceCodeChangeFactory {
                     new SourceCodeEntity(update.getOldValue(), update.getNodeToUpdate().getEntity().getType(), update
                             .getNodeToUpdate().getEntity().getModifiers(), update.getNodeToUpdate().getEntity()
                             .getSourceRange());
-            return new Update(structureEntity, entity, update.getNewNode().getEntity(), ((Node) update
-                    .getNodeToUpdate().getParent()).getEntity());
+            return new Update(
+                    structureEntity,
+                    entity,
+                    update.getNewNode().getEntity(),
+                    update.getNodeToUpdate().getParent().getEntity());
         }
         return null;
     }
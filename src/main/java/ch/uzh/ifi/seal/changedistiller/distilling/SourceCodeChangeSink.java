@@ -0,0 +1,46 @@
+package ch.uzh.ifi.seal.changedistiller.distilling;
+
+/*
+ * #%L
+ * ChangeDistiller
+ * %%
+ * Copyright (C) 2011 - 2013 Software Architecture and Evolution Lab, Department of Informatics, UZH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import ch.uzh.ifi.seal.changedistiller.model.entities.SourceCodeChange;
+
+/**
+ * Receives the classified {@link SourceCodeChange}s of a distillation as soon as the changes of a structure entity are
+ * distilled, e.g., to write them to a storage without holding the changes of a whole file.
+ * 
+ * <p>
+ * Changes are pushed on the thread that extracts them, one change at a time, and in the order in which a
+ * {@link SourceCodeChangeCollector} would collect them. In the parallel mode of the {@link ClassDistiller}, the changes
+ * of the members are pushed when they are merged.
+ * 
+ * @author Beat Fluri
+ * @see SourceCodeChangeCollector
+ */
+public interface SourceCodeChangeSink {
+
+    /**
+     * Receives a classified source code change.
+     * 
+     * @param change
+     *            that was distilled
+     */
+    void add(SourceCodeChange change);
+
+}
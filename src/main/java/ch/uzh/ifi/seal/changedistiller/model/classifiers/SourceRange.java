@@ -23,6 +23,10 @@ package ch.uzh.ifi.seal.changedistiller.model.classifiers;
 /**
  * Representation of a range in a document with start and end.
  * 
+ * <p>
+ * If the range was created from a parsed source, it also knows the lines and columns of its start and end, counted
+ * from <code>1</code>. Otherwise, and after the start or end was changed, they are <code>-1</code>.
+ * 
  * @author Beat Fluri
  * @author zubi
  * 
@@ -31,6 +35,10 @@ public final class SourceRange {
 
     private int fStart;
     private int fEnd;
+    private int fStartLine = -1;
+    private int fStartColumn = -1;
+    private int fEndLine = -1;
+    private int fEndColumn = -1;
 
     /**
      * Create a new {@link SourceRange}.
@@ -45,6 +53,30 @@ public final class SourceRange {
         fEnd = end;
     }
 
+    /**
+     * Create a new {@link SourceRange} with lines and columns.
+     * 
+     * @param start
+     *            in the document
+     * @param end
+     *            in the document
+     * @param startLine
+     *            line of the start
+     * @param startColumn
+     *            column of the start within its line
+     * @param endLine
+     *            line of the end
+     * @param endColumn
+     *            column of the end within its line
+     */
+    public SourceRange(int start, int end, int startLine, int startColumn, int endLine, int endColumn) {
+        this(start, end);
+        fStartLine = startLine;
+        fStartColumn = startColumn;
+        fEndLine = endLine;
+        fEndColumn = endColumn;
+    }
+
     /**
      * Creates new range with start and end set to -1.
      */
@@ -61,12 +93,32 @@ public final class SourceRange {
         return fEnd;
     }
 
+    public int getStartLine() {
+        return fStartLine;
+    }
+
+    public int getStartColumn() {
+        return fStartColumn;
+    }
+
+    public int getEndLine() {
+        return fEndLine;
+    }
+
+    public int getEndColumn() {
+        return fEndColumn;
+    }
+
     public void setStart(int start) {
         fStart = start;
+        fStartLine = -1;
+        fStartColumn = -1;
     }
 
     public void setEnd(int end) {
         fEnd = end;
+        fEndLine = -1;
+        fEndColumn = -1;
     }
 
     @Override
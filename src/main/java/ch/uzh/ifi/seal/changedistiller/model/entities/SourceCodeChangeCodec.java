@@ -0,0 +1,91 @@
+package ch.uzh.ifi.seal.changedistiller.model.entities;
+
+/*
+ * #%L
+ * ChangeDistiller
+ * %%
+ * Copyright (C) 2011 - 2013 Software Architecture and Evolution Lab, Department of Informatics, UZH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import java.nio.charset.Charset;
+
+import ch.uzh.ifi.seal.changedistiller.model.classifiers.ChangeType;
+import ch.uzh.ifi.seal.changedistiller.model.classifiers.java.JavaEntityType;
+
+/**
+ * Constants of the compact binary format written by {@link SourceCodeChangeWriter} and read by
+ * {@link SourceCodeChangeReader}.
+ * 
+ * <p>
+ * A stream starts with the magic bytes <code>CDSC</code>, the format version, and the number of {@link ChangeType}s
+ * and {@link JavaEntityType}s, since both are encoded by their ordinals. A reader rejects streams of another version or
+ * with other numbers of types. Then follow records, each starting with a tag:
+ * <ul>
+ * <li>{@link #INSERT}, {@link #DELETE}, {@link #MOVE}, {@link #UPDATE}: the change type, the root entity, the changed
+ * and the parent entity, and for moves and updates the new entity, for moves also the new parent entity.</li>
+ * <li>{@link #RESET}: the dictionaries are cleared, so that they do not grow without bounds.</li>
+ * <li>{@link #END}: the end of the stream.</li>
+ * </ul>
+ * All numbers are unsigned varints, numbers that may be negative are zig-zag encoded. Unique names and versions are
+ * dictionary-encoded: {@link #NULL}, {@link #DEFINITION} followed by the UTF-8 bytes of a new name, or
+ * {@link #FIRST_REFERENCE} plus the index of a name defined before. Root entities are dictionary-encoded the same way,
+ * so that the changes of a root entity share it again after reading. A source code entity is written as its type code
+ * ({@link #NULL}, {@link #NO_TYPE}, or {@link #FIRST_TYPE} plus the ordinal of its type), its unique name, modifiers,
+ * source range, and associated entities, the latter without their own associated entities, since comments and the
+ * entities they belong to are associated with each other. A source range is written as its start (plus one,
+ * <code>0</code> for no range), its length, and its lines and columns, the end line relative to the start line.
+ * <p>
+ * Adding or reordering change or entity types changes the ordinals and requires a new version.
+ * 
+ * @author Beat Fluri
+ */
+final class SourceCodeChangeCodec {
+
+    static final byte[] MAGIC = {'C', 'D', 'S', 'C'};
+    static final int VERSION = 1;
+
+    static final int END = 0;
+    static final int INSERT = 1;
+    static final int DELETE = 2;
+    static final int MOVE = 3;
+    static final int UPDATE = 4;
+    static final int RESET = 5;
+
+    static final int NULL = 0;
+    static final int DEFINITION = 1;
+    static final int FIRST_REFERENCE = 2;
+
+    static final int NO_TYPE = 1;
+    static final int FIRST_TYPE = 2;
+
+    static final int DEFAULT_DICTIONARY_CAPACITY = 1 << 16;
+    static final int BUFFER_SIZE = 1 << 16;
+
+    static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    static final ChangeType[] CHANGE_TYPES = ChangeType.values();
+    static final JavaEntityType[] ENTITY_TYPES = JavaEntityType.values();
+
+    private SourceCodeChangeCodec() {}
+
+    static int zigZag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    static int unZigZag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+}
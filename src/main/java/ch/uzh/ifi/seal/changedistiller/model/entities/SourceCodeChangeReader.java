@@ -0,0 +1,305 @@
+package ch.uzh.ifi.seal.changedistiller.model.entities;
+
+/*
+ * #%L
+ * ChangeDistiller
+ * %%
+ * Copyright (C) 2011 - 2013 Software Architecture and Evolution Lab, Department of Informatics, UZH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import static ch.uzh.ifi.seal.changedistiller.model.entities.SourceCodeChangeCodec.BUFFER_SIZE;
+import static ch.uzh.ifi.seal.changedistiller.model.entities.SourceCodeChangeCodec.CHANGE_TYPES;
+import static ch.uzh.ifi.seal.changedistiller.model.entities.SourceCodeChangeCodec.DEFINITION;
+import static ch.uzh.ifi.seal.changedistiller.model.entities.SourceCodeChangeCodec.DELETE;
+import static ch.uzh.ifi.seal.changedistiller.model.entities.SourceCodeChangeCodec.END;
+import static ch.uzh.ifi.seal.changedistiller.model.entities.SourceCodeChangeCodec.ENTITY_TYPES;
+import static ch.uzh.ifi.seal.changedistiller.model.entities.SourceCodeChangeCodec.FIRST_REFERENCE;
+import static ch.uzh.ifi.seal.changedistiller.model.entities.SourceCodeChangeCodec.FIRST_TYPE;
+import static ch.uzh.ifi.seal.changedistiller.model.entities.SourceCodeChangeCodec.INSERT;
+import static ch.uzh.ifi.seal.changedistiller.model.entities.SourceCodeChangeCodec.MAGIC;
+import static ch.uzh.ifi.seal.changedistiller.model.entities.SourceCodeChangeCodec.MOVE;
+import static ch.uzh.ifi.seal.changedistiller.model.entities.SourceCodeChangeCodec.NO_TYPE;
+import static ch.uzh.ifi.seal.changedistiller.model.entities.SourceCodeChangeCodec.NULL;
+import static ch.uzh.ifi.seal.changedistiller.model.entities.SourceCodeChangeCodec.RESET;
+import static ch.uzh.ifi.seal.changedistiller.model.entities.SourceCodeChangeCodec.UPDATE;
+import static ch.uzh.ifi.seal.changedistiller.model.entities.SourceCodeChangeCodec.UTF_8;
+import static ch.uzh.ifi.seal.changedistiller.model.entities.SourceCodeChangeCodec.VERSION;
+import static ch.uzh.ifi.seal.changedistiller.model.entities.SourceCodeChangeCodec.unZigZag;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SelectableChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+import ch.uzh.ifi.seal.changedistiller.model.classifiers.ChangeType;
+import ch.uzh.ifi.seal.changedistiller.model.classifiers.EntityType;
+import ch.uzh.ifi.seal.changedistiller.model.classifiers.SourceRange;
+
+/**
+ * Reads {@link SourceCodeChange}s written by a {@link SourceCodeChangeWriter} from a {@link ReadableByteChannel}.
+ * 
+ * <p>
+ * The changes of a root entity share the same {@link StructureEntityVersion} again, to which each change read is
+ * added. The channel must be blocking, since the reader waits for the bytes it needs by reading again. A stream ends
+ * with the end record written when the {@link SourceCodeChangeWriter} is closed; a stream that ends before is
+ * truncated. A reader is not thread-safe.
+ * 
+ * @author Beat Fluri
+ * @see SourceCodeChangeWriter
+ */
+public final class SourceCodeChangeReader implements Closeable {
+
+    private static final int MAX_VARINT_BYTES = 5;
+
+    private ReadableByteChannel fChannel;
+    private ByteBuffer fBuffer;
+    private boolean fEnded;
+    private List<String> fNames;
+    private List<StructureEntityVersion> fRootEntities;
+
+    /**
+     * Creates a new reader and reads the header of the format.
+     * 
+     * @param channel
+     *            to read from, in blocking mode
+     * @throws IOException
+     *             if the channel cannot be read or does not start with a header of this format version
+     * @throws IllegalArgumentException
+     *             if the channel is in non-blocking mode
+     */
+    public SourceCodeChangeReader(ReadableByteChannel channel) throws IOException {
+        if ((channel instanceof SelectableChannel) && !((SelectableChannel) channel).isBlocking()) {
+            throw new IllegalArgumentException("Channel is in non-blocking mode");
+        }
+        fChannel = channel;
+        fBuffer = ByteBuffer.allocate(BUFFER_SIZE);
+        fBuffer.flip();
+        fNames = new ArrayList<String>();
+        fRootEntities = new ArrayList<StructureEntityVersion>();
+        for (byte magic : MAGIC) {
+            if (readByte() != magic) {
+                throw new IOException("Not a stream of source code changes");
+            }
+        }
+        int version = readVarInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported format version " + version);
+        }
+        if ((readVarInt() != CHANGE_TYPES.length) || (readVarInt() != ENTITY_TYPES.length)) {
+            throw new IOException("Stream written with other change or entity types");
+        }
+    }
+
+    /**
+     * Reads the next source code change.
+     * 
+     * @return the next source code change, or <code>null</code> at the end of the stream
+     * @throws EOFException
+     *             if the stream is truncated
+     * @throws IOException
+     *             if the channel cannot be read or the stream is malformed
+     */
+    public SourceCodeChange read() throws IOException {
+        if (fEnded) {
+            return null;
+        }
+        int tag = readByte();
+        if (tag == RESET) {
+            fNames.clear();
+            fRootEntities.clear();
+            tag = readByte();
+        }
+        if (tag == END) {
+            fEnded = true;
+            return null;
+        }
+        ChangeType changeType = readChangeType();
+        StructureEntityVersion rootEntity = readRootEntity();
+        SourceCodeEntity changedEntity = readEntity();
+        SourceCodeEntity parentEntity = readEntity();
+        SourceCodeChange change;
+        switch (tag) {
+            case INSERT:
+                change = new Insert(changeType, rootEntity, changedEntity, parentEntity);
+                break;
+            case DELETE:
+                change = new Delete(changeType, rootEntity, changedEntity, parentEntity);
+                break;
+            case MOVE:
+                SourceCodeEntity newEntity = readEntity();
+                SourceCodeEntity newParentEntity = readEntity();
+                change = new Move(changeType, rootEntity, changedEntity, newEntity, parentEntity, newParentEntity);
+                break;
+            case UPDATE:
+                change = new Update(changeType, rootEntity, changedEntity, readEntity(), parentEntity);
+                break;
+            default:
+                throw new IOException("Unknown record " + tag);
+        }
+        if (rootEntity != null) {
+            rootEntity.addSourceCodeChange(change);
+        }
+        return change;
+    }
+
+    /**
+     * Closes the channel.
+     * 
+     * @throws IOException
+     *             if the channel cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        fChannel.close();
+    }
+
+    private ChangeType readChangeType() throws IOException {
+        int ordinal = readVarInt();
+        if ((ordinal < 0) || (ordinal >= CHANGE_TYPES.length)) {
+            throw new IOException("Unknown change type " + ordinal);
+        }
+        return CHANGE_TYPES[ordinal];
+    }
+
+    private EntityType readEntityType(int ordinal) throws IOException {
+        if ((ordinal < 0) || (ordinal >= ENTITY_TYPES.length)) {
+            throw new IOException("Unknown entity type " + ordinal);
+        }
+        return ENTITY_TYPES[ordinal];
+    }
+
+    private StructureEntityVersion readRootEntity() throws IOException {
+        int code = readVarInt();
+        if (code == NULL) {
+            return null;
+        } else if (code == DEFINITION) {
+            EntityType type = readEntityType(readVarInt());
+            String uniqueName = readName();
+            int modifiers = readVarInt();
+            StructureEntityVersion rootEntity = new StructureEntityVersion(type, uniqueName, modifiers, readName());
+            fRootEntities.add(rootEntity);
+            return rootEntity;
+        }
+        int index = code - FIRST_REFERENCE;
+        if ((index < 0) || (index >= fRootEntities.size())) {
+            throw new IOException("Undefined root entity " + index);
+        }
+        return fRootEntities.get(index);
+    }
+
+    private SourceCodeEntity readEntity() throws IOException {
+        int code = readVarInt();
+        if (code == NULL) {
+            return null;
+        }
+        EntityType type = code == NO_TYPE ? null : readEntityType(code - FIRST_TYPE);
+        String uniqueName = readName();
+        int modifiers = readVarInt();
+        SourceCodeEntity entity = new SourceCodeEntity(uniqueName, type, modifiers, readSourceRange());
+        int associatedEntities = readVarInt();
+        for (int i = 0; i < associatedEntities; i++) {
+            entity.addAssociatedEntity(readEntity());
+        }
+        return entity;
+    }
+
+    private SourceRange readSourceRange() throws IOException {
+        int start = readVarInt();
+        if (start == 0) {
+            return null;
+        }
+        start = unZigZag(start - 1);
+        int end = start + unZigZag(readVarInt());
+        int startLine = unZigZag(readVarInt());
+        int startColumn = unZigZag(readVarInt());
+        int endLine = startLine + unZigZag(readVarInt());
+        return new SourceRange(start, end, startLine, startColumn, endLine, unZigZag(readVarInt()));
+    }
+
+    private String readName() throws IOException {
+        int code = readVarInt();
+        if (code == NULL) {
+            return null;
+        } else if (code == DEFINITION) {
+            String name = readString(readVarInt());
+            fNames.add(name);
+            return name;
+        }
+        int index = code - FIRST_REFERENCE;
+        if ((index < 0) || (index >= fNames.size())) {
+            throw new IOException("Undefined name " + index);
+        }
+        return fNames.get(index);
+    }
+
+    private String readString(int length) throws IOException {
+        if (length < 0) {
+            throw new IOException("Malformed name length " + length);
+        }
+        if (fBuffer.remaining() >= length) {
+            String string = new String(fBuffer.array(), fBuffer.position(), length, UTF_8);
+            fBuffer.position(fBuffer.position() + length);
+            return string;
+        }
+        byte[] bytes = new byte[length];
+        int offset = 0;
+        while (offset < length) {
+            if (!ensureAvailable()) {
+                throw new EOFException();
+            }
+            int chunk = Math.min(fBuffer.remaining(), length - offset);
+            fBuffer.get(bytes, offset, chunk);
+            offset += chunk;
+        }
+        return new String(bytes, UTF_8);
+    }
+
+    private int readVarInt() throws IOException {
+        int value = 0;
+        for (int i = 0; i < MAX_VARINT_BYTES; i++) {
+            int b = readByte();
+            value |= (b & 0x7F) << (7 * i);
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    private int readByte() throws IOException {
+        if (!ensureAvailable()) {
+            throw new EOFException();
+        }
+        return fBuffer.get() & 0xFF;
+    }
+
+    private boolean ensureAvailable() throws IOException {
+        if (fBuffer.hasRemaining()) {
+            return true;
+        }
+        fBuffer.clear();
+        int read = 0;
+        while (read == 0) {
+            read = fChannel.read(fBuffer);
+        }
+        fBuffer.flip();
+        return read > 0;
+    }
+
+}
@@ -0,0 +1,297 @@
+package ch.uzh.ifi.seal.changedistiller.model.entities;
+
+/*
+ * #%L
+ * ChangeDistiller
+ * %%
+ * Copyright (C) 2011 - 2013 Software Architecture and Evolution Lab, Department of Informatics, UZH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import static ch.uzh.ifi.seal.changedistiller.model.entities.SourceCodeChangeCodec.BUFFER_SIZE;
+import static ch.uzh.ifi.seal.changedistiller.model.entities.SourceCodeChangeCodec.CHANGE_TYPES;
+import static ch.uzh.ifi.seal.changedistiller.model.entities.SourceCodeChangeCodec.DEFAULT_DICTIONARY_CAPACITY;
+import static ch.uzh.ifi.seal.changedistiller.model.entities.SourceCodeChangeCodec.DEFINITION;
+import static ch.uzh.ifi.seal.changedistiller.model.entities.SourceCodeChangeCodec.DELETE;
+import static ch.uzh.ifi.seal.changedistiller.model.entities.SourceCodeChangeCodec.END;
+import static ch.uzh.ifi.seal.changedistiller.model.entities.SourceCodeChangeCodec.ENTITY_TYPES;
+import static ch.uzh.ifi.seal.changedistiller.model.entities.SourceCodeChangeCodec.FIRST_REFERENCE;
+import static ch.uzh.ifi.seal.changedistiller.model.entities.SourceCodeChangeCodec.FIRST_TYPE;
+import static ch.uzh.ifi.seal.changedistiller.model.entities.SourceCodeChangeCodec.INSERT;
+import static ch.uzh.ifi.seal.changedistiller.model.entities.SourceCodeChangeCodec.MAGIC;
+import static ch.uzh.ifi.seal.changedistiller.model.entities.SourceCodeChangeCodec.MOVE;
+import static ch.uzh.ifi.seal.changedistiller.model.entities.SourceCodeChangeCodec.NO_TYPE;
+import static ch.uzh.ifi.seal.changedistiller.model.entities.SourceCodeChangeCodec.NULL;
+import static ch.uzh.ifi.seal.changedistiller.model.entities.SourceCodeChangeCodec.RESET;
+import static ch.uzh.ifi.seal.changedistiller.model.entities.SourceCodeChangeCodec.UPDATE;
+import static ch.uzh.ifi.seal.changedistiller.model.entities.SourceCodeChangeCodec.UTF_8;
+import static ch.uzh.ifi.seal.changedistiller.model.entities.SourceCodeChangeCodec.VERSION;
+import static ch.uzh.ifi.seal.changedistiller.model.entities.SourceCodeChangeCodec.zigZag;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import ch.uzh.ifi.seal.changedistiller.model.classifiers.EntityType;
+import ch.uzh.ifi.seal.changedistiller.model.classifiers.SourceRange;
+import ch.uzh.ifi.seal.changedistiller.model.classifiers.java.JavaEntityType;
+
+/**
+ * Writes {@link SourceCodeChange}s in a compact binary format to a {@link WritableByteChannel}, to be read by a
+ * {@link SourceCodeChangeReader}. Unique names and root entities are dictionary-encoded, types by their ordinals, and
+ * numbers as varints (see {@link SourceCodeChangeCodec} for the format). Only {@link JavaEntityType}s can be written.
+ * 
+ * <p>
+ * The writer buffers the records; they are written to the channel when the buffer is full, on {@link #flush()}, and
+ * on {@link #close()}. The channel must be blocking, since the writer writes again until the buffer is drained. A
+ * writer is not thread-safe.
+ * 
+ * @author Beat Fluri
+ * @see SourceCodeChangeReader
+ */
+public final class SourceCodeChangeWriter implements Closeable {
+
+    private WritableByteChannel fChannel;
+    private ByteBuffer fBuffer;
+    private int fDictionaryCapacity;
+    private Map<String, Integer> fNames;
+    private Map<StructureEntityVersion, Integer> fRootEntities;
+
+    /**
+     * Creates a new writer and writes the header of the format to the buffer.
+     * 
+     * @param channel
+     *            to write to, in blocking mode
+     * @throws IOException
+     *             if the header cannot be written
+     * @throws IllegalArgumentException
+     *             if the channel is in non-blocking mode
+     */
+    public SourceCodeChangeWriter(WritableByteChannel channel) throws IOException {
+        this(channel, DEFAULT_DICTIONARY_CAPACITY);
+    }
+
+    /**
+     * Creates a new writer and writes the header of the format to the buffer.
+     * 
+     * @param channel
+     *            to write to, in blocking mode
+     * @param dictionaryCapacity
+     *            number of names and root entities after which the dictionaries are reset, bounding the memory of the
+     *            writer and the reader
+     * @throws IOException
+     *             if the header cannot be written
+     * @throws IllegalArgumentException
+     *             if the channel is in non-blocking mode
+     */
+    public SourceCodeChangeWriter(WritableByteChannel channel, int dictionaryCapacity) throws IOException {
+        if ((channel instanceof SelectableChannel) && !((SelectableChannel) channel).isBlocking()) {
+            throw new IllegalArgumentException("Channel is in non-blocking mode");
+        }
+        fChannel = channel;
+        fBuffer = ByteBuffer.allocate(BUFFER_SIZE);
+        fDictionaryCapacity = dictionaryCapacity;
+        fNames = new HashMap<String, Integer>();
+        fRootEntities = new IdentityHashMap<StructureEntityVersion, Integer>();
+        fBuffer.put(MAGIC);
+        writeVarInt(VERSION);
+        writeVarInt(CHANGE_TYPES.length);
+        writeVarInt(ENTITY_TYPES.length);
+    }
+
+    /**
+     * Writes the source code change.
+     * 
+     * @param change
+     *            to write
+     * @throws IOException
+     *             if the buffer cannot be written to the channel
+     * @throws IllegalArgumentException
+     *             if the change is neither an insert, delete, move, nor update, or if one of its entities is not of a
+     *             {@link JavaEntityType}
+     */
+    public void write(SourceCodeChange change) throws IOException {
+        if ((fNames.size() + fRootEntities.size()) >= fDictionaryCapacity) {
+            writeByte(RESET);
+            fNames.clear();
+            fRootEntities.clear();
+        }
+        writeByte(getTag(change));
+        writeVarInt(change.getChangeType().ordinal());
+        writeRootEntity(change.getRootEntity());
+        writeEntity(change.getChangedEntity());
+        writeEntity(change.getParentEntity());
+        if (change instanceof Move) {
+            writeEntity(((Move) change).getNewEntity());
+            writeEntity(((Move) change).getNewParentEntity());
+        } else if (change instanceof Update) {
+            writeEntity(((Update) change).getNewEntity());
+        }
+    }
+
+    /**
+     * Writes the buffered records to the channel.
+     * 
+     * @throws IOException
+     *             if the channel cannot be written
+     */
+    public void flush() throws IOException {
+        fBuffer.flip();
+        while (fBuffer.hasRemaining()) {
+            fChannel.write(fBuffer);
+        }
+        fBuffer.clear();
+    }
+
+    /**
+     * Ends the stream, writes the buffered records to the channel, and closes the channel.
+     * 
+     * @throws IOException
+     *             if the channel cannot be written or closed
+     */
+    @Override
+    public void close() throws IOException {
+        writeByte(END);
+        flush();
+        fChannel.close();
+    }
+
+    private static int getTag(SourceCodeChange change) {
+        if (change instanceof Insert) {
+            return INSERT;
+        } else if (change instanceof Delete) {
+            return DELETE;
+        } else if (change instanceof Move) {
+            return MOVE;
+        } else if (change instanceof Update) {
+            return UPDATE;
+        }
+        throw new IllegalArgumentException("Unknown change " + change.getClass().getName());
+    }
+
+    private void writeRootEntity(StructureEntityVersion rootEntity) throws IOException {
+        if (rootEntity == null) {
+            writeVarInt(NULL);
+            return;
+        }
+        Integer index = fRootEntities.get(rootEntity);
+        if (index != null) {
+            writeVarInt(FIRST_REFERENCE + index);
+            return;
+        }
+        fRootEntities.put(rootEntity, fRootEntities.size());
+        writeVarInt(DEFINITION);
+        writeVarInt(getOrdinal(rootEntity.getType()));
+        writeName(rootEntity.getUniqueName());
+        writeVarInt(rootEntity.getModifiers());
+        writeName(rootEntity.getVersion());
+    }
+
+    private void writeEntity(SourceCodeEntity entity) throws IOException {
+        writeEntity(entity, true);
+    }
+
+    private void writeEntity(SourceCodeEntity entity, boolean withAssociatedEntities) throws IOException {
+        if (entity == null) {
+            writeVarInt(NULL);
+            return;
+        }
+        if (entity.getType() == null) {
+            writeVarInt(NO_TYPE);
+        } else {
+            writeVarInt(FIRST_TYPE + getOrdinal(entity.getType()));
+        }
+        writeName(entity.getUniqueName());
+        writeVarInt(entity.getModifiers());
+        writeSourceRange(entity.getSourceRange());
+        List<SourceCodeEntity> associatedEntities = entity.getAssociatedEntities();
+        if (!withAssociatedEntities || (associatedEntities == null)) {
+            writeVarInt(0);
+        } else {
+            // comments and the entities they belong to are associated with each other, hence only one level
+            writeVarInt(associatedEntities.size());
+            for (SourceCodeEntity associatedEntity : associatedEntities) {
+                writeEntity(associatedEntity, false);
+            }
+        }
+    }
+
+    private static int getOrdinal(EntityType type) {
+        if (type instanceof JavaEntityType) {
+            return ((JavaEntityType) type).ordinal();
+        }
+        throw new IllegalArgumentException("Unknown entity type " + type);
+    }
+
+    private void writeSourceRange(SourceRange range) throws IOException {
+        if (range == null) {
+            writeVarInt(0);
+            return;
+        }
+        writeVarInt(zigZag(range.getStart()) + 1);
+        writeVarInt(zigZag(range.getEnd() - range.getStart()));
+        writeVarInt(zigZag(range.getStartLine()));
+        writeVarInt(zigZag(range.getStartColumn()));
+        writeVarInt(zigZag(range.getEndLine() - range.getStartLine()));
+        writeVarInt(zigZag(range.getEndColumn()));
+    }
+
+    private void writeName(String name) throws IOException {
+        if (name == null) {
+            writeVarInt(NULL);
+            return;
+        }
+        Integer index = fNames.get(name);
+        if (index != null) {
+            writeVarInt(FIRST_REFERENCE + index);
+            return;
+        }
+        fNames.put(name, fNames.size());
+        writeVarInt(DEFINITION);
+        byte[] bytes = name.getBytes(UTF_8);
+        writeVarInt(bytes.length);
+        int offset = 0;
+        while (offset < bytes.length) {
+            if (!fBuffer.hasRemaining()) {
+                flush();
+            }
+            int length = Math.min(fBuffer.remaining(), bytes.length - offset);
+            fBuffer.put(bytes, offset, length);
+            offset += length;
+        }
+    }
+
+    private void writeVarInt(int value) throws IOException {
+        int rest = value;
+        while ((rest & ~0x7F) != 0) {
+            writeByte((rest & 0x7F) | 0x80);
+            rest >>>= 7;
+        }
+        writeByte(rest);
+    }
+
+    private void writeByte(int value) throws IOException {
+        if (!fBuffer.hasRemaining()) {
+            flush();
+        }
+        fBuffer.put((byte) value);
+    }
+
+}
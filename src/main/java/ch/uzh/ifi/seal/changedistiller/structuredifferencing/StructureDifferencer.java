@@ -20,8 +20,6 @@ package ch.uzh.ifi.seal.changedistiller.structuredifferencing;
  * #L%
  */
 
-import java.io.IOException;
-import java.io.StringReader;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -136,45 +134,17 @@ public class StructureDifferencer {
     }
 
     private boolean contentsEqual(StructureNode left, StructureNode right) {
-        if ((left.getContent() == null) && (right.getContent() == null)) {
+        // equal digests spare printing the contents; different digests are confirmed on the contents
+        Long leftDigest = left.getContentDigest();
+        if ((leftDigest != null) && leftDigest.equals(right.getContentDigest())) {
             return true;
         }
-        StringReader leftContent = getStream(left);
-        StringReader rightContent = getStream(right);
-        try {
-            if ((leftContent == null) || (rightContent == null)) {
-                return false;
-            }
-            while (true) {
-                int l = leftContent.read();
-                int r = rightContent.read();
-                if ((l == -1) && (r == -1)) {
-                    return true;
-                }
-                if (l != r) {
-                    break;
-                }
-            }
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        } finally {
-        	if(leftContent != null) { // shouldn't happen - checked to calm sonar
-        		leftContent.close();
-        	}
-        	
-        	if(rightContent != null) { // shouldn't happen - checked to calm sonar        		
-        		rightContent.close();
-        	}
-        }
-        return false;
-    }
-
-    private StringReader getStream(StructureNode left) {
-        String content = left.getContent();
-        if (content != null) {
-            return new StringReader(content);
+        String leftContent = left.getContent();
+        String rightContent = right.getContent();
+        if ((leftContent == null) || (rightContent == null)) {
+            return (leftContent == null) && (rightContent == null);
         }
-        return null;
+        return leftContent.equals(rightContent);
     }
 
     private StructureNode[] getChildren(StructureNode node) {
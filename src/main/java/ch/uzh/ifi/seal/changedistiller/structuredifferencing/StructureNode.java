@@ -44,6 +44,14 @@ public interface StructureNode {
      */
     String getContent();
 
+    /**
+     * Returns a digest of the content of this structure node. Nodes with equal digests have equal content, while nodes
+     * with different digests may still have equal content, e.g., if only the formatting differs.
+     * 
+     * @return the digest of the content, <code>null</code> if there is none
+     */
+    Long getContentDigest();
+
     /**
      * Returns the name of this structure node.
      * 
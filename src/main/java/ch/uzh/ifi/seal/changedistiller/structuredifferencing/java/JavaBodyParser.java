@@ -0,0 +1,68 @@
+package ch.uzh.ifi.seal.changedistiller.structuredifferencing.java;
+
+/*
+ * #%L
+ * ChangeDistiller
+ * %%
+ * Copyright (C) 2011 - 2013 Software Architecture and Evolution Lab, Department of Informatics, UZH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import org.eclipse.jdt.internal.compiler.ast.ASTNode;
+
+/**
+ * Parses the bodies of methods, constructors, and initializers that a diet parse of a compilation unit skipped.
+ * 
+ * <p>
+ * The declarations of a diet parsed compilation unit are complete, but their bodies are empty until they are parsed
+ * with the body parser of the compilation unit. Whoever reads a body must have it parsed first.
+ * 
+ * @author Beat Fluri
+ */
+public interface JavaBodyParser {
+
+    /**
+     * Body parser of compilation units whose bodies are all parsed.
+     */
+    JavaBodyParser NONE = new JavaBodyParser() {
+
+        @Override
+        public void parseBodies(ASTNode node) {}
+
+        @Override
+        public boolean hasSyntaxError() {
+            return false;
+        }
+    };
+
+    /**
+     * Parses the bodies of the node, if they are not parsed yet. The body of a method or constructor is the body of
+     * the node; the bodies of a type are those of all its methods, constructors, initializers, and member types.
+     * Other nodes have no bodies. A syntax error in a body drops the whole compilation unit, as in a
+     * complete parse.
+     * 
+     * @param node
+     *            whose bodies are parsed
+     */
+    void parseBodies(ASTNode node);
+
+    /**
+     * Returns whether a parsed body has a syntax error. The compilation unit is then ignored, as a completely parsed
+     * compilation unit with a syntax error is, and structure trees built from it before are outdated.
+     * 
+     * @return <code>true</code> if a parsed body has a syntax error, <code>false</code> otherwise
+     */
+    boolean hasSyntaxError();
+
+}
@@ -0,0 +1,94 @@
+package ch.uzh.ifi.seal.changedistiller.structuredifferencing.java;
+
+/*
+ * #%L
+ * ChangeDistiller
+ * %%
+ * Copyright (C) 2011 - 2013 Software Architecture and Evolution Lab, Department of Informatics, UZH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.eclipse.jdt.core.compiler.InvalidInputException;
+import org.eclipse.jdt.internal.compiler.classfmt.ClassFileConstants;
+import org.eclipse.jdt.internal.compiler.parser.Scanner;
+import org.eclipse.jdt.internal.compiler.parser.TerminalTokens;
+
+/**
+ * Computes 64-bit digests of Java source ranges from their token streams.
+ * 
+ * <p>
+ * Whitespace and line and block comments do not contribute to a digest, Javadoc comments do. So, two ranges with the
+ * same digest have the same tokens and thus parse to the same AST.
+ * 
+ * @author Beat Fluri
+ */
+final class JavaSourceDigest {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private JavaSourceDigest() {}
+
+    /**
+     * Returns the digest of the tokens between start and end.
+     * 
+     * @param source
+     *            containing the range
+     * @param start
+     *            of the range, inclusive
+     * @param end
+     *            of the range, inclusive
+     * @return the digest of the range, <code>null</code> if the range cannot be tokenized
+     */
+    static Long digest(char[] source, int start, int end) {
+        if ((start < 0) || (end >= source.length) || (start > end)) {
+            return null;
+        }
+        // the most recent source level, since the digest is taken from the raw characters of the tokens
+        Scanner scanner = new Scanner(true, false, false, ClassFileConstants.JDK1_7, null, null, true);
+        scanner.setSource(source);
+        scanner.resetTo(start, end);
+        long hash = FNV_OFFSET_BASIS;
+        try {
+            int token;
+            while ((token = scanner.getNextToken()) != TerminalTokens.TokenNameEOF) {
+                if ((token == TerminalTokens.TokenNameCOMMENT_LINE) || (token == TerminalTokens.TokenNameCOMMENT_BLOCK)) {
+                    continue;
+                }
+                int tokenStart = scanner.startPosition;
+                int tokenEnd = scanner.currentPosition;
+                for (int i = tokenStart; i < tokenEnd; i++) {
+                    hash = (hash ^ source[i]) * FNV_PRIME;
+                }
+                // the token length separates adjacent tokens
+                hash = (hash ^ (tokenEnd - tokenStart)) * FNV_PRIME;
+            }
+        } catch (InvalidInputException e) {
+            return null;
+        }
+        return mix(hash);
+    }
+
+    private static long mix(long hash) {
+        long h = hash;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+}
@@ -24,6 +24,9 @@ import java.util.LinkedList;
 import java.util.List;
 
 import org.eclipse.jdt.internal.compiler.ast.ASTNode;
+import org.eclipse.jdt.internal.compiler.ast.AbstractMethodDeclaration;
+import org.eclipse.jdt.internal.compiler.ast.FieldDeclaration;
+import org.eclipse.jdt.internal.compiler.ast.TypeDeclaration;
 
 import ch.uzh.ifi.seal.changedistiller.structuredifferencing.StructureNode;
 
@@ -39,6 +42,10 @@ public class JavaStructureNode implements StructureNode {
     private String fQualifier;
     private ASTNode fASTNode;
     private List<JavaStructureNode> fChildren;
+    private char[] fSource;
+    private JavaBodyParser fBodyParser;
+    private Long fContentDigest;
+    private boolean fContentDigestComputed;
 
     /**
      * Creates a new Java structure node
@@ -53,10 +60,56 @@ public class JavaStructureNode implements StructureNode {
      *            representing the structure node
      */
     public JavaStructureNode(Type type, String qualifier, String name, ASTNode astNode) {
+        this(type, qualifier, name, astNode, null);
+    }
+
+    /**
+     * Creates a new Java structure node
+     * 
+     * @param type
+     *            of the node
+     * @param qualifier
+     *            of the node
+     * @param name
+     *            of the node
+     * @param astNode
+     *            representing the structure node
+     * @param source
+     *            from which the AST node was parsed, used to compute the content digest; may be <code>null</code>
+     */
+    public JavaStructureNode(Type type, String qualifier, String name, ASTNode astNode, char[] source) {
+        this(type, qualifier, name, astNode, source, JavaBodyParser.NONE);
+    }
+
+    /**
+     * Creates a new Java structure node
+     * 
+     * @param type
+     *            of the node
+     * @param qualifier
+     *            of the node
+     * @param name
+     *            of the node
+     * @param astNode
+     *            representing the structure node
+     * @param source
+     *            from which the AST node was parsed, used to compute the content digest; may be <code>null</code>
+     * @param bodyParser
+     *            that parses the bodies of the AST node before its content is printed
+     */
+    public JavaStructureNode(
+            Type type,
+            String qualifier,
+            String name,
+            ASTNode astNode,
+            char[] source,
+            JavaBodyParser bodyParser) {
         fType = type;
         fQualifier = qualifier;
         fName = name;
         fASTNode = astNode;
+        fSource = source;
+        fBodyParser = bodyParser;
         fChildren = new LinkedList<JavaStructureNode>();
     }
 
@@ -121,9 +174,41 @@ public class JavaStructureNode implements StructureNode {
 
     @Override
     public String getContent() {
+        fBodyParser.parseBodies(fASTNode);
         return fASTNode.toString();
     }
 
+    /**
+     * Returns the digest of the tokens of the declaration, including its Javadoc. The digest is computed once.
+     * 
+     * @return the digest of the declaration, <code>null</code> if the source of the declaration is unknown
+     */
+    @Override
+    public Long getContentDigest() {
+        if (!fContentDigestComputed) {
+            fContentDigest = computeContentDigest();
+            fContentDigestComputed = true;
+        }
+        return fContentDigest;
+    }
+
+    private Long computeContentDigest() {
+        if (fSource == null) {
+            return null;
+        }
+        if (fASTNode instanceof AbstractMethodDeclaration) {
+            AbstractMethodDeclaration method = (AbstractMethodDeclaration) fASTNode;
+            return JavaSourceDigest.digest(fSource, method.declarationSourceStart, method.declarationSourceEnd);
+        } else if (fASTNode instanceof FieldDeclaration) {
+            FieldDeclaration field = (FieldDeclaration) fASTNode;
+            return JavaSourceDigest.digest(fSource, field.declarationSourceStart, field.declarationSourceEnd);
+        } else if (fASTNode instanceof TypeDeclaration) {
+            TypeDeclaration type = (TypeDeclaration) fASTNode;
+            return JavaSourceDigest.digest(fSource, type.declarationSourceStart, type.declarationSourceEnd);
+        }
+        return null;
+    }
+
     @Override
     public int hashCode() {
         return toString().hashCode();
@@ -46,21 +46,40 @@ public class JavaStructureTreeBuilder extends ASTVisitor {
 
     private Stack<JavaStructureNode> fNodeStack;
     private Stack<char[]> fQualifiers;
+    private char[] fSource;
+    private JavaBodyParser fBodyParser;
 
     /**
-     * Creates a new Java structure tree builder.
+     * Creates a new Java structure tree builder for a completely parsed compilation unit.
      * 
      * @param root
      *            of the structure tree
      */
     public JavaStructureTreeBuilder(JavaStructureNode root) {
+        this(root, JavaBodyParser.NONE);
+    }
+
+    /**
+     * Creates a new Java structure tree builder.
+     * 
+     * @param root
+     *            of the structure tree
+     * @param bodyParser
+     *            of the compilation unit, used by the structure nodes to parse the bodies they print
+     */
+    public JavaStructureTreeBuilder(JavaStructureNode root, JavaBodyParser bodyParser) {
         fNodeStack = new Stack<JavaStructureNode>();
         fNodeStack.push(root);
         fQualifiers = new Stack<char[]>();
+        fBodyParser = bodyParser;
     }
 
     @Override
     public boolean visit(CompilationUnitDeclaration compilationUnitDeclaration, CompilationUnitScope scope) {
+        if ((compilationUnitDeclaration.compilationResult != null)
+                && (compilationUnitDeclaration.compilationResult.compilationUnit != null)) {
+            fSource = compilationUnitDeclaration.compilationResult.compilationUnit.getContents();
+        }
         if (compilationUnitDeclaration.currentPackage != null) {
             for (char[] qualifier : compilationUnitDeclaration.currentPackage.tokens) {
                 fQualifiers.push(qualifier);
@@ -178,7 +197,7 @@ public class JavaStructureTreeBuilder extends ASTVisitor {
     }
 
     private void push(Type type, String name, ASTNode astNode) {
-        JavaStructureNode node = new JavaStructureNode(type, getQualifier(), name, astNode);
+        JavaStructureNode node = new JavaStructureNode(type, getQualifier(), name, astNode, fSource, fBodyParser);
         fNodeStack.peek().addChild(node);
         fNodeStack.push(node);
     }
@@ -0,0 +1,104 @@
+package ch.uzh.ifi.seal.changedistiller.treedifferencing;
+
+/*
+ * #%L
+ * ChangeDistiller
+ * %%
+ * Copyright (C) 2011 - 2013 Software Architecture and Evolution Lab, Department of Informatics, UZH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Top-down pre-pass of the tree matching that matches identical subtrees outright.
+ * 
+ * <p>
+ * The left tree is visited in pre-order. An inner node is anchored to an inner node of the right tree if its
+ * {@link Node#getSubtreeHash() subtree hash} occurs exactly once in each tree and both subtrees are
+ * {@link Node#isIsomorphicTo(Node) isomorphic}. All nodes of an anchored subtree are matched with their counterparts
+ * and marked as matched, so that the subsequent bottom-up matching only considers the remaining nodes. Hashes
+ * occurring more than once are ambiguous and left to the bottom-up matching.
+ * 
+ * <p>
+ * The anchoring changes the edit script where the bottom-up matching alone pairs a subtree with a merely similar one,
+ * since it matches inner nodes to the first sufficiently similar candidate. An unchanged loop next to a similar loop,
+ * for instance, stays matched with its identical counterpart instead of being reported as inserted.
+ * 
+ * @author Beat Fluri
+ * @see TreeDifferencer
+ */
+public class IdenticalSubtreeMatcher {
+
+    /**
+     * Matches the identical subtrees of the left and the right tree and adds the resulting {@link NodePair}s to the
+     * given matching.
+     * 
+     * @param left
+     *            tree to match
+     * @param right
+     *            tree to match
+     * @param matching
+     *            to which the pairs of identical nodes are added
+     */
+    public void match(Node left, Node right, Set<NodePair> matching) {
+        Map<Long, Node> rightCandidates = uniqueInnerNodes(right);
+        Map<Long, Node> leftCandidates = uniqueInnerNodes(left);
+        Deque<Node> stack = new ArrayDeque<Node>();
+        stack.push(left);
+        while (!stack.isEmpty()) {
+            Node x = stack.pop();
+            Node y = null;
+            if (!x.isLeaf() && (leftCandidates.get(x.getSubtreeHash()) == x)) {
+                y = rightCandidates.get(x.getSubtreeHash());
+            }
+            if ((y != null) && !y.isMatched() && (x.isRoot() == y.isRoot()) && x.isIsomorphicTo(y)) {
+                anchor(x, y, matching);
+            } else {
+                for (int i = x.getChildCount() - 1; i >= 0; i--) {
+                    stack.push(x.getChildAt(i));
+                }
+            }
+        }
+    }
+
+    private Map<Long, Node> uniqueInnerNodes(Node root) {
+        Map<Long, Node> nodes = new HashMap<Long, Node>();
+        for (Node node : root.getPreorder()) {
+            if (!node.isLeaf()) {
+                Long hash = node.getSubtreeHash();
+                // null marks an ambiguous hash, the key stays to keep later occurrences out
+                nodes.put(hash, nodes.containsKey(hash) ? null : node);
+            }
+        }
+        return nodes;
+    }
+
+    private void anchor(Node left, Node right, Set<NodePair> matching) {
+        List<Node> leftNodes = left.getPreorder();
+        List<Node> rightNodes = right.getPreorder();
+        for (int i = 0; i < leftNodes.size(); i++) {
+            Node x = leftNodes.get(i);
+            Node y = rightNodes.get(i);
+            matching.add(new NodePair(x, y));
+            x.enableMatched();
+            y.enableMatched();
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package ch.uzh.ifi.seal.changedistiller.treedifferencing;
+
+/*
+ * #%L
+ * ChangeDistiller
+ * %%
+ * Copyright (C) 2011 - 2013 Software Architecture and Evolution Lab, Department of Informatics, UZH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Calculates the longest common subsequence of two child sequences, where two nodes are equal if and only if they are
+ * a pair of a {@link MatchIndex}.
+ * 
+ * <p>
+ * Since every node of the left sequence has at most one partner, the LCS is a longest strictly increasing subsequence
+ * of the partner positions in the right sequence. It is calculated with patience sorting in O(m log m) time and linear
+ * space, and extracted iteratively. Ties are resolved as the classic dynamic programming traceback that prefers to
+ * drop elements from the left sequence does, so the resulting subsequence is the same.
+ * 
+ * <p>
+ * The scratch buffers are kept between calls, so an instance must not be used concurrently.
+ * 
+ * @author Beat Fluri
+ * @see TreeDifferencer
+ */
+public class LongestCommonSubsequence {
+
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int NONE = -1;
+
+    private Map<Node, Integer> fRightPositions = new IdentityHashMap<Node, Integer>();
+
+    // position of the partner of the i-th left node in the right sequence
+    private int[] fPositions = new int[INITIAL_CAPACITY];
+    // length of the longest increasing subsequence ending at the i-th left node
+    private int[] fLengths = new int[INITIAL_CAPACITY];
+    // the preceding left node having the same length
+    private int[] fPredecessors = new int[INITIAL_CAPACITY];
+    // smallest tail of an increasing subsequence per length
+    private int[] fTails = new int[INITIAL_CAPACITY];
+    // last left node per length
+    private int[] fLast = new int[INITIAL_CAPACITY];
+
+    /**
+     * Returns the pairs of the longest common subsequence of the left and right sequence.
+     * 
+     * @param left
+     *            sequence of nodes of the left tree
+     * @param right
+     *            sequence of nodes of the right tree
+     * @param match
+     *            defining which nodes are equal
+     * @return the pairs of the longest common subsequence, in descending order of their positions
+     */
+    public List<NodePair> calculate(List<Node> left, List<Node> right, MatchIndex match) {
+        int m = left.size();
+        ensureCapacity(m);
+        fRightPositions.clear();
+        for (int j = 0; j < right.size(); j++) {
+            fRightPositions.put(right.get(j), j);
+        }
+        int length = calculateLengths(left, match);
+        fRightPositions.clear();
+        return extract(left, right, length);
+    }
+
+    private int calculateLengths(List<Node> left, MatchIndex match) {
+        int length = 0;
+        for (int i = 0; i < left.size(); i++) {
+            Integer position = fRightPositions.get(match.getRightPartner(left.get(i)));
+            if (position == null) {
+                fPositions[i] = NONE;
+                fLengths[i] = 0;
+                continue;
+            }
+            int q = position;
+            fPositions[i] = q;
+            int lo = 0;
+            int hi = length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (fPositions[fTails[mid]] < q) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            if (lo == length) {
+                fLast[length++] = NONE;
+            }
+            fTails[lo] = i;
+            fLengths[i] = lo + 1;
+            fPredecessors[i] = fLast[lo];
+            fLast[lo] = i;
+        }
+        return length;
+    }
+
+    private List<NodePair> extract(List<Node> left, List<Node> right, int length) {
+        List<NodePair> result = new ArrayList<NodePair>(length);
+        int remaining = length;
+        int j = right.size() - 1;
+        for (int i = left.size() - 1; (i >= 0) && (remaining > 0); i--) {
+            int q = fPositions[i];
+            if ((q == NONE) || (q > j) || (fLengths[i] != remaining)) {
+                continue;
+            }
+            // left node i is taken unless an earlier node can end a subsequence of the same length;
+            // within one length the partner positions do not increase, so the predecessor is the best such node
+            int p = fPredecessors[i];
+            if ((q == j) || (p == NONE) || (fPositions[p] > j)) {
+                result.add(new NodePair(left.get(i), right.get(q)));
+                remaining--;
+                j = q - 1;
+            }
+        }
+        return result;
+    }
+
+    private void ensureCapacity(int size) {
+        if (fPositions.length < size) {
+            int capacity = Math.max(size, fPositions.length * 2);
+            fPositions = new int[capacity];
+            fLengths = new int[capacity];
+            fPredecessors = new int[capacity];
+            fTails = new int[capacity];
+            fLast = new int[capacity];
+        }
+    }
+
+}
@@ -0,0 +1,132 @@
+package ch.uzh.ifi.seal.changedistiller.treedifferencing;
+
+/*
+ * #%L
+ * ChangeDistiller
+ * %%
+ * Copyright (C) 2011 - 2013 Software Architecture and Evolution Lab, Department of Informatics, UZH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Bidirectional index of a matching between the nodes of a left and a right {@link Node} tree.
+ * 
+ * <p>
+ * Nodes are keyed by identity, so that looking up the partner of a node or checking whether two nodes are matched
+ * takes constant time, instead of scanning a set of {@link NodePair}s.
+ * 
+ * @author Beat Fluri
+ * @see TreeDifferencer
+ */
+public class MatchIndex {
+
+    private Map<Node, Node> fLeftToRight;
+    private Map<Node, Node> fRightToLeft;
+
+    /**
+     * Creates a new empty match index.
+     */
+    public MatchIndex() {
+        fLeftToRight = new IdentityHashMap<Node, Node>();
+        fRightToLeft = new IdentityHashMap<Node, Node>();
+    }
+
+    /**
+     * Creates a new match index containing the given matching.
+     * 
+     * @param matching
+     *            the node pairs to index
+     */
+    public MatchIndex(Set<? extends NodePair> matching) {
+        this();
+        for (NodePair pair : matching) {
+            add(pair.getLeft(), pair.getRight());
+        }
+    }
+
+    /**
+     * Creates a new match index that contains the same pairs as the given one. Subsequent changes to either index do
+     * not affect the other.
+     * 
+     * @param index
+     *            to copy
+     */
+    public MatchIndex(MatchIndex index) {
+        fLeftToRight = new IdentityHashMap<Node, Node>(index.fLeftToRight);
+        fRightToLeft = new IdentityHashMap<Node, Node>(index.fRightToLeft);
+    }
+
+    /**
+     * Adds the pair (left, right) to the index.
+     * 
+     * @param left
+     *            node of the left tree
+     * @param right
+     *            node of the right tree
+     */
+    public void add(Node left, Node right) {
+        fLeftToRight.put(left, right);
+        fRightToLeft.put(right, left);
+    }
+
+    /**
+     * Returns the partner of a node of the left tree.
+     * 
+     * @param left
+     *            node of the left tree
+     * @return the partner of the given node, <code>null</code> if it has no partner
+     */
+    public Node getRightPartner(Node left) {
+        return fLeftToRight.get(left);
+    }
+
+    /**
+     * Returns the partner of a node of the right tree.
+     * 
+     * @param right
+     *            node of the right tree
+     * @return the partner of the given node, <code>null</code> if it has no partner
+     */
+    public Node getLeftPartner(Node right) {
+        return fRightToLeft.get(right);
+    }
+
+    /**
+     * Returns whether the two nodes are matched, regardless of which one belongs to the left tree.
+     * 
+     * @param a
+     *            node of the pair
+     * @param b
+     *            node of the pair
+     * @return <code>true</code> if (a, b) or (b, a) is in the index, <code>false</code> otherwise
+     */
+    public boolean contains(Node a, Node b) {
+        return ((fLeftToRight.get(a) == b) && (b != null)) || ((fLeftToRight.get(b) == a) && (a != null));
+    }
+
+    /**
+     * Returns the number of pairs in the index.
+     * 
+     * @return the number of pairs in the index
+     */
+    public int size() {
+        return fLeftToRight.size();
+    }
+
+}
@@ -20,11 +20,15 @@ package ch.uzh.ifi.seal.changedistiller.treedifferencing;
  * #L%
  */
 
+import java.io.Serializable;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Enumeration;
 import java.util.List;
-
-import javax.swing.tree.DefaultMutableTreeNode;
+import java.util.NoSuchElementException;
 
 import ch.uzh.ifi.seal.changedistiller.model.classifiers.EntityType;
 import ch.uzh.ifi.seal.changedistiller.model.entities.SourceCodeEntity;
@@ -36,13 +40,25 @@ import ch.uzh.ifi.seal.changedistiller.model.entities.SourceCodeEntity;
  * {@link TreeDifferencer} can only apply the matching and edit script generation if the two trees are made out of such
  * nodes.
  * 
+ * <p>
+ * The tree structure follows the API of <code>javax.swing.tree.DefaultMutableTreeNode</code>, but is kept compact and
+ * unsynchronized: children are stored in an array, every node knows its index in its parent, and the pre-order and
+ * post-order of a subtree are computed once and kept until the subtree changes. A node is not thread-safe.
+ * 
  * @author Beat Fluri
  * @see TreeDifferencer
  */
-public class Node extends DefaultMutableTreeNode {
+public class Node implements Cloneable, Serializable {
 
     private static final long serialVersionUID = 42L;
 
+    private static final Node[] NO_CHILDREN = new Node[0];
+
+    private Node fParent;
+    private int fIndex = -1;
+    private Node[] fChildren = NO_CHILDREN;
+    private int fChildCount;
+
     private EntityType fLabel;
     private String fValue;
 
@@ -50,7 +66,16 @@ public class Node extends DefaultMutableTreeNode {
     private boolean fOrdered;
 
     private SourceCodeEntity fEntity;
-    private List<Node> fAssociatedNodes = new ArrayList<Node>();
+    private List<Node> fAssociatedNodes;
+
+    private transient ValueProfile fValueProfile;
+
+    private transient long fSubtreeHash;
+    private transient boolean fSubtreeHashValid;
+
+    private transient List<Node> fPreorder;
+    private transient List<Node> fPostorder;
+    private transient int fLeafCount;
 
     /**
      * Creates a new node.
@@ -61,7 +86,6 @@ public class Node extends DefaultMutableTreeNode {
      *            of the node
      */
     public Node(EntityType label, String value) {
-        super();
         fLabel = label;
         fValue = value;
     }
@@ -118,6 +142,7 @@ public class Node extends DefaultMutableTreeNode {
 
     public void setLabel(EntityType label) {
         fLabel = label;
+        invalidateSubtreeHash();
     }
 
     public String getValue() {
@@ -126,9 +151,27 @@ public class Node extends DefaultMutableTreeNode {
 
     public void setValue(String value) {
         fValue = value;
+        fValueProfile = null;
+        invalidateSubtreeHash();
+    }
+
+    /**
+     * Returns the profile that caches analyses of the value of this node. The profile is created on first access and
+     * discarded when the value is set.
+     * 
+     * @return the profile of the value of this node
+     */
+    public ValueProfile getValueProfile() {
+        if (fValueProfile == null) {
+            fValueProfile = new ValueProfile(fValue);
+        }
+        return fValueProfile;
     }
 
     public List<Node> getAssociatedNodes() {
+        if (fAssociatedNodes == null) {
+            return Collections.emptyList();
+        }
         return fAssociatedNodes;
     }
 
@@ -139,10 +182,478 @@ public class Node extends DefaultMutableTreeNode {
      *            to add as associated node
      */
     public void addAssociatedNode(Node node) {
+        if (fAssociatedNodes == null) {
+            fAssociatedNodes = new ArrayList<Node>(1);
+        }
         fAssociatedNodes.add(node);
         getEntity().addAssociatedEntity(node.getEntity());
     }
 
+    /**
+     * Returns the structural hash of the subtree rooted at this node, combining the label and value of each node with
+     * the hashes of its children in order. Isomorphic subtrees have the same hash. The hashes of the subtree are
+     * computed once and recomputed only after the subtree changed.
+     * 
+     * @return the structural hash of the subtree rooted at this node
+     */
+    public long getSubtreeHash() {
+        if (!fSubtreeHashValid) {
+            computeSubtreeHashes();
+        }
+        return fSubtreeHash;
+    }
+
+    // iterative, since method bodies may be nested deeper than the stack allows
+    private void computeSubtreeHashes() {
+        Deque<Node> stack = new ArrayDeque<Node>();
+        stack.push(this);
+        while (!stack.isEmpty()) {
+            Node node = stack.peek();
+            boolean childrenHashed = true;
+            for (int i = node.fChildCount - 1; i >= 0; i--) {
+                Node child = node.fChildren[i];
+                if (!child.fSubtreeHashValid) {
+                    stack.push(child);
+                    childrenHashed = false;
+                }
+            }
+            if (childrenHashed) {
+                stack.pop();
+                long hash = mix((labelHash(node) * 31L) + ((node.fValue != null) ? node.fValue.hashCode() : 0));
+                for (int i = 0; i < node.fChildCount; i++) {
+                    hash = mix((hash * 31L) + (node.fChildren[i]).fSubtreeHash);
+                }
+                node.fSubtreeHash = hash;
+                node.fSubtreeHashValid = true;
+            }
+        }
+    }
+
+    private static long labelHash(Node node) {
+        return (node.fLabel != null) ? node.fLabel.hashCode() : 0;
+    }
+
+    private static long mix(long hash) {
+        long h = hash;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    // a valid hash implies valid hashes of all descendants, so the walk stops at the first invalid ancestor
+    private void invalidateSubtreeHash() {
+        for (Node node = this; (node != null) && node.fSubtreeHashValid; node = node.fParent) {
+            node.fSubtreeHashValid = false;
+        }
+    }
+
+    // the traversals of the ancestors are cached independently of each other, so the walk goes up to the root
+    private void invalidateStructure() {
+        for (Node node = this; node != null; node = node.fParent) {
+            node.fSubtreeHashValid = false;
+            node.fPreorder = null;
+            node.fPostorder = null;
+        }
+    }
+
+    /**
+     * Returns whether the subtree rooted at this node is isomorphic to the subtree rooted at the other node, i.e., the
+     * nodes have the same labels, values, and children in the same order.
+     * 
+     * @param other
+     *            root of the subtree to compare with
+     * @return <code>true</code> if both subtrees are isomorphic, <code>false</code> otherwise
+     */
+    public boolean isIsomorphicTo(Node other) {
+        if (getSubtreeHash() != other.getSubtreeHash()) {
+            return false;
+        }
+        Deque<Node> lefts = new ArrayDeque<Node>();
+        Deque<Node> rights = new ArrayDeque<Node>();
+        lefts.push(this);
+        rights.push(other);
+        while (!lefts.isEmpty()) {
+            Node left = lefts.pop();
+            Node right = rights.pop();
+            if ((left.fLabel != right.fLabel) || (left.fChildCount != right.fChildCount)
+                    || ((left.fValue != null) ? !left.fValue.equals(right.fValue) : (right.fValue != null))) {
+                return false;
+            }
+            for (int i = 0; i < left.fChildCount; i++) {
+                lefts.push(left.fChildren[i]);
+                rights.push(right.fChildren[i]);
+            }
+        }
+        return true;
+    }
+
+    public Node getParent() {
+        return fParent;
+    }
+
+    public boolean isRoot() {
+        return fParent == null;
+    }
+
+    public boolean isLeaf() {
+        return fChildCount == 0;
+    }
+
+    public int getChildCount() {
+        return fChildCount;
+    }
+
+    /**
+     * Returns the child at the given index.
+     * 
+     * @param index
+     *            of the child
+     * @return the child at the given index
+     * @throws ArrayIndexOutOfBoundsException
+     *             if the index is out of bounds
+     */
+    public Node getChildAt(int index) {
+        if (index >= fChildCount) {
+            throw new ArrayIndexOutOfBoundsException(index);
+        }
+        return fChildren[index];
+    }
+
+    /**
+     * Returns the index of the given child in the children of this node in constant time.
+     * 
+     * @param child
+     *            to get the index of
+     * @return the index of the child, or <code>-1</code> if it is no child of this node
+     */
+    public int getIndex(Node child) {
+        if (child == null) {
+            throw new IllegalArgumentException("argument is null");
+        }
+        return (child.fParent == this) ? child.fIndex : -1;
+    }
+
+    /**
+     * Returns the first child of this node.
+     * 
+     * @return the first child of this node
+     * @throws NoSuchElementException
+     *             if this node has no children
+     */
+    public Node getFirstChild() {
+        if (fChildCount == 0) {
+            throw new NoSuchElementException("node has no children");
+        }
+        return fChildren[0];
+    }
+
+    /**
+     * Returns the last child of this node.
+     * 
+     * @return the last child of this node
+     * @throws NoSuchElementException
+     *             if this node has no children
+     */
+    public Node getLastChild() {
+        if (fChildCount == 0) {
+            throw new NoSuchElementException("node has no children");
+        }
+        return fChildren[fChildCount - 1];
+    }
+
+    /**
+     * Returns the next sibling of this node in its parent's children.
+     * 
+     * @return the next sibling, or <code>null</code> if this node is the root or the last child of its parent
+     */
+    public Node getNextSibling() {
+        if ((fParent == null) || (fIndex == fParent.fChildCount - 1)) {
+            return null;
+        }
+        return fParent.fChildren[fIndex + 1];
+    }
+
+    /**
+     * Returns the previous sibling of this node in its parent's children.
+     * 
+     * @return the previous sibling, or <code>null</code> if this node is the root or the first child of its parent
+     */
+    public Node getPreviousSibling() {
+        if ((fParent == null) || (fIndex == 0)) {
+            return null;
+        }
+        return fParent.fChildren[fIndex - 1];
+    }
+
+    /**
+     * Returns the first leaf that is a descendant of this node, or this node if it is a leaf.
+     * 
+     * @return the first leaf of the subtree rooted at this node
+     */
+    public Node getFirstLeaf() {
+        Node node = this;
+        while (node.fChildCount > 0) {
+            node = node.fChildren[0];
+        }
+        return node;
+    }
+
+    /**
+     * Returns the last leaf that is a descendant of this node, or this node if it is a leaf.
+     * 
+     * @return the last leaf of the subtree rooted at this node
+     */
+    public Node getLastLeaf() {
+        Node node = this;
+        while (node.fChildCount > 0) {
+            node = node.fChildren[node.fChildCount - 1];
+        }
+        return node;
+    }
+
+    /**
+     * Returns the number of leaves of the subtree rooted at this node. A leaf has a leaf count of <code>1</code>.
+     * 
+     * @return the number of leaves of the subtree rooted at this node
+     */
+    public int getLeafCount() {
+        getPreorder();
+        return fLeafCount;
+    }
+
+    /**
+     * Returns whether the other node is this node or one of its ancestors.
+     * 
+     * @param anotherNode
+     *            to check
+     * @return <code>true</code> if the other node is this node or one of its ancestors, <code>false</code> otherwise
+     */
+    public boolean isNodeAncestor(Node anotherNode) {
+        for (Node node = this; node != null; node = node.fParent) {
+            if (node == anotherNode) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns whether the other node is this node or one of its descendants.
+     * 
+     * @param anotherNode
+     *            to check
+     * @return <code>true</code> if the other node is this node or one of its descendants, <code>false</code> otherwise
+     */
+    public boolean isNodeDescendant(Node anotherNode) {
+        return (anotherNode != null) && anotherNode.isNodeAncestor(this);
+    }
+
+    /**
+     * Adds the child as the last child of this node, removing it from its previous parent.
+     * 
+     * @param newChild
+     *            to add
+     */
+    public void add(Node newChild) {
+        if ((newChild != null) && (newChild.fParent == this)) {
+            insert(newChild, fChildCount - 1);
+        } else {
+            insert(newChild, fChildCount);
+        }
+    }
+
+    /**
+     * Inserts the child at the given index into the children of this node, removing it from its previous parent.
+     * 
+     * @param newChild
+     *            to insert
+     * @param childIndex
+     *            at which the child is inserted
+     * @throws IllegalArgumentException
+     *             if the child is <code>null</code> or an ancestor of this node
+     * @throws ArrayIndexOutOfBoundsException
+     *             if the index is out of bounds
+     */
+    public void insert(Node newChild, int childIndex) {
+        if (newChild == null) {
+            throw new IllegalArgumentException("new child is null");
+        } else if (isNodeAncestor(newChild)) {
+            throw new IllegalArgumentException("new child is an ancestor");
+        }
+        if (newChild.fParent != null) {
+            newChild.fParent.remove(newChild.fIndex);
+        }
+        if ((childIndex < 0) || (childIndex > fChildCount)) {
+            throw new ArrayIndexOutOfBoundsException(childIndex);
+        }
+        if (fChildCount == fChildren.length) {
+            fChildren = Arrays.copyOf(fChildren, Math.max(2, fChildCount * 2));
+        }
+        System.arraycopy(fChildren, childIndex, fChildren, childIndex + 1, fChildCount - childIndex);
+        fChildren[childIndex] = newChild;
+        fChildCount++;
+        newChild.fParent = this;
+        for (int i = childIndex; i < fChildCount; i++) {
+            fChildren[i].fIndex = i;
+        }
+        invalidateStructure();
+    }
+
+    /**
+     * Removes the child at the given index from the children of this node.
+     * 
+     * @param childIndex
+     *            of the child to remove
+     * @throws ArrayIndexOutOfBoundsException
+     *             if the index is out of bounds
+     */
+    public void remove(int childIndex) {
+        Node child = getChildAt(childIndex);
+        System.arraycopy(fChildren, childIndex + 1, fChildren, childIndex, fChildCount - childIndex - 1);
+        fChildren[--fChildCount] = null;
+        for (int i = childIndex; i < fChildCount; i++) {
+            fChildren[i].fIndex = i;
+        }
+        child.fParent = null;
+        child.fIndex = -1;
+        invalidateStructure();
+    }
+
+    /**
+     * Removes the child from the children of this node.
+     * 
+     * @param child
+     *            to remove
+     * @throws IllegalArgumentException
+     *             if the node is no child of this node
+     */
+    public void remove(Node child) {
+        if ((child == null) || (child.fParent != this)) {
+            throw new IllegalArgumentException("argument is not a child");
+        }
+        remove(child.fIndex);
+    }
+
+    /**
+     * Removes the subtree rooted at this node from its parent.
+     */
+    public void removeFromParent() {
+        if (fParent != null) {
+            fParent.remove(fIndex);
+        }
+    }
+
+    /**
+     * Returns the nodes of the subtree rooted at this node in pre-order. The list is computed once and kept until the
+     * subtree changes, so that it can be traversed by index without allocations.
+     * 
+     * @return the unmodifiable pre-order of the subtree rooted at this node
+     */
+    public List<Node> getPreorder() {
+        if (fPreorder == null) {
+            List<Node> nodes = new ArrayList<Node>();
+            int leafCount = 0;
+            Deque<Node> stack = new ArrayDeque<Node>();
+            stack.push(this);
+            while (!stack.isEmpty()) {
+                Node node = stack.pop();
+                nodes.add(node);
+                if (node.fChildCount == 0) {
+                    leafCount++;
+                }
+                for (int i = node.fChildCount - 1; i >= 0; i--) {
+                    stack.push(node.fChildren[i]);
+                }
+            }
+            fPreorder = Collections.unmodifiableList(Arrays.asList(nodes.toArray(new Node[nodes.size()])));
+            fLeafCount = leafCount;
+        }
+        return fPreorder;
+    }
+
+    /**
+     * Returns the nodes of the subtree rooted at this node in post-order. The list is computed once and kept until the
+     * subtree changes, so that it can be traversed by index without allocations.
+     * 
+     * @return the unmodifiable post-order of the subtree rooted at this node
+     */
+    public List<Node> getPostorder() {
+        if (fPostorder == null) {
+            // visiting each node before its children from right to left yields the reversed post-order
+            Node[] nodes = new Node[getPreorder().size()];
+            int next = nodes.length;
+            Deque<Node> stack = new ArrayDeque<Node>();
+            stack.push(this);
+            while (!stack.isEmpty()) {
+                Node node = stack.pop();
+                nodes[--next] = node;
+                for (int i = 0; i < node.fChildCount; i++) {
+                    stack.push(node.fChildren[i]);
+                }
+            }
+            fPostorder = Collections.unmodifiableList(Arrays.asList(nodes));
+        }
+        return fPostorder;
+    }
+
+    public Enumeration<Node> children() {
+        return new NodeEnumeration(Arrays.asList(fChildren).subList(0, fChildCount));
+    }
+
+    public Enumeration<Node> preorderEnumeration() {
+        return new NodeEnumeration(getPreorder());
+    }
+
+    public Enumeration<Node> postorderEnumeration() {
+        return new NodeEnumeration(getPostorder());
+    }
+
+    /**
+     * Returns the nodes of the subtree rooted at this node in breadth-first order.
+     * 
+     * @return the breadth-first enumeration of the subtree rooted at this node
+     */
+    public Enumeration<Node> breadthFirstEnumeration() {
+        Node[] nodes = new Node[getPreorder().size()];
+        nodes[0] = this;
+        // the array itself is the queue
+        for (int head = 0, tail = 1; head < tail; head++) {
+            Node node = nodes[head];
+            System.arraycopy(node.fChildren, 0, nodes, tail, node.fChildCount);
+            tail += node.fChildCount;
+        }
+        return new NodeEnumeration(Arrays.asList(nodes));
+    }
+
+    /**
+     * Returns a copy of this node without parent and children.
+     * 
+     * @return the copy of this node
+     */
+    @Override
+    public Object clone() {
+        try {
+            Node clone = (Node) super.clone();
+            clone.fParent = null;
+            clone.fIndex = -1;
+            clone.fChildren = NO_CHILDREN;
+            clone.fChildCount = 0;
+            if (fAssociatedNodes != null) {
+                clone.fAssociatedNodes = new ArrayList<Node>(fAssociatedNodes);
+            }
+            clone.fValueProfile = null;
+            clone.fSubtreeHashValid = false;
+            clone.fPreorder = null;
+            clone.fPostorder = null;
+            return clone;
+        } catch (CloneNotSupportedException e) {
+            throw new InternalError(e.toString());
+        }
+    }
+
     @Override
     public String toString() {
     	StringBuilder sb = new StringBuilder();
@@ -182,15 +693,13 @@ public class Node extends DefaultMutableTreeNode {
      *            to append the node string
      * @return the node string
      */
-    @SuppressWarnings("unchecked")
     public StringBuilder print(StringBuilder output) {
         output.append(getValue());
         if (!isLeaf()) {
             output.append(" { ");
-            for (Iterator<Node> it = children.iterator(); it.hasNext();) {
-                Node child = it.next();
-                child.print(output);
-                if (it.hasNext()) {
+            for (int i = 0; i < fChildCount; i++) {
+                fChildren[i].print(output);
+                if (i < (fChildCount - 1)) {
                     output.append(",");
                 }
             }
@@ -250,4 +759,30 @@ public class Node extends DefaultMutableTreeNode {
         return candidate.isLeaf() && isNodeDescendant(candidate);
     }
 
+    /**
+     * Enumerates a fixed list of nodes.
+     */
+    private static final class NodeEnumeration implements Enumeration<Node> {
+
+        private final List<Node> fNodes;
+        private int fNext;
+
+        NodeEnumeration(List<Node> nodes) {
+            fNodes = nodes;
+        }
+
+        @Override
+        public boolean hasMoreElements() {
+            return fNext < fNodes.size();
+        }
+
+        @Override
+        public Node nextElement() {
+            if (fNext >= fNodes.size()) {
+                throw new NoSuchElementException();
+            }
+            return fNodes.get(fNext++);
+        }
+    }
+
 }
@@ -22,6 +22,7 @@ package ch.uzh.ifi.seal.changedistiller.treedifferencing;
 
 import java.util.Set;
 
+import ch.uzh.ifi.seal.changedistiller.distilling.DistillationListener;
 import ch.uzh.ifi.seal.changedistiller.treedifferencing.matching.measure.NodeSimilarityCalculator;
 import ch.uzh.ifi.seal.changedistiller.treedifferencing.matching.measure.StringSimilarityCalculator;
 
@@ -93,6 +94,14 @@ public interface TreeMatcher {
      */
     void setMatchingSet(Set<NodePair> matchingSet);
 
+    /**
+     * Sets the listener to which the matching phases and the number of similarity calculations are reported.
+     * 
+     * @param listener
+     *            to report to
+     */
+    void setDistillationListener(DistillationListener listener);
+
     /**
      * Enables dynamic threshold for the given depth of {@link Node} trees.
      * 
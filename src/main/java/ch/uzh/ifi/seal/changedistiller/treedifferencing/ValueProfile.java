@@ -0,0 +1,89 @@
+package ch.uzh.ifi.seal.changedistiller.treedifferencing;
+
+/*
+ * #%L
+ * ChangeDistiller
+ * %%
+ * Copyright (C) 2011 - 2013 Software Architecture and Evolution Lab, Department of Informatics, UZH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Cache of analyses of a {@link Node} value, such as its ngrams or tokens.
+ * 
+ * <p>
+ * Similarity calculators store the result of analyzing a value under a key that identifies the kind of analysis and
+ * its parameters, so that the value of a node is analyzed once, no matter with how many other nodes it is compared.
+ * The profile of a node is discarded when its value changes.
+ * 
+ * @author Beat Fluri
+ * @see Node#getValueProfile()
+ */
+public class ValueProfile {
+
+    private String fValue;
+    private Map<Object, Object> fAnalyses;
+
+    /**
+     * Creates a new profile of a value.
+     * 
+     * @param value
+     *            to profile
+     */
+    public ValueProfile(String value) {
+        fValue = value;
+    }
+
+    public String getValue() {
+        return fValue;
+    }
+
+    public int getLength() {
+        return fValue.length();
+    }
+
+    /**
+     * Returns the analysis of the value stored under the given key.
+     * 
+     * @param key
+     *            identifying the kind of analysis
+     * @return the analysis, <code>null</code> if the value was not analyzed that way yet
+     */
+    public Object getAnalysis(Object key) {
+        if (fAnalyses == null) {
+            return null;
+        }
+        return fAnalyses.get(key);
+    }
+
+    /**
+     * Stores the analysis of the value under the given key.
+     * 
+     * @param key
+     *            identifying the kind of analysis
+     * @param analysis
+     *            of the value
+     */
+    public void putAnalysis(Object key, Object analysis) {
+        if (fAnalyses == null) {
+            fAnalyses = new HashMap<Object, Object>(4);
+        }
+        fAnalyses.put(key, analysis);
+    }
+
+}
@@ -20,12 +20,13 @@ package ch.uzh.ifi.seal.changedistiller.treedifferencing.matching;
  * #L%
  */
 
-import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Enumeration;
 import java.util.List;
 import java.util.Set;
 
+import ch.uzh.ifi.seal.changedistiller.distilling.DistillationCounter;
+import ch.uzh.ifi.seal.changedistiller.distilling.DistillationListener;
+import ch.uzh.ifi.seal.changedistiller.distilling.DistillationPhase;
 import ch.uzh.ifi.seal.changedistiller.treedifferencing.LeafPair;
 import ch.uzh.ifi.seal.changedistiller.treedifferencing.Node;
 import ch.uzh.ifi.seal.changedistiller.treedifferencing.NodePair;
@@ -62,6 +63,9 @@ public class BestLeafTreeMatcher implements TreeMatcher {
 
     private Set<NodePair> fMatch;
 
+    private DistillationListener fListener = DistillationListener.NONE;
+    private long fNumberOfNodeSimilarityCalculations;
+
     @Override
     public void init(
             StringSimilarityCalculator leafStringSimCalc,
@@ -106,23 +110,43 @@ public class BestLeafTreeMatcher implements TreeMatcher {
         fMatch = matchingSet;
     }
 
+    @Override
+    public void setDistillationListener(DistillationListener listener) {
+        fListener = listener;
+    }
+
     @Override
     public void match(Node left, Node right) {
-        List<LeafPair> matchedLeafs = matchLeaves(left, right);
+        fListener.phaseStarted(DistillationPhase.LEAF_MATCHING);
+        long start = System.nanoTime();
+        LeafMatcher leafMatcher = createLeafMatcher();
+        List<LeafPair> matchedLeafs = leafMatcher.match(left, right);
         // sort matching set according to similarity in descending order
         Collections.sort(matchedLeafs);
         markMatchedLeaves(matchedLeafs);
+        fListener.phaseEnded(DistillationPhase.LEAF_MATCHING, System.nanoTime() - start);
+
+        fListener.phaseStarted(DistillationPhase.NODE_MATCHING);
+        start = System.nanoTime();
+        fNumberOfNodeSimilarityCalculations = 0;
+        fNodeSimilarityCalculator.prepare(left, right);
         matchNodes(left, right);
+        fListener.phaseEnded(DistillationPhase.NODE_MATCHING, System.nanoTime() - start);
+
+        fListener.count(DistillationCounter.LEAF_PAIRS_COMPARED, leafMatcher.getNumberOfComparisons());
+        fListener.count(
+                DistillationCounter.SIMILARITY_CALCULATIONS,
+                leafMatcher.getNumberOfComparisons() + fNumberOfNodeSimilarityCalculations);
     }
 
-    @SuppressWarnings("unchecked")
     private void matchNodes(Node left, Node right) {
-        for (Enumeration<Node> leftNodes = left.postorderEnumeration(); leftNodes.hasMoreElements();) {
-            Node x = leftNodes.nextElement();
+        List<Node> leftNodes = left.getPostorder();
+        List<Node> rightNodes = right.getPostorder();
+        for (int i = 0; i < leftNodes.size(); i++) {
+            Node x = leftNodes.get(i);
             if (!x.isMatched() && (!x.isLeaf() || x.isRoot())) {
-                for (Enumeration<Node> rightNodes = right.postorderEnumeration(); rightNodes.hasMoreElements()
-                        && !x.isMatched();) {
-                    Node y = rightNodes.nextElement();
+                for (int j = 0; (j < rightNodes.size()) && !x.isMatched(); j++) {
+                    Node y = rightNodes.get(j);
                     if ((!y.isMatched() && (!y.isLeaf() || y.isRoot())) && equal(x, y)) {
                         fMatch.add(new NodePair(x, y));
                         x.enableMatched();
@@ -145,46 +169,12 @@ public class BestLeafTreeMatcher implements TreeMatcher {
         }
     }
 
-    @SuppressWarnings("unchecked")
-    private List<LeafPair> matchLeaves(Node left, Node right) {
-        List<LeafPair> matchedLeafs = new ArrayList<LeafPair>();
-        for (Enumeration<Node> leftNodes = left.postorderEnumeration(); leftNodes.hasMoreElements();) {
-            Node x = leftNodes.nextElement();
-            if (x.isLeaf()) {
-                for (Enumeration<Node> rightNodes = right.postorderEnumeration(); rightNodes.hasMoreElements();) {
-                    Node y = rightNodes.nextElement();
-                    if (y.isLeaf() && haveSameLabel(x, y)) {
-                        double similarity = 0;
-
-                        if (x.getLabel().isComment()) {
-                            similarity =
-                                    fLeafCommentStringSimilarityCalculator.calculateSimilarity(
-                                            x.getValue(),
-                                            y.getValue());
-
-                            // Important! Otherwhise nodes that match poorly will make it into final matching set,
-                            // if no better matches are found!
-                            if (similarity >= LEAF_COMMENT_STRING_SIMILARITY_THRESHOLD) {
-                                matchedLeafs.add(new LeafPair(x, y, similarity));
-                            }
-
-                        } else { // ...other statements.
-                            similarity =
-                                    fLeafGenericStringSimilarityCalculator.calculateSimilarity(
-                                            x.getValue(),
-                                            y.getValue());
-
-                            // Important! Otherwise nodes that match poorly will make it into final matching set,
-                            // if no better matches are found!
-                            if (similarity >= fLeafGenericStringSimilarityThreshold) {
-                                matchedLeafs.add(new LeafPair(x, y, similarity));
-                            }
-                        }
-                    }
-                }
-            }
-        }
-        return matchedLeafs;
+    private LeafMatcher createLeafMatcher() {
+        return new LeafMatcher(
+                fLeafGenericStringSimilarityCalculator,
+                fLeafGenericStringSimilarityThreshold,
+                fLeafCommentStringSimilarityCalculator,
+                LEAF_COMMENT_STRING_SIMILARITY_THRESHOLD);
     }
 
     private boolean haveSameLabel(Node x, Node y) {
@@ -203,7 +193,8 @@ public class BestLeafTreeMatcher implements TreeMatcher {
                     t = fDynamicThreshold;
                 }
                 double simNode = fNodeSimilarityCalculator.calculateSimilarity(x, y);
-                double simString = fNodeStringSimilarityCalculator.calculateSimilarity(x.getValue(), y.getValue());
+                double simString = fNodeStringSimilarityCalculator.calculateSimilarity(x, y);
+                fNumberOfNodeSimilarityCalculations += 2;
                 if ((simString < fNodeStringSimilarityThreshold) && (simNode >= WEIGHTING_THRESHOLD)) {
                     return true;
                 } else {
@@ -0,0 +1,317 @@
+package ch.uzh.ifi.seal.changedistiller.treedifferencing.matching;
+
+/*
+ * #%L
+ * ChangeDistiller
+ * %%
+ * Copyright (C) 2011 - 2013 Software Architecture and Evolution Lab, Department of Informatics, UZH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import ch.uzh.ifi.seal.changedistiller.model.classifiers.EntityType;
+import ch.uzh.ifi.seal.changedistiller.treedifferencing.LeafPair;
+import ch.uzh.ifi.seal.changedistiller.treedifferencing.Node;
+import ch.uzh.ifi.seal.changedistiller.treedifferencing.matching.measure.BoundedStringSimilarityCalculator;
+import ch.uzh.ifi.seal.changedistiller.treedifferencing.matching.measure.StringSimilarityCalculator;
+
+/**
+ * Collects the similar leaf pairs of two {@link Node} trees.
+ * 
+ * <p>
+ * The result is the same as comparing every leaf of the left tree with every leaf of the right tree that has the same
+ * label, in post-order, and keeping the pairs whose similarity reaches the threshold. Instead of doing so, the right
+ * leaves are partitioned by label and by value, so that the similarity of two values is calculated only once. If the
+ * similarity calculator is a {@link BoundedStringSimilarityCalculator}, values whose sizes cannot reach the threshold
+ * are not compared at all.
+ * <p>
+ * Leaves that are already matched, e.g., as part of an identical subtree, are skipped.
+ * 
+ * @author Beat Fluri
+ * @see BestLeafTreeMatcher
+ */
+public class LeafMatcher {
+
+    private StringSimilarityCalculator fGenericCalculator;
+    private double fGenericThreshold;
+    private StringSimilarityCalculator fCommentCalculator;
+    private double fCommentThreshold;
+    private long fNumberOfComparisons;
+
+    /**
+     * Creates a new leaf matcher.
+     * 
+     * @param genericCalculator
+     *            the string similarity calculator for leaves that are no comments
+     * @param genericThreshold
+     *            the threshold to verify whether two leaves that are no comments are similar
+     * @param commentCalculator
+     *            the string similarity calculator for comments
+     * @param commentThreshold
+     *            the threshold to verify whether two comments are similar
+     */
+    public LeafMatcher(
+            StringSimilarityCalculator genericCalculator,
+            double genericThreshold,
+            StringSimilarityCalculator commentCalculator,
+            double commentThreshold) {
+        fGenericCalculator = genericCalculator;
+        fGenericThreshold = genericThreshold;
+        fCommentCalculator = commentCalculator;
+        fCommentThreshold = commentThreshold;
+    }
+
+    /**
+     * Returns the pairs of leaves with the same label whose similarity reaches the threshold. The pairs are ordered by
+     * the post-order position of the left leaf first and of the right leaf second.
+     * 
+     * @param left
+     *            tree to match with right
+     * @param right
+     *            tree to match with left
+     * @return the similar leaf pairs
+     */
+    public List<LeafPair> match(Node left, Node right) {
+        fNumberOfComparisons = 0;
+        Map<EntityType, Bucket> buckets = createBuckets(right);
+        List<LeafPair> matchedLeafs = new ArrayList<LeafPair>();
+        List<Node> leftNodes = left.getPostorder();
+        for (int i = 0; i < leftNodes.size(); i++) {
+            Node x = leftNodes.get(i);
+            if (x.isLeaf() && !x.isMatched()) {
+                Bucket bucket = buckets.get(x.getLabel());
+                if (bucket != null) {
+                    bucket.match(x, matchedLeafs);
+                }
+            }
+        }
+        for (Bucket bucket : buckets.values()) {
+            fNumberOfComparisons += bucket.fComparisons;
+        }
+        return matchedLeafs;
+    }
+
+    /**
+     * Returns the number of leaf similarities that were calculated by the last {@link #match(Node, Node)}.
+     * 
+     * @return the number of calculated leaf similarities
+     */
+    public long getNumberOfComparisons() {
+        return fNumberOfComparisons;
+    }
+
+    private Map<EntityType, Bucket> createBuckets(Node right) {
+        Map<EntityType, Bucket> buckets = new HashMap<EntityType, Bucket>();
+        List<Node> rightNodes = right.getPostorder();
+        for (int i = 0; i < rightNodes.size(); i++) {
+            Node y = rightNodes.get(i);
+            if (y.isLeaf() && !y.isMatched()) {
+                Bucket bucket = buckets.get(y.getLabel());
+                if (bucket == null) {
+                    if (y.getLabel().isComment()) {
+                        bucket = new Bucket(fCommentCalculator, fCommentThreshold);
+                    } else {
+                        bucket = new Bucket(fGenericCalculator, fGenericThreshold);
+                    }
+                    buckets.put(y.getLabel(), bucket);
+                }
+                bucket.add(y);
+            }
+        }
+        for (Bucket bucket : buckets.values()) {
+            bucket.sortBySize();
+        }
+        return buckets;
+    }
+
+    /**
+     * Right leaves with the same label.
+     */
+    private static final class Bucket {
+
+        private StringSimilarityCalculator fCalculator;
+        private BoundedStringSimilarityCalculator fBoundedCalculator;
+        private double fThreshold;
+
+        private List<Node> fLeaves = new ArrayList<Node>();
+        private Map<String, Value> fValues = new HashMap<String, Value>();
+        private Value[] fValuesBySize;
+        private long fComparisons;
+
+        // similar values of the right leaves per value of a left leaf
+        private Map<String, Candidates> fCandidates = new HashMap<String, Candidates>();
+
+        Bucket(StringSimilarityCalculator calculator, double threshold) {
+            fCalculator = calculator;
+            fThreshold = threshold;
+            if (calculator instanceof BoundedStringSimilarityCalculator) {
+                fBoundedCalculator = (BoundedStringSimilarityCalculator) calculator;
+            }
+        }
+
+        void add(Node leaf) {
+            Value value = fValues.get(leaf.getValue());
+            if (value == null) {
+                value = new Value(leaf);
+                if (fBoundedCalculator != null) {
+                    value.fSize = fBoundedCalculator.calculateSize(value.fString);
+                }
+                fValues.put(value.fString, value);
+            }
+            value.add(fLeaves.size());
+            fLeaves.add(leaf);
+        }
+
+        void sortBySize() {
+            fValuesBySize = fValues.values().toArray(new Value[fValues.size()]);
+            Arrays.sort(fValuesBySize);
+        }
+
+        void match(Node x, List<LeafPair> matchedLeafs) {
+            Candidates candidates = fCandidates.get(x.getValue());
+            if (candidates == null) {
+                candidates = createCandidates(x);
+                fCandidates.put(x.getValue(), candidates);
+            }
+            if (candidates.fValues.isEmpty()) {
+                return;
+            }
+            // order the leaves of all similar values by position; the index of the value is kept in the lower bits
+            long[] positions = new long[candidates.fNumberOfLeaves];
+            int k = 0;
+            for (int i = 0; i < candidates.fValues.size(); i++) {
+                Value value = candidates.fValues.get(i);
+                for (int j = 0; j < value.fNumberOfPositions; j++) {
+                    positions[k++] = ((long) value.fPositions[j] << 32) | i;
+                }
+            }
+            Arrays.sort(positions);
+            for (long position : positions) {
+                Node y = fLeaves.get((int) (position >>> 32));
+                double similarity = candidates.fSimilarities[(int) position];
+                matchedLeafs.add(new LeafPair(x, y, similarity));
+            }
+        }
+
+        private Candidates createCandidates(Node leftLeaf) {
+            Candidates candidates = new Candidates();
+            if (fBoundedCalculator == null) {
+                for (Value value : fValuesBySize) {
+                    compare(leftLeaf, value, candidates);
+                }
+            } else {
+                int size = fBoundedCalculator.calculateSize(leftLeaf.getValue());
+                int start = findFirstValueWithSize(size);
+                for (int i = start; i < fValuesBySize.length; i++) {
+                    if (fBoundedCalculator.calculateUpperBound(size, fValuesBySize[i].fSize) < fThreshold) {
+                        break;
+                    }
+                    compare(leftLeaf, fValuesBySize[i], candidates);
+                }
+                for (int i = start - 1; i >= 0; i--) {
+                    if (fBoundedCalculator.calculateUpperBound(size, fValuesBySize[i].fSize) < fThreshold) {
+                        break;
+                    }
+                    compare(leftLeaf, fValuesBySize[i], candidates);
+                }
+            }
+            candidates.trim();
+            return candidates;
+        }
+
+        private void compare(Node leftLeaf, Value value, Candidates candidates) {
+            double similarity = fCalculator.calculateSimilarity(leftLeaf, value.fLeaf);
+            fComparisons++;
+            // Important! Otherwise nodes that match poorly will make it into final matching set,
+            // if no better matches are found!
+            if (similarity >= fThreshold) {
+                candidates.add(value, similarity);
+            }
+        }
+
+        private int findFirstValueWithSize(int size) {
+            int lo = 0;
+            int hi = fValuesBySize.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (fValuesBySize[mid].fSize < size) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+    }
+
+    /**
+     * Distinct value of right leaves with the positions of these leaves.
+     */
+    private static final class Value implements Comparable<Value> {
+
+        // first leaf with the value
+        private Node fLeaf;
+        private String fString;
+        private int fSize;
+        private int[] fPositions = new int[1];
+        private int fNumberOfPositions;
+
+        Value(Node leaf) {
+            fLeaf = leaf;
+            fString = leaf.getValue();
+        }
+
+        void add(int position) {
+            if (fNumberOfPositions == fPositions.length) {
+                fPositions = Arrays.copyOf(fPositions, fPositions.length * 2);
+            }
+            fPositions[fNumberOfPositions++] = position;
+        }
+
+        @Override
+        public int compareTo(Value other) {
+            return fSize < other.fSize ? -1 : (fSize == other.fSize ? 0 : 1);
+        }
+    }
+
+    /**
+     * Values of right leaves that are similar to a value of a left leaf.
+     */
+    private static final class Candidates {
+
+        private List<Value> fValues = new ArrayList<Value>();
+        private double[] fSimilarities = new double[1];
+        private int fNumberOfLeaves;
+
+        void add(Value value, double similarity) {
+            if (fValues.size() == fSimilarities.length) {
+                fSimilarities = Arrays.copyOf(fSimilarities, fSimilarities.length * 2);
+            }
+            fSimilarities[fValues.size()] = similarity;
+            fValues.add(value);
+            fNumberOfLeaves += value.fNumberOfPositions;
+        }
+
+        void trim() {
+            fSimilarities = Arrays.copyOf(fSimilarities, fValues.size());
+        }
+    }
+
+}
@@ -0,0 +1,57 @@
+package ch.uzh.ifi.seal.changedistiller.treedifferencing.matching.measure;
+
+/*
+ * #%L
+ * ChangeDistiller
+ * %%
+ * Copyright (C) 2011 - 2013 Software Architecture and Evolution Lab, Department of Informatics, UZH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+/**
+ * {@link StringSimilarityCalculator} whose similarity can be bounded from above by a size of the strings alone.
+ * 
+ * <p>
+ * Matchers use the bound to skip candidates that cannot reach a similarity threshold without calculating their
+ * similarity.
+ * 
+ * @author Beat Fluri
+ */
+public interface BoundedStringSimilarityCalculator extends StringSimilarityCalculator {
+
+    /**
+     * Returns the size of the string the upper bound is calculated from.
+     * 
+     * @param string
+     *            to calculate the size of
+     * @return the size of the string
+     */
+    int calculateSize(String string);
+
+    /**
+     * Returns an upper bound for the similarity of two strings with the given sizes, i.e.,
+     * <code>calculateSimilarity(left, right) &lt;= calculateUpperBound(calculateSize(left), calculateSize(right))</code>.
+     * For a fixed left size, the bound must not decrease while the right size approaches the left size and must not
+     * increase while it moves away from it.
+     * 
+     * @param leftSize
+     *            size of the left string
+     * @param rightSize
+     *            size of the right string
+     * @return the upper bound of the similarity between two strings with the given sizes
+     */
+    double calculateUpperBound(int leftSize, int rightSize);
+
+}
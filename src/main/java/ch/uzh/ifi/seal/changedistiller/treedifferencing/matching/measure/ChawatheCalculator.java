@@ -20,7 +20,11 @@ package ch.uzh.ifi.seal.changedistiller.treedifferencing.matching.measure;
  * #L%
  */
 
-import java.util.Enumeration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import ch.uzh.ifi.seal.changedistiller.treedifferencing.Node;
@@ -29,19 +33,62 @@ import ch.uzh.ifi.seal.changedistiller.treedifferencing.NodePair;
 /**
  * Implementation of the default inner node similarity calculator proposed by Chawathe.
  * 
+ * <p>
+ * Once prepared for two trees, every node is annotated with its pre-order number, the size of its subtree, and the
+ * number of its leaf statements. As the subtree of a node covers a contiguous range of pre-order numbers, the number
+ * of common leaf pairs of two nodes is the number of partners of the left node's leafs that lie in the right node's
+ * range. Without preparation, the leaf matching set is scanned for every calculation.
+ * 
  * @author Beat Fluri
  */
 public class ChawatheCalculator implements NodeSimilarityCalculator {
 
     private Set<? extends NodePair> fLeafMatchSet;
 
+    private Map<Node, Annotation> fLeftAnnotations;
+    private Map<Node, Annotation> fRightAnnotations;
+    // pre-order numbers of the matched leafs in the left tree with the pre-order number of their partner, ordered by
+    // the former and encoded as (left << 32) | right
+    private long[] fLeafPairs;
+
     @Override
     public void setLeafMatchSet(Set<? extends NodePair> leafMatchSet) {
         fLeafMatchSet = leafMatchSet;
+        fLeftAnnotations = null;
+        fRightAnnotations = null;
+        fLeafPairs = null;
+    }
+
+    @Override
+    public void prepare(Node left, Node right) {
+        fLeftAnnotations = annotate(left);
+        fRightAnnotations = annotate(right);
+        List<Long> pairs = new ArrayList<Long>();
+        for (NodePair p : fLeafMatchSet) {
+            Annotation l = fLeftAnnotations.get(p.getLeft());
+            Annotation r = fRightAnnotations.get(p.getRight());
+            if ((l != null) && (r != null) && isLeafStatement(p.getLeft()) && isLeafStatement(p.getRight())) {
+                pairs.add(((long) l.fPreorder << 32) | r.fPreorder);
+            }
+        }
+        fLeafPairs = new long[pairs.size()];
+        for (int i = 0; i < fLeafPairs.length; i++) {
+            fLeafPairs[i] = pairs.get(i);
+        }
+        Arrays.sort(fLeafPairs);
     }
 
     @Override
     public double calculateSimilarity(Node left, Node right) {
+        if (fLeftAnnotations != null) {
+            Annotation l = fLeftAnnotations.get(left);
+            Annotation r = fRightAnnotations.get(right);
+            if ((l != null) && (r != null)) {
+                int common = numberOfCommonLeafs(l, r);
+                int max = Math.max(l.fLeafStatements, r.fLeafStatements);
+                return (double) common / (double) max;
+            }
+        }
         int common = 0;
         // common(x, y) = {(w, z) in M | x contains w, and y contains z}
         // |common|
@@ -56,20 +103,99 @@ public class ChawatheCalculator implements NodeSimilarityCalculator {
         return (double) common / (double) max;
     }
 
+    private int numberOfCommonLeafs(Annotation left, Annotation right) {
+        if (left.fPartners == null) {
+            left.fPartners = partnersInSubtree(left);
+        }
+        int[] partners = left.fPartners;
+        return lowerBound(partners, right.fPreorder + right.fSize) - lowerBound(partners, right.fPreorder);
+    }
+
+    private int[] partnersInSubtree(Annotation node) {
+        long from = (long) node.fPreorder << 32;
+        long to = (long) (node.fPreorder + node.fSize) << 32;
+        int start = lowerBound(fLeafPairs, from);
+        int end = lowerBound(fLeafPairs, to);
+        int[] partners = new int[end - start];
+        for (int i = start; i < end; i++) {
+            partners[i - start] = (int) fLeafPairs[i];
+        }
+        Arrays.sort(partners);
+        return partners;
+    }
+
+    private static int lowerBound(int[] values, int key) {
+        int lo = 0;
+        int hi = values.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (values[mid] < key) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private static int lowerBound(long[] values, long key) {
+        int lo = 0;
+        int hi = values.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (values[mid] < key) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private Map<Node, Annotation> annotate(Node root) {
+        Map<Node, Annotation> annotations = new IdentityHashMap<Node, Annotation>();
+        List<Node> preorder = root.getPreorder();
+        for (int i = 0; i < preorder.size(); i++) {
+            Annotation annotation = new Annotation();
+            annotation.fPreorder = i;
+            annotations.put(preorder.get(i), annotation);
+        }
+        // children are visited before their parents in reverse pre-order
+        int[] leafs = new int[preorder.size()];
+        int[] comments = new int[preorder.size()];
+        for (int i = preorder.size() - 1; i >= 0; i--) {
+            Node node = preorder.get(i);
+            Annotation annotation = annotations.get(node);
+            annotation.fSize++;
+            if (node.isLeaf()) {
+                leafs[i]++;
+            }
+            if (isComment(node)) {
+                comments[i]++;
+            }
+            annotation.fLeafStatements = leafs[i] - comments[i];
+            if (node != root) {
+                Annotation parent = annotations.get(node.getParent());
+                parent.fSize += annotation.fSize;
+                leafs[parent.fPreorder] += leafs[i];
+                comments[parent.fPreorder] += comments[i];
+            }
+        }
+        return annotations;
+    }
+
     private int maxLeafStatements(Node left, Node right) {
         int leftLeafStatements = left.getLeafCount() - numberOfCommentNodes(left);
         int rightLeafStatements = right.getLeafCount() - numberOfCommentNodes(right);
         return Math.max(leftLeafStatements, rightLeafStatements);
     }
 
-    @SuppressWarnings("unchecked")
     private int numberOfCommentNodes(Node node) {
         int count = 0;
 
-        Enumeration<Node> nodes = node.breadthFirstEnumeration();
-        while (nodes.hasMoreElements()) {
-            Node child = nodes.nextElement();
-            if (isComment(child)) {
+        List<Node> nodes = node.getPreorder();
+        for (int i = 0; i < nodes.size(); i++) {
+            if (isComment(nodes.get(i))) {
                 count++;
             }
         }
@@ -77,7 +203,23 @@ public class ChawatheCalculator implements NodeSimilarityCalculator {
         return count;
     }
 
+    private boolean isLeafStatement(Node node) {
+        return node.isLeaf() && !isComment(node);
+    }
+
     private boolean isComment(Node node) {
         return node.getLabel().isComment();
     }
+
+    /**
+     * Position and leaf statement count of a node's subtree.
+     */
+    private static final class Annotation {
+
+        private int fPreorder;
+        private int fSize;
+        private int fLeafStatements;
+        // sorted pre-order numbers of the partners of the matched leafs in the subtree
+        private int[] fPartners;
+    }
 }
@@ -22,12 +22,14 @@ package ch.uzh.ifi.seal.changedistiller.treedifferencing.matching.measure;
 
 import org.apache.commons.lang3.StringUtils;
 
+import ch.uzh.ifi.seal.changedistiller.treedifferencing.Node;
+
 /**
  * Implementation of a {@link StringSimilarityCalculator} based on the Levenshtein distance.
  * 
  * @author Beat Fluri
  */
-public class LevenshteinSimilarityCalculator implements StringSimilarityCalculator {
+public class LevenshteinSimilarityCalculator implements BoundedStringSimilarityCalculator {
 
     @Override
     public double calculateSimilarity(String left, String right) {
@@ -39,6 +41,32 @@ public class LevenshteinSimilarityCalculator implements StringSimilarityCalculat
         return 0d;
     }
 
+    @Override
+    public double calculateSimilarity(Node left, Node right) {
+        return calculateSimilarity(left.getValue(), right.getValue());
+    }
+
+    /**
+     * Returns the length of the string.
+     */
+    @Override
+    public int calculateSize(String string) {
+        return string.length();
+    }
+
+    /**
+     * The similarity is at most <code>min(leftSize, rightSize) / max(leftSize, rightSize)</code>, as the distance is at
+     * least the length difference of both strings.
+     */
+    @Override
+    public double calculateUpperBound(int leftSize, int rightSize) {
+        int max = Math.max(leftSize, rightSize);
+        if (max == 0) {
+            return 0d;
+        }
+        return (double) Math.min(leftSize, rightSize) / (double) max;
+    }
+
     private double calculateWorstCaseDistance(String source, String target) {
         double sourceLen = source.length();
         double targetLen = target.length();
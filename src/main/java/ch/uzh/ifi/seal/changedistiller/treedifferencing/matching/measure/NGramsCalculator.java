@@ -20,17 +20,35 @@ package ch.uzh.ifi.seal.changedistiller.treedifferencing.matching.measure;
  * #L%
  */
 
+import java.util.Arrays;
 import java.util.HashSet;
 
+import ch.uzh.ifi.seal.changedistiller.treedifferencing.Node;
+import ch.uzh.ifi.seal.changedistiller.treedifferencing.ValueProfile;
+
 /**
  * Implementation of the ngrams similarity measure.
  * 
+ * <p>
+ * For n up to 4, the characters of an ngram are packed into a <code>long</code>, and the ngrams of a string are kept
+ * as sorted array in a buffer that is reused between calls. Hence, no objects are created for these n once the
+ * buffers are large enough, and an instance must not be used concurrently. The packed ngrams of node values are cached
+ * in their {@link ValueProfile}.
+ * 
  * @author Beat Fluri
  * 
  */
-public class NGramsCalculator implements StringSimilarityCalculator {
+public class NGramsCalculator implements BoundedStringSimilarityCalculator {
+
+    private static final int MAX_PACKED_N = 4;
+    private static final int BITS_PER_CHAR = 16;
+    private static final int INITIAL_CAPACITY = 64;
 
     private int fN;
+    private ProfileKey fProfileKey;
+
+    private long[] fLeftNGrams = new long[INITIAL_CAPACITY];
+    private long[] fRightNGrams = new long[INITIAL_CAPACITY];
 
     /**
      * Creates a new ngrams similarity calculator.
@@ -39,16 +57,68 @@ public class NGramsCalculator implements StringSimilarityCalculator {
      *            the n in ngrams
      */
     public NGramsCalculator(int n) {
-        fN = n;
+        setN(n);
     }
 
     public void setN(int n) {
         fN = n;
+        fProfileKey = new ProfileKey(n);
     }
 
     @Override
     public double calculateSimilarity(String left, String right) {
-        return left.equals(right) ? 1.0 : getSimilarity(createNGrams(left), createNGrams(right));
+        if (left.equals(right)) {
+            return 1.0;
+        }
+        if (!canPack()) {
+            return getSimilarity(createNGrams(left), createNGrams(right));
+        }
+        fLeftNGrams = ensureCapacity(fLeftNGrams, left.length());
+        fRightNGrams = ensureCapacity(fRightNGrams, right.length());
+        int leftSize = createPackedNGrams(left, fLeftNGrams);
+        int rightSize = createPackedNGrams(right, fRightNGrams);
+        int union = leftSize + rightSize;
+        int intersection = intersectionSize(fLeftNGrams, leftSize, fRightNGrams, rightSize);
+        return intersection * 2.0 / union;
+    }
+
+    @Override
+    public double calculateSimilarity(Node left, Node right) {
+        if (!canPack()) {
+            return calculateSimilarity(left.getValue(), right.getValue());
+        }
+        if (left.getValue().equals(right.getValue())) {
+            return 1.0;
+        }
+        long[] leftNGrams = getPackedNGrams(left.getValueProfile());
+        long[] rightNGrams = getPackedNGrams(right.getValueProfile());
+        int union = leftNGrams.length + rightNGrams.length;
+        int intersection = intersectionSize(leftNGrams, leftNGrams.length, rightNGrams, rightNGrams.length);
+        return intersection * 2.0 / union;
+    }
+
+    /**
+     * Returns the number of distinct ngrams of the string.
+     */
+    @Override
+    public int calculateSize(String string) {
+        if (!canPack()) {
+            return createNGrams(string).size();
+        }
+        fLeftNGrams = ensureCapacity(fLeftNGrams, string.length());
+        return createPackedNGrams(string, fLeftNGrams);
+    }
+
+    /**
+     * The similarity is at most <code>2 * min(leftSize, rightSize) / (leftSize + rightSize)</code>, as the intersection
+     * of the ngram sets cannot be larger than the smaller set.
+     */
+    @Override
+    public double calculateUpperBound(int leftSize, int rightSize) {
+        if ((leftSize == 0) && (rightSize == 0)) {
+            return 1.0;
+        }
+        return Math.min(leftSize, rightSize) * 2.0 / (leftSize + rightSize);
     }
 
     private double getSimilarity(HashSet<String> left, HashSet<String> right) {
@@ -58,6 +128,75 @@ public class NGramsCalculator implements StringSimilarityCalculator {
         return intersection * 2.0 / union;
     }
 
+    private boolean canPack() {
+        return (fN > 0) && (fN <= MAX_PACKED_N);
+    }
+
+    private long[] getPackedNGrams(ValueProfile profile) {
+        long[] ngrams = (long[]) profile.getAnalysis(fProfileKey);
+        if (ngrams == null) {
+            fLeftNGrams = ensureCapacity(fLeftNGrams, profile.getLength());
+            int size = createPackedNGrams(profile.getValue(), fLeftNGrams);
+            ngrams = Arrays.copyOf(fLeftNGrams, size);
+            profile.putAnalysis(fProfileKey, ngrams);
+        }
+        return ngrams;
+    }
+
+    private static long[] ensureCapacity(long[] buffer, int size) {
+        if (buffer.length < size) {
+            return new long[Math.max(size, buffer.length * 2)];
+        }
+        return buffer;
+    }
+
+    /**
+     * Stores the distinct packed ngrams of the string in ascending order at the beginning of the buffer.
+     * 
+     * @return the number of distinct ngrams
+     */
+    private int createPackedNGrams(String fullString, long[] ngrams) {
+        int count = fullString.length() - (fN - 1);
+        if (count <= 0) {
+            return 0;
+        }
+        long mask = fN == MAX_PACKED_N ? -1L : (1L << (fN * BITS_PER_CHAR)) - 1;
+        long ngram = 0;
+        for (int i = 0; i < fN - 1; i++) {
+            ngram = (ngram << BITS_PER_CHAR) | fullString.charAt(i);
+        }
+        for (int i = 0; i < count; i++) {
+            ngram = ((ngram << BITS_PER_CHAR) | fullString.charAt(i + fN - 1)) & mask;
+            ngrams[i] = ngram;
+        }
+        Arrays.sort(ngrams, 0, count);
+        int distinct = 1;
+        for (int i = 1; i < count; i++) {
+            if (ngrams[i] != ngrams[distinct - 1]) {
+                ngrams[distinct++] = ngrams[i];
+            }
+        }
+        return distinct;
+    }
+
+    private static int intersectionSize(long[] left, int leftSize, long[] right, int rightSize) {
+        int intersection = 0;
+        int i = 0;
+        int j = 0;
+        while ((i < leftSize) && (j < rightSize)) {
+            if (left[i] < right[j]) {
+                i++;
+            } else if (left[i] > right[j]) {
+                j++;
+            } else {
+                intersection++;
+                i++;
+                j++;
+            }
+        }
+        return intersection;
+    }
+
     private HashSet<String> createNGrams(String fullString) {
         HashSet<String> ngrams = new HashSet<String>();
         for (int i = 0; i < fullString.length() - (fN - 1); i++) {
@@ -66,4 +205,26 @@ public class NGramsCalculator implements StringSimilarityCalculator {
         return ngrams;
     }
 
+    /**
+     * Identifies the packed ngrams of a value in a {@link ValueProfile}.
+     */
+    private static final class ProfileKey {
+
+        private final int fN;
+
+        ProfileKey(int n) {
+            fN = n;
+        }
+
+        @Override
+        public int hashCode() {
+            return fN;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return (obj instanceof ProfileKey) && (((ProfileKey) obj).fN == fN);
+        }
+    }
+
 }
@@ -51,4 +51,15 @@ public interface NodeSimilarityCalculator {
      *            the matching set of leafs
      */
     void setLeafMatchSet(Set<? extends NodePair> leafMatchSet);
+
+    /**
+     * Prepares the calculation of similarities between the nodes of two trees. Called once the leafs of the trees are
+     * matched, so that the calculator may index the trees and the leaf matching set.
+     * 
+     * @param left
+     *            root of the left tree
+     * @param right
+     *            root of the right tree
+     */
+    void prepare(Node left, Node right);
 }
@@ -20,6 +20,9 @@ package ch.uzh.ifi.seal.changedistiller.treedifferencing.matching.measure;
  * #L%
  */
 
+import ch.uzh.ifi.seal.changedistiller.treedifferencing.Node;
+import ch.uzh.ifi.seal.changedistiller.treedifferencing.ValueProfile;
+
 /**
  * Interface for string similarity calculators.
  * 
@@ -41,4 +44,16 @@ public interface StringSimilarityCalculator {
      */
     double calculateSimilarity(String left, String right);
 
+    /**
+     * Returns the similarity between the values of two {@link Node}s. The result is the same as for the values as
+     * strings, but calculators may reuse analyses of the values cached in the {@link ValueProfile}s of the nodes.
+     * 
+     * @param left
+     *            to calculate the similarity with right
+     * @param right
+     *            to calculate the similarity with left
+     * @return the similarity between the values of the two nodes
+     */
+    double calculateSimilarity(Node left, Node right);
+
 }
@@ -20,9 +20,13 @@ package ch.uzh.ifi.seal.changedistiller.treedifferencing.matching.measure;
  * #L%
  */
 
+import java.util.Arrays;
 import java.util.Hashtable;
 import java.util.Map;
 
+import ch.uzh.ifi.seal.changedistiller.treedifferencing.Node;
+import ch.uzh.ifi.seal.changedistiller.treedifferencing.ValueProfile;
+
 /**
  * Implementation of a token based string similarity calculator.
  * 
@@ -31,7 +35,12 @@ import java.util.Map;
  */
 public class TokenBasedCalculator implements StringSimilarityCalculator {
 
+    private static final int PLAIN = 0;
+    private static final int LINE_COMMENT = 1;
+    private static final int BLOCK_COMMENT = 2;
+
     private String fSeparator;
+    private ProfileKey[] fProfileKeys;
 
     /**
      * Creates a new token based similarity calculator.
@@ -41,6 +50,11 @@ public class TokenBasedCalculator implements StringSimilarityCalculator {
      */
     public TokenBasedCalculator(String separator) {
         fSeparator = separator;
+        fProfileKeys =
+                new ProfileKey[]{
+                        new ProfileKey(separator, PLAIN),
+                        new ProfileKey(separator, LINE_COMMENT),
+                        new ProfileKey(separator, BLOCK_COMMENT)};
     }
 
     /**
@@ -78,6 +92,55 @@ public class TokenBasedCalculator implements StringSimilarityCalculator {
         return match / maximumTokens;
     }
 
+    /**
+     * The sorted tokens of the node values are cached in their {@link ValueProfile}s.
+     */
+    @Override
+    public double calculateSimilarity(Node left, Node right) {
+        int mode = PLAIN;
+        if (left.getValue().startsWith("//") || right.getValue().startsWith("//")) {
+            mode = LINE_COMMENT;
+        } else if (left.getValue().startsWith("/*") || right.getValue().startsWith("/*")) {
+            mode = BLOCK_COMMENT;
+        }
+        String[] leftTokens = getSortedTokens(left.getValueProfile(), mode);
+        String[] rightTokens = getSortedTokens(right.getValueProfile(), mode);
+        double match = 0.0;
+        int i = 0;
+        int j = 0;
+        while ((i < leftTokens.length) && (j < rightTokens.length)) {
+            int comparison = leftTokens[i].compareTo(rightTokens[j]);
+            if (comparison < 0) {
+                i++;
+            } else if (comparison > 0) {
+                j++;
+            } else {
+                match++;
+                i++;
+                j++;
+            }
+        }
+        double maximumTokens = Math.max(leftTokens.length, rightTokens.length);
+        return match / maximumTokens;
+    }
+
+    private String[] getSortedTokens(ValueProfile profile, int mode) {
+        ProfileKey key = fProfileKeys[mode];
+        String[] tokens = (String[]) profile.getAnalysis(key);
+        if (tokens == null) {
+            String string = profile.getValue();
+            if (mode == LINE_COMMENT) {
+                string = removeRegexOccurrences(string, "//\\s*");
+            } else if (mode == BLOCK_COMMENT) {
+                string = removeBlockCommentDelimiters(string);
+            }
+            tokens = string.split(fSeparator);
+            Arrays.sort(tokens);
+            profile.putAnalysis(key, tokens);
+        }
+        return tokens;
+    }
+
     private double removeTokensOccuringInRightString(String[] rightTokens, Map<String, Integer> tokens) {
         double match = 0.0;
         // delete the tokens in right from the Hashtable
@@ -127,4 +190,32 @@ public class TokenBasedCalculator implements StringSimilarityCalculator {
         return result.replace('*', ' ').trim();
     }
 
+    /**
+     * Identifies the sorted tokens of a value in a {@link ValueProfile}.
+     */
+    private static final class ProfileKey {
+
+        private final String fSeparator;
+        private final int fMode;
+
+        ProfileKey(String separator, int mode) {
+            fSeparator = separator;
+            fMode = mode;
+        }
+
+        @Override
+        public int hashCode() {
+            return (31 * fSeparator.hashCode()) + fMode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof ProfileKey)) {
+                return false;
+            }
+            ProfileKey other = (ProfileKey) obj;
+            return (fMode == other.fMode) && fSeparator.equals(other.fSeparator);
+        }
+    }
+
 }
@@ -58,7 +58,7 @@ public class DeleteOperation implements TreeEditOperation {
      */
     public DeleteOperation(Node nodeToDelete) {
         fNodeToDelete = nodeToDelete;
-        fParent = (Node) fNodeToDelete.getParent();
+        fParent = fNodeToDelete.getParent();
     }
 
     @Override
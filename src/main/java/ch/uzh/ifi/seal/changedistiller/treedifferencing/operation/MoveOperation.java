@@ -55,7 +55,7 @@ public class MoveOperation implements TreeEditOperation {
     public MoveOperation(Node nodeToMove, Node newNode, Node parent, int position) {
         fNodeToMove = nodeToMove;
         fNewNode = newNode;
-        fOldParent = (Node) nodeToMove.getParent();
+        fOldParent = nodeToMove.getParent();
         fNewParent = parent;
         fPosition = position;
     }
@@ -11,6 +11,8 @@
 // CHECKSTYLE:OFF
 package org.eclipse.jdt.internal.core.util;
 
+import java.util.Arrays;
+
 import org.eclipse.jdt.internal.compiler.ast.CompilationUnitDeclaration;
 import org.eclipse.jdt.internal.compiler.classfmt.ClassFileConstants;
 import org.eclipse.jdt.internal.compiler.impl.CompilerOptions;
@@ -252,6 +254,29 @@ public class CommentRecorderParser extends Parser {
         commentPtr = -1;
     }
 
+    /**
+     * Drops the references to the last parsed source and to its nodes, which an idle parser otherwise keeps on its
+     * stacks, e.g., the type declarations on the AST stack. The stacks themselves are kept for the next parse.
+     */
+    public void reset() {
+        scanner.setSource((char[]) null);
+        compilationUnit = null;
+        referenceContext = null;
+        Arrays.fill(astStack, null);
+        Arrays.fill(expressionStack, null);
+        Arrays.fill(genericsStack, null);
+        astPtr = -1;
+        astLengthPtr = -1;
+        expressionPtr = -1;
+        expressionLengthPtr = -1;
+        genericsPtr = -1;
+        genericsLengthPtr = -1;
+        javadoc = null;
+        if (javadocParser != null) {
+            javadocParser.docComment = null;
+        }
+    }
+
     /* (non-Javadoc)
      * Create and store a specific comment recorder scanner.
      * @see org.eclipse.jdt.internal.compiler.parser.Parser#initializeScanner()
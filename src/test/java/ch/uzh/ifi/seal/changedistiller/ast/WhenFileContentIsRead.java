@@ -0,0 +1,114 @@
+package ch.uzh.ifi.seal.changedistiller.ast;
+
+/*
+ * #%L
+ * ChangeDistiller
+ * %%
+ * Copyright (C) 2011 - 2013 Software Architecture and Evolution Lab, Department of Informatics, UZH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+import org.eclipse.jdt.internal.compiler.classfmt.ClassFileConstants;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import ch.uzh.ifi.seal.changedistiller.ast.java.JavaCompilation;
+import ch.uzh.ifi.seal.changedistiller.ast.java.JavaCompilationUtils;
+
+public class WhenFileContentIsRead {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final Charset ISO_8859_1 = Charset.forName("ISO-8859-1");
+
+    @Rule
+    public TemporaryFolder fFolder = new TemporaryFolder();
+
+    @Test
+    public void asciiContentShouldBeDecodedIntoExactArray() throws Exception {
+        String content = "class Foo {\n    int bar;\n}\n";
+        File file = write(content.getBytes(UTF_8));
+        char[] characters = FileUtils.getCharacters(file, UTF_8);
+        assertThat(characters.length, is(content.length()));
+        assertThat(String.valueOf(characters), is(content));
+    }
+
+    @Test
+    public void multiByteContentShouldBeDecodedWithGivenCharset() throws Exception {
+        String content = "class Foo { String s = \"ä€𝄞\"; }";
+        File file = write(content.getBytes(UTF_8));
+        assertThat(String.valueOf(FileUtils.getCharacters(file, UTF_8)), is(content));
+        assertThat(FileUtils.getContent(file, UTF_8), is(content));
+        assertThat(FileUtils.getContent(file, ISO_8859_1), is(new String(content.getBytes(UTF_8), ISO_8859_1)));
+    }
+
+    @Test
+    public void largeContentShouldBeReadCompletely() throws Exception {
+        StringBuilder content = new StringBuilder();
+        while (content.length() < (3 << 20)) {
+            content.append("    int field").append(content.length()).append(" = 0; // ü\n");
+        }
+        File file = write(content.toString().getBytes(UTF_8));
+        assertThat(String.valueOf(FileUtils.getCharacters(file, UTF_8)), is(content.toString()));
+    }
+
+    @Test
+    public void emptyFileShouldHaveNoCharacters() throws Exception {
+        File file = write(new byte[0]);
+        assertThat(FileUtils.getCharacters(file, UTF_8).length, is(0));
+        assertThat(FileUtils.getContent(file), is(""));
+    }
+
+    @Test
+    public void expandingCharsetShouldBeDecodedCompletely() throws Exception {
+        String content = "class Foo { char c = 'ä'; }";
+        Charset utf16 = Charset.forName("UTF-16");
+        ByteBuffer bytes = ByteBuffer.wrap(content.getBytes(utf16));
+        assertThat(String.valueOf(FileUtils.decode(bytes, utf16)), is(content));
+        assertThat(bytes.position(), is(0));
+    }
+
+    @Test
+    public void compilationShouldShareDecodedCharacters() throws Exception {
+        char[] source = "class Foo { void bar() { int i = 0; } }".toCharArray();
+        JavaCompilation compilation = JavaCompilationUtils.compile(source, "Foo.java", ClassFileConstants.JDK1_6);
+        assertThat(compilation.getSourceCharacters(), is(sameInstance(source)));
+        assertThat(compilation.getSource(), is(sameInstance(compilation.getSource())));
+        assertThat(compilation.getSource(), is(String.valueOf(source)));
+    }
+
+    private File write(byte[] content) throws IOException {
+        File file = fFolder.newFile();
+        OutputStream out = new FileOutputStream(file);
+        try {
+            out.write(content);
+        } finally {
+            out.close();
+        }
+        return file;
+    }
+
+}
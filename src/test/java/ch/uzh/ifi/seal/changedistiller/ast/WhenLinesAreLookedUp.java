@@ -0,0 +1,82 @@
+package ch.uzh.ifi.seal.changedistiller.ast;
+
+/*
+ * #%L
+ * ChangeDistiller
+ * %%
+ * Copyright (C) 2011 - 2013 Software Architecture and Evolution Lab, Department of Informatics, UZH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import org.junit.Test;
+
+import ch.uzh.ifi.seal.changedistiller.model.classifiers.SourceRange;
+
+public class WhenLinesAreLookedUp {
+
+    @Test
+    public void allLineSeparatorsShouldEndLines() throws Exception {
+        LineTable lines = new LineTable("a\nb\r\nc\rd".toCharArray());
+        assertThat(lines.getNumberOfLines(), is(4));
+        assertThat(lines.getLine(0), is(1));
+        assertThat(lines.getLine(2), is(2));
+        assertThat(lines.getLine(5), is(3));
+        assertThat(lines.getLine(7), is(4));
+    }
+
+    @Test
+    public void separatorShouldBelongToLineItEnds() throws Exception {
+        LineTable lines = new LineTable("ab\r\ncd".toCharArray());
+        assertThat(lines.getLine(2), is(1));
+        assertThat(lines.getLine(3), is(1));
+        assertThat(lines.getLine(4), is(2));
+    }
+
+    @Test
+    public void columnsShouldBeCountedFromLineStart() throws Exception {
+        LineTable lines = new LineTable("class Foo {\n    int bar;\n}\n".toCharArray());
+        assertThat(lines.getColumn(0), is(1));
+        assertThat(lines.getColumn(16), is(5));
+        assertThat(lines.getLine(16), is(2));
+    }
+
+    @Test
+    public void lineBreaksShouldBeCountedBetweenPositions() throws Exception {
+        LineTable lines = new LineTable("a;\n\n  // b\nc".toCharArray());
+        assertThat(lines.getNumberOfLineBreaks(2, 6), is(2));
+        assertThat(lines.getNumberOfLineBreaks(6, 8), is(0));
+    }
+
+    @Test
+    public void negativePositionsShouldHaveNoLine() throws Exception {
+        LineTable lines = new LineTable("a\nb".toCharArray());
+        assertThat(lines.getLine(-1), is(-1));
+        assertThat(lines.getColumn(-1), is(-1));
+    }
+
+    @Test
+    public void sourceRangeShouldKnowLinesAndColumns() throws Exception {
+        SourceRange range = new LineTable("class Foo {\n    int bar;\n}\n".toCharArray()).createSourceRange(16, 23);
+        assertThat(range.getStartLine(), is(2));
+        assertThat(range.getStartColumn(), is(5));
+        assertThat(range.getEndLine(), is(2));
+        assertThat(range.getEndColumn(), is(12));
+        range.setEnd(25);
+        assertThat(range.getEndLine(), is(-1));
+    }
+
+}
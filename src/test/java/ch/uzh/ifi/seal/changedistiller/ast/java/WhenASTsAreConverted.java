@@ -59,15 +59,15 @@ public abstract class WhenASTsAreConverted extends JavaDistillerTestCase {
     }
 
     protected Node getFirstLeaf() {
-        return ((Node) fRoot.getFirstLeaf());
+        return fRoot.getFirstLeaf();
     }
 
     protected Node getFirstChild() {
-        return (Node) fRoot.getFirstChild();
+        return fRoot.getFirstChild();
     }
 
     protected Node getLastChild() {
-        return (Node) fRoot.getLastChild();
+        return fRoot.getLastChild();
     }
 
     @SuppressWarnings({"unchecked", "rawtypes"})
@@ -0,0 +1,115 @@
+package ch.uzh.ifi.seal.changedistiller.ast.java;
+
+/*
+ * #%L
+ * ChangeDistiller
+ * %%
+ * Copyright (C) 2011 - 2013 Software Architecture and Evolution Lab, Department of Informatics, UZH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+public class WhenCommentedCodeIsDetected {
+
+    // the pattern the CommentCleaner used before
+    private static final Pattern SOURCE_CODE_PATTERN = Pattern
+            .compile("(?s).*([aA-zZ0-9]*\\.)*[aA-zZ0-9]+?\\((?s).*?\\);(?s).*" + "| (?s).+=(?s).+?;(?s).*"
+                    + "| (?s).*if\\s*\\((?s).*\\)\\s*\\{*\\s*(?s).*"
+                    + "| (?s).*?try\\s*\\{(?s).*?\\}\\s*catch\\s*\\((?s).*?\\)\\s*\\{(?s).*?\\}(?s).*");
+
+    private static final List<String> COMMENTS = Arrays.asList(
+            "// a simple method invocation",
+            "/* no more methods */",
+            "// foo.bar(x);",
+            "// bar (x);",
+            "/* System.out.println(\"hello\"); */",
+            "// a = b;",
+            "/* a=; */",
+            "// if (a) {",
+            "/* if(a */",
+            "// try { a(); } catch (Exception e) { }",
+            "/* try{}catch(){} */",
+            "// TODO: call init() before run();",
+            "// see Foo#bar()",
+            "/* [x](y); */",
+            "//NON-NLS-1$");
+
+    @Test
+    public void callStatementShouldBeCode() throws Exception {
+        assertThat(CommentedCodeDetector.isCommentedCode("// foo.bar(x);"), is(true));
+        assertThat(CommentedCodeDetector.isCommentedCode("// foo.bar(x)"), is(false));
+        assertThat(CommentedCodeDetector.isCommentedCode("// a simple method invocation"), is(false));
+    }
+
+    @Test
+    public void assignmentIfAndTryShouldNotBeCode() throws Exception {
+        assertThat(CommentedCodeDetector.isCommentedCode("// a = b;"), is(false));
+        assertThat(CommentedCodeDetector.isCommentedCode("/* if (a) { */"), is(false));
+        assertThat(CommentedCodeDetector.isCommentedCode("// try { } catch (Exception e) { }"), is(false));
+    }
+
+    @Test
+    public void detectorShouldClassifyLikeFormerPattern() throws Exception {
+        for (String comment : COMMENTS) {
+            assertSameAsPattern(comment);
+        }
+    }
+
+    @Test
+    public void detectorShouldClassifyRandomCommentsLikeFormerPattern() throws Exception {
+        String alphabet = " \t\nabfirtyc.=;(){}_[Z0";
+        String[] words = {"if", "try", "catch", "a.b", " "};
+        String[] delimiters = {"//", "/*", "/**"};
+        Random random = new Random(42);
+        for (int n = 0; n < 20000; n++) {
+            StringBuilder comment = new StringBuilder(delimiters[random.nextInt(delimiters.length)]);
+            int length = random.nextInt(16);
+            for (int i = 0; i < length; i++) {
+                if (random.nextInt(4) == 0) {
+                    comment.append(words[random.nextInt(words.length)]);
+                } else {
+                    comment.append(alphabet.charAt(random.nextInt(alphabet.length())));
+                }
+            }
+            assertSameAsPattern(comment.toString());
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void detectorShouldScanLargeCommentsInLinearTime() throws Exception {
+        StringBuilder comment = new StringBuilder("/*");
+        for (int i = 0; i < 200000; i++) {
+            comment.append(" if try } catch a( = ");
+        }
+        comment.append("*/");
+        assertThat(CommentedCodeDetector.isCommentedCode(comment.toString()), is(false));
+    }
+
+    private static void assertSameAsPattern(String comment) {
+        assertThat(
+                "'" + comment + "'",
+                CommentedCodeDetector.isCommentedCode(comment),
+                is(SOURCE_CODE_PATTERN.matcher(comment).matches()));
+    }
+
+}
@@ -27,7 +27,6 @@ import java.util.Enumeration;
 import java.util.List;
 
 import org.eclipse.jdt.internal.compiler.ast.AbstractMethodDeclaration;
-import org.eclipse.jdt.internal.compiler.lookup.ClassScope;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
@@ -63,8 +62,7 @@ public class WhenCommentsAreAssociatedToSourceCode extends JavaDistillerTestCase
         sRoot.setEntity(new SourceCodeEntity("foo", JavaEntityType.METHOD, new SourceRange()));
         AbstractMethodDeclaration method = CompilationUtils.findMethod(sCompilation.getCompilationUnit(), "foo");
         JavaMethodBodyConverter bodyT = sInjector.getInstance(JavaMethodBodyConverter.class);
-        bodyT.initialize(sRoot, method, sComments, sCompilation.getScanner());
-        method.traverse(bodyT, (ClassScope) null);
+        bodyT.convert(sRoot, method, new CommentIndex(sComments).newCursor(), sCompilation);
     }
 
     @Test
@@ -0,0 +1,81 @@
+package ch.uzh.ifi.seal.changedistiller.ast.java;
+
+/*
+ * #%L
+ * ChangeDistiller
+ * %%
+ * Copyright (C) 2011 - 2013 Software Architecture and Evolution Lab, Department of Informatics, UZH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import ch.uzh.ifi.seal.changedistiller.ast.java.Comment.CommentType;
+
+public class WhenCommentsAreIndexed {
+
+    private Comment fFirst;
+    private Comment fSecond;
+    private Comment fThird;
+    private CommentIndex fIndex;
+
+    @Before
+    public void createIndex() {
+        fFirst = new Comment(CommentType.LINE_COMMENT, 10, 15, "// a");
+        fSecond = new Comment(CommentType.BLOCK_COMMENT, 20, 27, "/* b */");
+        fThird = new Comment(CommentType.LINE_COMMENT, 30, 35, "// c");
+        fIndex = new CommentIndex(Arrays.asList(fThird, fFirst, fSecond));
+    }
+
+    @Test
+    public void commentsShouldBeSortedByStart() throws Exception {
+        assertThat(fIndex.getComments(), is(Arrays.asList(fFirst, fSecond, fThird)));
+    }
+
+    @Test
+    public void cursorShouldOnlyReturnCommentsStrictlyBetweenPositions() throws Exception {
+        CommentIndex.Cursor cursor = fIndex.newCursor();
+        assertThat(cursor.poll(10, 20), is(nullValue()));
+        assertThat(cursor.poll(9, 20), is(sameInstance(fFirst)));
+        assertThat(cursor.poll(10, 31), is(sameInstance(fSecond)));
+        assertThat(cursor.poll(20, 31), is(sameInstance(fThird)));
+        assertThat(cursor.isEmpty(), is(true));
+    }
+
+    @Test
+    public void consumedCommentsShouldBeSkipped() throws Exception {
+        CommentIndex.Cursor cursor = fIndex.newCursor();
+        assertThat(cursor.poll(15, 25), is(sameInstance(fSecond)));
+        assertThat(cursor.poll(0, 40), is(sameInstance(fFirst)));
+        assertThat(cursor.poll(0, 40), is(sameInstance(fThird)));
+        assertThat(cursor.poll(0, 40), is(nullValue()));
+    }
+
+    @Test
+    public void cursorsShouldConsumeIndependently() throws Exception {
+        CommentIndex.Cursor cursor = fIndex.newCursor();
+        cursor.poll(0, 40);
+        assertThat(fIndex.newCursor().poll(0, 40), is(sameInstance(fFirst)));
+        assertThat(fIndex.size(), is(3));
+    }
+
+}
@@ -0,0 +1,179 @@
+package ch.uzh.ifi.seal.changedistiller.ast.java;
+
+/*
+ * #%L
+ * ChangeDistiller
+ * %%
+ * Copyright (C) 2011 - 2013 Software Architecture and Evolution Lab, Department of Informatics, UZH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.jdt.internal.compiler.classfmt.ClassFileConstants;
+import org.junit.Test;
+
+import ch.uzh.ifi.seal.changedistiller.JavaChangeDistillerModule;
+import ch.uzh.ifi.seal.changedistiller.ast.java.JavaCompilationCache.CachedCompilation;
+import ch.uzh.ifi.seal.changedistiller.distilling.FileDistiller;
+import ch.uzh.ifi.seal.changedistiller.model.entities.SourceCodeChange;
+import ch.uzh.ifi.seal.changedistiller.util.CompilationUtils;
+
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+
+public class WhenCompilationsAreCached {
+
+    private static final String SOURCE =
+            "class Foo {\n    // a comment\n    void foo() {\n        // another comment\n        bar();\n    }\n}\n";
+
+    @Test
+    public void sameContentShouldBeParsedOnce() throws Exception {
+        JavaCompilationCache cache = new JavaCompilationCache();
+        CachedCompilation first = cache.getCompilation(SOURCE.toCharArray(), "Foo.java", ClassFileConstants.JDK1_6);
+        CachedCompilation second = cache.getCompilation(SOURCE.toCharArray(), "Foo.java", ClassFileConstants.JDK1_6);
+        assertThat(cache.getMissCount(), is(1L));
+        assertThat(cache.getHitCount(), is(1L));
+        assertThat(
+                second.getCompilation().getCompilationUnit(),
+                is(sameInstance(first.getCompilation().getCompilationUnit())));
+        assertThat(second.getCompilation().getScanner(), is(not(sameInstance(first.getCompilation().getScanner()))));
+        assertThat(second.getCompilation().getSource(), is(SOURCE));
+    }
+
+    @Test
+    public void differentFileNamesShouldBeParsedSeparately() throws Exception {
+        JavaCompilationCache cache = new JavaCompilationCache();
+        cache.getCompilation(SOURCE.toCharArray(), "Foo.java", ClassFileConstants.JDK1_6);
+        CachedCompilation bar = cache.getCompilation(SOURCE.toCharArray(), "Bar.java", ClassFileConstants.JDK1_6);
+        assertThat(cache.getMissCount(), is(2L));
+        assertThat(new String(bar.getCompilation().getCompilationUnit().getFileName()), is("Bar.java"));
+    }
+
+    @Test
+    public void reusedBufferShouldNotChangeCachedSource() throws Exception {
+        JavaCompilationCache cache = new JavaCompilationCache();
+        char[] buffer = SOURCE.toCharArray();
+        cache.getCompilation(buffer, "Foo.java", ClassFileConstants.JDK1_6);
+        SOURCE.replace("bar", "baz").getChars(0, SOURCE.length(), buffer, 0);
+        CachedCompilation original = cache.getCompilation(SOURCE.toCharArray(), "Foo.java", ClassFileConstants.JDK1_6);
+        assertThat(cache.getHitCount(), is(1L));
+        assertThat(original.getCompilation().getSource(), is(SOURCE));
+        CachedCompilation reused = cache.getCompilation(buffer, "Foo.java", ClassFileConstants.JDK1_6);
+        assertThat(cache.getMissCount(), is(2L));
+        assertThat(reused.getCompilation().getSource(), is(SOURCE.replace("bar", "baz")));
+    }
+
+    @Test
+    public void commentsShouldBeSharedButConsumedSeparately() throws Exception {
+        JavaCompilationCache cache = new JavaCompilationCache();
+        CachedCompilation first = cache.getCompilation(SOURCE.toCharArray(), "Foo.java", ClassFileConstants.JDK1_6);
+        assertThat(first.getCommentIndex().size(), is(2));
+        CommentIndex.Cursor cursor = first.getCommentIndex().newCursor();
+        cursor.poll(-1, SOURCE.length());
+        cursor.poll(-1, SOURCE.length());
+        assertThat(cursor.isEmpty(), is(true));
+        CachedCompilation second = cache.getCompilation(SOURCE.toCharArray(), "Foo.java", ClassFileConstants.JDK1_6);
+        assertThat(second.getCommentIndex(), is(sameInstance(first.getCommentIndex())));
+        assertThat(second.getCommentIndex().newCursor().isEmpty(), is(false));
+    }
+
+    @Test
+    public void differentJavaVersionsShouldBeParsedSeparately() throws Exception {
+        JavaCompilationCache cache = new JavaCompilationCache();
+        cache.getCompilation(SOURCE.toCharArray(), "Foo.java", ClassFileConstants.JDK1_6);
+        cache.getCompilation(SOURCE.toCharArray(), "Foo.java", ClassFileConstants.JDK1_7);
+        assertThat(cache.getMissCount(), is(2L));
+        assertThat(cache.size(), is(2));
+    }
+
+    @Test
+    public void leastRecentlyUsedSourceShouldBeEvicted() throws Exception {
+        String other = SOURCE.replace("bar", "baz");
+        String third = SOURCE.replace("bar", "qux");
+        long weight = (long) SOURCE.length() * JavaCompilationCache.BYTES_PER_SOURCE_CHAR;
+        JavaCompilationCache cache = new JavaCompilationCache(2 * weight);
+        cache.getCompilation(SOURCE.toCharArray(), "Foo.java", ClassFileConstants.JDK1_6);
+        cache.getCompilation(other.toCharArray(), "Foo.java", ClassFileConstants.JDK1_6);
+        cache.getCompilation(SOURCE.toCharArray(), "Foo.java", ClassFileConstants.JDK1_6);
+        cache.getCompilation(third.toCharArray(), "Foo.java", ClassFileConstants.JDK1_6);
+        assertThat(cache.getEvictionCount(), is(1L));
+        assertThat(cache.size(), is(2));
+        assertThat(cache.getWeight(), is(2 * weight));
+        cache.getCompilation(SOURCE.toCharArray(), "Foo.java", ClassFileConstants.JDK1_6);
+        assertThat(cache.getHitCount(), is(2L));
+        cache.getCompilation(other.toCharArray(), "Foo.java", ClassFileConstants.JDK1_6);
+        assertThat(cache.getMissCount(), is(4L));
+    }
+
+    @Test
+    public void emptyCacheShouldNotHoldSources() throws Exception {
+        JavaCompilationCache cache = new JavaCompilationCache(0);
+        cache.getCompilation(SOURCE.toCharArray(), "Foo.java", ClassFileConstants.JDK1_6);
+        cache.getCompilation(SOURCE.toCharArray(), "Foo.java", ClassFileConstants.JDK1_6);
+        assertThat(cache.getMissCount(), is(2L));
+        assertThat(cache.size(), is(0));
+    }
+
+    @Test
+    public void moduleShouldNotCacheByDefault() throws Exception {
+        Injector injector = Guice.createInjector(new JavaChangeDistillerModule());
+        FileDistiller distiller = injector.getInstance(FileDistiller.class);
+        distiller.extractClassifiedSourceCodeChanges(
+                CompilationUtils.getFile("src_change/TestLeft.java"),
+                CompilationUtils.getFile("src_change/TestRight.java"));
+        assertThat(injector.getInstance(JavaCompilationCache.class).size(), is(0));
+    }
+
+    @Test
+    public void consecutiveVersionsShouldBeParsedOnce() throws Exception {
+        JavaChangeDistillerModule module = new JavaChangeDistillerModule();
+        module.setCompilationCacheCapacity(JavaCompilationCache.DEFAULT_CAPACITY);
+        Injector injector = Guice.createInjector(module);
+        JavaCompilationCache cache = injector.getInstance(JavaCompilationCache.class);
+        File left = CompilationUtils.getFile("src_change/TestLeft.java");
+        File right = CompilationUtils.getFile("src_change/TestRight.java");
+
+        FileDistiller distiller = injector.getInstance(FileDistiller.class);
+        distiller.extractClassifiedSourceCodeChanges(left, right);
+        List<String> changes = describe(distiller.getSourceCodeChanges());
+        distiller = injector.getInstance(FileDistiller.class);
+        distiller.extractClassifiedSourceCodeChanges(right, left);
+        distiller = injector.getInstance(FileDistiller.class);
+        distiller.extractClassifiedSourceCodeChanges(left, right);
+
+        assertThat(cache.getMissCount(), is(2L));
+        assertThat(cache.getHitCount(), is(4L));
+        assertThat(describe(distiller.getSourceCodeChanges()), is(changes));
+        assertThat(changes.size(), is(23));
+    }
+
+    private static List<String> describe(List<SourceCodeChange> changes) {
+        List<String> descriptions = new ArrayList<String>();
+        for (SourceCodeChange change : changes) {
+            descriptions.add(change.getChangeType() + " " + change.getChangedEntity().getUniqueName() + " "
+                    + change.getChangedEntity().getStartPosition() + " " + change.getChangedEntity().getEndPosition());
+        }
+        return descriptions;
+    }
+
+}
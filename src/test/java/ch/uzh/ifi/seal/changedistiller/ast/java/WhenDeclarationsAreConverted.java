@@ -27,9 +27,6 @@ import java.util.Enumeration;
 import org.eclipse.jdt.internal.compiler.ast.AbstractMethodDeclaration;
 import org.eclipse.jdt.internal.compiler.ast.FieldDeclaration;
 import org.eclipse.jdt.internal.compiler.ast.TypeDeclaration;
-import org.eclipse.jdt.internal.compiler.lookup.ClassScope;
-import org.eclipse.jdt.internal.compiler.lookup.CompilationUnitScope;
-import org.eclipse.jdt.internal.compiler.lookup.MethodScope;
 import org.junit.Test;
 
 import ch.uzh.ifi.seal.changedistiller.ast.java.JavaDeclarationConverter;
@@ -95,7 +92,7 @@ public class WhenDeclarationsAreConverted extends WhenASTsAreConverted {
     }
 
     private Node getFieldType() {
-        return (Node) getFirstChild().getNextSibling();
+        return getFirstChild().getNextSibling();
     }
 
     private Node getReturnType() {
@@ -258,13 +255,13 @@ public class WhenDeclarationsAreConverted extends WhenASTsAreConverted {
         prepareCompilation();
         convertMethod("method");
         assertThat(getTreeString(), is("method {  { public },method: void,, { anInteger { anInteger: int } }, }"));
-        Node parameters = (Node) getLastChild().getPreviousSibling();
+        Node parameters = getLastChild().getPreviousSibling();
         assertThat(getSource(parameters), is("int anInteger"));
         assertThat(parameters.getLabel(), is(JavaEntityType.PARAMETERS));
-        Node parameter = (Node) parameters.getFirstChild();
+        Node parameter = parameters.getFirstChild();
         assertThat(getSource(parameter), is("anInteger"));
         assertThat(parameter.getLabel(), is(JavaEntityType.PARAMETER));
-        Node parameterType = (Node) parameters.getFirstLeaf();
+        Node parameterType = parameters.getFirstLeaf();
         assertThat(getSource(parameterType), is("int"));
         assertThat(parameterType.getLabel(), is(JavaEntityType.SINGLE_TYPE));
     }
@@ -277,19 +274,19 @@ public class WhenDeclarationsAreConverted extends WhenASTsAreConverted {
         assertThat(
                 getTreeString(),
                 is("method {  { public },method: void,, { anInteger { anInteger: int },aList { aList: List<String> } }, }"));
-        Node parameters = (Node) getLastChild().getPreviousSibling();
+        Node parameters = getLastChild().getPreviousSibling();
         assertThat(getSource(parameters), is("int anInteger, List<String> aList"));
         assertThat(parameters.getLabel(), is(JavaEntityType.PARAMETERS));
-        Node firstParameter = (Node) parameters.getFirstChild();
+        Node firstParameter = parameters.getFirstChild();
         assertThat(getSource(firstParameter), is("anInteger"));
         assertThat(firstParameter.getLabel(), is(JavaEntityType.PARAMETER));
-        Node firstParameterType = (Node) parameters.getFirstLeaf();
+        Node firstParameterType = parameters.getFirstLeaf();
         assertThat(getSource(firstParameterType), is("int"));
         assertThat(firstParameterType.getLabel(), is(JavaEntityType.SINGLE_TYPE));
-        Node secondParameter = (Node) firstParameter.getNextSibling();
+        Node secondParameter = firstParameter.getNextSibling();
         assertThat(getSource(secondParameter), is("aList"));
         assertThat(secondParameter.getLabel(), is(JavaEntityType.PARAMETER));
-        Node secondParameterType = (Node) secondParameter.getFirstLeaf();
+        Node secondParameterType = secondParameter.getFirstLeaf();
         assertThat(getSource(secondParameterType), is("List<String>"));
         assertThat(secondParameterType.getLabel(), is(JavaEntityType.PARAMETERIZED_TYPE));
     }
@@ -300,10 +297,10 @@ public class WhenDeclarationsAreConverted extends WhenASTsAreConverted {
         prepareCompilation();
         convertMethod("method");
         assertThat(getTreeString(), is("method {  { public },method: void, { T },, }"));
-        Node typeArguments = (Node) getLastChild().getPreviousSibling().getPreviousSibling();
+        Node typeArguments = getLastChild().getPreviousSibling().getPreviousSibling();
         assertThat(getSource(typeArguments), is("T"));
         assertThat(typeArguments.getLabel(), is(JavaEntityType.TYPE_PARAMETERS));
-        Node typeArgument = (Node) typeArguments.getFirstLeaf();
+        Node typeArgument = typeArguments.getFirstLeaf();
         assertThat(getSource(typeArgument), is("T"));
         assertThat(typeArgument.getLabel(), is(JavaEntityType.TYPE_PARAMETER));
     }
@@ -314,13 +311,13 @@ public class WhenDeclarationsAreConverted extends WhenASTsAreConverted {
         prepareCompilation();
         convertMethod("method");
         assertThat(getTreeString(), is("method {  { public },method: void, { T,U },, }"));
-        Node typeArguments = (Node) getLastChild().getPreviousSibling().getPreviousSibling();
+        Node typeArguments = getLastChild().getPreviousSibling().getPreviousSibling();
         assertThat(getSource(typeArguments), is("T,U"));
         assertThat(typeArguments.getLabel(), is(JavaEntityType.TYPE_PARAMETERS));
-        Node firstTypeArgument = (Node) typeArguments.getFirstLeaf();
+        Node firstTypeArgument = typeArguments.getFirstLeaf();
         assertThat(getSource(firstTypeArgument), is("T"));
         assertThat(firstTypeArgument.getLabel(), is(JavaEntityType.TYPE_PARAMETER));
-        Node secondTypeArgument = (Node) firstTypeArgument.getNextSibling();
+        Node secondTypeArgument = firstTypeArgument.getNextSibling();
         assertThat(getSource(secondTypeArgument), is("U"));
         assertThat(secondTypeArgument.getLabel(), is(JavaEntityType.TYPE_PARAMETER));
     }
@@ -331,10 +328,10 @@ public class WhenDeclarationsAreConverted extends WhenASTsAreConverted {
         prepareCompilation();
         convertMethod("method");
         assertThat(getTreeString(), is("method {  { public },method: void, { T extends Number },, }"));
-        Node typeArguments = (Node) getLastChild().getPreviousSibling().getPreviousSibling();
+        Node typeArguments = getLastChild().getPreviousSibling().getPreviousSibling();
         assertThat(typeArguments.getLabel(), is(JavaEntityType.TYPE_PARAMETERS));
         assertThat(getSource(typeArguments), is("T extends Number"));
-        Node typeArgument = (Node) typeArguments.getFirstLeaf();
+        Node typeArgument = typeArguments.getFirstLeaf();
         assertThat(getSource(typeArgument), is("T extends Number"));
         assertThat(typeArgument.getLabel(), is(JavaEntityType.TYPE_PARAMETER));
     }
@@ -345,9 +342,9 @@ public class WhenDeclarationsAreConverted extends WhenASTsAreConverted {
         prepareCompilation();
         convertMethod("method");
         assertThat(getTreeString(), is("method {  { public },method: void, { T extends Number & Serializable },, }"));
-        Node typeArguments = (Node) getLastChild().getPreviousSibling().getPreviousSibling();
+        Node typeArguments = getLastChild().getPreviousSibling().getPreviousSibling();
         assertThat(getSource(typeArguments), is("T extends Number & Serializable"));
-        Node typeArgument = (Node) typeArguments.getFirstLeaf();
+        Node typeArgument = typeArguments.getFirstLeaf();
         assertThat(getSource(typeArgument), is("T extends Number & Serializable"));
     }
 
@@ -360,7 +357,7 @@ public class WhenDeclarationsAreConverted extends WhenASTsAreConverted {
         Node exceptions = getLastChild();
         assertThat(getSource(exceptions), is("IOException"));
         assertThat(exceptions.getLabel(), is(JavaEntityType.THROW));
-        Node exception = (Node) exceptions.getFirstLeaf();
+        Node exception = exceptions.getFirstLeaf();
         assertThat(getSource(exception), is("IOException"));
         assertThat(exception.getLabel(), is(JavaEntityType.SINGLE_TYPE));
     }
@@ -373,11 +370,11 @@ public class WhenDeclarationsAreConverted extends WhenASTsAreConverted {
         assertThat(getTreeString(), is("method { ,method: void,,, { IOException,OutOfBoundException } }"));
         Node exceptions = getLastChild();
         assertThat(getSource(exceptions), is("IOException, OutOfBoundException"));
-        Node firstException = (Node) exceptions.getFirstLeaf();
+        Node firstException = exceptions.getFirstLeaf();
         assertThat(exceptions.getLabel(), is(JavaEntityType.THROW));
         assertThat(getSource(firstException), is("IOException"));
         assertThat(firstException.getLabel(), is(JavaEntityType.SINGLE_TYPE));
-        Node secondException = (Node) firstException.getNextSibling();
+        Node secondException = firstException.getNextSibling();
         assertThat(getSource(secondException), is("OutOfBoundException"));
         assertThat(secondException.getLabel(), is(JavaEntityType.SINGLE_TYPE));
     }
@@ -455,7 +452,7 @@ public class WhenDeclarationsAreConverted extends WhenASTsAreConverted {
         Node typeArguments = getTypeParameters();
         assertThat(getSource(typeArguments), is("T"));
         assertThat(typeArguments.getLabel(), is(JavaEntityType.TYPE_PARAMETERS));
-        Node typeArgument = (Node) typeArguments.getFirstLeaf();
+        Node typeArgument = typeArguments.getFirstLeaf();
         assertThat(getSource(typeArgument), is("T"));
         assertThat(typeArgument.getLabel(), is(JavaEntityType.TYPE_PARAMETER));
     }
@@ -469,10 +466,10 @@ public class WhenDeclarationsAreConverted extends WhenASTsAreConverted {
         Node typeArguments = getTypeParameters();
         assertThat(getSource(typeArguments), is("T,U"));
         assertThat(typeArguments.getLabel(), is(JavaEntityType.TYPE_PARAMETERS));
-        Node firstTypeArgument = (Node) typeArguments.getFirstLeaf();
+        Node firstTypeArgument = typeArguments.getFirstLeaf();
         assertThat(getSource(firstTypeArgument), is("T"));
         assertThat(firstTypeArgument.getLabel(), is(JavaEntityType.TYPE_PARAMETER));
-        Node secondTypeArgument = (Node) firstTypeArgument.getNextSibling();
+        Node secondTypeArgument = firstTypeArgument.getNextSibling();
         assertThat(getSource(secondTypeArgument), is("U"));
         assertThat(secondTypeArgument.getLabel(), is(JavaEntityType.TYPE_PARAMETER));
     }
@@ -486,7 +483,7 @@ public class WhenDeclarationsAreConverted extends WhenASTsAreConverted {
         Node typeArguments = getTypeParameters();
         assertThat(typeArguments.getLabel(), is(JavaEntityType.TYPE_PARAMETERS));
         assertThat(getSource(typeArguments), is("T extends Number"));
-        Node typeArgument = (Node) typeArguments.getFirstLeaf();
+        Node typeArgument = typeArguments.getFirstLeaf();
         assertThat(getSource(typeArgument), is("T extends Number"));
         assertThat(typeArgument.getLabel(), is(JavaEntityType.TYPE_PARAMETER));
     }
@@ -500,7 +497,7 @@ public class WhenDeclarationsAreConverted extends WhenASTsAreConverted {
         Node typeArguments = getTypeParameters();
         assertThat(getSource(typeArguments), is("T extends Number & Serializable"));
         assertThat(typeArguments.getLabel(), is(JavaEntityType.TYPE_PARAMETERS));
-        Node typeArgument = (Node) typeArguments.getFirstLeaf();
+        Node typeArgument = typeArguments.getFirstLeaf();
         assertThat(getSource(typeArgument), is("T extends Number & Serializable"));
         assertThat(typeArgument.getLabel(), is(JavaEntityType.TYPE_PARAMETER));
     }
@@ -511,7 +508,7 @@ public class WhenDeclarationsAreConverted extends WhenASTsAreConverted {
         prepareCompilation();
         convertClass("Bar");
         assertThat(getTreeString(), is("Bar { ,,Number, }"));
-        Node superType = (Node) getLastChild().getPreviousSibling();
+        Node superType = getLastChild().getPreviousSibling();
         assertThat(getSource(superType), is("Number"));
         assertThat(superType.getLabel(), is(JavaEntityType.SINGLE_TYPE));
     }
@@ -525,7 +522,7 @@ public class WhenDeclarationsAreConverted extends WhenASTsAreConverted {
         Node superInterfaces = getLastChild();
         assertThat(getSource(superInterfaces), is("Number"));
         assertThat(superInterfaces.getLabel(), is(JavaEntityType.SUPER_INTERFACE_TYPES));
-        Node superInterface = (Node) superInterfaces.getFirstLeaf();
+        Node superInterface = superInterfaces.getFirstLeaf();
         assertThat(getSource(superInterface), is("Number"));
         assertThat(superInterface.getLabel(), is(JavaEntityType.SINGLE_TYPE));
     }
@@ -539,10 +536,10 @@ public class WhenDeclarationsAreConverted extends WhenASTsAreConverted {
         Node superInterfaces = getLastChild();
         assertThat(getSource(superInterfaces), is("Number, Serializable"));
         assertThat(superInterfaces.getLabel(), is(JavaEntityType.SUPER_INTERFACE_TYPES));
-        Node firstSuperInterface = (Node) superInterfaces.getFirstLeaf();
+        Node firstSuperInterface = superInterfaces.getFirstLeaf();
         assertThat(getSource(firstSuperInterface), is("Number"));
         assertThat(firstSuperInterface.getLabel(), is(JavaEntityType.SINGLE_TYPE));
-        Node secondSuperInterface = (Node) firstSuperInterface.getNextSibling();
+        Node secondSuperInterface = firstSuperInterface.getNextSibling();
         assertThat(getSource(secondSuperInterface), is("Serializable"));
         assertThat(secondSuperInterface.getLabel(), is(JavaEntityType.SINGLE_TYPE));
     }
@@ -611,24 +608,19 @@ public class WhenDeclarationsAreConverted extends WhenASTsAreConverted {
     private void convertField(String name) {
         createRootNode(JavaEntityType.FIELD_DECLARATION, name);
         FieldDeclaration field = CompilationUtils.findField(fCompilation.getCompilationUnit(), name);
-        field.traverse(getDeclarationconverter(), (MethodScope) null);
-    }
-
-    private JavaDeclarationConverter getDeclarationconverter() {
-        sDeclarationConverter.initialize(fRoot, fCompilation.getScanner());
-        return sDeclarationConverter;
+        sDeclarationConverter.convert(fRoot, field, fCompilation);
     }
 
     private void convertMethod(String name) {
         createRootNode(JavaEntityType.METHOD_DECLARATION, name);
         AbstractMethodDeclaration method = CompilationUtils.findMethod(fCompilation.getCompilationUnit(), name);
-        method.traverse(getDeclarationconverter(), (ClassScope) null);
+        sDeclarationConverter.convert(fRoot, method, fCompilation);
     }
 
     private void convertClass(String name) {
         createRootNode(JavaEntityType.METHOD_DECLARATION, name);
         TypeDeclaration type = CompilationUtils.findType(fCompilation.getCompilationUnit(), name);
-        type.traverse(getDeclarationconverter(), (CompilationUnitScope) null);
+        sDeclarationConverter.convert(fRoot, type, fCompilation);
     }
 
 }
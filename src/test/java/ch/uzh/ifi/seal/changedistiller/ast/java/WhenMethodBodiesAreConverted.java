@@ -23,7 +23,6 @@ package ch.uzh.ifi.seal.changedistiller.ast.java;
 import static org.hamcrest.CoreMatchers.is;
 
 import org.eclipse.jdt.internal.compiler.ast.AbstractMethodDeclaration;
-import org.eclipse.jdt.internal.compiler.lookup.ClassScope;
 import org.junit.Test;
 
 import ch.uzh.ifi.seal.changedistiller.model.classifiers.java.JavaEntityType;
@@ -209,8 +208,8 @@ public class WhenMethodBodiesAreConverted extends WhenASTsAreConverted {
         prepareCompilation();
         convert();
         assertThat(getFirstChild().getLabel(), is(JavaEntityType.IF_STATEMENT));
-        assertThat(((Node) getFirstChild().getFirstChild()).getLabel(), is(JavaEntityType.THEN_STATEMENT));
-        assertThat(((Node) getFirstChild().getLastChild()).getLabel(), is(JavaEntityType.ELSE_STATEMENT));
+        assertThat(getFirstChild().getFirstChild().getLabel(), is(JavaEntityType.THEN_STATEMENT));
+        assertThat(getFirstChild().getLastChild().getLabel(), is(JavaEntityType.ELSE_STATEMENT));
         assertThat(
                 getTreeString(),
                 is("method { list.isEmpty() { list.isEmpty() { System.out.print(\"empty\"); },list.isEmpty() { System.out.print(\"not empty\"); } } }"));
@@ -223,7 +222,7 @@ public class WhenMethodBodiesAreConverted extends WhenASTsAreConverted {
         prepareCompilation();
         convert();
         assertThat(getFirstChild().getLabel(), is(JavaEntityType.IF_STATEMENT));
-        assertThat(((Node) getFirstChild().getFirstChild()).getLabel(), is(JavaEntityType.THEN_STATEMENT));
+        assertThat(getFirstChild().getFirstChild().getLabel(), is(JavaEntityType.THEN_STATEMENT));
         assertThat(getTreeString(), is("method { list.isEmpty() { list.isEmpty() { System.out.print(\"empty\"); } } }"));
         assertSourceRangeCorrectness(getFirstChild());
     }
@@ -317,12 +316,12 @@ public class WhenMethodBodiesAreConverted extends WhenASTsAreConverted {
         convert();
         assertThat(getFirstChild().getLabel(), is(JavaEntityType.TRY_STATEMENT));
         assertThat(
-                ((Node) ((Node) getFirstChild().getFirstChild()).getNextSibling()).getLabel(),
+                getFirstChild().getFirstChild().getNextSibling().getLabel(),
                 is(JavaEntityType.CATCH_CLAUSES));
         assertThat(
-                ((Node) ((Node) getFirstChild().getFirstChild()).getNextSibling().getFirstChild()).getLabel(),
+                getFirstChild().getFirstChild().getNextSibling().getFirstChild().getLabel(),
                 is(JavaEntityType.CATCH_CLAUSE));
-        assertThat(((Node) getFirstChild().getLastChild()).getLabel(), is(JavaEntityType.FINALLY));
+        assertThat(getFirstChild().getLastChild().getLabel(), is(JavaEntityType.FINALLY));
         assertThat(
                 getTreeString(),
                 is("method {  {  { foo.bar(e); }, { IOException { 2; },Exception { 3; } }, { cleanup(); } } }"));
@@ -334,7 +333,7 @@ public class WhenMethodBodiesAreConverted extends WhenASTsAreConverted {
         fSnippet = "try { foo.bar(e); } finally { cleanup(); }";
         prepareCompilation();
         convert();
-        assertThat(((Node) getFirstChild().getLastChild()).getLabel(), is(JavaEntityType.FINALLY));
+        assertThat(getFirstChild().getLastChild().getLabel(), is(JavaEntityType.FINALLY));
         assertThat(getTreeString(), is("method {  {  { foo.bar(e); }, { cleanup(); } } }"));
         assertSourceRangeCorrectness(getFirstChild());
     }
@@ -345,10 +344,10 @@ public class WhenMethodBodiesAreConverted extends WhenASTsAreConverted {
         prepareCompilation();
         convert();
         assertThat(
-                ((Node) ((Node) getFirstChild().getFirstChild()).getNextSibling()).getLabel(),
+                getFirstChild().getFirstChild().getNextSibling().getLabel(),
                 is(JavaEntityType.CATCH_CLAUSES));
         assertThat(
-                ((Node) ((Node) getFirstChild().getFirstChild()).getNextSibling().getFirstChild()).getLabel(),
+                getFirstChild().getFirstChild().getNextSibling().getFirstChild().getLabel(),
                 is(JavaEntityType.CATCH_CLAUSE));
         assertThat(getTreeString(), is("method {  {  { foo.bar(e); }, { IOException { 2; },Exception { 3; } } } }"));
         assertSourceRangeCorrectness(getFirstChild());
@@ -385,8 +384,7 @@ public class WhenMethodBodiesAreConverted extends WhenASTsAreConverted {
     private void convert() {
         createRootNode(JavaEntityType.METHOD, "method");
         AbstractMethodDeclaration method = CompilationUtils.findMethod(fCompilation.getCompilationUnit(), "method");
-        sMethodBodyConverter.initialize(fRoot, method, null, fCompilation.getScanner());
-        method.traverse(sMethodBodyConverter, (ClassScope) null);
+        sMethodBodyConverter.convert(fRoot, method, null, fCompilation);
     }
 
     @Override
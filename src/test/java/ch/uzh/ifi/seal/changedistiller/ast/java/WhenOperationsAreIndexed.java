@@ -0,0 +1,157 @@
+package ch.uzh.ifi.seal.changedistiller.ast.java;
+
+/*
+ * #%L
+ * ChangeDistiller
+ * %%
+ * Copyright (C) 2011 - 2013 Software Architecture and Evolution Lab, Department of Informatics, UZH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import ch.uzh.ifi.seal.changedistiller.model.classifiers.SourceRange;
+import ch.uzh.ifi.seal.changedistiller.model.classifiers.java.JavaEntityType;
+import ch.uzh.ifi.seal.changedistiller.model.entities.Insert;
+import ch.uzh.ifi.seal.changedistiller.model.entities.SourceCodeEntity;
+import ch.uzh.ifi.seal.changedistiller.model.entities.StructureEntityVersion;
+
+public class WhenOperationsAreIndexed {
+
+    private StructureEntityVersion fMethod;
+    private Insert fFirstParameter;
+    private Insert fSecondParameter;
+    private Insert fStatement;
+    private OperationIndex<Insert> fIndex;
+
+    @Before
+    public void createIndex() {
+        fMethod = new StructureEntityVersion(JavaEntityType.METHOD, "foo(int, int)", 0);
+        SourceCodeEntity parameters = entity(JavaEntityType.PARAMETERS, "");
+        SourceCodeEntity body = entity(JavaEntityType.METHOD, "foo");
+        fFirstParameter = new Insert(fMethod, entity(JavaEntityType.PARAMETER, "a"), parameters);
+        fSecondParameter = new Insert(fMethod, entity(JavaEntityType.PARAMETER, "b"), parameters);
+        fStatement = new Insert(fMethod, entity(JavaEntityType.RETURN_STATEMENT, "a;"), body);
+        fIndex = new OperationIndex<Insert>();
+        fIndex.add(fFirstParameter);
+        fIndex.add(fSecondParameter);
+        fIndex.add(fStatement);
+    }
+
+    @Test
+    public void fullySpecifiedPatternShouldFindOperation() throws Exception {
+        Insert found =
+                fIndex.find(
+                        JavaEntityType.METHOD,
+                        "foo(int, int)",
+                        JavaEntityType.PARAMETERS,
+                        "",
+                        JavaEntityType.PARAMETER,
+                        "b");
+        assertThat(found, is(sameInstance(fSecondParameter)));
+    }
+
+    @Test
+    public void wildcardsShouldFindFirstMatchingOperation() throws Exception {
+        Insert found = fIndex.find(JavaEntityType.METHOD, "foo(int, int)", null, null, JavaEntityType.PARAMETER, null);
+        assertThat(found, is(sameInstance(fFirstParameter)));
+        found = fIndex.find(null, null, null, null, JavaEntityType.RETURN_STATEMENT, null);
+        assertThat(found, is(sameInstance(fStatement)));
+    }
+
+    @Test
+    public void patternWithoutMatchShouldFindNothing() throws Exception {
+        assertThat(fIndex.find(JavaEntityType.METHOD, "bar()", null, null, null, null), is(nullValue()));
+        assertThat(
+                fIndex.find(JavaEntityType.METHOD, "foo(int, int)", JavaEntityType.PARAMETERS, "", null, "c"),
+                is(nullValue()));
+    }
+
+    @Test
+    public void removedOperationShouldNeitherBeFoundNorIterated() throws Exception {
+        fIndex.find(JavaEntityType.METHOD, "foo(int, int)", null, null, null, null);
+        fIndex.remove(fFirstParameter);
+        Insert found = fIndex.find(JavaEntityType.METHOD, "foo(int, int)", JavaEntityType.PARAMETERS, "", null, null);
+        assertThat(found, is(sameInstance(fSecondParameter)));
+        List<Insert> remaining = new ArrayList<Insert>();
+        for (Insert insert : fIndex) {
+            remaining.add(insert);
+        }
+        assertThat(remaining.size(), is(2));
+        assertThat(remaining.get(0), is(sameInstance(fSecondParameter)));
+    }
+
+    @Test
+    public void removingWhileIteratingShouldVisitEveryOperationOnce() throws Exception {
+        int visited = 0;
+        for (Insert insert : fIndex) {
+            fIndex.remove(insert);
+            visited++;
+        }
+        assertThat(visited, is(3));
+        assertThat(fIndex.iterator().hasNext(), is(false));
+    }
+
+    @Test
+    public void operationsConsumedWhileIteratingLookupShouldBeSkipped() throws Exception {
+        List<Insert> visited = new ArrayList<Insert>();
+        for (Insert insert : fIndex.findAll(
+                JavaEntityType.METHOD,
+                "foo(int, int)",
+                JavaEntityType.PARAMETERS,
+                "",
+                null,
+                null)) {
+            visited.add(insert);
+            fIndex.remove(fFirstParameter);
+            fIndex.remove(fSecondParameter);
+        }
+        assertThat(visited.size(), is(1));
+        assertThat(visited.get(0), is(sameInstance(fFirstParameter)));
+        assertThat(
+                fIndex.find(JavaEntityType.METHOD, "foo(int, int)", JavaEntityType.PARAMETERS, "", null, null),
+                is(nullValue()));
+    }
+
+    @Test
+    public void operationAddedAfterLookupShouldBeFound() throws Exception {
+        fIndex.find(JavaEntityType.METHOD, "foo(int, int)", null, null, null, null);
+        SourceCodeEntity parameters = entity(JavaEntityType.PARAMETERS, "");
+        Insert other = new Insert(fMethod, entity(JavaEntityType.PARAMETER, "c"), parameters);
+        fIndex.add(other);
+        Insert found =
+                fIndex.find(
+                        JavaEntityType.METHOD,
+                        "foo(int, int)",
+                        JavaEntityType.PARAMETERS,
+                        "",
+                        JavaEntityType.PARAMETER,
+                        "c");
+        assertThat(found, is(sameInstance(other)));
+    }
+
+    private SourceCodeEntity entity(JavaEntityType type, String name) {
+        return new SourceCodeEntity(name, type, new SourceRange());
+    }
+
+}
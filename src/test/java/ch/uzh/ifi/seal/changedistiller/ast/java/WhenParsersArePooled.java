@@ -0,0 +1,128 @@
+package ch.uzh.ifi.seal.changedistiller.ast.java;
+
+/*
+ * #%L
+ * ChangeDistiller
+ * %%
+ * Copyright (C) 2011 - 2013 Software Architecture and Evolution Lab, Department of Informatics, UZH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.lang.reflect.Field;
+
+import org.eclipse.jdt.internal.compiler.CompilationResult;
+import org.eclipse.jdt.internal.compiler.ast.AbstractMethodDeclaration;
+import org.eclipse.jdt.internal.compiler.classfmt.ClassFileConstants;
+import org.eclipse.jdt.internal.compiler.parser.Parser;
+import org.eclipse.jdt.internal.core.util.CommentRecorderParser;
+import org.junit.Test;
+
+import ch.uzh.ifi.seal.changedistiller.ast.InvalidSyntaxException;
+
+public class WhenParsersArePooled {
+
+    private static final String SOURCE = "class Foo {\n    void foo() {\n        bar(); // call\n    }\n}\n";
+    private static final String OTHER_SOURCE = "class Bar {\n    int fBaz = 1;\n    void bar() {\n        baz();\n    }\n}\n";
+
+    @Test
+    public void releasedParserShouldBeReused() throws Exception {
+        CommentRecorderParser parser = ParserPool.acquire(ClassFileConstants.JDK1_6);
+        ParserPool.release(parser, ClassFileConstants.JDK1_6, createCompilationResult());
+        assertThat(ParserPool.acquire(ClassFileConstants.JDK1_6), is(sameInstance(parser)));
+        assertThat(ParserPool.acquire(ClassFileConstants.JDK1_6), is(not(sameInstance(parser))));
+    }
+
+    @Test
+    public void parsersShouldBePooledPerVersion() throws Exception {
+        CommentRecorderParser parser = ParserPool.acquire(ClassFileConstants.JDK1_6);
+        ParserPool.release(parser, ClassFileConstants.JDK1_6, createCompilationResult());
+        assertThat(ParserPool.acquire(ClassFileConstants.JDK1_7), is(not(sameInstance(parser))));
+    }
+
+    @Test
+    public void parsersShouldNotBeSharedBetweenThreads() throws Exception {
+        CommentRecorderParser parser = ParserPool.acquire(ClassFileConstants.JDK1_6);
+        ParserPool.release(parser, ClassFileConstants.JDK1_6, createCompilationResult());
+        final CommentRecorderParser[] other = new CommentRecorderParser[1];
+        Thread thread = new Thread() {
+
+            @Override
+            public void run() {
+                other[0] = ParserPool.acquire(ClassFileConstants.JDK1_6);
+            }
+        };
+        thread.start();
+        thread.join();
+        assertThat(other[0], is(not(sameInstance(parser))));
+    }
+
+    @Test
+    public void reusedParserShouldParseLikeNewParser() throws Exception {
+        JavaCompilation first = compile(SOURCE);
+        compile(OTHER_SOURCE);
+        JavaCompilation second = compile(SOURCE);
+        assertThat(second.getCompilationUnit().toString(), is(first.getCompilationUnit().toString()));
+        assertThat(second.getCompilationUnit().comments, is(first.getCompilationUnit().comments));
+        assertThat(second.getSource(), is(SOURCE));
+    }
+
+    @Test
+    public void releasedParserShouldNotReferenceParsedNodes() throws Exception {
+        compile(OTHER_SOURCE);
+        CommentRecorderParser parser = ParserPool.acquire(ClassFileConstants.JDK1_6);
+        assertThat(parser.compilationUnit, is(nullValue()));
+        assertThat(parser.javadoc, is(nullValue()));
+        assertThat(countNodes(parser, "astStack"), is(0));
+        assertThat(countNodes(parser, "expressionStack"), is(0));
+        assertThat(countNodes(parser, "genericsStack"), is(0));
+    }
+
+    @Test
+    public void parserThatReportedSyntaxErrorsShouldNotBeReused() throws Exception {
+        try {
+            JavaCompilationUtils.compile("class Foo {\n    void foo() {\n        bar(;\n    }\n}\n", "Foo.java");
+        } catch (InvalidSyntaxException e) {
+            // expected
+        }
+        AbstractMethodDeclaration foo = compile(SOURCE).getCompilationUnit().types[0].methods[1];
+        assertThat(foo.statements.length, is(1));
+    }
+
+    private static JavaCompilation compile(String source) {
+        return JavaCompilationUtils.compile(source.toCharArray(), "Foo.java", ClassFileConstants.JDK1_6);
+    }
+
+    private static int countNodes(Parser parser, String stackName) throws Exception {
+        Field stackField = Parser.class.getDeclaredField(stackName);
+        stackField.setAccessible(true);
+        int count = 0;
+        for (Object node : (Object[]) stackField.get(parser)) {
+            if (node != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static CompilationResult createCompilationResult() {
+        return new CompilationResult("Foo.java".toCharArray(), 0, 0, 0);
+    }
+
+}
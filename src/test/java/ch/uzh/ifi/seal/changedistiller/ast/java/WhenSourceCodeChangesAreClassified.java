@@ -25,8 +25,6 @@ import static org.hamcrest.MatcherAssert.assertThat;
 
 import org.eclipse.jdt.internal.compiler.ast.FieldDeclaration;
 import org.eclipse.jdt.internal.compiler.ast.TypeDeclaration;
-import org.eclipse.jdt.internal.compiler.lookup.ClassScope;
-import org.eclipse.jdt.internal.compiler.lookup.MethodScope;
 import org.junit.Ignore;
 import org.junit.Test;
 
@@ -865,8 +863,7 @@ public class WhenSourceCodeChangesAreClassified extends WhenChangesAreExtracted
         root.setEntity(new SourceCodeEntity(fieldName, JavaEntityType.FIELD, new SourceRange(
                 field.declarationSourceStart,
                 field.declarationSourceEnd)));
-        sDeclarationConverter.initialize(root, compilation.getScanner());
-        field.traverse(sDeclarationConverter, (MethodScope) null);
+        sDeclarationConverter.convert(root, field, compilation);
         return root;
     }
 
@@ -877,8 +874,7 @@ public class WhenSourceCodeChangesAreClassified extends WhenChangesAreExtracted
         root.setEntity(new SourceCodeEntity(className, JavaEntityType.CLASS, new SourceRange(
                 type.declarationSourceStart,
                 type.declarationSourceEnd)));
-        sDeclarationConverter.initialize(root, compilation.getScanner());
-        type.traverse(sDeclarationConverter, (ClassScope) null);
+        sDeclarationConverter.convert(root, type, compilation);
         return root;
     }
 
@@ -0,0 +1,231 @@
+package ch.uzh.ifi.seal.changedistiller.ast.java;
+
+/*
+ * #%L
+ * ChangeDistiller
+ * %%
+ * Copyright (C) 2011 - 2013 Software Architecture and Evolution Lab, Department of Informatics, UZH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.eclipse.jdt.internal.compiler.ast.AbstractMethodDeclaration;
+import org.eclipse.jdt.internal.compiler.ast.TypeDeclaration;
+import org.eclipse.jdt.internal.compiler.classfmt.ClassFileConstants;
+import org.eclipse.jdt.internal.compiler.lookup.CompilationUnitScope;
+import org.junit.Test;
+
+import ch.uzh.ifi.seal.changedistiller.JavaChangeDistillerModule;
+import ch.uzh.ifi.seal.changedistiller.distilling.FileDistiller;
+import ch.uzh.ifi.seal.changedistiller.model.entities.SourceCodeChange;
+import ch.uzh.ifi.seal.changedistiller.structuredifferencing.StructureDiffNode;
+import ch.uzh.ifi.seal.changedistiller.structuredifferencing.StructureDifferencer;
+import ch.uzh.ifi.seal.changedistiller.structuredifferencing.StructureDifferencer.DiffType;
+import ch.uzh.ifi.seal.changedistiller.structuredifferencing.java.JavaBodyParser;
+import ch.uzh.ifi.seal.changedistiller.structuredifferencing.java.JavaStructureNode;
+import ch.uzh.ifi.seal.changedistiller.structuredifferencing.java.JavaStructureNode.Type;
+import ch.uzh.ifi.seal.changedistiller.structuredifferencing.java.JavaStructureTreeBuilder;
+import ch.uzh.ifi.seal.changedistiller.util.CompilationUtils;
+
+import com.google.inject.Guice;
+
+public class WhenSourcesAreDietParsed {
+
+    private static final String SOURCE =
+            "class Foo {\n    // a comment\n    void foo() {\n        // another comment\n        bar();\n    }\n"
+                    + "    static {\n        baz();\n    }\n    void qux() {\n        /* last */ bar(1);\n    }\n}\n";
+
+    @Test
+    public void bodiesShouldBeParsedOnDemand() throws Exception {
+        JavaCompilation compilation = dietCompile(SOURCE);
+        TypeDeclaration type = compilation.getCompilationUnit().types[0];
+        AbstractMethodDeclaration foo = getMethod(type, "foo");
+        assertThat(foo.statements, is(nullValue()));
+        compilation.getBodyParser().parseBodies(foo);
+        assertThat(foo.statements.length, is(1));
+        assertThat(getMethod(type, "qux").statements, is(nullValue()));
+    }
+
+    @Test
+    public void parsedBodiesShouldEqualThoseOfCompleteParse() throws Exception {
+        JavaCompilation compilation = dietCompile(SOURCE);
+        TypeDeclaration type = compilation.getCompilationUnit().types[0];
+        compilation.getBodyParser().parseBodies(type);
+        JavaCompilation complete = compile(SOURCE);
+        assertThat(type.toString(), is(complete.getCompilationUnit().types[0].toString()));
+    }
+
+    @Test
+    public void commentsOfBodiesShouldBeRecorded() throws Exception {
+        JavaCompilation compilation = dietCompile(SOURCE);
+        JavaCompilation complete = compile(SOURCE);
+        int[][] comments = compilation.getCompilationUnit().comments;
+        assertThat(comments.length, is(3));
+        assertThat(Arrays.deepEquals(comments, complete.getCompilationUnit().comments), is(true));
+    }
+
+    @Test
+    public void unchangedMethodsShouldNotBeParsed() throws Exception {
+        JavaCompilation left = dietCompile(SOURCE);
+        JavaCompilation right = dietCompile(SOURCE.replace("bar(1)", "bar(2)"));
+        StructureDifferencer differencer = new StructureDifferencer();
+        differencer.extractDifferences(createStructureTree(left), createStructureTree(right));
+        StructureDiffNode method = differencer.getDifferences().getChildren().get(0).getChildren().get(0);
+        assertThat(method.getLeft().getName(), is("qux()"));
+        assertThat(method.getDiffType(), is(DiffType.CHANGE));
+        assertThat(differencer.getDifferences().getChildren().get(0).getChildren().size(), is(1));
+        assertThat(getMethod(left.getCompilationUnit().types[0], "foo").statements, is(nullValue()));
+        assertThat(getMethod(right.getCompilationUnit().types[0], "foo").statements, is(nullValue()));
+    }
+
+    @Test
+    public void sourcesWithUnchangedMethodsShouldNotBeParsed() throws Exception {
+        JavaCompilation left = dietCompile(SOURCE);
+        JavaCompilation right = dietCompile(SOURCE.replace("class Foo {", "class Foo {\n    int fBar;"));
+        StructureDifferencer differencer = new StructureDifferencer();
+        differencer.extractDifferences(createStructureTree(left), createStructureTree(right));
+        StructureDiffNode field = differencer.getDifferences().getChildren().get(0).getChildren().get(0);
+        assertThat(field.getRight().getName(), is("fBar : int"));
+        assertThat(differencer.getDifferences().getChildren().get(0).getChildren().size(), is(1));
+        assertThat(getMethod(left.getCompilationUnit().types[0], "foo").statements, is(nullValue()));
+        assertThat(getMethod(right.getCompilationUnit().types[0], "qux").statements, is(nullValue()));
+    }
+
+    @Test
+    public void methodsWithDifferentTokensButEqualContentShouldBeUnchanged() throws Exception {
+        JavaCompilation left = dietCompile(SOURCE.replace("void qux", "/** a */ void qux"));
+        JavaCompilation right = dietCompile(SOURCE.replace("void qux", "/** b */ void qux"));
+        StructureDifferencer differencer = new StructureDifferencer();
+        differencer.extractDifferences(createStructureTree(left), createStructureTree(right));
+        assertThat(differencer.getDifferences(), is(nullValue()));
+        assertThat(getMethod(right.getCompilationUnit().types[0], "qux").statements.length, is(1));
+    }
+
+    @Test
+    public void syntaxErrorInBodyShouldDropBodiesLikeCompleteParse() throws Exception {
+        String erroneous = SOURCE.replace("bar(1);", "bar(1)");
+        JavaCompilation compilation = dietCompile(erroneous);
+        TypeDeclaration type = compilation.getCompilationUnit().types[0];
+        compilation.getBodyParser().parseBodies(getMethod(type, "foo"));
+        assertThat(getMethod(type, "foo").statements.length, is(1));
+        compilation.getBodyParser().parseBodies(getMethod(type, "qux"));
+        JavaCompilation complete = compile(erroneous);
+        TypeDeclaration completeType = complete.getCompilationUnit().types[0];
+        assertThat(complete.getCompilationUnit().compilationResult.hasSyntaxError, is(true));
+        assertThat(compilation.getCompilationUnit().compilationResult.hasSyntaxError, is(true));
+        assertThat(compilation.getBodyParser().hasSyntaxError(), is(true));
+        assertThat(
+                compilation.getCompilationUnit().ignoreFurtherInvestigation,
+                is(complete.getCompilationUnit().ignoreFurtherInvestigation));
+        assertThat(getMethod(completeType, "foo").statements, is(nullValue()));
+        assertThat(getMethod(type, "foo").statements, is(nullValue()));
+        assertThat(getMethod(type, "qux").toString(), is(getMethod(completeType, "qux").toString()));
+        compilation.getBodyParser().parseBodies(type);
+        assertThat(type.fields[0].toString(), is(completeType.fields[0].toString()));
+    }
+
+    @Test
+    public void syntaxErrorInDeclarationsShouldFallBackToCompleteParse() throws Exception {
+        String erroneous = SOURCE.replace("void qux() {", "void qux( {");
+        JavaCompilation compilation = dietCompile(erroneous);
+        assertThat(compilation.getBodyParser(), is(JavaBodyParser.NONE));
+        assertThat(
+                compilation.getCompilationUnit().toString(),
+                is(compile(erroneous).getCompilationUnit().toString()));
+    }
+
+    @Test
+    public void syntaxErrorInChangedBodyShouldBeDistilledLikeCompleteParse() throws Exception {
+        char[] left = SOURCE.toCharArray();
+        char[] right = SOURCE.replace("bar(1);", "bar(2)").toCharArray();
+        List<String> changes = distill(left, right, false);
+        assertThat(changes.size(), is(0));
+        assertThat(distill(left, right, true), is(changes));
+    }
+
+    @Test
+    public void syntaxErrorInUnchangedBodyShouldGoUnnoticed() throws Exception {
+        // jEdit uses enum as identifier, which is a syntax error at the default Java version, in an unchanged method
+        File left = CompilationUtils.getFile("src_issue/32/jEditLeft.java");
+        File right = CompilationUtils.getFile("src_issue/32/jEditRight.java");
+        assertThat(distill(left, right, false).size(), is(0));
+        assertThat(distill(left, right, true).isEmpty(), is(false));
+    }
+
+    @Test
+    public void dietDistillationShouldFindSameChangesAsCompleteDistillation() throws Exception {
+        File left = CompilationUtils.getFile("src_change/TestLeft.java");
+        File right = CompilationUtils.getFile("src_change/TestRight.java");
+        assertThat(distill(left, right, true), is(distill(left, right, false)));
+    }
+
+    private static List<String> distill(File left, File right, boolean diet) {
+        JavaChangeDistillerModule module = new JavaChangeDistillerModule();
+        module.setDietParsing(diet);
+        FileDistiller distiller = Guice.createInjector(module).getInstance(FileDistiller.class);
+        distiller.extractClassifiedSourceCodeChanges(left, right);
+        return describe(distiller.getSourceCodeChanges());
+    }
+
+    private static List<String> distill(char[] left, char[] right, boolean diet) {
+        JavaChangeDistillerModule module = new JavaChangeDistillerModule();
+        module.setDietParsing(diet);
+        FileDistiller distiller = Guice.createInjector(module).getInstance(FileDistiller.class);
+        distiller.extractClassifiedSourceCodeChanges(left, "Foo.java", right, "Foo.java");
+        return describe(distiller.getSourceCodeChanges());
+    }
+
+    private static JavaCompilation dietCompile(String source) {
+        return JavaCompilationUtils.dietCompile(source.toCharArray(), "Foo.java", ClassFileConstants.JDK1_6);
+    }
+
+    private static JavaCompilation compile(String source) {
+        return JavaCompilationUtils.compile(source.toCharArray(), "Foo.java", ClassFileConstants.JDK1_6);
+    }
+
+    private static JavaStructureNode createStructureTree(JavaCompilation compilation) {
+        JavaStructureNode root = new JavaStructureNode(Type.CU, null, null, compilation.getCompilationUnit());
+        compilation.getCompilationUnit().traverse(
+                new JavaStructureTreeBuilder(root, compilation.getBodyParser()),
+                (CompilationUnitScope) null);
+        return root;
+    }
+
+    private static AbstractMethodDeclaration getMethod(TypeDeclaration type, String name) {
+        for (AbstractMethodDeclaration method : type.methods) {
+            if (String.valueOf(method.selector).equals(name)) {
+                return method;
+            }
+        }
+        return null;
+    }
+
+    private static List<String> describe(List<SourceCodeChange> changes) {
+        List<String> descriptions = new ArrayList<String>();
+        for (SourceCodeChange change : changes) {
+            descriptions.add(change.getChangeType() + " " + change.getChangedEntity().getUniqueName() + " "
+                    + change.getChangedEntity().getStartPosition() + " " + change.getChangedEntity().getEndPosition());
+        }
+        return descriptions;
+    }
+
+}
@@ -24,11 +24,10 @@ import java.util.List;
 
 import org.eclipse.jdt.internal.compiler.ast.AbstractMethodDeclaration;
 import org.eclipse.jdt.internal.compiler.ast.FieldDeclaration;
-import org.eclipse.jdt.internal.compiler.lookup.ClassScope;
-import org.eclipse.jdt.internal.compiler.lookup.MethodScope;
 import org.junit.BeforeClass;
 
 import ch.uzh.ifi.seal.changedistiller.ast.java.Comment;
+import ch.uzh.ifi.seal.changedistiller.ast.java.CommentIndex;
 import ch.uzh.ifi.seal.changedistiller.ast.java.JavaCompilation;
 import ch.uzh.ifi.seal.changedistiller.ast.java.JavaDeclarationConverter;
 import ch.uzh.ifi.seal.changedistiller.ast.java.JavaDistillerTestCase;
@@ -62,8 +61,7 @@ public abstract class WhenChangesAreExtracted extends JavaDistillerTestCase {
                 method.declarationSourceStart,
                 method.declarationSourceEnd)));
         List<Comment> comments = CompilationUtils.extractComments(compilation);
-        sMethodBodyConverter.initialize(root, method, comments, compilation.getScanner());
-        method.traverse(sMethodBodyConverter, (ClassScope) null);
+        sMethodBodyConverter.convert(root, method, new CommentIndex(comments).newCursor(), compilation);
         return root;
     }
 
@@ -73,8 +71,7 @@ public abstract class WhenChangesAreExtracted extends JavaDistillerTestCase {
         root.setEntity(new SourceCodeEntity(methodName, JavaEntityType.METHOD, new SourceRange(
                 method.declarationSourceStart,
                 method.declarationSourceEnd)));
-        sDeclarationConverter.initialize(root, compilation.getScanner());
-        method.traverse(sDeclarationConverter, (ClassScope) null);
+        sDeclarationConverter.convert(root, method, compilation);
         return root;
     }
 
@@ -84,8 +81,7 @@ public abstract class WhenChangesAreExtracted extends JavaDistillerTestCase {
     	root.setEntity(new SourceCodeEntity(fieldName, JavaEntityType.FIELD, new SourceRange(
     			field.declarationSourceStart,
     			field.declarationSourceEnd)));
-    	sDeclarationConverter.initialize(root, compilation.getScanner());
-    	field.traverse(sDeclarationConverter, (MethodScope) null);
+    	sDeclarationConverter.convert(root, field, compilation);
     	return root;
     }
 }
@@ -0,0 +1,152 @@
+package ch.uzh.ifi.seal.changedistiller.distilling;
+
+/*
+ * #%L
+ * ChangeDistiller
+ * %%
+ * Copyright (C) 2011 - 2013 Software Architecture and Evolution Lab, Department of Informatics, UZH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import ch.uzh.ifi.seal.changedistiller.ChangeDistiller;
+import ch.uzh.ifi.seal.changedistiller.ChangeDistiller.Language;
+import ch.uzh.ifi.seal.changedistiller.model.entities.AbstractHistory;
+import ch.uzh.ifi.seal.changedistiller.model.entities.ClassHistory;
+import ch.uzh.ifi.seal.changedistiller.model.entities.SourceCodeChange;
+import ch.uzh.ifi.seal.changedistiller.model.entities.StructureEntityVersion;
+import ch.uzh.ifi.seal.changedistiller.util.CompilationUtils;
+
+public class WhenChangesAreStreamed {
+
+    private static ForkJoinPool sPool;
+
+    @BeforeClass
+    public static void initialize() {
+        sPool = new ForkJoinPool(4);
+    }
+
+    @AfterClass
+    public static void shutdown() {
+        sPool.shutdownNow();
+    }
+
+    @Test
+    public void sinkShouldReceiveCollectedChanges() throws Exception {
+        assertSameAsCollected("src_change/TestLeft.java", "src_change/TestRight.java", null);
+        assertSameAsCollected("src_issue/2/CompilerLeft.java", "src_issue/2/CompilerRight.java", null);
+        assertSameAsCollected("src_issue/32/jEditLeft.java", "src_issue/32/jEditRight.java", null);
+    }
+
+    @Test
+    public void sinkShouldReceiveCollectedChangesInParallelMode() throws Exception {
+        assertSameAsCollected("src_change/TestLeft.java", "src_change/TestRight.java", sPool);
+        assertSameAsCollected("src_issue/2/CompilerLeft.java", "src_issue/2/CompilerRight.java", sPool);
+        assertSameAsCollected("src_issue/32/jEditLeft.java", "src_issue/32/jEditRight.java", sPool);
+    }
+
+    @Test
+    public void streamingDistillerShouldNotCollectChanges() throws Exception {
+        FileDistiller distiller = ChangeDistiller.createFileDistiller(Language.JAVA);
+        SourceCodeChangeCollector sink = new SourceCodeChangeCollector();
+        distiller.setSourceCodeChangeSink(sink);
+        distill(distiller, "src_change/TestLeft.java", "src_change/TestRight.java");
+        assertThat(sink.getSourceCodeChanges().size(), is(23));
+        assertThat(distiller.getSourceCodeChanges().isEmpty(), is(true));
+    }
+
+    @Test
+    public void streamingDistillerShouldNotRetainChangesInClassHistory() throws Exception {
+        FileDistiller collecting = ChangeDistiller.createFileDistiller(Language.JAVA);
+        distill(collecting, "src_issue/2/CompilerLeft.java", "src_issue/2/CompilerRight.java");
+        assertThat(countRetainedChanges(collecting.getClassHistory()) > 0, is(true));
+        FileDistiller streaming = ChangeDistiller.createFileDistiller(Language.JAVA);
+        SourceCodeChangeCollector sink = new SourceCodeChangeCollector();
+        streaming.setSourceCodeChangeSink(sink);
+        distill(streaming, "src_issue/2/CompilerLeft.java", "src_issue/2/CompilerRight.java");
+        assertThat(sink.getSourceCodeChanges().isEmpty(), is(false));
+        assertThat(countRetainedChanges(streaming.getClassHistory()), is(0));
+    }
+
+    @Test
+    public void streamingDistillerShouldNotRetainChangesInClassHistoryInParallelMode() throws Exception {
+        FileDistiller streaming = ChangeDistiller.createFileDistiller(Language.JAVA);
+        streaming.setForkJoinPool(sPool);
+        SourceCodeChangeCollector sink = new SourceCodeChangeCollector();
+        streaming.setSourceCodeChangeSink(sink);
+        distill(streaming, "src_change/TestLeft.java", "src_change/TestRight.java");
+        assertThat(sink.getSourceCodeChanges().isEmpty(), is(false));
+        assertThat(countRetainedChanges(streaming.getClassHistory()), is(0));
+    }
+
+    private static int countRetainedChanges(ClassHistory classHistory) {
+        int count = countRetainedChangesOfVersions(classHistory);
+        for (AbstractHistory history : classHistory.getMethodHistories().values()) {
+            count += countRetainedChangesOfVersions(history);
+        }
+        for (AbstractHistory history : classHistory.getAttributeHistories().values()) {
+            count += countRetainedChangesOfVersions(history);
+        }
+        for (ClassHistory innerClassHistory : classHistory.getInnerClassHistories().values()) {
+            count += countRetainedChanges(innerClassHistory);
+        }
+        return count;
+    }
+
+    private static int countRetainedChangesOfVersions(AbstractHistory history) {
+        int count = 0;
+        for (StructureEntityVersion version : history.getVersions()) {
+            count += version.getSourceCodeChanges().size();
+        }
+        return count;
+    }
+
+    private static void assertSameAsCollected(String left, String right, ForkJoinPool pool) {
+        FileDistiller collecting = ChangeDistiller.createFileDistiller(Language.JAVA);
+        distill(collecting, left, right);
+        FileDistiller streaming = ChangeDistiller.createFileDistiller(Language.JAVA);
+        streaming.setForkJoinPool(pool);
+        SourceCodeChangeCollector sink = new SourceCodeChangeCollector();
+        streaming.setSourceCodeChangeSink(sink);
+        distill(streaming, left, right);
+        assertThat(describe(sink.getSourceCodeChanges()), is(describe(collecting.getSourceCodeChanges())));
+    }
+
+    private static void distill(FileDistiller distiller, String left, String right) {
+        File leftFile = CompilationUtils.getFile(left);
+        File rightFile = CompilationUtils.getFile(right);
+        distiller.extractClassifiedSourceCodeChanges(leftFile, rightFile);
+    }
+
+    private static List<String> describe(List<SourceCodeChange> changes) {
+        List<String> descriptions = new ArrayList<String>();
+        for (SourceCodeChange change : changes) {
+            descriptions.add(change.getChangeType() + " " + change.getChangedEntity().getUniqueName() + " in "
+                    + change.getRootEntity().getUniqueName());
+        }
+        return descriptions;
+    }
+
+}
@@ -0,0 +1,132 @@
+package ch.uzh.ifi.seal.changedistiller.distilling;
+
+/*
+ * #%L
+ * ChangeDistiller
+ * %%
+ * Copyright (C) 2011 - 2013 Software Architecture and Evolution Lab, Department of Informatics, UZH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import ch.uzh.ifi.seal.changedistiller.ChangeDistiller;
+import ch.uzh.ifi.seal.changedistiller.ChangeDistiller.Language;
+import ch.uzh.ifi.seal.changedistiller.model.entities.ClassHistory;
+import ch.uzh.ifi.seal.changedistiller.model.entities.SourceCodeChange;
+import ch.uzh.ifi.seal.changedistiller.util.CompilationUtils;
+
+public class WhenClassesAreDistilledInParallel {
+
+    private static ForkJoinPool sPool;
+
+    @BeforeClass
+    public static void initialize() {
+        sPool = new ForkJoinPool(4);
+    }
+
+    @AfterClass
+    public static void shutdown() {
+        sPool.shutdownNow();
+    }
+
+    @Test
+    public void parallelDistillationShouldProduceSequentialChanges() throws Exception {
+        assertSameAsSequential("src_change/TestLeft.java", "src_change/TestRight.java", null);
+        assertSameAsSequential("src_change/Test2Left.java", "src_change/Test2Right.java", null);
+        assertSameAsSequential("src_issue/2/CompilerLeft.java", "src_issue/2/CompilerRight.java", null);
+        assertSameAsSequential("src_issue/19/AstNodeLeft.java", "src_issue/19/AstNodeRight.java", null);
+        assertSameAsSequential("src_issue/32/jEditLeft.java", "src_issue/32/jEditRight.java", null);
+    }
+
+    @Test
+    public void parallelDistillationShouldProduceSequentialChangesOfVersion() throws Exception {
+        assertSameAsSequential("src_change/TestLeft.java", "src_change/TestRight.java", "1.2");
+        assertSameAsSequential("src_issue/21/ASTConverterLeft.java", "src_issue/21/ASTConverterRight.java", "1.2");
+    }
+
+    @Test
+    public void parallelDistillationShouldAttachChangesToClassHistory() throws Exception {
+        FileDistiller distiller = distill("src_change/TestLeft.java", "src_change/TestRight.java", null, sPool);
+        assertThat(distiller.getSourceCodeChanges().size(), is(23));
+        ClassHistory classHistory = distiller.getClassHistory();
+        assertThat(classHistory.getAttributeHistories().size(), is(3));
+        assertThat(classHistory.getMethodHistories().size(), is(1));
+        assertThat(classHistory.getInnerClassHistories().size(), is(1));
+    }
+
+    private static void assertSameAsSequential(String left, String right, String version) {
+        FileDistiller sequential = distill(left, right, version, null);
+        FileDistiller parallel = distill(left, right, version, sPool);
+        assertThat(describe(parallel.getSourceCodeChanges()), is(describe(sequential.getSourceCodeChanges())));
+        assertThat(describe(parallel.getClassHistory()), is(describe(sequential.getClassHistory())));
+    }
+
+    private static FileDistiller distill(String left, String right, String version, ForkJoinPool pool) {
+        File leftFile = CompilationUtils.getFile(left);
+        File rightFile = CompilationUtils.getFile(right);
+        FileDistiller distiller = ChangeDistiller.createFileDistiller(Language.JAVA);
+        distiller.setForkJoinPool(pool);
+        if (version != null) {
+            distiller.extractClassifiedSourceCodeChanges(leftFile, rightFile, version);
+        } else {
+            distiller.extractClassifiedSourceCodeChanges(leftFile, rightFile);
+        }
+        return distiller;
+    }
+
+    private static List<String> describe(List<SourceCodeChange> changes) {
+        List<String> descriptions = new ArrayList<String>();
+        for (SourceCodeChange change : changes) {
+            descriptions.add(change.getChangeType() + " " + change.getChangedEntity().getUniqueName() + " in "
+                    + change.getRootEntity().getUniqueName());
+        }
+        return descriptions;
+    }
+
+    private static Map<String, Integer> describe(ClassHistory classHistory) {
+        Map<String, Integer> description = new TreeMap<String, Integer>();
+        if (classHistory != null) {
+            for (String method : classHistory.getMethodHistories().keySet()) {
+                description.put("method " + method, classHistory.getMethodHistories().get(method).getVersions().size());
+            }
+            for (String attribute : classHistory.getAttributeHistories().keySet()) {
+                description.put(
+                        "attribute " + attribute,
+                        classHistory.getAttributeHistories().get(attribute).getVersions().size());
+            }
+            for (Map.Entry<String, ClassHistory> inner : classHistory.getInnerClassHistories().entrySet()) {
+                description.put("class " + inner.getKey(), inner.getValue().getVersions().size());
+                for (Map.Entry<String, Integer> entry : describe(inner.getValue()).entrySet()) {
+                    description.put(inner.getKey() + " " + entry.getKey(), entry.getValue());
+                }
+            }
+        }
+        return description;
+    }
+
+}
@@ -0,0 +1,120 @@
+package ch.uzh.ifi.seal.changedistiller.distilling;
+
+/*
+ * #%L
+ * ChangeDistiller
+ * %%
+ * Copyright (C) 2011 - 2013 Software Architecture and Evolution Lab, Department of Informatics, UZH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import ch.uzh.ifi.seal.changedistiller.JavaChangeDistillerModule;
+import ch.uzh.ifi.seal.changedistiller.model.entities.SourceCodeChange;
+import ch.uzh.ifi.seal.changedistiller.util.CompilationUtils;
+
+import com.google.inject.Guice;
+
+public class WhenDistillationsAreObserved {
+
+    private static AggregatingDistillationListener sListener;
+    private static FileDistiller sDistiller;
+
+    @BeforeClass
+    public static void distill() {
+        sListener = new AggregatingDistillationListener();
+        sDistiller =
+                Guice.createInjector(new JavaChangeDistillerModule(sListener)).getInstance(FileDistiller.class);
+        sDistiller.extractClassifiedSourceCodeChanges(
+                CompilationUtils.getFile("src_change/TestLeft.java"),
+                CompilationUtils.getFile("src_change/TestRight.java"));
+    }
+
+    @Test
+    public void observedDistillationShouldExtractSameChanges() throws Exception {
+        assertThat(sDistiller.getSourceCodeChanges().size(), is(23));
+    }
+
+    @Test
+    public void everyPhaseShouldBeReported() throws Exception {
+        for (DistillationPhase phase : DistillationPhase.values()) {
+            assertThat(phase.name(), sListener.getPhaseCount(phase) > 0, is(true));
+            assertThat(phase.name(), sListener.getMaxPhaseNanos(phase) <= sListener.getPhaseNanos(phase), is(true));
+        }
+        assertThat(sListener.getPhaseCount(DistillationPhase.PARSING), is(1L));
+        assertThat(sListener.getPhaseCount(DistillationPhase.STRUCTURE_DIFFERENCING), is(1L));
+    }
+
+    @Test
+    public void subtreeAnchoringShouldBeReportedApartFromNodeMatching() throws Exception {
+        long treeDifferencings = sListener.getPhaseCount(DistillationPhase.EDIT_SCRIPT_GENERATION);
+        assertThat(sListener.getPhaseCount(DistillationPhase.SUBTREE_ANCHORING), is(treeDifferencings));
+        assertThat(sListener.getPhaseCount(DistillationPhase.LEAF_MATCHING), is(treeDifferencings));
+        assertThat(sListener.getPhaseCount(DistillationPhase.NODE_MATCHING), is(treeDifferencings));
+    }
+
+    @Test
+    public void editOperationsShouldBeCounted() throws Exception {
+        assertThat(sListener.getCount(DistillationCounter.INSERT_OPERATIONS), is(not(0L)));
+        assertThat(sListener.getCount(DistillationCounter.DELETE_OPERATIONS), is(not(0L)));
+        assertThat(sListener.getCount(DistillationCounter.LEFT_NODES), is(not(0L)));
+        assertThat(sListener.getCount(DistillationCounter.RIGHT_NODES), is(not(0L)));
+    }
+
+    @Test
+    public void similarityCalculationsShouldIncludeLeafComparisons() throws Exception {
+        long comparisons = sListener.getCount(DistillationCounter.LEAF_PAIRS_COMPARED);
+        assertThat(comparisons > 0, is(true));
+        assertThat(sListener.getCount(DistillationCounter.SIMILARITY_CALCULATIONS) >= comparisons, is(true));
+    }
+
+    @Test
+    public void resetListenerShouldForgetEverything() throws Exception {
+        AggregatingDistillationListener listener = new AggregatingDistillationListener();
+        listener.phaseEnded(DistillationPhase.PARSING, 42L);
+        listener.count(DistillationCounter.MOVE_OPERATIONS, 3L);
+        listener.reset();
+        assertThat(listener.getPhaseCount(DistillationPhase.PARSING), is(0L));
+        assertThat(listener.getPhaseNanos(DistillationPhase.PARSING), is(0L));
+        assertThat(listener.getCount(DistillationCounter.MOVE_OPERATIONS), is(0L));
+    }
+
+    @Test
+    public void unobservedDistillationShouldExtractSameChanges() throws Exception {
+        FileDistiller distiller =
+                Guice.createInjector(new JavaChangeDistillerModule()).getInstance(FileDistiller.class);
+        distiller.extractClassifiedSourceCodeChanges(
+                CompilationUtils.getFile("src_change/TestLeft.java"),
+                CompilationUtils.getFile("src_change/TestRight.java"));
+        assertThat(describe(distiller.getSourceCodeChanges()), is(describe(sDistiller.getSourceCodeChanges())));
+    }
+
+    private static List<String> describe(List<SourceCodeChange> changes) {
+        List<String> descriptions = new ArrayList<String>();
+        for (SourceCodeChange change : changes) {
+            descriptions.add(change.getChangeType() + " " + change.getChangedEntity().getUniqueName());
+        }
+        return descriptions;
+    }
+
+}
@@ -0,0 +1,129 @@
+package ch.uzh.ifi.seal.changedistiller.distilling;
+
+/*
+ * #%L
+ * ChangeDistiller
+ * %%
+ * Copyright (C) 2011 - 2013 Software Architecture and Evolution Lab, Department of Informatics, UZH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import ch.uzh.ifi.seal.changedistiller.JavaChangeDistillerModule;
+import ch.uzh.ifi.seal.changedistiller.ast.java.JavaDeclarationConverter;
+import ch.uzh.ifi.seal.changedistiller.ast.java.JavaMethodBodyConverter;
+import ch.uzh.ifi.seal.changedistiller.model.entities.SourceCodeChange;
+import ch.uzh.ifi.seal.changedistiller.treedifferencing.TreeDifferencer;
+import ch.uzh.ifi.seal.changedistiller.util.CompilationUtils;
+
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+
+public class WhenDistillationsShareComponents {
+
+    private static final String[][] FILE_PAIRS = {
+            {"src_change/TestLeft.java", "src_change/TestRight.java"},
+            {"src_change/Test2Left.java", "src_change/Test2Right.java"},
+            {"src_issue/2/CompilerLeft.java", "src_issue/2/CompilerRight.java"},
+            {"src_issue/19/AstNodeLeft.java", "src_issue/19/AstNodeRight.java"},
+            {"src_issue/32/jEditLeft.java", "src_issue/32/jEditRight.java"}};
+    private static final int THREADS = 8;
+    private static final int ROUNDS = 8;
+
+    private static Injector sInjector;
+    private static ExecutorService sExecutor;
+
+    @BeforeClass
+    public static void initialize() {
+        sInjector = Guice.createInjector(new JavaChangeDistillerModule());
+        sExecutor = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @AfterClass
+    public static void shutdown() {
+        sExecutor.shutdownNow();
+    }
+
+    @Test
+    public void statelessComponentsShouldBeSharedByDistillations() throws Exception {
+        assertThat(
+                sInjector.getInstance(JavaDeclarationConverter.class),
+                is(sameInstance(sInjector.getInstance(JavaDeclarationConverter.class))));
+        assertThat(
+                sInjector.getInstance(JavaMethodBodyConverter.class),
+                is(sameInstance(sInjector.getInstance(JavaMethodBodyConverter.class))));
+        assertThat(
+                sInjector.getInstance(TreeDifferencer.class),
+                is(sameInstance(sInjector.getInstance(TreeDifferencer.class))));
+        assertThat(
+                sInjector.getInstance(SourceCodeChangeClassifier.class),
+                is(sameInstance(sInjector.getInstance(SourceCodeChangeClassifier.class))));
+    }
+
+    @Test
+    public void concurrentDistillationsShouldProduceSerialChanges() throws Exception {
+        List<List<String>> serial = new ArrayList<List<String>>();
+        for (String[] pair : FILE_PAIRS) {
+            serial.add(distill(pair));
+        }
+        final CountDownLatch start = new CountDownLatch(1);
+        List<Future<List<String>>> concurrent = new ArrayList<Future<List<String>>>();
+        for (int round = 0; round < ROUNDS; round++) {
+            for (final String[] pair : FILE_PAIRS) {
+                concurrent.add(sExecutor.submit(new Callable<List<String>>() {
+
+                    @Override
+                    public List<String> call() throws Exception {
+                        start.await();
+                        return distill(pair);
+                    }
+                }));
+            }
+        }
+        start.countDown();
+        for (int i = 0; i < concurrent.size(); i++) {
+            assertThat(concurrent.get(i).get(), is(serial.get(i % FILE_PAIRS.length)));
+        }
+    }
+
+    private static List<String> distill(String[] pair) {
+        File left = CompilationUtils.getFile(pair[0]);
+        File right = CompilationUtils.getFile(pair[1]);
+        FileDistiller distiller = sInjector.getInstance(FileDistiller.class);
+        distiller.extractClassifiedSourceCodeChanges(left, right);
+        List<String> descriptions = new ArrayList<String>();
+        for (SourceCodeChange change : distiller.getSourceCodeChanges()) {
+            descriptions.add(change.getChangeType() + " " + change.getChangedEntity().getUniqueName() + " in "
+                    + change.getRootEntity().getUniqueName() + " at " + change.getChangedEntity().getSourceRange());
+        }
+        return descriptions;
+    }
+
+}
@@ -28,6 +28,8 @@ import static org.hamcrest.Matchers.greaterThan;
 import static org.junit.Assert.fail;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.junit.BeforeClass;
@@ -38,6 +40,7 @@ import ch.uzh.ifi.seal.changedistiller.ChangeDistiller.Language;
 import ch.uzh.ifi.seal.changedistiller.ast.InvalidSyntaxException;
 import ch.uzh.ifi.seal.changedistiller.model.classifiers.java.JavaEntityType;
 import ch.uzh.ifi.seal.changedistiller.model.entities.Insert;
+import ch.uzh.ifi.seal.changedistiller.model.entities.Move;
 import ch.uzh.ifi.seal.changedistiller.model.entities.SourceCodeChange;
 import ch.uzh.ifi.seal.changedistiller.model.entities.SourceCodeEntity;
 import ch.uzh.ifi.seal.changedistiller.model.entities.Update;
@@ -217,6 +220,61 @@ public class WhenExamplesFromRealProjectsAreDistilled {
     		fail("Should be Insert but was " + singleChange.getClass());
     	}
     }
+    @Test
+    public void identicalLoopShouldNotBeReportedAsInserted() throws Exception {
+        List<String> changes = distillCompiler("clojure.lang.Compiler.TryExpr.emit(C,FnExpr,GeneratorAdapter)");
+        // the loop visiting the local variables is unchanged, the loop visiting the try catch blocks moved to the end
+        assertThat(changes.contains("Insert STATEMENT_INSERT FOR_STATEMENT 47725"), is(true));
+        assertThat(changes.contains("Insert STATEMENT_INSERT FOR_STATEMENT 48031"), is(false));
+        assertThat(
+                changes.contains("Move STATEMENT_ORDERING_CHANGE METHOD_INVOCATION 40775 to FOR_STATEMENT"),
+                is(true));
+        assertThat(
+                changes.contains("Move STATEMENT_ORDERING_CHANGE METHOD_INVOCATION 41858 to FOR_STATEMENT"),
+                is(false));
+    }
+
+    @Test
+    public void statementOfIdenticalLoopShouldNotBeMoved() throws Exception {
+        List<String> changes = distillCompiler("clojure.lang.Compiler.FnExpr.compile()");
+        assertThat(changes.contains("Insert STATEMENT_INSERT PREFIX_EXPRESSION 86793"), is(true));
+        assertThat(
+                changes.contains("Move STATEMENT_PARENT_CHANGE PREFIX_EXPRESSION 75135 to THEN_STATEMENT"),
+                is(false));
+    }
+
+    @Test
+    public void restructuredConditionalsShouldBeDistilled() throws Exception {
+        List<String> changes = distillCompiler("clojure.lang.Compiler.lookupVar(Symbol,boolean)");
+        assertThat(changes, is(Arrays.asList(
+                "Insert STATEMENT_INSERT VARIABLE_DECLARATION_STATEMENT 115293",
+                "Insert STATEMENT_INSERT VARIABLE_DECLARATION_STATEMENT 115463",
+                "Insert STATEMENT_INSERT IF_STATEMENT 115504",
+                "Insert ALTERNATIVE_PART_INSERT ELSE_STATEMENT 115584",
+                "Insert STATEMENT_INSERT RETURN_STATEMENT 115391",
+                "Insert STATEMENT_INSERT ASSIGNMENT 115542",
+                "Delete STATEMENT_DELETE THROW_STATEMENT 95664",
+                "Move STATEMENT_PARENT_CHANGE IF_STATEMENT 95646 to METHOD",
+                "Move STATEMENT_PARENT_CHANGE VARIABLE_DECLARATION_STATEMENT 95590 to THEN_STATEMENT",
+                "Move STATEMENT_PARENT_CHANGE IF_STATEMENT 95565 to THEN_STATEMENT",
+                "Move STATEMENT_PARENT_CHANGE ASSIGNMENT 95719 to ELSE_STATEMENT",
+                "Update COMMENT_UPDATE LINE_COMMENT 95518",
+                "Update CONDITION_EXPRESSION_CHANGE IF_STATEMENT 95646",
+                "Update STATEMENT_UPDATE VARIABLE_DECLARATION_STATEMENT 95590",
+                "Update CONDITION_EXPRESSION_CHANGE IF_STATEMENT 95565",
+                "Update STATEMENT_UPDATE ASSIGNMENT 95719")));
+    }
+
+    @Test
+    public void swappedSwitchCasesShouldBeDistilled() throws Exception {
+        File left = CompilationUtils.getFile(TEST_DATA + "8/HadoopStoreBuilderReducerLeft.java");
+        File right = CompilationUtils.getFile(TEST_DATA + "8/HadoopStoreBuilderReducerRight.java");
+        distiller.extractClassifiedSourceCodeChanges(left, right);
+        List<String> changes = describe(distiller.getSourceCodeChanges(), "Class.method()");
+        assertThat(changes.contains("Move STATEMENT_ORDERING_CHANGE SWITCH_CASE 576 to SWITCH_STATEMENT"), is(true));
+        assertThat(changes.contains("Move STATEMENT_ORDERING_CHANGE IF_STATEMENT 588 to SWITCH_STATEMENT"), is(true));
+    }
+
     @Test
     public void fileDistillerShouldParseJava14() {
         File left = CompilationUtils.getFile(TEST_DATA + "32/jEditLeft.java");
@@ -224,4 +282,26 @@ public class WhenExamplesFromRealProjectsAreDistilled {
         distiller.extractClassifiedSourceCodeChanges(left, "1.4", right, "1.4");
         assertThat(distiller.getSourceCodeChanges().size(), greaterThan(0)); 	
     }
+
+    private static List<String> distillCompiler(String rootEntity) {
+        File left = CompilationUtils.getFile(TEST_DATA + "2/CompilerLeft.java");
+        File right = CompilationUtils.getFile(TEST_DATA + "2/CompilerRight.java");
+        distiller.extractClassifiedSourceCodeChanges(left, right);
+        return describe(distiller.getSourceCodeChanges(), rootEntity);
+    }
+
+    private static List<String> describe(List<SourceCodeChange> changes, String rootEntity) {
+        List<String> descriptions = new ArrayList<String>();
+        for (SourceCodeChange change : changes) {
+            if (change.getRootEntity().getUniqueName().equals(rootEntity)) {
+                String description = change.getClass().getSimpleName() + " " + change.getChangeType() + " "
+                        + change.getChangedEntity().getType() + " " + change.getChangedEntity().getStartPosition();
+                if (change instanceof Move) {
+                    description += " to " + ((Move) change).getNewParentEntity().getType();
+                }
+                descriptions.add(description);
+            }
+        }
+        return descriptions;
+    }
 }
@@ -26,6 +26,8 @@ import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
 
 import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
 import java.util.List;
 
 import org.junit.BeforeClass;
@@ -33,6 +35,7 @@ import org.junit.Test;
 
 import ch.uzh.ifi.seal.changedistiller.ChangeDistiller;
 import ch.uzh.ifi.seal.changedistiller.ChangeDistiller.Language;
+import ch.uzh.ifi.seal.changedistiller.ast.FileUtils;
 import ch.uzh.ifi.seal.changedistiller.distilling.FileDistiller;
 import ch.uzh.ifi.seal.changedistiller.model.entities.ClassHistory;
 import ch.uzh.ifi.seal.changedistiller.model.entities.SourceCodeChange;
@@ -81,4 +84,52 @@ public class WhenFilesAreDistilled {
         String k = classHistory.getMethodHistories().keySet().iterator().next();
         assertThat(classHistory.getMethodHistories().get(k).getUniqueName(), is("test.Test.Bar.newMethod()"));
     }
+
+    @Test
+    public void changedStringSourcesShouldProduceSourceCodeChanges() throws Exception {
+        String left = FileUtils.getContent(CompilationUtils.getFile(TEST_DATA + "TestLeft.java"));
+        String right = FileUtils.getContent(CompilationUtils.getFile(TEST_DATA + "TestRight.java"));
+        distiller.extractClassifiedSourceCodeChanges(left, "TestLeft.java", right, "TestRight.java");
+        assertThat(distiller.getSourceCodeChanges().size(), is(23));
+    }
+
+    @Test
+    public void changedCharSequenceSourcesShouldProduceSourceCodeChanges() throws Exception {
+        StringBuilder left = new StringBuilder();
+        left.append(FileUtils.getContent(CompilationUtils.getFile(TEST_DATA + "TestLeft.java")));
+        StringBuilder right = new StringBuilder();
+        right.append(FileUtils.getContent(CompilationUtils.getFile(TEST_DATA + "TestRight.java")));
+        distiller.extractClassifiedSourceCodeChanges(left, "TestLeft.java", right, "TestRight.java");
+        assertThat(distiller.getSourceCodeChanges().size(), is(23));
+    }
+
+    @Test
+    public void changedCharArraySourcesShouldProduceSourceCodeChanges() throws Exception {
+        char[] left = FileUtils.getContent(CompilationUtils.getFile(TEST_DATA + "TestLeft.java")).toCharArray();
+        char[] right = FileUtils.getContent(CompilationUtils.getFile(TEST_DATA + "TestRight.java")).toCharArray();
+        distiller.extractClassifiedSourceCodeChanges(left, "TestLeft.java", "1.6", right, "TestRight.java", "1.6");
+        assertThat(distiller.getSourceCodeChanges().size(), is(23));
+    }
+
+    @Test
+    public void changedEncodedSourcesShouldProduceSourceCodeChanges() throws Exception {
+        Charset charset = Charset.forName("UTF-8");
+        ByteBuffer left = charset.encode(FileUtils.getContent(CompilationUtils.getFile(TEST_DATA + "TestLeft.java")));
+        ByteBuffer right = charset.encode(FileUtils.getContent(CompilationUtils.getFile(TEST_DATA + "TestRight.java")));
+        distiller.extractClassifiedSourceCodeChanges(left, "TestLeft.java", right, "TestRight.java", charset);
+        assertThat(distiller.getSourceCodeChanges().size(), is(23));
+        assertThat(left.position(), is(0));
+    }
+
+    @Test
+    public void inMemorySourcesShouldProduceClassHistories() throws Exception {
+        String left = FileUtils.getContent(CompilationUtils.getFile(TEST_DATA + "TestLeft.java"));
+        String right = FileUtils.getContent(CompilationUtils.getFile(TEST_DATA + "TestRight.java"));
+        FileDistiller inMemoryDistiller = ChangeDistiller.createFileDistiller(Language.JAVA);
+        inMemoryDistiller.extractClassifiedSourceCodeChanges(left, "TestLeft.java", right, "TestRight.java");
+        ClassHistory classHistory = inMemoryDistiller.getClassHistory();
+        assertThat(classHistory.getAttributeHistories().size(), is(3));
+        assertThat(classHistory.getMethodHistories().size(), is(1));
+        assertThat(classHistory.getInnerClassHistories().size(), is(1));
+    }
 }
@@ -0,0 +1,154 @@
+package ch.uzh.ifi.seal.changedistiller.distilling;
+
+/*
+ * #%L
+ * ChangeDistiller
+ * %%
+ * Copyright (C) 2011 - 2013 Software Architecture and Evolution Lab, Department of Informatics, UZH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import ch.uzh.ifi.seal.changedistiller.ChangeDistiller;
+import ch.uzh.ifi.seal.changedistiller.ChangeDistiller.Language;
+import ch.uzh.ifi.seal.changedistiller.model.entities.SourceCodeChange;
+import ch.uzh.ifi.seal.changedistiller.util.CompilationUtils;
+
+public class WhenFilesAreDistilledInBatches {
+
+    private static final String[][] FILE_PAIRS = {
+            {"src_change/TestLeft.java", "src_change/TestRight.java"},
+            {"src_change/Test2Left.java", "src_change/Test2Right.java"},
+            {"src_change/TestLeft.java", "src_change/TestLeft.java"},
+            {"src_issue/2/CompilerLeft.java", "src_issue/2/CompilerRight.java"},
+            {"src_issue/8/HadoopStoreBuilderReducerLeft.java", "src_issue/8/HadoopStoreBuilderReducerRight.java"},
+            {"src_issue/9/JsonStoreBuilderLeft.java", "src_issue/9/JsonStoreBuilderRight.java"},
+            {"src_issue/10/ReadOnlyStorageEngineLeft.java", "src_issue/10/ReadOnlyStorageEngineRight.java"},
+            {"src_issue/14/PrimitiveVsSimpleTypeLeft.java", "src_issue/14/PrimitiveVsSimpleTypeRight.java"},
+            {"src_issue/19/AstNodeLeft.java", "src_issue/19/AstNodeRight.java"},
+            {"src_issue/20/R1Left.java", "src_issue/20/R1Right.java"},
+            {"src_issue/22/TestLeft.java", "src_issue/22/TestRight.java"},
+            {"src_issue/26/TestLeft.java", "src_issue/26/TestRight.java"}};
+
+    @Rule
+    public TemporaryFolder fFolder = new TemporaryFolder();
+
+    private ExecutorService fExecutor;
+    private BatchFileDistiller fDistiller;
+
+    @Before
+    public void setUp() {
+        fExecutor = Executors.newFixedThreadPool(4);
+        fDistiller = ChangeDistiller.createBatchFileDistiller(Language.JAVA);
+    }
+
+    @After
+    public void tearDown() {
+        fExecutor.shutdownNow();
+    }
+
+    @Test
+    public void batchShouldProduceSameChangesAsSequentialDistillation() throws Exception {
+        List<DistillationJob> jobs = createJobs();
+        List<DistillationResult> results = fDistiller.distill(jobs, fExecutor);
+        assertThat(results.size(), is(jobs.size()));
+        for (int i = 0; i < jobs.size(); i++) {
+            DistillationResult result = results.get(i);
+            assertThat(result.getJob(), is(sameInstance(jobs.get(i))));
+            assertThat(result.isSuccessful(), is(true));
+            FileDistiller distiller = ChangeDistiller.createFileDistiller(Language.JAVA);
+            distiller.extractClassifiedSourceCodeChanges(jobs.get(i).getLeft(), jobs.get(i).getRight());
+            assertThat(describe(result.getSourceCodeChanges()), is(describe(distiller.getSourceCodeChanges())));
+        }
+        assertThat(results.get(0).getSourceCodeChanges().size(), is(23));
+        assertThat(results.get(0).getClassHistory(), is(not(nullValue())));
+        assertThat(results.get(2).getSourceCodeChanges().size(), is(0));
+    }
+
+    @Test
+    public void eachResultShouldBeHandledOnce() throws Exception {
+        List<DistillationJob> jobs = createJobs();
+        final List<DistillationResult> handled = new ArrayList<DistillationResult>();
+        fDistiller.distill(jobs, fExecutor, new DistillationResultHandler() {
+
+            @Override
+            public void handle(DistillationResult result) {
+                handled.add(result);
+            }
+        });
+        assertThat(handled.size(), is(jobs.size()));
+        for (DistillationJob job : jobs) {
+            int count = 0;
+            for (DistillationResult result : handled) {
+                if (result.getJob() == job) {
+                    count++;
+                }
+            }
+            assertThat(count, is(1));
+        }
+    }
+
+    @Test
+    public void failingJobShouldNotAbortBatch() throws Exception {
+        File missing = new File(fFolder.getRoot(), "Missing.java");
+        DistillationJob failing = new DistillationJob(missing, CompilationUtils.getFile("src_change/TestRight.java"));
+        DistillationJob succeeding =
+                new DistillationJob(
+                        CompilationUtils.getFile("src_change/TestLeft.java"),
+                        CompilationUtils.getFile("src_change/TestRight.java"),
+                        "1.1");
+        List<DistillationResult> results = fDistiller.distill(Arrays.asList(failing, succeeding), fExecutor);
+        assertThat(results.get(0).isSuccessful(), is(false));
+        assertThat(results.get(0).getFailure(), is(not(nullValue())));
+        assertThat(results.get(0).getSourceCodeChanges(), is(nullValue()));
+        assertThat(results.get(1).isSuccessful(), is(true));
+        assertThat(results.get(1).getSourceCodeChanges().size(), is(23));
+    }
+
+    private List<DistillationJob> createJobs() {
+        List<DistillationJob> jobs = new ArrayList<DistillationJob>();
+        for (String[] pair : FILE_PAIRS) {
+            jobs.add(new DistillationJob(CompilationUtils.getFile(pair[0]), CompilationUtils.getFile(pair[1])));
+        }
+        return jobs;
+    }
+
+    private static List<String> describe(List<SourceCodeChange> changes) {
+        List<String> descriptions = new ArrayList<String>();
+        for (SourceCodeChange change : changes) {
+            descriptions.add(change.getChangeType() + " " + change.getChangedEntity().getUniqueName());
+        }
+        return descriptions;
+    }
+
+}
@@ -0,0 +1,293 @@
+package ch.uzh.ifi.seal.changedistiller.model.entities;
+
+/*
+ * #%L
+ * ChangeDistiller
+ * %%
+ * Copyright (C) 2011 - 2013 Software Architecture and Evolution Lab, Department of Informatics, UZH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.Pipe;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import ch.uzh.ifi.seal.changedistiller.ChangeDistiller;
+import ch.uzh.ifi.seal.changedistiller.ChangeDistiller.Language;
+import ch.uzh.ifi.seal.changedistiller.distilling.FileDistiller;
+import ch.uzh.ifi.seal.changedistiller.model.classifiers.ChangeType;
+import ch.uzh.ifi.seal.changedistiller.model.classifiers.SourceRange;
+import ch.uzh.ifi.seal.changedistiller.model.classifiers.java.JavaEntityType;
+import ch.uzh.ifi.seal.changedistiller.util.CompilationUtils;
+
+public class WhenSourceCodeChangesAreEncoded {
+
+    private static final StructureEntityVersion ROOT =
+            new StructureEntityVersion(JavaEntityType.METHOD, "Foo.bar(int)", 1, "1.2");
+
+    @Test
+    public void insertShouldBeDecoded() throws Exception {
+        assertRoundTrip(new Insert(ChangeType.STATEMENT_INSERT, ROOT, statement("a = b;", 10, 16), method()));
+    }
+
+    @Test
+    public void deleteShouldBeDecoded() throws Exception {
+        assertRoundTrip(new Delete(ChangeType.STATEMENT_DELETE, ROOT, statement("a = b;", 10, 16), method()));
+    }
+
+    @Test
+    public void moveShouldBeDecoded() throws Exception {
+        assertRoundTrip(new Move(
+                ChangeType.STATEMENT_PARENT_CHANGE,
+                ROOT,
+                statement("a = b;", 10, 16),
+                statement("a = b;", 42, 48),
+                method(),
+                new SourceCodeEntity("x > 0", JavaEntityType.IF_STATEMENT, new SourceRange(30, 60))));
+    }
+
+    @Test
+    public void updateShouldBeDecoded() throws Exception {
+        assertRoundTrip(new Update(
+                ChangeType.STATEMENT_UPDATE,
+                ROOT,
+                statement("a = b;", 10, 16),
+                statement("a = c;", 10, 16),
+                method()));
+    }
+
+    @Test
+    public void linesAndColumnsShouldBeDecoded() throws Exception {
+        SourceCodeEntity entity =
+                new SourceCodeEntity("a = b;", JavaEntityType.ASSIGNMENT, new SourceRange(100, 106, 7, 5, 8, 2));
+        SourceCodeEntity decoded = roundTrip(new Insert(ROOT, entity, method())).get(0).getChangedEntity();
+        assertThat(describe(decoded.getSourceRange()), is("(100,106) 7:5-8:2"));
+    }
+
+    @Test
+    public void missingValuesShouldBeDecoded() throws Exception {
+        SourceCodeEntity entity = new SourceCodeEntity(null, null, null);
+        SourceCodeChange decoded = roundTrip(new Insert(null, entity, null)).get(0);
+        assertThat(decoded.getRootEntity(), is(nullValue()));
+        assertThat(decoded.getParentEntity(), is(nullValue()));
+        assertThat(decoded.getChangedEntity().getUniqueName(), is(nullValue()));
+        assertThat(decoded.getChangedEntity().getType(), is(nullValue()));
+        assertThat(decoded.getChangedEntity().getSourceRange(), is(nullValue()));
+    }
+
+    @Test
+    public void associatedEntitiesShouldBeDecoded() throws Exception {
+        SourceCodeEntity entity = new SourceCodeEntity("bar", JavaEntityType.METHOD, 9, new SourceRange(0, 99));
+        entity.addAssociatedEntity(new SourceCodeEntity("int", JavaEntityType.PARAMETER, new SourceRange(8, 13)));
+        entity.addAssociatedEntity(new SourceCodeEntity("T", JavaEntityType.TYPE_PARAMETER, new SourceRange(0, 4)));
+        assertRoundTrip(new Insert(ChangeType.ADDITIONAL_FUNCTIONALITY, ROOT, entity, null));
+    }
+
+    @Test
+    public void commentAssociatedWithStatementShouldBeDecoded() throws Exception {
+        SourceCodeEntity statement = statement("a = b;", 10, 16);
+        SourceCodeEntity comment = new SourceCodeEntity("// b", JavaEntityType.LINE_COMMENT, new SourceRange(18, 21));
+        statement.addAssociatedEntity(comment);
+        comment.addAssociatedEntity(statement);
+        assertRoundTrip(new Insert(ChangeType.COMMENT_INSERT, ROOT, comment, method()));
+    }
+
+    @Test
+    public void changesOfRootEntityShouldShareIt() throws Exception {
+        List<SourceCodeChange> decoded = roundTrip(
+                new Insert(ROOT, statement("a = b;", 10, 16), method()),
+                new Delete(ROOT, statement("c = d;", 20, 26), method()));
+        StructureEntityVersion rootEntity = decoded.get(0).getRootEntity();
+        assertThat(decoded.get(1).getRootEntity(), is(sameInstance(rootEntity)));
+        assertThat(rootEntity.getSourceCodeChanges(), is(decoded));
+    }
+
+    @Test
+    public void dictionariesShouldBeReset() throws Exception {
+        List<SourceCodeChange> changes = new ArrayList<SourceCodeChange>();
+        for (int i = 0; i < 20; i++) {
+            StructureEntityVersion rootEntity =
+                    new StructureEntityVersion(JavaEntityType.METHOD, "Foo.m" + i + "()", 0);
+            SourceCodeEntity statement = statement("s" + i + ";", i, i + 3);
+            changes.add(new Insert(ChangeType.STATEMENT_INSERT, rootEntity, statement, method()));
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        SourceCodeChangeWriter writer = new SourceCodeChangeWriter(Channels.newChannel(out), 4);
+        for (SourceCodeChange change : changes) {
+            writer.write(change);
+        }
+        writer.close();
+        assertThat(describe(read(out.toByteArray())), is(describe(changes)));
+    }
+
+    @Test
+    public void distilledChangesShouldBeDecoded() throws Exception {
+        FileDistiller distiller = ChangeDistiller.createFileDistiller(Language.JAVA);
+        File left = CompilationUtils.getFile("src_issue/2/CompilerLeft.java");
+        File right = CompilationUtils.getFile("src_issue/2/CompilerRight.java");
+        distiller.extractClassifiedSourceCodeChanges(left, right);
+        List<SourceCodeChange> changes = distiller.getSourceCodeChanges();
+        assertThat(changes.isEmpty(), is(false));
+        assertThat(describe(roundTrip(changes.toArray(new SourceCodeChange[changes.size()]))), is(describe(changes)));
+    }
+
+    @Test(expected = IOException.class)
+    public void otherStreamShouldBeRejected() throws Exception {
+        new SourceCodeChangeReader(Channels.newChannel(new ByteArrayInputStream("PK\3\4".getBytes("UTF-8"))));
+    }
+
+    @Test(expected = IOException.class)
+    public void truncatedStreamShouldBeRejected() throws Exception {
+        byte[] bytes = write(new Insert(ROOT, statement("a = b;", 10, 16), method()));
+        read(Arrays.copyOf(bytes, bytes.length - 3));
+    }
+
+    @Test(expected = EOFException.class)
+    public void streamWithoutEndShouldBeRejected() throws Exception {
+        byte[] bytes = write(new Insert(ROOT, statement("a = b;", 10, 16), method()));
+        read(Arrays.copyOf(bytes, bytes.length - 1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nonBlockingChannelShouldBeRejected() throws Exception {
+        Pipe pipe = Pipe.open();
+        try {
+            pipe.source().configureBlocking(false);
+            new SourceCodeChangeReader(pipe.source());
+        } finally {
+            pipe.source().close();
+            pipe.sink().close();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nonBlockingChannelShouldBeRejectedByWriter() throws Exception {
+        Pipe pipe = Pipe.open();
+        try {
+            pipe.sink().configureBlocking(false);
+            new SourceCodeChangeWriter(pipe.sink());
+        } finally {
+            pipe.source().close();
+            pipe.sink().close();
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void negativeChangeTypeShouldBeRejected() throws Exception {
+        byte[] header = write();
+        // the header without the end record, followed by an insert of change type -1
+        byte[] bytes = Arrays.copyOf(header, header.length + 5);
+        bytes[header.length - 1] = SourceCodeChangeCodec.INSERT;
+        bytes[header.length] = (byte) 0xFF;
+        bytes[header.length + 1] = (byte) 0xFF;
+        bytes[header.length + 2] = (byte) 0xFF;
+        bytes[header.length + 3] = (byte) 0xFF;
+        bytes[header.length + 4] = (byte) 0x0F;
+        read(bytes);
+    }
+
+    private static SourceCodeEntity statement(String uniqueName, int start, int end) {
+        return new SourceCodeEntity(uniqueName, JavaEntityType.ASSIGNMENT, new SourceRange(start, end));
+    }
+
+    private static SourceCodeEntity method() {
+        return new SourceCodeEntity("Foo.bar(int)", JavaEntityType.METHOD, 1, new SourceRange(0, 99));
+    }
+
+    private static void assertRoundTrip(SourceCodeChange change) throws IOException {
+        assertThat(describe(roundTrip(change)), is(describe(Arrays.asList(change))));
+    }
+
+    private static List<SourceCodeChange> roundTrip(SourceCodeChange... changes) throws IOException {
+        return read(write(changes));
+    }
+
+    private static byte[] write(SourceCodeChange... changes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        SourceCodeChangeWriter writer = new SourceCodeChangeWriter(Channels.newChannel(out));
+        for (SourceCodeChange change : changes) {
+            writer.write(change);
+        }
+        writer.close();
+        return out.toByteArray();
+    }
+
+    private static List<SourceCodeChange> read(byte[] bytes) throws IOException {
+        SourceCodeChangeReader reader =
+                new SourceCodeChangeReader(Channels.newChannel(new ByteArrayInputStream(bytes)));
+        List<SourceCodeChange> changes = new ArrayList<SourceCodeChange>();
+        for (SourceCodeChange change = reader.read(); change != null; change = reader.read()) {
+            changes.add(change);
+        }
+        reader.close();
+        return changes;
+    }
+
+    private static List<String> describe(List<SourceCodeChange> changes) {
+        List<String> descriptions = new ArrayList<String>();
+        for (SourceCodeChange change : changes) {
+            StringBuilder description = new StringBuilder();
+            description.append(change.getClass().getSimpleName()).append(' ').append(change.getChangeType());
+            StructureEntityVersion rootEntity = change.getRootEntity();
+            description.append(" in ").append(rootEntity.getType()).append(' ').append(rootEntity.getUniqueName())
+                    .append(' ').append(rootEntity.getModifiers()).append(' ').append(rootEntity.getVersion());
+            description.append(": ").append(describe(change.getChangedEntity()));
+            description.append(" of ").append(describe(change.getParentEntity()));
+            if (change instanceof Move) {
+                description.append(" to ").append(describe(((Move) change).getNewEntity()));
+                description.append(" of ").append(describe(((Move) change).getNewParentEntity()));
+            } else if (change instanceof Update) {
+                description.append(" to ").append(describe(((Update) change).getNewEntity()));
+            }
+            descriptions.add(description.toString());
+        }
+        return descriptions;
+    }
+
+    private static String describe(SourceCodeEntity entity) {
+        if (entity == null) {
+            return "null";
+        }
+        StringBuilder description = new StringBuilder(describeWithoutAssociatedEntities(entity));
+        for (SourceCodeEntity associatedEntity : entity.getAssociatedEntities()) {
+            description.append(" [").append(describeWithoutAssociatedEntities(associatedEntity)).append(']');
+        }
+        return description.toString();
+    }
+
+    private static String describeWithoutAssociatedEntities(SourceCodeEntity entity) {
+        return entity.getType() + " " + entity.getUniqueName() + " " + entity.getModifiers() + " "
+                + describe(entity.getSourceRange());
+    }
+
+    private static String describe(SourceRange range) {
+        return range + " " + range.getStartLine() + ":" + range.getStartColumn() + "-" + range.getEndLine() + ":"
+                + range.getEndColumn();
+    }
+
+}
@@ -164,6 +164,34 @@ public class WhenStructureDifferencesAreExtracted {
         assertThat(changedMethod.getRight().getName(), is("method()"));
     }
 
+    @Test
+    public void reformattedMethodShouldReturnNoChanges() throws Exception {
+        createLeftStructureTree("public class Foo { void method(int a) { a = 24; } }");
+        createRightStructureTree(
+                "public class Foo {\n    void method(int a) {\n        // assign\n        a = 24;\n    }\n}");
+        createDifferences();
+        assertThat(fDiffs, is(nullValue()));
+    }
+
+    @Test
+    public void reorderedModifiersShouldReturnNoChanges() throws Exception {
+        createLeftStructureTree("public class Foo { public static final int A = 1; }");
+        createRightStructureTree("public class Foo { final static public int A = 1; }");
+        createDifferences();
+        assertThat(fDiffs, is(nullValue()));
+    }
+
+    @Test
+    public void changedFieldInitializerShouldBeFound() throws Exception {
+        createLeftStructureTree("public class Foo { int a = 1, b = 2; }");
+        createRightStructureTree("public class Foo { int a = 1, b = 3; }");
+        createDifferences();
+        assertThat(fDiffs.getChildren().get(0).getChildren().size(), is(1));
+        StructureDiffNode changedField = fDiffs.getChildren().get(0).getChildren().get(0);
+        assertThat(changedField.getDiffType(), is(DiffType.CHANGE));
+        assertThat(changedField.getLeft().getName(), is("b : int"));
+    }
+
     private JavaStructureNode createStructureTree(String source) {
         JavaCompilation compilation = CompilationUtils.compileSource(source);
         CompilationUnitDeclaration cu = compilation.getCompilationUnit();
@@ -21,6 +21,8 @@ package ch.uzh.ifi.seal.changedistiller.structuredifferencing.java;
  */
 
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
 
 import org.eclipse.jdt.internal.compiler.ast.CompilationUnitDeclaration;
@@ -174,6 +176,55 @@ public class WhenJavaStructureTreesAreBuilt {
         assertThat(methodNode.getFullyQualifiedName(), is("org.foo.Clazz.method(String,int)"));
     }
 
+    @Test
+    public void reformattedMethodsShouldHaveSameContentDigest() throws Exception {
+        fSnippet = getCompilationUnit("void method(int a) { a = 24; }");
+        createStructureTree();
+        Long digest = fRoot.getChildren().get(0).getChildren().get(1).getContentDigest();
+        fSnippet = getCompilationUnit("void method( int a )\n{\n    // assign\n    a = 24; /* done */\n}");
+        createStructureTree();
+        assertThat(fRoot.getChildren().get(0).getChildren().get(1).getContentDigest(), is(digest));
+    }
+
+    @Test
+    public void changedMethodsShouldHaveDifferentContentDigests() throws Exception {
+        fSnippet = getCompilationUnit("void method(int a) { a = 24; }");
+        createStructureTree();
+        Long digest = fRoot.getChildren().get(0).getChildren().get(1).getContentDigest();
+        fSnippet = getCompilationUnit("void method(int a) { a = 42; }");
+        createStructureTree();
+        assertThat(fRoot.getChildren().get(0).getChildren().get(1).getContentDigest(), is(not(digest)));
+    }
+
+    @Test
+    public void changedJavadocShouldChangeContentDigest() throws Exception {
+        fSnippet = getCompilationUnit("/** @param a first */ void method(int a) {}");
+        createStructureTree();
+        Long digest = fRoot.getChildren().get(0).getChildren().get(1).getContentDigest();
+        fSnippet = getCompilationUnit("/** @param a second */ void method(int a) {}");
+        createStructureTree();
+        assertThat(fRoot.getChildren().get(0).getChildren().get(1).getContentDigest(), is(not(digest)));
+    }
+
+    @Test
+    public void fieldsDeclaredTogetherShouldCoverWholeDeclaration() throws Exception {
+        fSnippet = getCompilationUnit("int a = 1, b = 2;");
+        createStructureTree();
+        Long digest = fRoot.getChildren().get(0).getChildren().get(1).getContentDigest();
+        fSnippet = getCompilationUnit("long a = 1, b = 2;");
+        createStructureTree();
+        assertThat(fRoot.getChildren().get(0).getChildren().get(1).getContentDigest(), is(not(digest)));
+    }
+
+    @Test
+    public void nodesWithoutSourceShouldHaveNoContentDigest() throws Exception {
+        fSnippet = getCompilationUnit("void method() {}");
+        JavaCompilation compilation = CompilationUtils.compileSource(fSnippet);
+        JavaStructureNode node =
+                new JavaStructureNode(Type.CLASS, null, "Clazz", compilation.getCompilationUnit().types[0]);
+        assertThat(node.getContentDigest(), is(nullValue()));
+    }
+
     private void createStructureTree() {
         JavaCompilation compilation = CompilationUtils.compileSource(fSnippet);
         CompilationUnitDeclaration cu = compilation.getCompilationUnit();
@@ -144,13 +144,59 @@ public class WhenEditScriptsAreCalculated extends TreeDifferencingTestCase {
 		assertThat(insert.getNodeToInsert().getLabel(), is(innerTryRight.getLabel()));
 		assertThat(insert.getNodeToInsert().getValue(), is(innerTryRight.getValue()));
 		
-		assertThat(((Node)insert.getNodeToInsert().getParent()).getLabel(), is(innerTryRight.getLabel()));
-		assertThat(((Node)insert.getNodeToInsert().getParent()).getValue(), is(innerTryRight.getValue()));
+		assertThat(insert.getNodeToInsert().getParent().getLabel(), is(innerTryRight.getLabel()));
+		assertThat(insert.getNodeToInsert().getParent().getValue(), is(innerTryRight.getValue()));
 	}
 
+    @Test
+    public void reorderedNodesShouldProduceMoveOperation() throws Exception {
+        Node first = addToLeft(METHOD_INVOCATION, "foo.bar();");
+        addToLeft(ASSIGNMENT, "b = a;");
+        addToLeft(JavaEntityType.RETURN_STATEMENT, "return b;");
+        addToRight(ASSIGNMENT, "b = a;");
+        addToRight(JavaEntityType.RETURN_STATEMENT, "return b;");
+        addToRight(METHOD_INVOCATION, "foo.bar();");
+        createEditScript();
+        assertThat(fEditScript.size(), is(1));
+        TreeEditOperation operation = fEditScript.get(0);
+        assertThat(operation.getOperationType(), is(OperationType.MOVE));
+        MoveOperation move = (MoveOperation) operation;
+        assertThat(move.getNodeToMove(), is(first));
+        assertThat(move.getNewParent(), is(fRootLeft));
+        assertThat(fRootLeft.getIndex(first), is(2));
+    }
+
+    @Test
+    public void unchangedSiblingsShouldNotProduceOperations() throws Exception {
+        for (int i = 0; i < 50; i++) {
+            addToLeft(METHOD_INVOCATION, "foo.bar" + i + "();");
+            addToRight(METHOD_INVOCATION, "foo.bar" + i + "();");
+        }
+        createEditScript();
+        assertThat(fEditScript.isEmpty(), is(true));
+    }
+
+    @Test
+    public void combinedChangesShouldProduceOperationsInOrder() throws Exception {
+        Node ifLeft = addToLeft(JavaEntityType.IF_STATEMENT, "foo != null");
+        addToNode(ifLeft, ASSIGNMENT, "b = a;");
+        Node invocationLeft = addToNode(ifLeft, METHOD_INVOCATION, "foo.bar();");
+        Node deleted = addToLeft(JavaEntityType.RETURN_STATEMENT, "return null;");
+        Node ifRight = addToRight(JavaEntityType.IF_STATEMENT, "foo != null");
+        addToNode(ifRight, ASSIGNMENT, "b = a;");
+        addToNode(ifRight, METHOD_INVOCATION, "foo.beer();");
+        addToRight(JavaEntityType.THROW_STATEMENT, "throw new IllegalStateException();");
+        createEditScript();
+        assertThat(fEditScript.size(), is(3));
+        assertThat(fEditScript.get(0).getOperationType(), is(OperationType.INSERT));
+        assertThat(fEditScript.get(1).getOperationType(), is(OperationType.UPDATE));
+        assertThat(((UpdateOperation) fEditScript.get(1)).getNodeToUpdate(), is(invocationLeft));
+        assertThat(fEditScript.get(2).getOperationType(), is(OperationType.DELETE));
+        assertThat(((DeleteOperation) fEditScript.get(2)).getNodeToDelete(), is(deleted));
+    }
+
     private void createEditScript() {
-        fDifferencer.calculateEditScript(fRootLeft, fRootRight);
-        fEditScript = fDifferencer.getEditScript();
+        fEditScript = fDifferencer.calculateEditScript(fRootLeft, fRootRight);
     }
 
 }
@@ -0,0 +1,120 @@
+package ch.uzh.ifi.seal.changedistiller.treedifferencing;
+
+/*
+ * #%L
+ * ChangeDistiller
+ * %%
+ * Copyright (C) 2011 - 2013 Software Architecture and Evolution Lab, Department of Informatics, UZH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import static ch.uzh.ifi.seal.changedistiller.model.classifiers.java.JavaEntityType.ASSIGNMENT;
+import static ch.uzh.ifi.seal.changedistiller.model.classifiers.java.JavaEntityType.IF_STATEMENT;
+import static ch.uzh.ifi.seal.changedistiller.model.classifiers.java.JavaEntityType.METHOD_INVOCATION;
+import static ch.uzh.ifi.seal.changedistiller.model.classifiers.java.JavaEntityType.THEN_STATEMENT;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+import ch.uzh.ifi.seal.changedistiller.treedifferencing.TreeEditOperation.OperationType;
+
+public class WhenIdenticalSubtreesAreAnchored extends TreeDifferencingTestCase {
+
+    @Test
+    public void isomorphicSubtreesShouldHaveSameHash() throws Exception {
+        Node left = createIf(fRootLeft, "a > b", "foo.bar();");
+        Node right = createIf(fRootRight, "a > b", "foo.bar();");
+        assertThat(left.getSubtreeHash(), is(right.getSubtreeHash()));
+        assertThat(left.isIsomorphicTo(right), is(true));
+    }
+
+    @Test
+    public void changedValueShouldChangeHashOfAncestors() throws Exception {
+        createIf(fRootLeft, "a > b", "foo.bar();");
+        Node right = createIf(fRootRight, "a > b", "foo.bar();");
+        long hash = fRootRight.getSubtreeHash();
+        right.getFirstLeaf().setValue("foo.baz();");
+        assertThat(fRootRight.getSubtreeHash(), is(not(hash)));
+        assertThat(fRootLeft.isIsomorphicTo(fRootRight), is(false));
+    }
+
+    @Test
+    public void removedChildShouldChangeHashOfAncestors() throws Exception {
+        Node right = createIf(fRootRight, "a > b", "foo.bar();");
+        long hash = fRootRight.getSubtreeHash();
+        Node leaf = addToNode(right.getFirstChild(), ASSIGNMENT, "a = b;");
+        assertThat(fRootRight.getSubtreeHash(), is(not(hash)));
+        leaf.removeFromParent();
+        assertThat(fRootRight.getSubtreeHash(), is(hash));
+    }
+
+    @Test
+    public void uniqueIdenticalSubtreeShouldBeMatchedCompletely() throws Exception {
+        Node left = createIf(fRootLeft, "a > b", "foo.bar();");
+        addToLeft(ASSIGNMENT, "a = b;");
+        Node right = createIf(fRootRight, "a > b", "foo.bar();");
+        addToRight(ASSIGNMENT, "a = c;");
+        Set<NodePair> matching = new HashSet<NodePair>();
+        new IdenticalSubtreeMatcher().match(fRootLeft, fRootRight, matching);
+        assertThat(matching.size(), is(3));
+        assertThat(matching.contains(new NodePair(left, right)), is(true));
+        assertThat(matching.contains(new NodePair(left.getFirstLeaf(), right.getFirstLeaf())), is(true));
+        assertThat(fRootLeft.isMatched(), is(false));
+    }
+
+    @Test
+    public void ambiguousSubtreesShouldNotBeMatched() throws Exception {
+        createIf(fRootLeft, "a > b", "foo.bar();");
+        createIf(fRootRight, "a > b", "foo.bar();");
+        createIf(fRootRight, "a > b", "foo.bar();");
+        Set<NodePair> matching = new HashSet<NodePair>();
+        new IdenticalSubtreeMatcher().match(fRootLeft, fRootRight, matching);
+        assertThat(matching.isEmpty(), is(true));
+    }
+
+    @Test
+    public void identicalTreesShouldResultInEmptyEditScript() throws Exception {
+        createIf(fRootLeft, "a > b", "foo.bar();");
+        addToLeft(ASSIGNMENT, "a = b;");
+        createIf(fRootRight, "a > b", "foo.bar();");
+        addToRight(ASSIGNMENT, "a = b;");
+        TreeDifferencer differencer = new TreeDifferencer();
+        assertThat(differencer.calculateEditScript(fRootLeft, fRootRight).isEmpty(), is(true));
+    }
+
+    @Test
+    public void changeNextToIdenticalSubtreeShouldBeOnlyOperation() throws Exception {
+        createIf(fRootLeft, "a > b", "foo.bar();");
+        addToLeft(METHOD_INVOCATION, "foo.bar(a, b);");
+        createIf(fRootRight, "a > b", "foo.bar();");
+        addToRight(METHOD_INVOCATION, "foo.bar(a, c);");
+        TreeDifferencer differencer = new TreeDifferencer();
+        List<TreeEditOperation> editScript = differencer.calculateEditScript(fRootLeft, fRootRight);
+        assertThat(editScript.size(), is(1));
+        assertThat(editScript.get(0).getOperationType(), is(OperationType.UPDATE));
+    }
+
+    private Node createIf(Node root, String condition, String statement) {
+        Node ifStatement = addToNode(root, IF_STATEMENT, condition);
+        Node then = addToNode(ifStatement, THEN_STATEMENT, condition);
+        addToNode(then, METHOD_INVOCATION, statement);
+        return ifStatement;
+    }
+}
@@ -0,0 +1,177 @@
+package ch.uzh.ifi.seal.changedistiller.treedifferencing;
+
+/*
+ * #%L
+ * ChangeDistiller
+ * %%
+ * Copyright (C) 2011 - 2013 Software Architecture and Evolution Lab, Department of Informatics, UZH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static ch.uzh.ifi.seal.changedistiller.model.classifiers.java.JavaEntityType.METHOD_INVOCATION;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class WhenLongestCommonSubsequencesAreCalculated {
+
+    private static final int UP = 1;
+    private static final int LEFT = 2;
+    private static final int DIAG = 3;
+
+    private LongestCommonSubsequence fLCS;
+    private MatchIndex fMatch;
+    private List<Node> fLeft;
+    private List<Node> fRight;
+
+    @Before
+    public void setup() throws Exception {
+        fLCS = new LongestCommonSubsequence();
+        fMatch = new MatchIndex();
+        fLeft = new ArrayList<Node>();
+        fRight = new ArrayList<Node>();
+    }
+
+    @Test
+    public void emptySequencesShouldHaveEmptySubsequence() throws Exception {
+        assertThat(fLCS.calculate(fLeft, fRight, fMatch).isEmpty(), is(true));
+    }
+
+    @Test
+    public void swappedNodesShouldKeepLeftmostNode() throws Exception {
+        createSequences(2);
+        match(0, 1);
+        match(1, 0);
+        List<NodePair> lcs = fLCS.calculate(fLeft, fRight, fMatch);
+        assertThat(lcs.size(), is(1));
+        assertThat(lcs.get(0).getLeft(), is(fLeft.get(0)));
+    }
+
+    @Test
+    public void subsequencesShouldEqualDynamicProgrammingTraceback() throws Exception {
+        Random random = new Random(42L);
+        for (int run = 0; run < 500; run++) {
+            setup();
+            int m = random.nextInt(30);
+            int n = random.nextInt(30);
+            createSequences(m, n);
+            List<Integer> positions = new ArrayList<Integer>();
+            for (int j = 0; j < n; j++) {
+                positions.add(j);
+            }
+            Collections.shuffle(positions, random);
+            for (int i = 0; (i < m) && (i < n); i++) {
+                if (random.nextInt(4) != 0) {
+                    match(i, positions.get(i));
+                }
+            }
+            assertThat(toSet(fLCS.calculate(fLeft, fRight, fMatch)), is(referenceLCS(fLeft, fRight)));
+        }
+    }
+
+    @Test
+    public void buffersShouldBeReusedAcrossCalls() throws Exception {
+        createSequences(100);
+        for (int i = 0; i < 100; i++) {
+            match(i, 99 - i);
+        }
+        assertThat(fLCS.calculate(fLeft, fRight, fMatch).size(), is(1));
+        setup();
+        createSequences(3);
+        match(0, 0);
+        match(2, 2);
+        assertThat(toSet(fLCS.calculate(fLeft, fRight, fMatch)), is(referenceLCS(fLeft, fRight)));
+    }
+
+    @Test
+    public void longSequencesShouldNotOverflow() throws Exception {
+        int size = 20000;
+        createSequences(size);
+        for (int i = 0; i < size; i++) {
+            match(i, (i + 1) % size);
+        }
+        List<NodePair> lcs = fLCS.calculate(fLeft, fRight, fMatch);
+        assertThat(lcs.size(), is(size - 1));
+        assertThat(toSet(lcs).contains(new NodePair(fLeft.get(size - 1), fRight.get(0))), is(false));
+    }
+
+    private void createSequences(int size) {
+        createSequences(size, size);
+    }
+
+    private void createSequences(int m, int n) {
+        for (int i = 0; i < m; i++) {
+            fLeft.add(new Node(METHOD_INVOCATION, "left" + i));
+        }
+        for (int j = 0; j < n; j++) {
+            fRight.add(new Node(METHOD_INVOCATION, "right" + j));
+        }
+    }
+
+    private void match(int left, int right) {
+        fMatch.add(fLeft.get(left), fRight.get(right));
+    }
+
+    private Set<NodePair> toSet(List<NodePair> pairs) {
+        return new HashSet<NodePair>(pairs);
+    }
+
+    // the dynamic programming solution with traceback TreeDifferencer used before
+    private Set<NodePair> referenceLCS(List<Node> left, List<Node> right) {
+        int m = left.size();
+        int n = right.size();
+        int[][] c = new int[m + 1][n + 1];
+        int[][] b = new int[m + 1][n + 1];
+        for (int i = 1; i <= m; i++) {
+            for (int j = 1; j <= n; j++) {
+                if (fMatch.contains(left.get(i - 1), right.get(j - 1))) {
+                    c[i][j] = c[i - 1][j - 1] + 1;
+                    b[i][j] = DIAG;
+                } else if (c[i - 1][j] >= c[i][j - 1]) {
+                    c[i][j] = c[i - 1][j];
+                    b[i][j] = UP;
+                } else {
+                    c[i][j] = c[i][j - 1];
+                    b[i][j] = LEFT;
+                }
+            }
+        }
+        Set<NodePair> result = new HashSet<NodePair>();
+        int i = m;
+        int j = n;
+        while ((i != 0) && (j != 0)) {
+            if (b[i][j] == DIAG) {
+                result.add(new NodePair(left.get(i - 1), right.get(j - 1)));
+                i--;
+                j--;
+            } else if (b[i][j] == UP) {
+                i--;
+            } else {
+                j--;
+            }
+        }
+        return result;
+    }
+
+}
@@ -0,0 +1,96 @@
+package ch.uzh.ifi.seal.changedistiller.treedifferencing;
+
+/*
+ * #%L
+ * ChangeDistiller
+ * %%
+ * Copyright (C) 2011 - 2013 Software Architecture and Evolution Lab, Department of Informatics, UZH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static ch.uzh.ifi.seal.changedistiller.model.classifiers.java.JavaEntityType.ASSIGNMENT;
+import static ch.uzh.ifi.seal.changedistiller.model.classifiers.java.JavaEntityType.METHOD_INVOCATION;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class WhenMatchesAreIndexed extends TreeDifferencingTestCase {
+
+    @Test
+    public void matchedPairShouldBeContainedInBothDirections() throws Exception {
+        Node left = addToLeft(METHOD_INVOCATION, "foo.bar();");
+        Node right = addToRight(METHOD_INVOCATION, "foo.bar();");
+        MatchIndex index = new MatchIndex();
+        index.add(left, right);
+        assertThat(index.contains(left, right), is(true));
+        assertThat(index.contains(right, left), is(true));
+        assertThat(index.getRightPartner(left), is(right));
+        assertThat(index.getLeftPartner(right), is(left));
+    }
+
+    @Test
+    public void unmatchedPairShouldNotBeContained() throws Exception {
+        Node left = addToLeft(METHOD_INVOCATION, "foo.bar();");
+        Node right = addToRight(METHOD_INVOCATION, "foo.bar();");
+        Node other = addToRight(ASSIGNMENT, "a = b;");
+        MatchIndex index = new MatchIndex();
+        index.add(left, right);
+        assertThat(index.contains(left, other), is(false));
+        assertThat(index.contains(left, null), is(false));
+        assertThat(index.contains(null, right), is(false));
+        assertThat(index.getRightPartner(fRootLeft), is(nullValue()));
+    }
+
+    @Test
+    public void nodesShouldBeKeyedByIdentity() throws Exception {
+        Node left = addToLeft(METHOD_INVOCATION, "foo.bar();");
+        Node right = addToRight(METHOD_INVOCATION, "foo.bar();");
+        Node equalRight = addToRight(METHOD_INVOCATION, "foo.bar();");
+        MatchIndex index = new MatchIndex();
+        index.add(left, right);
+        assertThat(index.contains(left, equalRight), is(false));
+    }
+
+    @Test
+    public void indexShouldContainMatchingSet() throws Exception {
+        Node left = addToLeft(METHOD_INVOCATION, "foo.bar();");
+        Node right = addToRight(METHOD_INVOCATION, "foo.bar();");
+        Set<NodePair> matching = new HashSet<NodePair>();
+        matching.add(new NodePair(fRootLeft, fRootRight));
+        matching.add(new NodePair(left, right));
+        MatchIndex index = new MatchIndex(matching);
+        assertThat(index.size(), is(2));
+        assertThat(index.contains(fRootLeft, fRootRight), is(true));
+        assertThat(index.contains(left, right), is(true));
+    }
+
+    @Test
+    public void copiedIndexShouldNotChangeOriginal() throws Exception {
+        Node left = addToLeft(METHOD_INVOCATION, "foo.bar();");
+        Node right = addToRight(METHOD_INVOCATION, "foo.bar();");
+        MatchIndex index = new MatchIndex();
+        MatchIndex copy = new MatchIndex(index);
+        copy.add(left, right);
+        assertThat(copy.contains(left, right), is(true));
+        assertThat(index.contains(left, right), is(false));
+        assertThat(index.size(), is(0));
+    }
+
+}
@@ -0,0 +1,132 @@
+package ch.uzh.ifi.seal.changedistiller.treedifferencing;
+
+/*
+ * #%L
+ * ChangeDistiller
+ * %%
+ * Copyright (C) 2011 - 2013 Software Architecture and Evolution Lab, Department of Informatics, UZH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import static ch.uzh.ifi.seal.changedistiller.model.classifiers.java.JavaEntityType.ASSIGNMENT;
+import static ch.uzh.ifi.seal.changedistiller.model.classifiers.java.JavaEntityType.IF_STATEMENT;
+import static ch.uzh.ifi.seal.changedistiller.model.classifiers.java.JavaEntityType.METHOD_INVOCATION;
+import static ch.uzh.ifi.seal.changedistiller.model.classifiers.java.JavaEntityType.THEN_STATEMENT;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.Enumeration;
+
+import org.junit.Test;
+
+public class WhenNodesAreLinked extends TreeDifferencingTestCase {
+
+    @Test
+    public void childrenShouldKnowTheirIndexAndSiblings() throws Exception {
+        Node a = addToLeft(ASSIGNMENT, "a");
+        Node b = addToLeft(ASSIGNMENT, "b");
+        Node c = addToLeft(ASSIGNMENT, "c");
+        assertThat(fRootLeft.getIndex(b), is(1));
+        assertThat(b.getPreviousSibling(), is(a));
+        assertThat(b.getNextSibling(), is(c));
+        assertThat(a.getPreviousSibling(), is(nullValue()));
+        assertThat(c.getNextSibling(), is(nullValue()));
+        assertThat(fRootLeft.getIndex(fRootRight), is(-1));
+    }
+
+    @Test
+    public void indicesShouldBeUpdatedOnInsertAndRemove() throws Exception {
+        Node a = addToLeft(ASSIGNMENT, "a");
+        Node c = addToLeft(ASSIGNMENT, "c");
+        Node b = new Node(ASSIGNMENT, "b");
+        fRootLeft.insert(b, 1);
+        assertThat(fRootLeft.getIndex(c), is(2));
+        a.removeFromParent();
+        assertThat(a.isRoot(), is(true));
+        assertThat(fRootLeft.getIndex(b), is(0));
+        assertThat(fRootLeft.getIndex(c), is(1));
+        assertThat(fRootLeft.getChildCount(), is(2));
+    }
+
+    @Test
+    public void insertedChildShouldBeRemovedFromPreviousParent() throws Exception {
+        Node a = addToLeft(ASSIGNMENT, "a");
+        addToLeft(ASSIGNMENT, "b");
+        fRootRight.add(a);
+        assertThat(fRootLeft.getChildCount(), is(1));
+        assertThat(a.getParent(), is(fRootRight));
+        fRootLeft.add(a);
+        fRootLeft.insert(a, 0);
+        assertThat(fRootLeft.getFirstChild(), is(a));
+        assertThat(fRootRight.isLeaf(), is(true));
+    }
+
+    @Test
+    public void traversalsShouldVisitNodesInOrder() throws Exception {
+        createTree();
+        assertThat(values(fRootLeft.preorderEnumeration()), is("method() if then foo() a = b;"));
+        assertThat(values(fRootLeft.postorderEnumeration()), is("foo() then if a = b; method()"));
+        assertThat(values(fRootLeft.breadthFirstEnumeration()), is("method() if a = b; then foo()"));
+        assertThat(fRootLeft.getLeafCount(), is(2));
+        assertThat(fRootLeft.getFirstLeaf().getValue(), is("foo()"));
+        assertThat(fRootLeft.getLastLeaf().getValue(), is("a = b;"));
+    }
+
+    @Test
+    public void traversalsShouldReflectChangedStructure() throws Exception {
+        Node ifStatement = createTree();
+        fRootLeft.getPreorder();
+        ifStatement.getPostorder();
+        addToNode(ifStatement, ASSIGNMENT, "c = d;");
+        assertThat(values(fRootLeft.preorderEnumeration()), is("method() if then foo() c = d; a = b;"));
+        assertThat(values(ifStatement.postorderEnumeration()), is("foo() then c = d; if"));
+        assertThat(fRootLeft.getLeafCount(), is(3));
+    }
+
+    @Test
+    public void cloneShouldNotBeLinked() throws Exception {
+        Node ifStatement = createTree();
+        Node clone = (Node) ifStatement.clone();
+        assertThat(clone.isRoot(), is(true));
+        assertThat(clone.isLeaf(), is(true));
+        assertThat(clone.getValue(), is("if"));
+        assertThat(ifStatement.getChildCount(), is(1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void ancestorShouldNotBeInserted() throws Exception {
+        Node ifStatement = createTree();
+        ifStatement.getFirstChild().add(fRootLeft);
+    }
+
+    private Node createTree() {
+        Node ifStatement = addToLeft(IF_STATEMENT, "if");
+        Node then = addToNode(ifStatement, THEN_STATEMENT, "then");
+        addToNode(then, METHOD_INVOCATION, "foo()");
+        addToLeft(ASSIGNMENT, "a = b;");
+        return ifStatement;
+    }
+
+    private String values(Enumeration<Node> nodes) {
+        StringBuilder sb = new StringBuilder();
+        while (nodes.hasMoreElements()) {
+            if (sb.length() > 0) {
+                sb.append(' ');
+            }
+            sb.append(nodes.nextElement().getValue());
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,161 @@
+package ch.uzh.ifi.seal.changedistiller.treedifferencing.matching;
+
+/*
+ * #%L
+ * ChangeDistiller
+ * %%
+ * Copyright (C) 2011 - 2013 Software Architecture and Evolution Lab, Department of Informatics, UZH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static ch.uzh.ifi.seal.changedistiller.model.classifiers.java.JavaEntityType.ASSIGNMENT;
+import static ch.uzh.ifi.seal.changedistiller.model.classifiers.java.JavaEntityType.IF_STATEMENT;
+import static ch.uzh.ifi.seal.changedistiller.model.classifiers.java.JavaEntityType.LINE_COMMENT;
+import static ch.uzh.ifi.seal.changedistiller.model.classifiers.java.JavaEntityType.METHOD_INVOCATION;
+import static ch.uzh.ifi.seal.changedistiller.model.classifiers.java.JavaEntityType.RETURN_STATEMENT;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import ch.uzh.ifi.seal.changedistiller.model.classifiers.EntityType;
+import ch.uzh.ifi.seal.changedistiller.treedifferencing.LeafPair;
+import ch.uzh.ifi.seal.changedistiller.treedifferencing.Node;
+import ch.uzh.ifi.seal.changedistiller.treedifferencing.TreeDifferencingTestCase;
+import ch.uzh.ifi.seal.changedistiller.treedifferencing.matching.measure.LevenshteinSimilarityCalculator;
+import ch.uzh.ifi.seal.changedistiller.treedifferencing.matching.measure.NGramsCalculator;
+import ch.uzh.ifi.seal.changedistiller.treedifferencing.matching.measure.StringSimilarityCalculator;
+import ch.uzh.ifi.seal.changedistiller.treedifferencing.matching.measure.TokenBasedCalculator;
+
+public class WhenLeafPairsAreCollected extends TreeDifferencingTestCase {
+
+    private static final EntityType[] LABELS = {METHOD_INVOCATION, ASSIGNMENT, RETURN_STATEMENT, LINE_COMMENT};
+    private static final String[] VALUES =
+            {"foo.bar();", "foo.bear();", "a = b;", "b = a;", "return b;", "return null;", "// todo", "// to do",
+                    "x", "", "i++;", "foo.bar(a, b);"};
+
+    private StringSimilarityCalculator fCalculator = new NGramsCalculator(2);
+    private StringSimilarityCalculator fCommentCalculator = new TokenBasedCalculator();
+
+    @Test
+    public void emptyTreesShouldProducePairOfRoots() throws Exception {
+        List<LeafPair> pairs = collect(0.6);
+        assertThat(pairs.size(), is(1));
+        assertThat(pairs.get(0).getLeft(), is(fRootLeft));
+        assertThat(pairs.get(0).getRight(), is(fRootRight));
+    }
+
+    @Test
+    public void duplicateValuesShouldProduceAllPairsInPostOrder() throws Exception {
+        Node left = addToLeft(METHOD_INVOCATION, "foo.bar();");
+        Node first = addToRight(METHOD_INVOCATION, "foo.bar();");
+        Node similar = addToRight(METHOD_INVOCATION, "foo.bear();");
+        Node second = addToRight(METHOD_INVOCATION, "foo.bar();");
+        List<LeafPair> pairs = collect(0.6);
+        assertThat(pairs.size(), is(3));
+        assertThat(pairs.get(0).getRight(), is(first));
+        assertThat(pairs.get(1).getRight(), is(similar));
+        assertThat(pairs.get(2).getRight(), is(second));
+        assertThat(pairs.get(0).getLeft(), is(left));
+        assertThat(pairs.get(0).getSimilarity(), is(1.0));
+    }
+
+    @Test
+    public void pairsShouldEqualPairsOfExhaustiveComparison() throws Exception {
+        Random random = new Random(42L);
+        for (int run = 0; run < 200; run++) {
+            setup();
+            createRandomTree(fRootLeft, random);
+            createRandomTree(fRootRight, random);
+            double threshold = random.nextDouble();
+            assertSamePairs(collect(threshold), exhaustiveComparison(threshold));
+        }
+    }
+
+    @Test
+    public void pairsOfLevenshteinShouldEqualPairsOfExhaustiveComparison() throws Exception {
+        fCalculator = new LevenshteinSimilarityCalculator();
+        Random random = new Random(7L);
+        for (int run = 0; run < 200; run++) {
+            setup();
+            createRandomTree(fRootLeft, random);
+            createRandomTree(fRootRight, random);
+            double threshold = random.nextDouble();
+            assertSamePairs(collect(threshold), exhaustiveComparison(threshold));
+        }
+    }
+
+    private void createRandomTree(Node root, Random random) {
+        int size = random.nextInt(40);
+        for (int i = 0; i < size; i++) {
+            Node parent = root;
+            if (random.nextInt(5) == 0) {
+                parent = addToNode(root, IF_STATEMENT, "a != b");
+            }
+            String value = VALUES[random.nextInt(VALUES.length)];
+            if (random.nextBoolean()) {
+                value += random.nextInt(10);
+            }
+            addToNode(parent, LABELS[random.nextInt(LABELS.length)], value);
+        }
+    }
+
+    private List<LeafPair> collect(double threshold) {
+        return new LeafMatcher(fCalculator, threshold, fCommentCalculator, 0.4).match(fRootLeft, fRootRight);
+    }
+
+    private void assertSamePairs(List<LeafPair> actual, List<LeafPair> expected) {
+        assertThat(actual.size(), is(expected.size()));
+        for (int i = 0; i < expected.size(); i++) {
+            assertThat(actual.get(i).getLeft(), is(expected.get(i).getLeft()));
+            assertThat(actual.get(i).getRight(), is(expected.get(i).getRight()));
+            assertThat(actual.get(i).getSimilarity(), is(expected.get(i).getSimilarity()));
+        }
+    }
+
+    // the nested post-order loops BestLeafTreeMatcher used before
+    @SuppressWarnings("unchecked")
+    private List<LeafPair> exhaustiveComparison(double threshold) {
+        List<LeafPair> result = new ArrayList<LeafPair>();
+        for (Enumeration<Node> leftNodes = fRootLeft.postorderEnumeration(); leftNodes.hasMoreElements();) {
+            Node x = leftNodes.nextElement();
+            if (x.isLeaf()) {
+                for (Enumeration<Node> rightNodes = fRootRight.postorderEnumeration(); rightNodes.hasMoreElements();) {
+                    Node y = rightNodes.nextElement();
+                    if (y.isLeaf() && (x.getLabel() == y.getLabel())) {
+                        if (x.getLabel().isComment()) {
+                            double similarity = fCommentCalculator.calculateSimilarity(x.getValue(), y.getValue());
+                            if (similarity >= 0.4) {
+                                result.add(new LeafPair(x, y, similarity));
+                            }
+                        } else {
+                            double similarity = fCalculator.calculateSimilarity(x.getValue(), y.getValue());
+                            if (similarity >= threshold) {
+                                result.add(new LeafPair(x, y, similarity));
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+}
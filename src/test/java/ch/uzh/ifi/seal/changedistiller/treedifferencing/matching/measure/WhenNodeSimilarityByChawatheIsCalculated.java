@@ -0,0 +1,128 @@
+package ch.uzh.ifi.seal.changedistiller.treedifferencing.matching.measure;
+
+/*
+ * #%L
+ * ChangeDistiller
+ * %%
+ * Copyright (C) 2011 - 2013 Software Architecture and Evolution Lab, Department of Informatics, UZH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static ch.uzh.ifi.seal.changedistiller.model.classifiers.java.JavaEntityType.ASSIGNMENT;
+import static ch.uzh.ifi.seal.changedistiller.model.classifiers.java.JavaEntityType.IF_STATEMENT;
+import static ch.uzh.ifi.seal.changedistiller.model.classifiers.java.JavaEntityType.LINE_COMMENT;
+import static ch.uzh.ifi.seal.changedistiller.model.classifiers.java.JavaEntityType.METHOD_INVOCATION;
+import static ch.uzh.ifi.seal.changedistiller.model.classifiers.java.JavaEntityType.WHILE_STATEMENT;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+import ch.uzh.ifi.seal.changedistiller.model.classifiers.EntityType;
+import ch.uzh.ifi.seal.changedistiller.treedifferencing.LeafPair;
+import ch.uzh.ifi.seal.changedistiller.treedifferencing.Node;
+import ch.uzh.ifi.seal.changedistiller.treedifferencing.NodePair;
+import ch.uzh.ifi.seal.changedistiller.treedifferencing.TreeDifferencingTestCase;
+
+public class WhenNodeSimilarityByChawatheIsCalculated extends TreeDifferencingTestCase {
+
+    private static final EntityType[] LEAF_LABELS = {METHOD_INVOCATION, ASSIGNMENT, LINE_COMMENT};
+
+    @Test
+    public void nodesWithAllLeafsMatchedShouldBeEqual() throws Exception {
+        Node whileLeft = addToLeft(WHILE_STATEMENT, "i < length");
+        Node whileRight = addToRight(WHILE_STATEMENT, "i < length");
+        Set<NodePair> matching = new HashSet<NodePair>();
+        matching.add(new LeafPair(addToNode(whileLeft, METHOD_INVOCATION, "foo.bar();"), addToNode(
+                whileRight,
+                METHOD_INVOCATION,
+                "foo.bar();")));
+        matching.add(new LeafPair(addToNode(whileLeft, ASSIGNMENT, "a = b;"), addToNode(
+                whileRight,
+                ASSIGNMENT,
+                "a = b;")));
+        addToNode(whileRight, LINE_COMMENT, "// comment");
+        ChawatheCalculator calculator = createCalculator(matching);
+        assertThat(calculator.calculateSimilarity(whileLeft, whileRight), is(1.0));
+    }
+
+    @Test
+    public void preparedSimilarityShouldEqualSimilarityOfLeafMatchScan() throws Exception {
+        Random random = new Random(42L);
+        for (int run = 0; run < 100; run++) {
+            setup();
+            List<Node> leftLeafs = createRandomTree(fRootLeft, random);
+            List<Node> rightLeafs = createRandomTree(fRootRight, random);
+            Set<NodePair> matching = new HashSet<NodePair>();
+            for (Node leaf : leftLeafs) {
+                if (!rightLeafs.isEmpty() && random.nextBoolean()) {
+                    matching.add(new LeafPair(leaf, rightLeafs.remove(random.nextInt(rightLeafs.size()))));
+                }
+            }
+            ChawatheCalculator scanning = new ChawatheCalculator();
+            scanning.setLeafMatchSet(matching);
+            ChawatheCalculator prepared = createCalculator(matching);
+            for (Node x : nodes(fRootLeft)) {
+                for (Node y : nodes(fRootRight)) {
+                    assertThat(
+                            Double.compare(
+                                    prepared.calculateSimilarity(x, y),
+                                    scanning.calculateSimilarity(x, y)),
+                            is(0));
+                }
+            }
+        }
+    }
+
+    private ChawatheCalculator createCalculator(Set<NodePair> matching) {
+        ChawatheCalculator calculator = new ChawatheCalculator();
+        calculator.setLeafMatchSet(matching);
+        calculator.prepare(fRootLeft, fRootRight);
+        return calculator;
+    }
+
+    private List<Node> createRandomTree(Node root, Random random) {
+        List<Node> leafs = new ArrayList<Node>();
+        List<Node> parents = new ArrayList<Node>();
+        parents.add(root);
+        int size = random.nextInt(30);
+        for (int i = 0; i < size; i++) {
+            Node parent = parents.get(random.nextInt(parents.size()));
+            if (random.nextInt(4) == 0) {
+                parents.add(addToNode(parent, IF_STATEMENT, "a != b"));
+            } else {
+                leafs.add(addToNode(parent, LEAF_LABELS[random.nextInt(LEAF_LABELS.length)], "leaf" + i));
+            }
+        }
+        return leafs;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Node> nodes(Node root) {
+        List<Node> nodes = new ArrayList<Node>();
+        for (Enumeration<Node> e = root.preorderEnumeration(); e.hasMoreElements();) {
+            nodes.add(e.nextElement());
+        }
+        return nodes;
+    }
+
+}
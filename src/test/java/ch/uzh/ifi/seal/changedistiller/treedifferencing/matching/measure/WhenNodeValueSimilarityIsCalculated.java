@@ -0,0 +1,90 @@
+package ch.uzh.ifi.seal.changedistiller.treedifferencing.matching.measure;
+
+/*
+ * #%L
+ * ChangeDistiller
+ * %%
+ * Copyright (C) 2011 - 2013 Software Architecture and Evolution Lab, Department of Informatics, UZH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import ch.uzh.ifi.seal.changedistiller.model.classifiers.java.JavaEntityType;
+import ch.uzh.ifi.seal.changedistiller.treedifferencing.Node;
+import ch.uzh.ifi.seal.changedistiller.treedifferencing.ValueProfile;
+
+public class WhenNodeValueSimilarityIsCalculated {
+
+    private static final String[] WORDS =
+            {"foo", "bar", "foo.bar();", "//", "// ", "/*", "*/", "/**", " ", "  ", "a", "=", "b;", "", "\t"};
+
+    @Test
+    public void profileShouldBeCachedUntilValueIsSet() throws Exception {
+        Node node = new Node(JavaEntityType.METHOD_INVOCATION, "foo.bar();");
+        ValueProfile profile = node.getValueProfile();
+        assertThat(node.getValueProfile(), is(sameInstance(profile)));
+        node.setValue("foo.beer();");
+        assertThat(node.getValueProfile(), is(not(sameInstance(profile))));
+        assertThat(node.getValueProfile().getValue(), is("foo.beer();"));
+    }
+
+    @Test
+    public void clonedNodeShouldNotShareProfile() throws Exception {
+        Node node = new Node(JavaEntityType.METHOD_INVOCATION, "foo.bar();");
+        ValueProfile profile = node.getValueProfile();
+        Node clone = (Node) node.clone();
+        assertThat(clone.getValueProfile(), is(not(sameInstance(profile))));
+    }
+
+    @Test
+    public void similarityOfNodesShouldEqualSimilarityOfValues() throws Exception {
+        assertSameSimilarities(new NGramsCalculator(2), new Random(1L));
+        assertSameSimilarities(new NGramsCalculator(3), new Random(2L));
+        assertSameSimilarities(new NGramsCalculator(5), new Random(3L));
+        assertSameSimilarities(new TokenBasedCalculator(), new Random(4L));
+        assertSameSimilarities(new LevenshteinSimilarityCalculator(), new Random(5L));
+    }
+
+    private void assertSameSimilarities(StringSimilarityCalculator calculator, Random random) {
+        Node[] nodes = new Node[40];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = new Node(JavaEntityType.LINE_COMMENT, randomValue(random));
+        }
+        for (Node left : nodes) {
+            for (Node right : nodes) {
+                double expected = calculator.calculateSimilarity(left.getValue(), right.getValue());
+                assertThat(Double.compare(calculator.calculateSimilarity(left, right), expected), is(0));
+            }
+        }
+    }
+
+    private String randomValue(Random random) {
+        StringBuilder result = new StringBuilder();
+        int length = random.nextInt(8);
+        for (int i = 0; i < length; i++) {
+            result.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return result.toString();
+    }
+
+}
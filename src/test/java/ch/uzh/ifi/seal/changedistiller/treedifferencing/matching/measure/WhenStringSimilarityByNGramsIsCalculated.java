@@ -20,6 +20,15 @@ package ch.uzh.ifi.seal.changedistiller.treedifferencing.matching.measure;
  * #L%
  */
 
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
 import ch.uzh.ifi.seal.changedistiller.treedifferencing.matching.measure.NGramsCalculator;
 
 public class WhenStringSimilarityByNGramsIsCalculated extends WhenStringSimilarityIsCalculated {
@@ -29,4 +38,51 @@ public class WhenStringSimilarityByNGramsIsCalculated extends WhenStringSimilari
         return new NGramsCalculator(2).calculateSimilarity(left, right);
     }
 
+    @Test
+    public void stringsShorterThanNShouldNotBeSimilar() throws Exception {
+        assertThat(Double.isNaN(calculateSimilarity("a", "b")), is(true));
+        assertThat(calculateSimilarity("a", "ab"), is(0.0));
+    }
+
+    @Test
+    public void similarityShouldEqualSimilarityOfNGramSets() throws Exception {
+        Random random = new Random(42L);
+        String alphabet = "ab(); =\u00e4\uffff";
+        for (int n = 1; n <= 6; n++) {
+            NGramsCalculator calculator = new NGramsCalculator(n);
+            for (int run = 0; run < 500; run++) {
+                String left = randomString(random, alphabet);
+                String right = randomString(random, alphabet);
+                double expected = left.equals(right) ? 1.0 : setSimilarity(left, right, n);
+                assertThat(Double.compare(calculator.calculateSimilarity(left, right), expected), is(0));
+                assertThat(calculator.calculateSize(left), is(createNGrams(left, n).size()));
+            }
+        }
+    }
+
+    private String randomString(Random random, String alphabet) {
+        StringBuilder result = new StringBuilder();
+        int length = random.nextInt(100);
+        for (int i = 0; i < length; i++) {
+            result.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return result.toString();
+    }
+
+    private double setSimilarity(String left, String right, int n) {
+        Set<String> leftNGrams = createNGrams(left, n);
+        Set<String> rightNGrams = createNGrams(right, n);
+        int union = leftNGrams.size() + rightNGrams.size();
+        leftNGrams.retainAll(rightNGrams);
+        return leftNGrams.size() * 2.0 / union;
+    }
+
+    private Set<String> createNGrams(String string, int n) {
+        Set<String> ngrams = new HashSet<String>();
+        for (int i = 0; i < string.length() - (n - 1); i++) {
+            ngrams.add(string.substring(i, i + n));
+        }
+        return ngrams;
+    }
+
 }